@@ -7,20 +7,32 @@ import com.google.inject.Injector;
 import com.mambu.apisdk.exception.MambuApiException;
 import com.mambu.apisdk.services.AccountingService;
 import com.mambu.apisdk.services.ActivitiesService;
+import com.mambu.apisdk.services.ClientPortfolioService;
 import com.mambu.apisdk.services.ClientsService;
 import com.mambu.apisdk.services.CommentsService;
+import com.mambu.apisdk.services.CustomFieldValueBatchService;
 import com.mambu.apisdk.services.CustomFieldValueService;
+import com.mambu.apisdk.services.CustomViewExportService;
 import com.mambu.apisdk.services.CustomViewsService;
+import com.mambu.apisdk.services.DocumentTemplateBatchService;
 import com.mambu.apisdk.services.DocumentTemplatesService;
 import com.mambu.apisdk.services.DocumentsService;
+import com.mambu.apisdk.services.GLJournalExtractService;
+import com.mambu.apisdk.services.GLJournalImportService;
+import com.mambu.apisdk.services.IndicatorsSnapshotService;
 import com.mambu.apisdk.services.IntelligenceService;
 import com.mambu.apisdk.services.LinesOfCreditService;
+import com.mambu.apisdk.services.LoanScheduleQuoteService;
 import com.mambu.apisdk.services.LoansService;
 import com.mambu.apisdk.services.OrganizationService;
+import com.mambu.apisdk.services.RepaymentsDueScanService;
 import com.mambu.apisdk.services.RepaymentsService;
 import com.mambu.apisdk.services.SavingsService;
 import com.mambu.apisdk.services.SearchService;
+import com.mambu.apisdk.services.StreamingSearchService;
+import com.mambu.apisdk.services.TaskBulkService;
 import com.mambu.apisdk.services.TasksService;
+import com.mambu.apisdk.services.UserDirectoryService;
 import com.mambu.apisdk.services.UsersService;
 
 /**
@@ -282,6 +294,150 @@ public class MambuAPIFactory {
 		return injector.getInstance(DocumentTemplatesService.class);
 	}
 
+	/***
+	 * Get an instance of the ClientPortfolioService class
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public static ClientPortfolioService getClientPortfolioService() throws MambuApiException {
+		validateFactorySetUp();
+		return injector.getInstance(ClientPortfolioService.class);
+	}
+
+	/***
+	 * Get an instance of the CustomFieldValueBatchService class
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public static CustomFieldValueBatchService getCustomFieldValueBatchService() throws MambuApiException {
+		validateFactorySetUp();
+		return injector.getInstance(CustomFieldValueBatchService.class);
+	}
+
+	/***
+	 * Get an instance of the StreamingSearchService class
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public static StreamingSearchService getStreamingSearchService() throws MambuApiException {
+		validateFactorySetUp();
+		return injector.getInstance(StreamingSearchService.class);
+	}
+
+	/***
+	 * Get an instance of the LoanScheduleQuoteService class
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public static LoanScheduleQuoteService getLoanScheduleQuoteService() throws MambuApiException {
+		validateFactorySetUp();
+		return injector.getInstance(LoanScheduleQuoteService.class);
+	}
+
+	/***
+	 * Get an instance of the DocumentTemplateBatchService class
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public static DocumentTemplateBatchService getDocumentTemplateBatchService() throws MambuApiException {
+		validateFactorySetUp();
+		return injector.getInstance(DocumentTemplateBatchService.class);
+	}
+
+	/***
+	 * Get an instance of the IndicatorsSnapshotService class
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public static IndicatorsSnapshotService getIndicatorsSnapshotService() throws MambuApiException {
+		validateFactorySetUp();
+		return injector.getInstance(IndicatorsSnapshotService.class);
+	}
+
+	/***
+	 * Get an instance of the GLJournalImportService class
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public static GLJournalImportService getGLJournalImportService() throws MambuApiException {
+		validateFactorySetUp();
+		return injector.getInstance(GLJournalImportService.class);
+	}
+
+	/***
+	 * Get an instance of the GLJournalExtractService class
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public static GLJournalExtractService getGLJournalExtractService() throws MambuApiException {
+		validateFactorySetUp();
+		return injector.getInstance(GLJournalExtractService.class);
+	}
+
+	/***
+	 * Get an instance of the RepaymentsDueScanService class
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public static RepaymentsDueScanService getRepaymentsDueScanService() throws MambuApiException {
+		validateFactorySetUp();
+		return injector.getInstance(RepaymentsDueScanService.class);
+	}
+
+	/***
+	 * Get an instance of the CustomViewExportService class
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public static CustomViewExportService getCustomViewExportService() throws MambuApiException {
+		validateFactorySetUp();
+		return injector.getInstance(CustomViewExportService.class);
+	}
+
+	/***
+	 * Get an instance of the UserDirectoryService class
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public static UserDirectoryService getUserDirectoryService() throws MambuApiException {
+		validateFactorySetUp();
+		return injector.getInstance(UserDirectoryService.class);
+	}
+
+	/***
+	 * Get an instance of the TaskBulkService class
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public static TaskBulkService getTaskBulkService() throws MambuApiException {
+		validateFactorySetUp();
+		return injector.getInstance(TaskBulkService.class);
+	}
+
 	//
 	/***
 	 * Setter for an Application Key
@@ -5,20 +5,32 @@ import com.google.inject.Injector;
 import com.mambu.apisdk.exception.MambuApiException;
 import com.mambu.apisdk.services.AccountingService;
 import com.mambu.apisdk.services.ActivitiesService;
+import com.mambu.apisdk.services.ClientPortfolioService;
 import com.mambu.apisdk.services.ClientsService;
 import com.mambu.apisdk.services.CommentsService;
+import com.mambu.apisdk.services.CustomFieldValueBatchService;
 import com.mambu.apisdk.services.CustomFieldValueService;
+import com.mambu.apisdk.services.CustomViewExportService;
 import com.mambu.apisdk.services.CustomViewsService;
+import com.mambu.apisdk.services.DocumentTemplateBatchService;
 import com.mambu.apisdk.services.DocumentTemplatesService;
 import com.mambu.apisdk.services.DocumentsService;
+import com.mambu.apisdk.services.GLJournalExtractService;
+import com.mambu.apisdk.services.GLJournalImportService;
+import com.mambu.apisdk.services.IndicatorsSnapshotService;
 import com.mambu.apisdk.services.IntelligenceService;
 import com.mambu.apisdk.services.LinesOfCreditService;
+import com.mambu.apisdk.services.LoanScheduleQuoteService;
 import com.mambu.apisdk.services.LoansService;
 import com.mambu.apisdk.services.OrganizationService;
+import com.mambu.apisdk.services.RepaymentsDueScanService;
 import com.mambu.apisdk.services.RepaymentsService;
 import com.mambu.apisdk.services.SavingsService;
 import com.mambu.apisdk.services.SearchService;
+import com.mambu.apisdk.services.StreamingSearchService;
+import com.mambu.apisdk.services.TaskBulkService;
 import com.mambu.apisdk.services.TasksService;
+import com.mambu.apisdk.services.UserDirectoryService;
 import com.mambu.apisdk.services.UsersService;
 
 /**
@@ -250,4 +262,136 @@ public final class MambuAPIServiceFactory {
 		return injector.getInstance(DocumentTemplatesService.class);
 	}
 
+	/***
+	 * Get an instance of the ClientPortfolioService class
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public ClientPortfolioService getClientPortfolioService() throws MambuApiException {
+		return injector.getInstance(ClientPortfolioService.class);
+	}
+
+	/***
+	 * Get an instance of the CustomFieldValueBatchService class
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public CustomFieldValueBatchService getCustomFieldValueBatchService() throws MambuApiException {
+		return injector.getInstance(CustomFieldValueBatchService.class);
+	}
+
+	/***
+	 * Get an instance of the StreamingSearchService class
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public StreamingSearchService getStreamingSearchService() throws MambuApiException {
+		return injector.getInstance(StreamingSearchService.class);
+	}
+
+	/***
+	 * Get an instance of the LoanScheduleQuoteService class
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public LoanScheduleQuoteService getLoanScheduleQuoteService() throws MambuApiException {
+		return injector.getInstance(LoanScheduleQuoteService.class);
+	}
+
+	/***
+	 * Get an instance of the DocumentTemplateBatchService class
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public DocumentTemplateBatchService getDocumentTemplateBatchService() throws MambuApiException {
+		return injector.getInstance(DocumentTemplateBatchService.class);
+	}
+
+	/***
+	 * Get an instance of the IndicatorsSnapshotService class
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public IndicatorsSnapshotService getIndicatorsSnapshotService() throws MambuApiException {
+		return injector.getInstance(IndicatorsSnapshotService.class);
+	}
+
+	/***
+	 * Get an instance of the GLJournalImportService class
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public GLJournalImportService getGLJournalImportService() throws MambuApiException {
+		return injector.getInstance(GLJournalImportService.class);
+	}
+
+	/***
+	 * Get an instance of the GLJournalExtractService class
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public GLJournalExtractService getGLJournalExtractService() throws MambuApiException {
+		return injector.getInstance(GLJournalExtractService.class);
+	}
+
+	/***
+	 * Get an instance of the RepaymentsDueScanService class
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public RepaymentsDueScanService getRepaymentsDueScanService() throws MambuApiException {
+		return injector.getInstance(RepaymentsDueScanService.class);
+	}
+
+	/***
+	 * Get an instance of the CustomViewExportService class
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public CustomViewExportService getCustomViewExportService() throws MambuApiException {
+		return injector.getInstance(CustomViewExportService.class);
+	}
+
+	/***
+	 * Get an instance of the UserDirectoryService class
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public UserDirectoryService getUserDirectoryService() throws MambuApiException {
+		return injector.getInstance(UserDirectoryService.class);
+	}
+
+	/***
+	 * Get an instance of the TaskBulkService class
+	 * 
+	 * @return the obtained instance
+	 * 
+	 * @throws MambuApiException
+	 */
+	public TaskBulkService getTaskBulkService() throws MambuApiException {
+		return injector.getInstance(TaskBulkService.class);
+	}
+
 }
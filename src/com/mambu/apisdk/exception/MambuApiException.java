@@ -1,5 +1,8 @@
 package com.mambu.apisdk.exception;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * Encapsulation for exceptions which may occur when calling Mambu APIs
  * 
@@ -10,11 +13,32 @@ public class MambuApiException extends Exception {
 
 	private static final long serialVersionUID = 1L;
 
+	// Readable names of the wrapped exception classes. Example: "Socket Timeout Exception"
+	private final static ConcurrentMap<Class<?>, String> exceptionClassNames;
+	static {
+		exceptionClassNames = new ConcurrentHashMap<Class<?>, String>();
+	}
+
 	Integer errorCode;
 	String errorMessage;
+	// Mambu response message, parsed from the error message when first requested
+	private transient MambuApiResponseMessage responseMessage;
 
 	public MambuApiException(Exception e) {
-		super(e);
+		this(e, true);
+	}
+
+	/***
+	 * Create exception wrapping another exception, for example an IOException
+	 * 
+	 * @param e
+	 *            wrapped exception
+	 * @param writableStackTrace
+	 *            false to not fill in the stack trace of this exception, which is costly when many requests fail. The
+	 *            stack trace of the wrapped exception is still available
+	 */
+	public MambuApiException(Exception e, boolean writableStackTrace) {
+		super(e.toString(), e, true, writableStackTrace);
 		errorCode = -1;
 		errorMessage = "";
 
@@ -29,26 +53,27 @@ public class MambuApiException extends Exception {
 
 	private String getExceptionClassName(Exception e) {
 
-		String className = new String();
-		String classNameMessage = new String("");
-
 		Class<? extends Exception> eClass = e.getClass();
+		String classNameMessage = exceptionClassNames.get(eClass);
+		if (classNameMessage != null) {
+			return classNameMessage;
+		}
+		classNameMessage = "";
 
-		if (eClass != null) {
-
-			className = eClass.getSimpleName();
-			String words[] = className.split("(?=[A-Z])"); // Split Name by Upper Case for readability
+		String className = eClass.getSimpleName();
+		String words[] = className.split("(?=[A-Z])"); // Split Name by Upper Case for readability
 
-			// put the Name back together, now with spaces between words
-			for (int i = 0; i < words.length; i++) {
-				String word = words[i];
-				if (i > 0 && word.length() > 1)
-					classNameMessage = classNameMessage.concat(" ");
-				classNameMessage = classNameMessage.concat(word);
-			}
+		// put the Name back together, now with spaces between words
+		for (int i = 0; i < words.length; i++) {
+			String word = words[i];
+			if (i > 0 && word.length() > 1)
+				classNameMessage = classNameMessage.concat(" ");
+			classNameMessage = classNameMessage.concat(word);
 		}
+		classNameMessage = classNameMessage.trim();
+		exceptionClassNames.putIfAbsent(eClass, classNameMessage);
 
-		return classNameMessage.trim();
+		return classNameMessage;
 	}
 
 	public MambuApiException(Integer errorCode, String errorMessage) {
@@ -57,11 +82,30 @@ public class MambuApiException extends Exception {
 		this.errorMessage = errorMessage;
 	}
 
+	/***
+	 * Create exception for an API error response
+	 * 
+	 * @param errorCode
+	 *            HTTP error code
+	 * @param errorMessage
+	 *            error message, usually the Mambu response message. It is parsed only if requested with
+	 *            getResponseMessage()
+	 * @param writableStackTrace
+	 *            false to not fill in the stack trace, which is costly when many requests fail. Example: when
+	 *            requests are throttled or rejected by validation in a large batch
+	 */
+	public MambuApiException(Integer errorCode, String errorMessage, boolean writableStackTrace) {
+		super(null, null, true, writableStackTrace);
+		this.errorCode = errorCode;
+		this.errorMessage = errorMessage;
+	}
+
 	// Create new exception using MambuApiResponseMessage object and the HTTP error code
 	public MambuApiException(Integer errorCode, MambuApiResponseMessage responseMessage) {
 		super();
 		this.errorCode = errorCode;
 		this.errorMessage = responseMessage.getMambuResponseMessage();
+		this.responseMessage = responseMessage;
 	}
 
 	public Integer getErrorCode() {
@@ -78,6 +122,22 @@ public class MambuApiException extends Exception {
 
 	public void setErrorMessage(String errorMessage) {
 		this.errorMessage = errorMessage;
+		this.responseMessage = null;
+	}
+
+	/***
+	 * Get Mambu response message (returnCode, returnStatus and errorSource) from the error message. The error message
+	 * is parsed on the first call only
+	 * 
+	 * @return response message. Its return code is -1 if the error message is not a Mambu response message
+	 */
+	public MambuApiResponseMessage getResponseMessage() {
+		MambuApiResponseMessage message = responseMessage;
+		if (message == null) {
+			message = new MambuApiResponseMessage(errorMessage);
+			responseMessage = message;
+		}
+		return message;
 	}
 
 	@Override
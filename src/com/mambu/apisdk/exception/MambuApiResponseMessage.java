@@ -1,5 +1,6 @@
 package com.mambu.apisdk.exception;
 
+import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import com.mambu.apisdk.util.GsonUtils;
 
@@ -21,6 +22,9 @@ import com.mambu.apisdk.util.GsonUtils;
 
 public class MambuApiResponseMessage {
 
+	// Gson is thread safe and is created once for parsing and formatting all response messages
+	private final static Gson gson = GsonUtils.createGson();
+
 	private int returnCode;
 	private String returnStatus;
 	private String errorSource;
@@ -57,8 +61,7 @@ public class MambuApiResponseMessage {
 
 		try {
 
-			obj = (MambuApiResponseMessage) GsonUtils.createGson().fromJson(mambuResponse,
-					MambuApiResponseMessage.class);
+			obj = gson.fromJson(mambuResponse, MambuApiResponseMessage.class);
 
 		} catch (JsonSyntaxException e) {
 			returnCode = -1;
@@ -66,6 +69,10 @@ public class MambuApiResponseMessage {
 			errorSource = "";
 			return;
 		}
+		if (obj == null) {
+			// Empty response
+			return;
+		}
 
 		returnCode = obj.returnCode;
 		returnStatus = obj.returnStatus;
@@ -75,9 +82,10 @@ public class MambuApiResponseMessage {
 
 	// Constructor with Mambu Api exception.
 	// Given Mambu's APIexception the application can convert it into a MambuApiResponseMessage object
+	// The exception parses its message only once, see MambuApiException.getResponseMessage()
 	public MambuApiResponseMessage(MambuApiException e) {
 
-		this(e.getMessage());
+		this(e.getResponseMessage());
 
 	}
 
@@ -102,7 +110,7 @@ public class MambuApiResponseMessage {
 
 	// Get the json error message back. Creates a formatted message which can be used for throwing API exceptions
 	public String getMambuResponseMessage() {
-		String jsonResponse = GsonUtils.createGson().toJson(this, MambuApiResponseMessage.class);
+		String jsonResponse = gson.toJson(this, MambuApiResponseMessage.class);
 		return jsonResponse;
 
 	}
@@ -0,0 +1,23 @@
+package com.mambu.apisdk.exception;
+
+/**
+ * Unchecked wrapper for MambuApiException. Used where API calls are made from methods which cannot throw checked
+ * exceptions, for example when API results are retrieved lazily by an {@link java.util.Iterator}
+ */
+public class MambuApiRuntimeException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public MambuApiRuntimeException(MambuApiException cause) {
+		super(cause.getMessage(), cause);
+	}
+
+	/**
+	 * Get the original API exception
+	 *
+	 * @return Mambu API exception
+	 */
+	public MambuApiException getMambuApiException() {
+		return (MambuApiException) getCause();
+	}
+}
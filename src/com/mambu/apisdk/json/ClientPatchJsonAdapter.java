@@ -0,0 +1,95 @@
+package com.mambu.apisdk.json;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.mambu.apisdk.util.APIData;
+import com.mambu.apisdk.util.GsonUtils;
+import com.mambu.clients.shared.model.Client;
+import com.mambu.core.shared.model.ClientRole;
+
+/**
+ * ClientPatchJsonAdapter implements custom JSON TypeAdapter for PATCH Client API requests. It specifies PATCH API
+ * fields inclusion strategy as well as providing custom JSON formating as expected by Mambu API specification for this
+ * API
+ * 
+ * The allowed fields are written directly to the JSON stream by a writer created once for this class
+ * 
+ * For more details on Mambu PATCH Client API specification see MBU-11443, MBU-11868 and {@link https
+ * ://developer.mambu.com/customer/en/portal/articles/1617472-clients-api}
+ */
+public class ClientPatchJsonAdapter extends TypeAdapter<Client> {
+
+	/**
+	 * A list of fields supported by PATCH Client API. See MBU-11443, MBU-11868
+	 * 
+	 * As of Mambu 4.1 the following fields can be patched: id, clientRoleId, firstName, lastName, middleName,
+	 * homePhone, mobilePhone1, birthDate, emailAddress, gender, state, notes, preferredLanguage
+	 * 
+	 */
+	private final static Set<String> clientPatchFields = new HashSet<String>(Arrays.asList(APIData.ID,
+			APIData.FIRST_NAME, APIData.LAST_NAME, APIData.MIDDLE_NAME, APIData.HOME_PHONE, APIData.MOBILE_PHONE_1,
+			APIData.EMAIL_ADDRESS, APIData.BIRTH_DATE, APIData.GENDER, APIData.STATE, APIData.NOTES,
+			APIData.PREFERRED_LANGUAGE));
+
+	// Create API Fields InclusionStrategy
+	private final static JsonFieldsInclusionStrategy clientPatchInclusionStrategy = new JsonFieldsInclusionStrategy(
+			Client.class, clientPatchFields);
+
+	// Gson for the field values
+	private final static Gson clientPatchGson = GsonUtils.createGsonBuilder()
+			.addSerializationExclusionStrategy(clientPatchInclusionStrategy).create();
+	private final static JsonFieldsWriter clientWriter = new JsonFieldsWriter(clientPatchGson, Client.class,
+			clientPatchFields);
+
+	public ClientPatchJsonAdapter() {
+
+	}
+
+	// Write allowed Client fields and the Client Role ID field
+	@Override
+	public void write(JsonWriter out, Client client) throws IOException {
+		if (client == null) {
+			out.nullValue();
+			return;
+		}
+		// Send as "client:{client fields}" as per Mambu API specification
+		out.beginObject();
+		out.name(APIData.CLIENT);
+		out.beginObject();
+		clientWriter.writeFields(out, client);
+		// ClientRole in this PATCH API is not sent as a clientRole:{encodedKey:"12"}. Mambu expects it in a format:
+		// "clientRoleId":"12"
+		writePatchClientRole(out, client.getClientRole());
+		out.endObject();
+		out.endObject();
+	}
+
+	/**
+	 * Write ClientRole ID field: ClientRole's encoded key must be specified in a separate field, "clientRoleId" field.
+	 * See MBU-11868
+	 * 
+	 * @param out
+	 *            JSON writer
+	 * @param clientRole
+	 *            client role. Can be null
+	 * @throws IOException
+	 */
+	private void writePatchClientRole(JsonWriter out, ClientRole clientRole) throws IOException {
+		if (clientRole != null && clientRole.getEncodedKey() != null) {
+			// Write role's encoded key as clientRoleId. Example: "clientRoleId:"12345"
+			out.name(APIData.CLIENT_ROLE_ID).value(clientRole.getEncodedKey());
+		}
+	}
+
+	@Override
+	public Client read(JsonReader in) throws IOException {
+		throw new UnsupportedOperationException("ClientPatchJsonAdapter supports serialization only");
+	}
+}
@@ -26,7 +26,10 @@ import com.mambu.core.shared.model.ClientRole;
  * 
  * @author mdanilkis
  * 
+ * @deprecated builds a JSON tree of the whole entity for each request. Use {@link ClientPatchJsonAdapter}
+ *             instead, which writes the same JSON directly to the output stream
  */
+@Deprecated
 public class ClientPatchJsonSerializer implements JsonSerializer<Client> {
 
 	/**
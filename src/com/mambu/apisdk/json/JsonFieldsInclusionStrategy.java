@@ -63,12 +63,7 @@ public class JsonFieldsInclusionStrategy implements ExclusionStrategy {
 	 */
 	@Override
 	public boolean shouldSkipField(FieldAttributes f) {
-		Class<?> clazz = f.getDeclaringClass();
-		if (clazz == null || allowedFieldsMap.get(clazz) == null) {
-			return true;
-		}
-		Set<String> allowedFields = allowedFieldsMap.get(clazz);
-		boolean shouldSkip = allowedFields == null || !allowedFields.contains(f.getName());
-		return shouldSkip;
+		Set<String> allowedFields = allowedFieldsMap.get(f.getDeclaringClass());
+		return allowedFields == null || !allowedFields.contains(f.getName());
 	}
 }
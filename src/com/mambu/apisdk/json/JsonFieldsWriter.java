@@ -0,0 +1,134 @@
+package com.mambu.apisdk.json;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * JsonFieldsWriter writes only the allowed fields of a class directly to a JsonWriter. The allowed fields and their
+ * type adapters are resolved once, when the writer is created, and the writer can then be reused for all objects of
+ * this class. As with {@link JsonFieldsInclusionStrategy}, only the fields declared by the class itself are allowed.
+ * Fields are written in the same order and format as by Gson's reflective type adapter, null values are not written.
+ *
+ * Used by the streaming serializers for the API requests which accept only some fields of Mambu entities
+ */
+public class JsonFieldsWriter {
+
+	private final List<AllowedField> allowedFields;
+
+	/**
+	 * Create writer for the allowed fields of a class
+	 *
+	 * @param gson
+	 *            gson providing type adapters for the field values. Nested objects are written by these adapters
+	 * @param clazz
+	 *            class
+	 * @param allowedNames
+	 *            names of the allowed fields
+	 */
+	public JsonFieldsWriter(Gson gson, Class<?> clazz, Set<String> allowedNames) {
+		List<AllowedField> fields = new ArrayList<AllowedField>();
+		for (Field field : clazz.getDeclaredFields()) {
+			if ((field.getModifiers() & (Modifier.STATIC | Modifier.TRANSIENT)) != 0
+					|| !allowedNames.contains(field.getName())) {
+				continue;
+			}
+			field.setAccessible(true);
+			fields.add(new AllowedField(field, gson.getAdapter(TypeToken.get(field.getGenericType()))));
+		}
+		this.allowedFields = Collections.unmodifiableList(fields);
+	}
+
+	/**
+	 * Write all allowed fields with not null values, except the excluded fields
+	 *
+	 * @param out
+	 *            JSON writer
+	 * @param object
+	 *            object
+	 * @param excludedNames
+	 *            names of the allowed fields not to be written
+	 * @throws IOException
+	 */
+	public void writeFields(JsonWriter out, Object object, String... excludedNames) throws IOException {
+		for (AllowedField allowedField : allowedFields) {
+			if (isExcluded(allowedField.name, excludedNames)) {
+				continue;
+			}
+			Object value = allowedField.getValue(object);
+			if (value != null) {
+				out.name(allowedField.name);
+				allowedField.adapter.write(out, value);
+			}
+		}
+	}
+
+	/**
+	 * Write an allowed field, if its value is not null
+	 *
+	 * @param out
+	 *            JSON writer
+	 * @param object
+	 *            object. Can be null
+	 * @param name
+	 *            allowed field name
+	 * @param jsonName
+	 *            name of the field in the JSON
+	 * @throws IOException
+	 */
+	public void writeField(JsonWriter out, Object object, String name, String jsonName) throws IOException {
+		if (object == null) {
+			return;
+		}
+		for (AllowedField allowedField : allowedFields) {
+			if (allowedField.name.equals(name)) {
+				Object value = allowedField.getValue(object);
+				if (value != null) {
+					out.name(jsonName);
+					allowedField.adapter.write(out, value);
+				}
+				return;
+			}
+		}
+	}
+
+	private static boolean isExcluded(String name, String[] excludedNames) {
+		for (String excludedName : excludedNames) {
+			if (name.equals(excludedName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static class AllowedField {
+		private final String name;
+		private final Field field;
+		private final TypeAdapter<Object> adapter;
+
+		@SuppressWarnings("unchecked")
+		private AllowedField(Field field, TypeAdapter<?> adapter) {
+			this.name = field.getName();
+			this.field = field;
+			this.adapter = (TypeAdapter<Object>) adapter;
+		}
+
+		private Object getValue(Object object) {
+			try {
+				return field.get(object);
+			} catch (IllegalAccessException e) {
+				throw new JsonIOException(e);
+			}
+		}
+	}
+}
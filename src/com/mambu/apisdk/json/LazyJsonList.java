@@ -0,0 +1,323 @@
+package com.mambu.apisdk.json;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * LazyJsonList is a read-only list of objects represented by a JSON array. The JSON array is scanned once to find the
+ * position of each element in the JSON string, but elements are deserialized only when first accessed. Used for large
+ * API responses where callers look only at some of the returned objects.
+ *
+ * Raw values of the elements' top level fields can be read and used for filtering without deserializing the elements
+ * (see {@link #getRawValue(int, String)} and {@link #filter(String, String)}).
+ *
+ * This class is not thread safe: the same element can be deserialized more than once if accessed concurrently
+ *
+ * @param <T>
+ *            element class
+ */
+public class LazyJsonList<T> extends AbstractList<T> implements RandomAccess {
+
+	// Marker for elements deserialized to null
+	private final static Object NULL_ELEMENT = new Object();
+
+	private final String json;
+	private final Gson gson;
+	private final Class<T> elementClass;
+	// Positions of the elements in the JSON string: start index and end index (exclusive)
+	private final int[] starts;
+	private final int[] ends;
+	private final Object[] elements;
+
+	private LazyJsonList(String json, Gson gson, Class<T> elementClass, int[] starts, int[] ends) {
+		this.json = json;
+		this.gson = gson;
+		this.elementClass = elementClass;
+		this.starts = starts;
+		this.ends = ends;
+		this.elements = new Object[starts.length];
+	}
+
+	/**
+	 * Create lazy list for a JSON array
+	 *
+	 * @param json
+	 *            JSON string with an array of objects
+	 * @param gson
+	 *            gson used for deserializing elements
+	 * @param elementClass
+	 *            element class
+	 * @return lazy list. Null if the JSON string is null, empty or "null", the same as parsing it with Gson
+	 * @throws JsonSyntaxException
+	 *             if the JSON string is not a valid JSON array
+	 */
+	public static <T> LazyJsonList<T> parse(String json, Gson gson, Class<T> elementClass) {
+		if (gson == null || elementClass == null) {
+			throw new IllegalArgumentException("Gson and element class must not be null");
+		}
+		if (json == null) {
+			return null;
+		}
+		int position = skipWhitespace(json, 0);
+		if (position == json.length() || json.startsWith("null", position)) {
+			return null;
+		}
+		if (json.charAt(position) != '[') {
+			throw new JsonSyntaxException("Expected JSON array at position " + position);
+		}
+
+		int[] starts = new int[16];
+		int[] ends = new int[16];
+		int count = 0;
+		position = skipWhitespace(json, position + 1);
+		if (position < json.length() && json.charAt(position) == ']') {
+			return new LazyJsonList<T>(json, gson, elementClass, new int[0], new int[0]);
+		}
+		while (true) {
+			int end = skipValue(json, position);
+			if (count == starts.length) {
+				starts = Arrays.copyOf(starts, count * 2);
+				ends = Arrays.copyOf(ends, count * 2);
+			}
+			starts[count] = position;
+			ends[count] = end;
+			count++;
+
+			position = skipWhitespace(json, end);
+			char c = charAt(json, position);
+			if (c == ']') {
+				break;
+			}
+			if (c != ',') {
+				throw new JsonSyntaxException("Expected ',' or ']' at position " + position);
+			}
+			position = skipWhitespace(json, position + 1);
+		}
+		return new LazyJsonList<T>(json, gson, elementClass, Arrays.copyOf(starts, count), Arrays.copyOf(ends, count));
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T get(int index) {
+		checkIndex(index);
+		Object element = elements[index];
+		if (element == null) {
+			element = gson.fromJson(json.substring(starts[index], ends[index]), elementClass);
+			elements[index] = element == null ? NULL_ELEMENT : element;
+		}
+		return element == NULL_ELEMENT ? null : (T) element;
+	}
+
+	@Override
+	public int size() {
+		return starts.length;
+	}
+
+	/**
+	 * Get the raw JSON string of an element
+	 *
+	 * @param index
+	 *            element index
+	 * @return JSON string of the element
+	 */
+	public String getRawJson(int index) {
+		checkIndex(index);
+		return json.substring(starts[index], ends[index]);
+	}
+
+	/**
+	 * Get the value of an element's top level field without deserializing the element
+	 *
+	 * @param index
+	 *            element index
+	 * @param fieldName
+	 *            JSON field name. Example: "accountState"
+	 * @return string value for JSON strings, JSON text for numbers, booleans, objects and arrays. Null if the field is
+	 *         not present, is null or the element is not a JSON object
+	 */
+	public String getRawValue(int index, String fieldName) {
+		checkIndex(index);
+		if (fieldName == null) {
+			throw new IllegalArgumentException("Field name must not be null");
+		}
+		int position = starts[index];
+		if (json.charAt(position) != '{') {
+			return null;
+		}
+		position = skipWhitespace(json, position + 1);
+		while (charAt(json, position) == '"') {
+			int keyEnd = skipString(json, position);
+			boolean isField = keyEnd - position - 2 == fieldName.length()
+					&& json.regionMatches(position + 1, fieldName, 0, fieldName.length());
+
+			position = skipWhitespace(json, keyEnd);
+			if (charAt(json, position) != ':') {
+				throw new JsonSyntaxException("Expected ':' at position " + position);
+			}
+			position = skipWhitespace(json, position + 1);
+			int valueEnd = skipValue(json, position);
+			if (isField) {
+				return decodeValue(position, valueEnd);
+			}
+			position = skipWhitespace(json, valueEnd);
+			if (charAt(json, position) != ',') {
+				break;
+			}
+			position = skipWhitespace(json, position + 1);
+		}
+		return null;
+	}
+
+	/**
+	 * Get a lazy list of the elements with the specified raw value of a top level field. Elements are not deserialized
+	 * for filtering
+	 *
+	 * @param fieldName
+	 *            JSON field name. Example: "type"
+	 * @param value
+	 *            expected value, as returned by {@link #getRawValue(int, String)}. Null for elements without this field
+	 *            or with null value
+	 * @return lazy list with the matching elements
+	 */
+	public LazyJsonList<T> filter(String fieldName, String value) {
+		int[] matchingStarts = new int[starts.length];
+		int[] matchingEnds = new int[starts.length];
+		int[] matchingIndexes = new int[starts.length];
+		int count = 0;
+		for (int i = 0; i < starts.length; i++) {
+			String rawValue = getRawValue(i, fieldName);
+			if (value == null ? rawValue == null : value.equals(rawValue)) {
+				matchingStarts[count] = starts[i];
+				matchingEnds[count] = ends[i];
+				matchingIndexes[count] = i;
+				count++;
+			}
+		}
+		LazyJsonList<T> filtered = new LazyJsonList<T>(json, gson, elementClass, Arrays.copyOf(matchingStarts, count),
+				Arrays.copyOf(matchingEnds, count));
+		// Keep elements already deserialized
+		for (int i = 0; i < count; i++) {
+			filtered.elements[i] = elements[matchingIndexes[i]];
+		}
+		return filtered;
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= starts.length) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + starts.length);
+		}
+	}
+
+	private String decodeValue(int start, int end) {
+		if (json.charAt(start) != '"') {
+			String value = json.substring(start, end);
+			return value.equals("null") ? null : value;
+		}
+		boolean isEscaped = false;
+		for (int i = start + 1; i < end - 1 && !isEscaped; i++) {
+			isEscaped = json.charAt(i) == '\\';
+		}
+		if (!isEscaped) {
+			return json.substring(start + 1, end - 1);
+		}
+		try {
+			// A string is a valid top level value only for the lenient reader
+			JsonReader reader = new JsonReader(new StringReader(json.substring(start, end)));
+			reader.setLenient(true);
+			return reader.nextString();
+		} catch (IOException e) {
+			throw new JsonSyntaxException(e);
+		}
+	}
+
+	private static char charAt(String json, int position) {
+		if (position >= json.length()) {
+			throw new JsonSyntaxException("Unexpected end of JSON");
+		}
+		return json.charAt(position);
+	}
+
+	private static int skipWhitespace(String json, int position) {
+		while (position < json.length()) {
+			char c = json.charAt(position);
+			if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+				break;
+			}
+			position++;
+		}
+		return position;
+	}
+
+	/**
+	 * Skip JSON string
+	 *
+	 * @param json
+	 *            JSON
+	 * @param position
+	 *            position of the opening quote
+	 * @return position after the closing quote
+	 */
+	private static int skipString(String json, int position) {
+		for (position++; position < json.length(); position++) {
+			char c = json.charAt(position);
+			if (c == '\\') {
+				position++;
+			} else if (c == '"') {
+				return position + 1;
+			}
+		}
+		throw new JsonSyntaxException("Unterminated string");
+	}
+
+	/**
+	 * Skip JSON value
+	 *
+	 * @param json
+	 *            JSON
+	 * @param position
+	 *            position of the first value character
+	 * @return position after the value
+	 */
+	private static int skipValue(String json, int position) {
+		char first = charAt(json, position);
+		if (first == '"') {
+			return skipString(json, position);
+		}
+		if (first != '{' && first != '[') {
+			// Number, boolean or null
+			while (position < json.length()) {
+				char c = json.charAt(position);
+				if (c == ',' || c == '}' || c == ']' || c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+					break;
+				}
+				position++;
+			}
+			return position;
+		}
+		int depth = 0;
+		while (position < json.length()) {
+			char c = json.charAt(position);
+			if (c == '"') {
+				position = skipString(json, position);
+				continue;
+			}
+			if (c == '{' || c == '[') {
+				depth++;
+			} else if (c == '}' || c == ']') {
+				depth--;
+				if (depth == 0) {
+					return position + 1;
+				}
+			}
+			position++;
+		}
+		throw new JsonSyntaxException("Unterminated object or array");
+	}
+}
@@ -0,0 +1,121 @@
+package com.mambu.apisdk.json;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.mambu.apisdk.util.APIData;
+import com.mambu.apisdk.util.GsonUtils;
+import com.mambu.loans.shared.model.DisbursementDetails;
+import com.mambu.loans.shared.model.LoanAccount;
+import com.mambu.loans.shared.model.PrincipalPaymentAccountSettings;
+
+/**
+ * LoanAccountPatchJsonAdapter implements custom JSON TypeAdapter for PATCH Loan Account API requests. It specifies
+ * PATCH API fields inclusion strategy as well as providing custom JSON formating as expected by Mambu API specification
+ * 
+ * The allowed fields are written directly to the JSON stream by writers created once for this class
+ * 
+ * For more details on Mambu PATCH Loan API specification see MBU-7758, MBU-11481 and {@link https
+ * ://developer.mambu.com/customer/en/portal/articles/1617482-loans-api}
+ */
+public class LoanAccountPatchJsonAdapter extends TypeAdapter<LoanAccount> {
+
+	/**
+	 * A list of fields supported by the PATCH loan account API. See MBU-7758, MBU-11481 and MBU-12143
+	 * 
+	 * Note, since 4.0 the EXPECTED_DISBURSEMENT_DATE and FIRST_REPAYMENT_DATE are part of the
+	 * DisbursementDetails.class, see MBU-11481
+	 * 
+	 */
+	private final static Set<String> modifiableLoanAccountFields = new HashSet<String>(Arrays.asList(
+			APIData.LOAN_AMOUNT, APIData.INTEREST_RATE, APIData.INTEREST_RATE_SPREAD, APIData.REPAYMENT_INSTALLMENTS,
+			APIData.REPAYMENT_PERIOD_COUNT, APIData.REPAYMENT_PERIOD_UNIT, APIData.GRACE_PERIOD,
+			APIData.PRNICIPAL_REPAYMENT_INTERVAL, APIData.PENALTY_RATE, APIData.PERIODIC_PAYMENT,
+			APIData.DISBURSEMENT_DETAILS, APIData.PRINCIPAL_PAYMENT_SETTINGS));
+
+	/**
+	 * A list of fields from the DisbursementDetails class supported by PATCH loan account API.
+	 * 
+	 * See MBU-11515 and MBU-11481: Should specify the "expectedDisbursementDate" and "firstRepaymentDate", as before,
+	 * at loan account level
+	 */
+	private final static Set<String> disbursementFields = new HashSet<String>(Arrays.asList(
+			APIData.EXPECTED_DISBURSEMENT_DATE, APIData.FIRST_REPAYMENT_DATE));
+
+	/**
+	 * A list of fields from PrincipalPaymentAccountSettings supported by the PATCH loan API.
+	 * 
+	 * See MBU-12143: "principalPaymentSettings":{"amount":"100.00"} and
+	 * "principalPaymentSettings":{"percentage":"20.00"}
+	 */
+	private final static Set<String> principalPaymentSettingsFields = new HashSet<String>(Arrays.asList(APIData.AMOUNT,
+			APIData.PERCENTAGE));
+
+	// Create inclusion strategy for Loan PATCH API. Include allowed LoanAccount, DisbursementDetails and
+	// PrincipalPaymentAccountSettings fields
+	private final static JsonFieldsInclusionStrategy loanPatchInclusionStrategy;
+	static {
+		loanPatchInclusionStrategy = new JsonFieldsInclusionStrategy(LoanAccount.class, modifiableLoanAccountFields);
+		loanPatchInclusionStrategy.addInclusion(DisbursementDetails.class, disbursementFields);
+		loanPatchInclusionStrategy.addInclusion(PrincipalPaymentAccountSettings.class, principalPaymentSettingsFields);
+	}
+
+	// Gson for the field values. Nested objects are written with the allowed fields only
+	private final static Gson loanPatchGson = GsonUtils.createGsonBuilder()
+			.addSerializationExclusionStrategy(loanPatchInclusionStrategy).create();
+	private final static JsonFieldsWriter loanAccountWriter = new JsonFieldsWriter(loanPatchGson, LoanAccount.class,
+			modifiableLoanAccountFields);
+	private final static JsonFieldsWriter disbursementWriter = new JsonFieldsWriter(loanPatchGson,
+			DisbursementDetails.class, disbursementFields);
+
+	public LoanAccountPatchJsonAdapter() {
+	}
+
+	// Write allowed LoanAccount fields and the EXPECTED_DISBURSEMENT_DATE and FIRST_REPAYMENT_DATE fields from the
+	// DisbursementDetails
+	@Override
+	public void write(JsonWriter out, LoanAccount loanAccount) throws IOException {
+		if (loanAccount == null) {
+			out.nullValue();
+			return;
+		}
+		// Write as "{\"loanAccount\":" +{ accountFields + "}}";
+		out.beginObject();
+		out.name(APIData.LOAN_ACCOUNT);
+		out.beginObject();
+		// The disbursementDetails:{} is not allowed in a Loan PATCH API
+		loanAccountWriter.writeFields(out, loanAccount, APIData.DISBURSEMENT_DETAILS);
+		writeDisbursementDetails(out, loanAccount.getDisbursementDetails());
+		out.endObject();
+		out.endObject();
+	}
+
+	/**
+	 * Write EXPECTED_DISBURSEMENT_DATE and FIRST_REPAYMENT_DATE fields from the disbursementDetails and not from the
+	 * LoanAccount (deprecated fields) at account level
+	 * 
+	 * @param out
+	 *            JSON writer
+	 * @param disbursementDetails
+	 *            disbursement details. Can be null
+	 * @throws IOException
+	 */
+	private void writeDisbursementDetails(JsonWriter out, DisbursementDetails disbursementDetails) throws IOException {
+		disbursementWriter.writeField(out, disbursementDetails, APIData.EXPECTED_DISBURSEMENT_DATE,
+				APIData.EXPECTED_DISBURSEMENT_DATE);
+		disbursementWriter.writeField(out, disbursementDetails, APIData.FIRST_REPAYMENT_DATE,
+				APIData.FIRST_REPAYMENT_DATE);
+	}
+
+	@Override
+	public LoanAccount read(JsonReader in) throws IOException {
+		throw new UnsupportedOperationException("LoanAccountPatchJsonAdapter supports serialization only");
+	}
+
+}
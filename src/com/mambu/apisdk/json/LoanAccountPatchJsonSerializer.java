@@ -27,7 +27,10 @@ import com.mambu.loans.shared.model.PrincipalPaymentAccountSettings;
  * 
  * @author mdanilkis
  * 
+ * @deprecated builds a JSON tree of the whole entity for each request. Use {@link LoanAccountPatchJsonAdapter}
+ *             instead, which writes the same JSON directly to the output stream
  */
+@Deprecated
 public class LoanAccountPatchJsonSerializer implements JsonSerializer<LoanAccount> {
 
 	/**
@@ -0,0 +1,131 @@
+package com.mambu.apisdk.json;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.mambu.apisdk.util.APIData;
+import com.mambu.apisdk.util.GsonUtils;
+import com.mambu.loans.shared.model.DisbursementDetails;
+import com.mambu.loans.shared.model.LoanAccount;
+
+/**
+ * LoanProductScheduleJsonAdapter implements custom JSON TypeAdapter for GET Loan Product Schedule preview API
+ * requests. It specifies API fields inclusion strategies, as well as providing custom JSON formating as expected by
+ * Mambu API specification
+ * 
+ * The allowed fields are written directly to the JSON stream by writers created once for this class
+ * 
+ * For more details on Mambu GET Loan Product schedule preview API specification see MBU-6789, MBU-7676, MBU-10802 and
+ * MBU-11481 and {@link https://developer.mambu.com/customer/en/portal/articles/1616164-loan-products-api}
+ */
+public class LoanProductScheduleJsonAdapter extends TypeAdapter<LoanAccount> {
+
+	/**
+	 * A list of fields in the LoanAccount supported by the GET loan schedule preview API. See MBU-6789, MBU-7676,
+	 * MBU-10802 and MBU-11481.
+	 * 
+	 * Note, since 4.0 the EXPECTED_DISBURSEMENT_DATE and FIRST_REPAYMENT_DATE are part of the DisbursementDetails class
+	 */
+	private final static Set<String> loanSchedulePreviewFields = new HashSet<String>(Arrays.asList(APIData.LOAN_AMOUNT,
+			APIData.INTEREST_RATE, APIData.REPAYMENT_INSTALLMENTS, APIData.REPAYMENT_PERIOD_COUNT,
+			APIData.REPAYMENT_PERIOD_UNIT, APIData.GRACE_PERIOD, APIData.PRNICIPAL_REPAYMENT_INTERVAL,
+			APIData.PERIODIC_PAYMENT, APIData.FIXED_DAYS_OF_MONTH, APIData.DISBURSEMENT_DETAILS));
+
+	/**
+	 * A list of fields from the DisbursementDetails supported by the GET loan schedule preview API. See MBU-11481
+	 */
+	private final static Set<String> disbursementFields = new HashSet<String>(Arrays.asList(
+			APIData.EXPECTED_DISBURSEMENT_DATE, APIData.FIRST_REPAYMENT_DATE));
+
+	// Specify Inclusion Strategy: specify fields to use from the LoanAccount.class and from the
+	// DisbursementDetails.class
+	private final static JsonFieldsInclusionStrategy getLoanScheduleInclusionStrategy;
+	static {
+		getLoanScheduleInclusionStrategy = new JsonFieldsInclusionStrategy(LoanAccount.class, loanSchedulePreviewFields);
+		getLoanScheduleInclusionStrategy.addInclusion(DisbursementDetails.class, disbursementFields);
+	}
+
+	// GET schedule API is a x-www-form-urlencoded API. Need to specify "yyyyMmddFormat" date time format as expected by
+	// this API
+	private final static Gson getLoanScheduleGson = GsonUtils.createGsonBuilder(APIData.yyyyMmddFormat)
+			.addSerializationExclusionStrategy(getLoanScheduleInclusionStrategy).create();
+	private final static JsonFieldsWriter loanAccountWriter = new JsonFieldsWriter(getLoanScheduleGson,
+			LoanAccount.class, loanSchedulePreviewFields);
+	private final static JsonFieldsWriter disbursementWriter = new JsonFieldsWriter(getLoanScheduleGson,
+			DisbursementDetails.class, disbursementFields);
+
+	public LoanProductScheduleJsonAdapter() {
+
+	}
+
+	@Override
+	public void write(JsonWriter out, LoanAccount loanAccount) throws IOException {
+		if (loanAccount == null) {
+			out.nullValue();
+			return;
+		}
+		out.beginObject();
+		loanAccountWriter.writeFields(out, loanAccount, APIData.DISBURSEMENT_DETAILS, APIData.FIXED_DAYS_OF_MONTH);
+		// Get loan disbursement dates from the DisbursementDetails class and place them at the account level
+		writeDisbursementDetails(out, loanAccount.getDisbursementDetails());
+		// Write Fixed Days value in the format expected by the API. E.g. 1.15
+		writeFixedDays(out, loanAccount.getFixedDaysOfMonth());
+		out.endObject();
+	}
+
+	/**
+	 * Write fields needed from the DisbursementDetails at the account level
+	 * 
+	 * @param out
+	 *            JSON writer
+	 * @param disbursementDetails
+	 *            disbursement details. Can be null
+	 * @throws IOException
+	 */
+	private void writeDisbursementDetails(JsonWriter out, DisbursementDetails disbursementDetails) throws IOException {
+		// Note the "expectedDisbursementDate" value is expected by this particular API as "anticipatedDisbursement"
+		disbursementWriter.writeField(out, disbursementDetails, APIData.EXPECTED_DISBURSEMENT_DATE,
+				APIData.ANTICIPATE_DISBURSEMENT);
+		disbursementWriter.writeField(out, disbursementDetails, APIData.FIRST_REPAYMENT_DATE,
+				APIData.FIRST_REPAYMENT_DATE);
+	}
+
+	/**
+	 * Write FixedDays value in the format required by Mambu API: 2.15 instead of the default [2,15]
+	 * 
+	 * @param out
+	 *            JSON writer
+	 * @param fixedDays
+	 *            fixed days of month. Can be null
+	 * @throws IOException
+	 */
+	private void writeFixedDays(JsonWriter out, List<Integer> fixedDays) throws IOException {
+		// FIXED_DAYS_OF_MONTH field is an Integer array with the data in the format [2,15]. But for this url-encoded
+		// API it needs to be converted into a string with no array square brackets: Mambu expects it in this format:
+		// "fixedDaysOfMonth"="2,15" See MBU-10802.
+		if (fixedDays == null || fixedDays.isEmpty()) {
+			return;
+		}
+		StringBuilder arrayData = new StringBuilder();
+		for (Integer day : fixedDays) {
+			if (arrayData.length() > 0) {
+				arrayData.append(',');
+			}
+			arrayData.append(day);
+		}
+		out.name(APIData.FIXED_DAYS_OF_MONTH).value(arrayData.toString());
+	}
+
+	@Override
+	public LoanAccount read(JsonReader in) throws IOException {
+		throw new UnsupportedOperationException("LoanProductScheduleJsonAdapter supports serialization only");
+	}
+
+}
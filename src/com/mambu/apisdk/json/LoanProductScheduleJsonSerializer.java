@@ -26,7 +26,10 @@ import com.mambu.loans.shared.model.LoanAccount;
  * 
  * @author mdanilkis
  * 
+ * @deprecated builds a JSON tree of the whole entity for each request. Use {@link LoanProductScheduleJsonAdapter}
+ *             instead, which writes the same JSON directly to the output stream
  */
+@Deprecated
 public class LoanProductScheduleJsonSerializer implements JsonSerializer<LoanAccount> {
 
 	/**
@@ -0,0 +1,318 @@
+package com.mambu.apisdk.json;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.mambu.clients.shared.model.Client;
+import com.mambu.loans.shared.model.LoanAccount;
+import com.mambu.loans.shared.model.LoanTransaction;
+import com.mambu.loans.shared.model.Repayment;
+import com.mambu.savings.shared.model.SavingsAccount;
+import com.mambu.savings.shared.model.SavingsTransaction;
+
+/**
+ * ModelTypeAdapterFactory creates Gson type adapters for deserializing large Mambu model classes returned in big pages
+ * of results, like loan and savings accounts and transactions.
+ *
+ * Gson's reflective type adapter inspects the class fields each time a new Gson instance is created, and this library
+ * creates a new Gson instance for each API response. It also creates type adapters for all field types, including the
+ * many fields not present in typical responses. This factory binds the model fields once per class and reuses the
+ * bindings for all Gson instances. Field values are read with the adapters of the Gson instance, so custom date formats
+ * and deserializers still apply, but these adapters are created only for the fields present in the response. Objects
+ * are serialized with Gson's reflective adapter.
+ *
+ * Classes which cannot be bound (for example without a no-argument constructor) fall back to Gson's reflective adapter.
+ *
+ * The factory can also deserialize only some fields of a class (see {@link #forProjection(Class, Set)}), skipping all
+ * other values in the JSON stream
+ */
+public class ModelTypeAdapterFactory implements TypeAdapterFactory {
+
+	private final static Logger LOGGER = Logger.getLogger(ModelTypeAdapterFactory.class.getName());
+
+	/**
+	 * Model classes deserialized with bound type adapters
+	 */
+	public final static Set<Class<?>> modelClasses = Collections.unmodifiableSet(new HashSet<Class<?>>(Arrays
+			.<Class<?>> asList(LoanAccount.class, SavingsAccount.class, LoanTransaction.class,
+					SavingsTransaction.class, Client.class, Repayment.class)));
+
+	// Bound fields for each model class. A class which cannot be bound is mapped to NOT_BOUND
+	private final static ConcurrentMap<Class<?>, ModelBinding> bindings = new ConcurrentHashMap<Class<?>, ModelBinding>(
+			modelClasses.size());
+	private final static ModelBinding NOT_BOUND = new ModelBinding(null, Collections.<BoundField> emptyList());
+
+	private final static ModelTypeAdapterFactory INSTANCE = new ModelTypeAdapterFactory(modelClasses, null);
+
+	// Classes deserialized by this factory
+	private final Set<Class<?>> classes;
+	// Names of the fields to deserialize. Null to deserialize all fields
+	private final Set<String> projectedFields;
+
+	/**
+	 * Get factory for the model classes
+	 *
+	 * @return factory for the classes in {@link #modelClasses}
+	 */
+	public static ModelTypeAdapterFactory getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Get factory deserializing only the specified fields of a class. Values of all other fields are skipped in the
+	 * JSON stream without being parsed, and these fields are left with their default values
+	 *
+	 * @param clazz
+	 *            class to deserialize. Must have a no-argument constructor
+	 * @param projectedFields
+	 *            JSON names of the fields to deserialize. Must not be null
+	 * @return factory for the projection
+	 */
+	public static ModelTypeAdapterFactory forProjection(Class<?> clazz, Set<String> projectedFields) {
+		if (clazz == null || projectedFields == null) {
+			throw new IllegalArgumentException("Class and projected fields must not be null");
+		}
+		return new ModelTypeAdapterFactory(Collections.<Class<?>> singleton(clazz), projectedFields);
+	}
+
+	private ModelTypeAdapterFactory(Set<Class<?>> classes, Set<String> projectedFields) {
+		this.classes = classes;
+		this.projectedFields = projectedFields;
+	}
+
+	@Override
+	public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+		if (!classes.contains(type.getRawType())) {
+			return null;
+		}
+		ModelBinding binding = getBinding(type.getRawType());
+		if (binding == NOT_BOUND) {
+			if (projectedFields != null) {
+				throw new IllegalArgumentException("Projection is not supported for " + type.getRawType().getName());
+			}
+			return null;
+		}
+		return new ModelTypeAdapter<T>(gson, this, type, binding, getProjection(binding));
+	}
+
+	/**
+	 * Get projected fields of the binding
+	 *
+	 * @param binding
+	 *            model binding
+	 * @return flags for each bound field, true if the field is deserialized. Null if all fields are deserialized
+	 */
+	private boolean[] getProjection(ModelBinding binding) {
+		if (projectedFields == null) {
+			return null;
+		}
+		boolean[] projection = new boolean[binding.fields.size()];
+		for (String fieldName : projectedFields) {
+			BoundField boundField = binding.fieldsByName.get(fieldName);
+			if (boundField == null) {
+				throw new IllegalArgumentException("Unknown field " + fieldName + " in "
+						+ binding.constructor.getDeclaringClass().getName());
+			}
+			projection[boundField.index] = true;
+		}
+		return projection;
+	}
+
+	private static ModelBinding getBinding(Class<?> clazz) {
+		ModelBinding binding = bindings.get(clazz);
+		if (binding == null) {
+			binding = bind(clazz);
+			bindings.putIfAbsent(clazz, binding);
+		}
+		return binding;
+	}
+
+	/**
+	 * Bind fields of a class the same way as Gson's reflective type adapter with the default exclusion settings
+	 *
+	 * @param clazz
+	 *            model class
+	 * @return model binding or NOT_BOUND if the class cannot be bound
+	 */
+	private static ModelBinding bind(Class<?> clazz) {
+		try {
+			Constructor<?> constructor = clazz.getDeclaredConstructor();
+			constructor.setAccessible(true);
+
+			List<BoundField> fields = new ArrayList<BoundField>();
+			Set<String> names = new HashSet<String>();
+			// Resolves the type variables of the superclasses declared by the class
+			com.google.common.reflect.TypeToken<?> classType = com.google.common.reflect.TypeToken.of(clazz);
+			for (Class<?> raw = clazz; raw != Object.class; raw = raw.getSuperclass()) {
+				for (Field field : raw.getDeclaredFields()) {
+					if (isExcluded(field)) {
+						continue;
+					}
+					field.setAccessible(true);
+					Type fieldType = classType.resolveType(field.getGenericType()).getType();
+					SerializedName serializedName = field.getAnnotation(SerializedName.class);
+					String name = serializedName == null ? field.getName() : serializedName.value();
+					if (!names.add(name)) {
+						// Gson reports declaring multiple JSON fields with the same name
+						return NOT_BOUND;
+					}
+					fields.add(new BoundField(fields.size(), name, field, TypeToken.get(fieldType)));
+				}
+			}
+			return new ModelBinding(constructor, fields);
+
+		} catch (NoSuchMethodException e) {
+			return NOT_BOUND;
+		} catch (SecurityException e) {
+			LOGGER.log(Level.WARNING, "Cannot bind " + clazz.getName() + ", using reflective type adapter", e);
+			return NOT_BOUND;
+		}
+	}
+
+	private static boolean isExcluded(Field field) {
+		if ((field.getModifiers() & (Modifier.STATIC | Modifier.TRANSIENT)) != 0 || field.isSynthetic()) {
+			return true;
+		}
+		Class<?> fieldClass = field.getType();
+		return !Enum.class.isAssignableFrom(fieldClass)
+				&& (fieldClass.isAnonymousClass() || fieldClass.isLocalClass());
+	}
+
+	/**
+	 * Bound fields of a model class. Shared by all Gson instances
+	 */
+	private static class ModelBinding {
+		private final Constructor<?> constructor;
+		private final List<BoundField> fields;
+		private final Map<String, BoundField> fieldsByName;
+
+		private ModelBinding(Constructor<?> constructor, List<BoundField> fields) {
+			this.constructor = constructor;
+			this.fields = fields;
+			this.fieldsByName = new HashMap<String, BoundField>(fields.size() * 2);
+			for (BoundField field : fields) {
+				fieldsByName.put(field.name, field);
+			}
+		}
+	}
+
+	private static class BoundField {
+		private final int index;
+		private final String name;
+		private final Field field;
+		private final TypeToken<?> fieldType;
+		private final boolean isPrimitive;
+
+		private BoundField(int index, String name, Field field, TypeToken<?> fieldType) {
+			this.index = index;
+			this.name = name;
+			this.field = field;
+			this.fieldType = fieldType;
+			this.isPrimitive = field.getType().isPrimitive();
+		}
+	}
+
+	/**
+	 * Type adapter for one Gson instance, using the field type adapters of this Gson instance. Field type adapters and
+	 * Gson's reflective adapter used for serializing are created only when first needed
+	 */
+	private static class ModelTypeAdapter<T> extends TypeAdapter<T> {
+		private final Gson gson;
+		private final TypeAdapterFactory factory;
+		private final TypeToken<T> type;
+		private final ModelBinding binding;
+		private final boolean[] projection;
+		private final TypeAdapter<?>[] fieldAdapters;
+		private volatile TypeAdapter<T> reflectiveAdapter;
+
+		private ModelTypeAdapter(Gson gson, TypeAdapterFactory factory, TypeToken<T> type, ModelBinding binding,
+				boolean[] projection) {
+			this.gson = gson;
+			this.factory = factory;
+			this.type = type;
+			this.binding = binding;
+			this.projection = projection;
+			this.fieldAdapters = new TypeAdapter<?>[binding.fields.size()];
+		}
+
+		@Override
+		public void write(JsonWriter out, T value) throws IOException {
+			TypeAdapter<T> adapter = reflectiveAdapter;
+			if (adapter == null) {
+				adapter = gson.getDelegateAdapter(factory, type);
+				reflectiveAdapter = adapter;
+			}
+			adapter.write(out, value);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public T read(JsonReader in) throws IOException {
+			if (in.peek() == JsonToken.NULL) {
+				in.nextNull();
+				return null;
+			}
+
+			T instance;
+			try {
+				instance = (T) binding.constructor.newInstance();
+			} catch (Exception e) {
+				throw new RuntimeException("Failed to create " + binding.constructor.getDeclaringClass().getName(), e);
+			}
+
+			in.beginObject();
+			while (in.hasNext()) {
+				BoundField boundField = binding.fieldsByName.get(in.nextName());
+				if (boundField == null || (projection != null && !projection[boundField.index])) {
+					in.skipValue();
+					continue;
+				}
+				Object fieldValue = getFieldAdapter(boundField).read(in);
+				if (fieldValue != null || !boundField.isPrimitive) {
+					try {
+						boundField.field.set(instance, fieldValue);
+					} catch (IllegalAccessException e) {
+						throw new JsonSyntaxException(e);
+					}
+				}
+			}
+			in.endObject();
+			return instance;
+		}
+
+		// Field type adapters are obtained only for the fields present in responses. Concurrent threads may get the
+		// same adapter from Gson more than once, which is harmless
+		private TypeAdapter<?> getFieldAdapter(BoundField boundField) {
+			TypeAdapter<?> adapter = fieldAdapters[boundField.index];
+			if (adapter == null) {
+				adapter = gson.getAdapter(boundField.fieldType);
+				fieldAdapters[boundField.index] = adapter;
+			}
+			return adapter;
+		}
+	}
+}
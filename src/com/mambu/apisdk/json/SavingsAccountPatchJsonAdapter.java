@@ -0,0 +1,128 @@
+package com.mambu.apisdk.json;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.mambu.accounts.shared.model.InterestAccountSettings;
+import com.mambu.apisdk.util.APIData;
+import com.mambu.apisdk.util.GsonUtils;
+import com.mambu.savings.shared.model.SavingsAccount;
+
+/**
+ * SavingsAccountPatchJsonAdapter implements custom JSON TypeAdapter for PATCH Savings Account API requests. It
+ * specifies PATCH API fields inclusion strategy, as well as providing custom JSON formating as expected by Mambu API
+ * specification for this API
+ * 
+ * The allowed fields are written directly to the JSON stream by writers created once for this class
+ * 
+ * For more details on Mambu PATCH Savings API specification see MBU-10447 and {@link https
+ * ://developer.mambu.com/customer/en/portal/articles/1616216-savings-api}
+ */
+public class SavingsAccountPatchJsonAdapter extends TypeAdapter<SavingsAccount> {
+
+	/**
+	 * A list of SavingsAccount class fields supported by the PATCH savings account API. See MBU-10447.
+	 * 
+	 * Note in Mambu 4.1 the interest rate and overdraft interest rate related fields were moved inside the new
+	 * "interestRateSettings" and "overdraftInterestRateSettings" classes respectively. The interest rate related fields
+	 * now need to be copied from these classes to be placed at the top, account level for the PATCH savings API
+	 * 
+	 */
+	private final static Set<String> modifiableSavingsAccountFields = new HashSet<String>(Arrays.asList(
+			APIData.INTEREST_SETTINGS, // contains intestRate and interestSpread for deposit rates
+			APIData.OVERDRAFT_INTEREST_SETTINGS, // // contains intestRate and interestSpread for overdraft settings
+			APIData.MAX_WITHDRAWAL_AMOUNT, APIData.RECOMMENDED_DEPOSIT_AMOUNT, APIData.TARGET_AMOUNT,
+			APIData.OVERDRAFT_LIMIT, APIData.OVERDRAFT_EXPIRY_DATE));
+
+	/**
+	 * A list of InterestAccountSettings class fields supported by the PATCH savings account API. See MBU-10447
+	 */
+	private final static Set<String> modifiableInterestRateFields = new HashSet<String>(Arrays.asList(
+			APIData.INTEREST_RATE, APIData.INTEREST_RATE_SPREAD));
+
+	// Create Inclusion Strategy with only those fields supported by PATCH Savings API
+	private final static JsonFieldsInclusionStrategy savingsPatchInclusionStrategy;
+	static {
+		savingsPatchInclusionStrategy = new JsonFieldsInclusionStrategy(SavingsAccount.class,
+				modifiableSavingsAccountFields);
+		savingsPatchInclusionStrategy.addInclusion(InterestAccountSettings.class, modifiableInterestRateFields);
+
+	}
+
+	// Gson for the field values
+	private final static Gson savingsPatchGson = GsonUtils.createGsonBuilder()
+			.addSerializationExclusionStrategy(savingsPatchInclusionStrategy).create();
+	private final static JsonFieldsWriter savingsAccountWriter = new JsonFieldsWriter(savingsPatchGson,
+			SavingsAccount.class, modifiableSavingsAccountFields);
+	private final static JsonFieldsWriter interestSettingsWriter = new JsonFieldsWriter(savingsPatchGson,
+			InterestAccountSettings.class, modifiableInterestRateFields);
+
+	public SavingsAccountPatchJsonAdapter() {
+	}
+
+	// Write allowed SavingsAccount fields and the interest rate fields from the interest settings
+	@Override
+	public void write(JsonWriter out, SavingsAccount savingsAccount) throws IOException {
+		if (savingsAccount == null) {
+			out.nullValue();
+			return;
+		}
+		// Write as "{\"savingsAccount\":" +{ accountFields + "}}";
+		out.beginObject();
+		out.name(APIData.SAVINGS_ACCOUNT);
+		out.beginObject();
+		// interestRateSettings:{} and overdraftInterestSettings:{} are not supported by API
+		savingsAccountWriter.writeFields(out, savingsAccount, APIData.INTEREST_SETTINGS,
+				APIData.OVERDRAFT_INTEREST_SETTINGS);
+		writeInterestRateFields(out, savingsAccount.getInterestSettings());
+		writeOverdraftInterestRateFields(out, savingsAccount.getOverdraftInterestSettings());
+		out.endObject();
+		out.endObject();
+	}
+
+	/**
+	 * Write fields needed from the "interestRateSettings" at the account level
+	 * 
+	 * @param out
+	 *            JSON writer
+	 * @param interestRateSettings
+	 *            interest rate settings. Can be null
+	 * @throws IOException
+	 */
+	private void writeInterestRateFields(JsonWriter out, InterestAccountSettings interestRateSettings)
+			throws IOException {
+		interestSettingsWriter.writeField(out, interestRateSettings, APIData.INTEREST_RATE, APIData.INTEREST_RATE);
+		interestSettingsWriter.writeField(out, interestRateSettings, APIData.INTEREST_RATE_SPREAD,
+				APIData.INTEREST_RATE_SPREAD);
+	}
+
+	/**
+	 * Write fields needed from the overdraftInterestSettings at acount level
+	 * 
+	 * @param out
+	 *            JSON writer
+	 * @param overdraftRateSettings
+	 *            overdraft interest rate settings. Can be null
+	 * @throws IOException
+	 */
+	private void writeOverdraftInterestRateFields(JsonWriter out, InterestAccountSettings overdraftRateSettings)
+			throws IOException {
+		// Write overdraft fields using different field names, as required by PATCH savings API:
+		// as OVERDRAFT_INTEREST_RATE and OVERDRAFT_SPREAD at account level
+		interestSettingsWriter.writeField(out, overdraftRateSettings, APIData.INTEREST_RATE,
+				APIData.OVERDRAFT_INTEREST_RATE);
+		interestSettingsWriter.writeField(out, overdraftRateSettings, APIData.INTEREST_RATE_SPREAD,
+				APIData.OVERDRAFT_SPREAD);
+	}
+
+	@Override
+	public SavingsAccount read(JsonReader in) throws IOException {
+		throw new UnsupportedOperationException("SavingsAccountPatchJsonAdapter supports serialization only");
+	}
+}
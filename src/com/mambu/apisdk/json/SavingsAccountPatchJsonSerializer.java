@@ -26,7 +26,10 @@ import com.mambu.savings.shared.model.SavingsAccount;
  * 
  * @author mdanilkis
  * 
+ * @deprecated builds a JSON tree of the whole entity for each request. Use {@link SavingsAccountPatchJsonAdapter}
+ *             instead, which writes the same JSON directly to the output stream
  */
+@Deprecated
 public class SavingsAccountPatchJsonSerializer implements JsonSerializer<SavingsAccount> {
 
 	/**
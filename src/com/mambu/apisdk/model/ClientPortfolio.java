@@ -0,0 +1,147 @@
+package com.mambu.apisdk.model;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.clients.shared.model.ClientExpanded;
+import com.mambu.core.shared.model.Comment;
+import com.mambu.docs.shared.model.Document;
+import com.mambu.linesofcredit.shared.model.LineOfCredit;
+import com.mambu.loans.shared.model.LoanAccount;
+import com.mambu.savings.shared.model.SavingsAccount;
+import com.mambu.tasks.shared.model.Task;
+
+/**
+ * ClientPortfolio holds client details together with all client's accounts, lines of credit, tasks, documents and
+ * comments retrieved with one composite API call. See ClientPortfolioService.
+ *
+ * Each part of the portfolio is retrieved with a separate API request. If a request fails or doesn't complete in time
+ * then the corresponding part is null and the error for this part is available with {@link #getError(Part)}
+ */
+public class ClientPortfolio {
+
+	/**
+	 * Parts of the client portfolio, each retrieved with a separate API request
+	 */
+	public enum Part {
+		CLIENT_DETAILS, LOAN_ACCOUNTS, SAVINGS_ACCOUNTS, LINES_OF_CREDIT, TASKS, DOCUMENTS, COMMENTS
+	}
+
+	private final String clientId;
+	private ClientExpanded clientDetails;
+	private List<LoanAccount> loanAccounts;
+	private List<SavingsAccount> savingsAccounts;
+	private List<LineOfCredit> linesOfCredit;
+	private List<Task> tasks;
+	private List<Document> documents;
+	private List<Comment> comments;
+	private final Map<Part, MambuApiException> errors = new EnumMap<Part, MambuApiException>(Part.class);
+
+	public ClientPortfolio(String clientId) {
+		this.clientId = clientId;
+	}
+
+	public String getClientId() {
+		return clientId;
+	}
+
+	public ClientExpanded getClientDetails() {
+		return clientDetails;
+	}
+
+	public void setClientDetails(ClientExpanded clientDetails) {
+		this.clientDetails = clientDetails;
+	}
+
+	public List<LoanAccount> getLoanAccounts() {
+		return loanAccounts;
+	}
+
+	public void setLoanAccounts(List<LoanAccount> loanAccounts) {
+		this.loanAccounts = loanAccounts;
+	}
+
+	public List<SavingsAccount> getSavingsAccounts() {
+		return savingsAccounts;
+	}
+
+	public void setSavingsAccounts(List<SavingsAccount> savingsAccounts) {
+		this.savingsAccounts = savingsAccounts;
+	}
+
+	public List<LineOfCredit> getLinesOfCredit() {
+		return linesOfCredit;
+	}
+
+	public void setLinesOfCredit(List<LineOfCredit> linesOfCredit) {
+		this.linesOfCredit = linesOfCredit;
+	}
+
+	public List<Task> getTasks() {
+		return tasks;
+	}
+
+	public void setTasks(List<Task> tasks) {
+		this.tasks = tasks;
+	}
+
+	public List<Document> getDocuments() {
+		return documents;
+	}
+
+	public void setDocuments(List<Document> documents) {
+		this.documents = documents;
+	}
+
+	public List<Comment> getComments() {
+		return comments;
+	}
+
+	public void setComments(List<Comment> comments) {
+		this.comments = comments;
+	}
+
+	/**
+	 * Set the error for the portfolio part which could not be retrieved
+	 *
+	 * @param part
+	 *            portfolio part
+	 * @param error
+	 *            error
+	 */
+	public void setError(Part part, MambuApiException error) {
+		errors.put(part, error);
+	}
+
+	/**
+	 * Get the error for the portfolio part
+	 *
+	 * @param part
+	 *            portfolio part
+	 * @return error or null if the part was retrieved successfully
+	 */
+	public MambuApiException getError(Part part) {
+		return errors.get(part);
+	}
+
+	/**
+	 * Get errors for all parts which could not be retrieved
+	 *
+	 * @return map of portfolio parts to their errors. Empty if all parts were retrieved
+	 */
+	public Map<Part, MambuApiException> getErrors() {
+		return Collections.unmodifiableMap(errors);
+	}
+
+	/**
+	 * Are all parts of the portfolio retrieved
+	 *
+	 * @return true if all parts were retrieved successfully
+	 */
+	public boolean isComplete() {
+		return errors.isEmpty();
+	}
+}
@@ -0,0 +1,51 @@
+package com.mambu.apisdk.model;
+
+import java.util.List;
+
+import com.mambu.apisdk.util.MambuEntityType;
+import com.mambu.core.shared.model.CustomFieldValue;
+
+/**
+ * CustomFieldValuesUpdate specifies custom field values to be updated for one Mambu entity. Used for updating custom
+ * field values for many entities with CustomFieldValueBatchService
+ */
+public class CustomFieldValuesUpdate {
+
+	private final MambuEntityType entityType;
+	private final String entityId;
+	private final List<CustomFieldValue> customFieldValues;
+
+	/**
+	 * Create custom field values update
+	 *
+	 * @param entityType
+	 *            Mambu entity type. Example: MambuEntity.CLIENT, MambuEntity.LOAN_ACCOUNT
+	 * @param entityId
+	 *            entity id or encoded key
+	 * @param customFieldValues
+	 *            custom field values to be updated. Grouped custom field values must specify customFieldSetGroupIndex
+	 */
+	public CustomFieldValuesUpdate(MambuEntityType entityType, String entityId,
+			List<CustomFieldValue> customFieldValues) {
+		this.entityType = entityType;
+		this.entityId = entityId;
+		this.customFieldValues = customFieldValues;
+	}
+
+	public MambuEntityType getEntityType() {
+		return entityType;
+	}
+
+	public String getEntityId() {
+		return entityId;
+	}
+
+	public List<CustomFieldValue> getCustomFieldValues() {
+		return customFieldValues;
+	}
+
+	@Override
+	public String toString() {
+		return entityType + " " + entityId;
+	}
+}
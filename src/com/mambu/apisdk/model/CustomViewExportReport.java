@@ -0,0 +1,51 @@
+package com.mambu.apisdk.model;
+
+/**
+ * CustomViewExportReport holds the results of a custom view export: the number of entities passed to the sink and the
+ * count read from the custom view summary before the export. See CustomViewExportService.
+ *
+ * The counts differ if entities were added to or removed from the custom view during the export. In that case the
+ * export should be repeated if an exact snapshot of the view is required
+ */
+public class CustomViewExportReport {
+
+	private final long summaryCount;
+	private final long exportedCount;
+
+	public CustomViewExportReport(long summaryCount, long exportedCount) {
+		this.summaryCount = summaryCount;
+		this.exportedCount = exportedCount;
+	}
+
+	/**
+	 * Get the number of entities of the custom view summary read before the export
+	 *
+	 * @return summary count
+	 */
+	public long getSummaryCount() {
+		return summaryCount;
+	}
+
+	/**
+	 * Get the number of entities passed to the sink
+	 *
+	 * @return exported count
+	 */
+	public long getExportedCount() {
+		return exportedCount;
+	}
+
+	/**
+	 * Check that the number of exported entities matches the custom view summary
+	 *
+	 * @return true if the counts are equal
+	 */
+	public boolean isCountVerified() {
+		return summaryCount == exportedCount;
+	}
+
+	@Override
+	public String toString() {
+		return "CustomViewExportReport [summaryCount=" + summaryCount + ", exportedCount=" + exportedCount + "]";
+	}
+}
@@ -0,0 +1,92 @@
+package com.mambu.apisdk.model;
+
+import com.mambu.apisdk.util.MambuEntityType;
+
+/**
+ * DocumentTemplateJob specifies a populated account document template to be rendered: the account, the template and
+ * the transactions period. Used for rendering documents for many accounts with DocumentTemplateBatchService. Jobs with
+ * the same fields are equal and render the same document
+ */
+public class DocumentTemplateJob {
+
+	private final MambuEntityType entityType;
+	private final String entityId;
+	private final String templateKey;
+	private final String startDate;
+	private final String endDate;
+
+	/**
+	 * Create document template job
+	 *
+	 * @param entityType
+	 *            Mambu entity type. MambuEntityType.LOAN_ACCOUNT or MambuEntityType.SAVINGS_ACCOUNT
+	 * @param entityId
+	 *            account id or encoded key
+	 * @param templateKey
+	 *            template encoded key
+	 * @param startDate
+	 *            start date. Only for documents that "Include Transactions History". Can be null
+	 * @param endDate
+	 *            end date. Only for documents that "Include Transactions History". Can be null
+	 */
+	public DocumentTemplateJob(MambuEntityType entityType, String entityId, String templateKey, String startDate,
+			String endDate) {
+		this.entityType = entityType;
+		this.entityId = entityId;
+		this.templateKey = templateKey;
+		this.startDate = startDate;
+		this.endDate = endDate;
+	}
+
+	public MambuEntityType getEntityType() {
+		return entityType;
+	}
+
+	public String getEntityId() {
+		return entityId;
+	}
+
+	public String getTemplateKey() {
+		return templateKey;
+	}
+
+	public String getStartDate() {
+		return startDate;
+	}
+
+	public String getEndDate() {
+		return endDate;
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = entityType == null ? 0 : entityType.hashCode();
+		hash = 31 * hash + (entityId == null ? 0 : entityId.hashCode());
+		hash = 31 * hash + (templateKey == null ? 0 : templateKey.hashCode());
+		hash = 31 * hash + (startDate == null ? 0 : startDate.hashCode());
+		return 31 * hash + (endDate == null ? 0 : endDate.hashCode());
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof DocumentTemplateJob)) {
+			return false;
+		}
+		DocumentTemplateJob other = (DocumentTemplateJob) obj;
+		return entityType == other.entityType && equal(entityId, other.entityId)
+				&& equal(templateKey, other.templateKey) && equal(startDate, other.startDate)
+				&& equal(endDate, other.endDate);
+	}
+
+	private static boolean equal(String a, String b) {
+		return a == null ? b == null : a.equals(b);
+	}
+
+	@Override
+	public String toString() {
+		return entityType + " " + entityId + " template " + templateKey + " " + startDate + " - " + endDate;
+	}
+}
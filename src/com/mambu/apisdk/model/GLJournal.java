@@ -0,0 +1,114 @@
+package com.mambu.apisdk.model;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import com.mambu.accounting.shared.model.EntryType;
+
+/**
+ * GLJournal specifies one balanced GL journal to be posted with the Post GL Journal Entries API: the debit and credit
+ * entries together with the branch, the booking date and notes. Used for importing many journals with
+ * GLJournalImportService.
+ *
+ * Each journal has an id assigned by the system the journals are imported from. The id is used to identify the journal
+ * in the import checkpoint and in the failures report
+ */
+public class GLJournal {
+
+	private final String id;
+	private final String branchId;
+	private final String date;
+	private final String notes;
+	private final List<ApiGLJournalEntry> entries;
+
+	/**
+	 * Create GL journal
+	 *
+	 * @param id
+	 *            journal id in the source system. Must be unique for the imported journals
+	 * @param branchId
+	 *            branch id or encoded key. Can be null
+	 * @param date
+	 *            booking date in "yyyy-MM-dd" format
+	 * @param notes
+	 *            journal notes. Can be null
+	 * @param entries
+	 *            debit and credit entries
+	 */
+	public GLJournal(String id, String branchId, String date, String notes, List<ApiGLJournalEntry> entries) {
+		this.id = id;
+		this.branchId = branchId;
+		this.date = date;
+		this.notes = notes;
+		this.entries = entries;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getBranchId() {
+		return branchId;
+	}
+
+	public String getDate() {
+		return date;
+	}
+
+	public String getNotes() {
+		return notes;
+	}
+
+	public List<ApiGLJournalEntry> getEntries() {
+		return entries;
+	}
+
+	/**
+	 * Validate the journal locally, without calling Mambu: the id, the date and all entries must be specified, the id
+	 * must not contain tabs or line breaks, all amounts must be positive and the total debit amount must be equal to
+	 * the total credit amount
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the journal is not valid
+	 */
+	public void validate() {
+		if (id == null || date == null) {
+			throw new IllegalArgumentException("Journal ID and date must not be null");
+		}
+		if (id.indexOf('\t') != -1 || id.indexOf('\n') != -1 || id.indexOf('\r') != -1) {
+			// Not allowed in the import checkpoint
+			throw new IllegalArgumentException("Journal ID must not contain tabs or line breaks");
+		}
+		if (entries == null || entries.size() < 2) {
+			throw new IllegalArgumentException("At least one debit and one credit entry is required");
+		}
+		BigDecimal debits = BigDecimal.ZERO;
+		BigDecimal credits = BigDecimal.ZERO;
+		for (ApiGLJournalEntry entry : entries) {
+			if (entry == null || entry.getGlCode() == null || entry.getEntryType() == null
+					|| entry.getAmount() == null) {
+				throw new IllegalArgumentException("GL code, entry type and amount must not be null");
+			}
+			if (entry.getAmount().signum() <= 0) {
+				throw new IllegalArgumentException("Amount must be positive. It is " + entry.getAmount());
+			}
+			if (entry.getEntryType() == EntryType.DEBIT) {
+				debits = debits.add(entry.getAmount());
+			} else {
+				credits = credits.add(entry.getAmount());
+			}
+		}
+		if (debits.signum() == 0 || credits.signum() == 0) {
+			throw new IllegalArgumentException("At least one debit and one credit entry is required");
+		}
+		if (debits.compareTo(credits) != 0) {
+			throw new IllegalArgumentException("Journal is not balanced: debits " + debits.toPlainString()
+					+ " credits " + credits.toPlainString());
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "GL journal " + id;
+	}
+}
@@ -0,0 +1,84 @@
+package com.mambu.apisdk.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.mambu.apisdk.exception.MambuApiException;
+
+/**
+ * GLJournalImportReport holds the results of a GL journals import: the numbers of posted and skipped journals and the
+ * errors for the journals which could not be posted. See GLJournalImportService.
+ *
+ * Journals which failed local validation (for example, unbalanced journals) are reported as failures without calling
+ * Mambu. If the import was stopped early, for example because the journals could not be read, the cause is available
+ * with {@link #getStopCause()} and the import can be resumed using its checkpoint
+ */
+public class GLJournalImportReport {
+
+	private final AtomicInteger postedCount = new AtomicInteger();
+	private final AtomicInteger skippedCount = new AtomicInteger();
+	private final Map<String, MambuApiException> failures = new LinkedHashMap<String, MambuApiException>();
+	private volatile Exception stopCause;
+
+	public void addPosted() {
+		postedCount.incrementAndGet();
+	}
+
+	public void addSkipped() {
+		skippedCount.incrementAndGet();
+	}
+
+	public synchronized void addFailure(String journalId, MambuApiException error) {
+		failures.put(journalId, error);
+	}
+
+	public void setStopCause(Exception stopCause) {
+		this.stopCause = stopCause;
+	}
+
+	/**
+	 * Get the number of journals posted by this import
+	 *
+	 * @return number of posted journals
+	 */
+	public int getPostedCount() {
+		return postedCount.get();
+	}
+
+	/**
+	 * Get the number of journals skipped because they were posted by a previous import
+	 *
+	 * @return number of skipped journals
+	 */
+	public int getSkippedCount() {
+		return skippedCount.get();
+	}
+
+	/**
+	 * Get errors for the journals which could not be posted
+	 *
+	 * @return errors mapped by journal ids, in the order the failures occurred
+	 */
+	public synchronized Map<String, MambuApiException> getFailures() {
+		return new LinkedHashMap<String, MambuApiException>(failures);
+	}
+
+	public synchronized int getFailureCount() {
+		return failures.size();
+	}
+
+	/**
+	 * Get the cause the import was stopped before all journals were processed
+	 *
+	 * @return exception thrown when reading the journals or when writing the checkpoint. Null if all journals were
+	 *         processed
+	 */
+	public Exception getStopCause() {
+		return stopCause;
+	}
+
+	public boolean isCompleted() {
+		return stopCause == null;
+	}
+}
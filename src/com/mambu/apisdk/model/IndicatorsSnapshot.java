@@ -0,0 +1,84 @@
+package com.mambu.apisdk.model;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.intelligence.shared.model.Intelligence.Indicator;
+
+/**
+ * IndicatorsSnapshot holds the values of a set of Mambu financial indicators retrieved at the same time. See
+ * IndicatorsSnapshotService.
+ *
+ * Each indicator is retrieved with a separate API request. If a request fails or doesn't complete in time then the
+ * snapshot has no value for the indicator and the error is available with {@link #getErrors()}. Snapshots are
+ * immutable and can be shared between threads
+ */
+public class IndicatorsSnapshot {
+
+	private final long timestamp;
+	private final Map<Indicator, BigDecimal> values;
+	private final Map<Indicator, MambuApiException> errors;
+
+	/**
+	 * Create snapshot
+	 *
+	 * @param timestamp
+	 *            time the indicators were requested, in milliseconds since the epoch
+	 * @param values
+	 *            indicator values
+	 * @param errors
+	 *            errors for the indicators which could not be retrieved
+	 */
+	public IndicatorsSnapshot(long timestamp, Map<Indicator, BigDecimal> values,
+			Map<Indicator, MambuApiException> errors) {
+		this.timestamp = timestamp;
+		this.values = Collections.unmodifiableMap(copy(values));
+		this.errors = Collections.unmodifiableMap(copy(errors));
+	}
+
+	/**
+	 * Get snapshot time
+	 *
+	 * @return time the indicators were requested, in milliseconds since the epoch
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * Get indicator values
+	 *
+	 * @return unmodifiable map of the retrieved indicator values. Values can be null if Mambu didn't return them
+	 */
+	public Map<Indicator, BigDecimal> getValues() {
+		return values;
+	}
+
+	public BigDecimal getValue(Indicator indicator) {
+		return values.get(indicator);
+	}
+
+	/**
+	 * Get errors for the indicators which could not be retrieved
+	 *
+	 * @return unmodifiable map of errors. Empty if all indicators were retrieved
+	 */
+	public Map<Indicator, MambuApiException> getErrors() {
+		return errors;
+	}
+
+	public boolean hasErrors() {
+		return !errors.isEmpty();
+	}
+
+	private static <V> Map<Indicator, V> copy(Map<Indicator, V> map) {
+		Map<Indicator, V> copy = new EnumMap<Indicator, V>(Indicator.class);
+		if (map != null) {
+			copy.putAll(map);
+		}
+		return copy;
+	}
+}
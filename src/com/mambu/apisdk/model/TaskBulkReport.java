@@ -0,0 +1,91 @@
+package com.mambu.apisdk.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.mambu.apisdk.exception.MambuApiException;
+
+/**
+ * TaskBulkReport holds the results of processing task specs in bulk: the numbers of created, updated, closed and
+ * skipped tasks and the errors for the specs which could not be processed. See TaskBulkService.
+ *
+ * Specs are identified by their position in the processed specs, starting at zero
+ */
+public class TaskBulkReport {
+
+	private final AtomicInteger createdCount = new AtomicInteger();
+	private final AtomicInteger updatedCount = new AtomicInteger();
+	private final AtomicInteger closedCount = new AtomicInteger();
+	private final AtomicInteger skippedCount = new AtomicInteger();
+	private final Map<Integer, MambuApiException> failures = new LinkedHashMap<Integer, MambuApiException>();
+
+	public void addCreated() {
+		createdCount.incrementAndGet();
+	}
+
+	public void addUpdated() {
+		updatedCount.incrementAndGet();
+	}
+
+	public void addClosed() {
+		closedCount.incrementAndGet();
+	}
+
+	public void addSkipped() {
+		skippedCount.incrementAndGet();
+	}
+
+	public synchronized void addFailure(int position, MambuApiException error) {
+		failures.put(position, error);
+	}
+
+	/**
+	 * Get the number of tasks created
+	 *
+	 * @return number of created tasks
+	 */
+	public int getCreatedCount() {
+		return createdCount.get();
+	}
+
+	/**
+	 * Get the number of tasks updated without being closed
+	 *
+	 * @return number of updated tasks
+	 */
+	public int getUpdatedCount() {
+		return updatedCount.get();
+	}
+
+	/**
+	 * Get the number of open tasks closed
+	 *
+	 * @return number of closed tasks
+	 */
+	public int getClosedCount() {
+		return closedCount.get();
+	}
+
+	/**
+	 * Get the number of specs skipped: open tasks which already exist and completed tasks with no open task to close
+	 *
+	 * @return number of skipped specs
+	 */
+	public int getSkippedCount() {
+		return skippedCount.get();
+	}
+
+	/**
+	 * Get errors for the specs which could not be processed
+	 *
+	 * @return errors mapped by spec positions, in the order the failures occurred
+	 */
+	public synchronized Map<Integer, MambuApiException> getFailures() {
+		return new LinkedHashMap<Integer, MambuApiException>(failures);
+	}
+
+	public synchronized int getFailureCount() {
+		return failures.size();
+	}
+}
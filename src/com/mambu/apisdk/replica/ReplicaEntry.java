@@ -0,0 +1,93 @@
+package com.mambu.apisdk.replica;
+
+import com.mambu.apisdk.util.MambuEntityType;
+
+/**
+ * ReplicaEntry holds the indexed attributes of a replicated entity and the position of its latest record in the
+ * {@link ReplicaLog}. Entries are kept in memory by the {@link ReplicaStore} and allow answering queries by id, branch,
+ * assigned user or state without reading the entity's JSON from the log
+ */
+class ReplicaEntry {
+
+	private final MambuEntityType entityType;
+	// Entity's primary key: the encoded key, or the id if the encoded key is not available
+	private final String key;
+	private String id;
+	private String branchKey;
+	private String userKey;
+	private String state;
+	private int position;
+	// Length of the record in the log, including the record length field
+	private int length;
+
+	ReplicaEntry(MambuEntityType entityType, String key) {
+		this.entityType = entityType;
+		this.key = key;
+	}
+
+	MambuEntityType getEntityType() {
+		return entityType;
+	}
+
+	String getKey() {
+		return key;
+	}
+
+	String getId() {
+		return id;
+	}
+
+	void setId(String id) {
+		this.id = id;
+	}
+
+	String getBranchKey() {
+		return branchKey;
+	}
+
+	void setBranchKey(String branchKey) {
+		this.branchKey = branchKey;
+	}
+
+	String getUserKey() {
+		return userKey;
+	}
+
+	void setUserKey(String userKey) {
+		this.userKey = userKey;
+	}
+
+	String getState() {
+		return state;
+	}
+
+	void setState(String state) {
+		this.state = state;
+	}
+
+	int getPosition() {
+		return position;
+	}
+
+	void setPosition(int position) {
+		this.position = position;
+	}
+
+	int getLength() {
+		return length;
+	}
+
+	void setLength(int length) {
+		this.length = length;
+	}
+
+	// Copy of the entry, with the same header details
+	ReplicaEntry copy() {
+		ReplicaEntry copy = new ReplicaEntry(entityType, key);
+		copy.setId(id);
+		copy.setBranchKey(branchKey);
+		copy.setUserKey(userKey);
+		copy.setState(state);
+		return copy;
+	}
+}
@@ -0,0 +1,300 @@
+package com.mambu.apisdk.replica;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * ReplicaLog is an append-only log of replicated entity records backed by a memory-mapped file. Records are never
+ * modified in place: a newer record for the same entity key supersedes the older one and a removed entity is recorded
+ * with a tombstone record (a record without a JSON payload).
+ *
+ * Each record is stored in the following format: [int recordLength][byte entityType][key][id][branchKey][userKey]
+ * [state][int jsonLength][json bytes], where all string fields are stored as a short length followed by the UTF-8
+ * bytes (with a length of -1 used for null values). The recordLength is the number of bytes following the length field
+ * itself. The mapped region is always zero filled past the last record, so a record length of zero marks the end of the
+ * log.
+ *
+ * Superseded records and tombstones are not removed from the log itself. The {@link ReplicaStore} compacts the log by
+ * writing the live records to a new log file which then replaces the old one. A single log is limited to
+ * Integer.MAX_VALUE bytes.
+ *
+ * The log is not thread safe. Access to it is to be synchronized by the {@link ReplicaStore}
+ */
+class ReplicaLog {
+
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+
+	// The log file is mapped in regions which are multiples of this size
+	private final static int MAPPING_INCREMENT = 4 * 1024 * 1024;
+
+	// Length value used for null strings and for the JSON payload of tombstone records
+	private final static int NULL_LENGTH = -1;
+
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private MappedByteBuffer buffer;
+	// Position at which the next record will be appended
+	private int writePosition;
+
+	/**
+	 * Callback used when scanning the log
+	 */
+	interface RecordVisitor {
+		/**
+		 * Visit record header
+		 *
+		 * @param entry
+		 *            record header details, including record's position in the log
+		 * @param isTombstone
+		 *            true if the record marks a removed entity
+		 */
+		void visit(ReplicaEntry entry, boolean isTombstone);
+	}
+
+	/**
+	 * Open (or create) a log in the specified file
+	 *
+	 * @param logFile
+	 *            log file. Must not be null
+	 * @throws IOException
+	 */
+	ReplicaLog(File logFile) throws IOException {
+		if (logFile == null) {
+			throw new IllegalArgumentException("Log file must not be null");
+		}
+		file = new RandomAccessFile(logFile, "rw");
+		channel = file.getChannel();
+
+		long fileSize = channel.size();
+		if (fileSize > Integer.MAX_VALUE) {
+			throw new IOException("Replica log file is too large: " + fileSize);
+		}
+		map(roundUpToIncrement(Math.max((int) fileSize, 1)));
+		writePosition = 0;
+	}
+
+	/**
+	 * Scan all records in the log, invoking the visitor for each record header. Positions the log for appending after
+	 * the last record found
+	 *
+	 * @param visitor
+	 *            record visitor
+	 */
+	void scan(RecordVisitor visitor) {
+		ByteBuffer reader = buffer.duplicate();
+		int position = 0;
+		while (position + 4 <= reader.capacity()) {
+			reader.position(position);
+			int recordLength = reader.getInt();
+			if (recordLength <= 0 || position + 4 + recordLength > reader.capacity()) {
+				break;
+			}
+			ReplicaEntry entry = readHeader(reader, position);
+			entry.setLength(4 + recordLength);
+			int jsonLength = reader.getInt();
+			visitor.visit(entry, jsonLength == NULL_LENGTH);
+
+			position = position + 4 + recordLength;
+		}
+		writePosition = position;
+	}
+
+	/**
+	 * Append a record to the log
+	 *
+	 * @param entry
+	 *            record header details. Entry's position and length are updated with the ones of the appended record
+	 * @param jsonBytes
+	 *            UTF-8 bytes of the entity's JSON string. Null for tombstone records
+	 * @throws IOException
+	 */
+	void append(ReplicaEntry entry, byte[] jsonBytes) throws IOException {
+
+		byte[] key = encode(entry.getKey());
+		byte[] id = encode(entry.getId());
+		byte[] branchKey = encode(entry.getBranchKey());
+		byte[] userKey = encode(entry.getUserKey());
+		byte[] state = encode(entry.getState());
+
+		int recordLength = 1 + sizeOf(key) + sizeOf(id) + sizeOf(branchKey) + sizeOf(userKey) + sizeOf(state) + 4
+				+ (jsonBytes == null ? 0 : jsonBytes.length);
+
+		// Keep at least 4 zero bytes after the record to mark the end of the log
+		ensureCapacity(writePosition + 4 + recordLength + 4);
+
+		buffer.position(writePosition);
+		buffer.putInt(recordLength);
+		buffer.put(ReplicaStore.getReplicatedTypeCode(entry.getEntityType()));
+		put(key);
+		put(id);
+		put(branchKey);
+		put(userKey);
+		put(state);
+		if (jsonBytes == null) {
+			buffer.putInt(NULL_LENGTH);
+		} else {
+			buffer.putInt(jsonBytes.length);
+			buffer.put(jsonBytes);
+		}
+
+		entry.setPosition(writePosition);
+		entry.setLength(4 + recordLength);
+		writePosition = writePosition + 4 + recordLength;
+	}
+
+	/**
+	 * Read JSON payload of the record at the specified position
+	 *
+	 * @param position
+	 *            record's position in the log
+	 * @return JSON string or null for tombstone records
+	 */
+	String readJson(int position) {
+		byte[] jsonBytes = readJsonBytes(position);
+		return jsonBytes == null ? null : new String(jsonBytes, UTF8);
+	}
+
+	/**
+	 * Read JSON payload bytes of the record at the specified position
+	 *
+	 * @param position
+	 *            record's position in the log
+	 * @return UTF-8 bytes of the JSON string or null for tombstone records
+	 */
+	byte[] readJsonBytes(int position) {
+		ByteBuffer reader = positionAtJson(position);
+		int jsonLength = reader.getInt();
+		if (jsonLength == NULL_LENGTH) {
+			return null;
+		}
+		byte[] jsonBytes = new byte[jsonLength];
+		reader.get(jsonBytes);
+		return jsonBytes;
+	}
+
+	/**
+	 * Check if the record at the specified position has the same JSON payload, without copying the payload
+	 *
+	 * @param position
+	 *            record's position in the log
+	 * @param jsonBytes
+	 *            UTF-8 bytes of the JSON string to compare with. Must not be null
+	 * @return true if the record has the same JSON payload
+	 */
+	boolean hasSameJson(int position, byte[] jsonBytes) {
+		ByteBuffer reader = positionAtJson(position);
+		if (reader.getInt() != jsonBytes.length) {
+			return false;
+		}
+		reader.limit(reader.position() + jsonBytes.length);
+		return reader.slice().equals(ByteBuffer.wrap(jsonBytes));
+	}
+
+	/**
+	 * Get the number of bytes used by the log records
+	 *
+	 * @return log size in bytes
+	 */
+	int size() {
+		return writePosition;
+	}
+
+	/**
+	 * Flush mapped log content to the storage device
+	 */
+	void force() {
+		buffer.force();
+	}
+
+	/**
+	 * Flush and close the log
+	 *
+	 * @throws IOException
+	 */
+	void close() throws IOException {
+		buffer.force();
+		channel.close();
+		file.close();
+	}
+
+	// Private helpers
+	private ByteBuffer positionAtJson(int position) {
+		ByteBuffer reader = buffer.duplicate();
+		reader.position(position + 4);
+		readHeader(reader, position);
+		return reader;
+	}
+
+	private ReplicaEntry readHeader(ByteBuffer reader, int position) {
+		byte typeCode = reader.get();
+		ReplicaEntry entry = new ReplicaEntry(ReplicaStore.getReplicatedType(typeCode), readString(reader));
+		entry.setId(readString(reader));
+		entry.setBranchKey(readString(reader));
+		entry.setUserKey(readString(reader));
+		entry.setState(readString(reader));
+		entry.setPosition(position);
+		return entry;
+	}
+
+	private static String readString(ByteBuffer reader) {
+		int length = reader.getShort();
+		if (length == NULL_LENGTH) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		reader.get(bytes);
+		return new String(bytes, UTF8);
+	}
+
+	private void put(byte[] bytes) {
+		if (bytes == null) {
+			buffer.putShort((short) NULL_LENGTH);
+		} else {
+			buffer.putShort((short) bytes.length);
+			buffer.put(bytes);
+		}
+	}
+
+	private static byte[] encode(String value) {
+		if (value == null) {
+			return null;
+		}
+		byte[] bytes = value.getBytes(UTF8);
+		if (bytes.length > Short.MAX_VALUE) {
+			throw new IllegalArgumentException("Replica header value is too long: " + bytes.length + " bytes");
+		}
+		return bytes;
+	}
+
+	private static int sizeOf(byte[] bytes) {
+		return 2 + (bytes == null ? 0 : bytes.length);
+	}
+
+	private void ensureCapacity(int required) throws IOException {
+		if (required < 0) {
+			// Integer overflow: the record would not fit into a single mapped region
+			throw new IOException("Replica log cannot exceed " + Integer.MAX_VALUE + " bytes");
+		}
+		if (required <= buffer.capacity()) {
+			return;
+		}
+		// Grow by doubling to keep the number of re-mappings low
+		long newSize = Math.max(required, 2L * buffer.capacity());
+		map(roundUpToIncrement((int) Math.min(newSize, Integer.MAX_VALUE)));
+	}
+
+	private void map(int size) throws IOException {
+		// Mapping beyond the end of the file extends the file with zero bytes
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+	}
+
+	private static int roundUpToIncrement(int size) {
+		long rounded = ((long) size + MAPPING_INCREMENT - 1) / MAPPING_INCREMENT * MAPPING_INCREMENT;
+		return (int) Math.min(rounded, Integer.MAX_VALUE);
+	}
+}
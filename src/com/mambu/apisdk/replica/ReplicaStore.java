@@ -0,0 +1,675 @@
+package com.mambu.apisdk.replica;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.google.gson.Gson;
+import com.mambu.apisdk.util.GsonUtils;
+import com.mambu.apisdk.util.MambuEntityType;
+import com.mambu.clients.shared.model.Client;
+import com.mambu.clients.shared.model.Group;
+import com.mambu.loans.shared.model.LoanAccount;
+import com.mambu.loans.shared.model.LoanTransaction;
+import com.mambu.savings.shared.model.SavingsAccount;
+import com.mambu.savings.shared.model.SavingsTransaction;
+
+/**
+ * ReplicaStore is an embeddable local read model for Mambu entities. Entities retrieved with the API services (for
+ * example with ClientsService.getClients() or LoansService.getLoanAccounts()) are stored as JSON strings in an
+ * append-only memory-mapped log file, while an in-memory index maps entity keys and ids to the log records. This allows
+ * hot read paths to get entities by their id or encoded key, or to get all entities for a branch, an assigned user
+ * (credit officer) or a state locally, without making an API request to Mambu.
+ *
+ * Only the following entity types can be replicated: CLIENT, GROUP, LOAN_ACCOUNT, SAVINGS_ACCOUNT, LOAN_TRANSACTION
+ * and SAVINGS_TRANSACTION. For transactions the user key is the key of the user who made the transaction and the state
+ * is the transaction type (e.g. REPAYMENT).
+ *
+ * Storing an entity which is already present in the store replaces the previous version. Storing an entity which has
+ * not changed since it was stored does not append a record. The index is rebuilt from the log when an existing store
+ * file is opened. Replaced and removed entities still take space in the log until it is compacted with
+ * {@link #compact()}, which writes the stored entities to a new log file and replaces the old file with it.
+ * ReplicaStore is thread safe: reads can be executed concurrently, updates are executed one at a time.
+ *
+ * Usage example:
+ *
+ * ReplicaStore store = new ReplicaStore(new File("mambu.replica"));
+ *
+ * store.putAll(MambuEntityType.CLIENT, clientsService.getClients(true, 0, 500));
+ *
+ * Client client = store.get(MambuEntityType.CLIENT, "ABC123");
+ *
+ * See {@link ReplicaSynchronizer} for populating the store with all entities matching filter constraints
+ */
+public class ReplicaStore {
+
+	// Entity types supported by the replica store. The position in this array is the type's code in the log records
+	private final static MambuEntityType[] replicatedTypes = { MambuEntityType.CLIENT, MambuEntityType.GROUP,
+			MambuEntityType.LOAN_ACCOUNT, MambuEntityType.SAVINGS_ACCOUNT, MambuEntityType.LOAN_TRANSACTION,
+			MambuEntityType.SAVINGS_TRANSACTION };
+
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+
+	// Logs smaller than this are not compacted by compactIfNeeded()
+	private final static int MIN_COMPACTION_SIZE = 1024 * 1024;
+
+	private final File logFile;
+	private ReplicaLog log;
+	// Number of log bytes used by the records of stored entities. The rest is used by replaced records and tombstones
+	private int liveBytes;
+	private final Gson gson = GsonUtils.createGson();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Map<MambuEntityType, TypeIndex> indexes = new EnumMap<MambuEntityType, TypeIndex>(
+			MambuEntityType.class);
+
+	/**
+	 * Open a replica store using the specified log file. The file is created if it doesn't exist. If the file exists,
+	 * the store's index is rebuilt from the log records
+	 *
+	 * @param logFile
+	 *            replica log file. Must not be null
+	 * @throws IOException
+	 */
+	public ReplicaStore(File logFile) throws IOException {
+		this.logFile = logFile;
+		log = new ReplicaLog(logFile);
+		rebuildIndex();
+	}
+
+	/**
+	 * Store an entity, replacing the previously stored version of it. Nothing is written if the stored version is the
+	 * same
+	 *
+	 * @param entityType
+	 *            entity type. Must be one of the types supported by the replica store
+	 * @param entity
+	 *            entity to store. Must not be null and must be an instance of the entityType's class
+	 * @return true if the entity was stored, false if the same version of it was already stored
+	 * @throws IOException
+	 */
+	public <T> boolean put(MambuEntityType entityType, T entity) throws IOException {
+		ReplicaEntry entry = makeEntry(entityType, entity);
+		byte[] jsonBytes = gson.toJson(entity, entityType.getEntityClass()).getBytes(UTF8);
+
+		lock.writeLock().lock();
+		try {
+			TypeIndex index = indexes.get(entityType);
+			ReplicaEntry stored = index.entries.get(entry.getKey());
+			if (stored != null && hasSameHeader(stored, entry) && log.hasSameJson(stored.getPosition(), jsonBytes)) {
+				return false;
+			}
+			log.append(entry, jsonBytes);
+			addLive(entry, index.put(entry));
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Store a list of entities
+	 *
+	 * @param entityType
+	 *            entity type. Must be one of the types supported by the replica store
+	 * @param entities
+	 *            entities to store. Can be null
+	 * @throws IOException
+	 */
+	public <T> void putAll(MambuEntityType entityType, List<T> entities) throws IOException {
+		if (entities == null) {
+			return;
+		}
+		for (T entity : entities) {
+			put(entityType, entity);
+		}
+	}
+
+	/**
+	 * Remove an entity from the store
+	 *
+	 * @param entityType
+	 *            entity type
+	 * @param idOrKey
+	 *            entity's id or encoded key
+	 * @return true if the entity was present in the store
+	 * @throws IOException
+	 */
+	public boolean remove(MambuEntityType entityType, String idOrKey) throws IOException {
+		TypeIndex index = getIndex(entityType);
+
+		lock.writeLock().lock();
+		try {
+			ReplicaEntry entry = index.find(idOrKey);
+			if (entry == null) {
+				return false;
+			}
+			// Append a tombstone record for the entity
+			log.append(new ReplicaEntry(entityType, entry.getKey()), null);
+			addLive(null, index.remove(entry.getKey()));
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Remove all entities of a type except the ones with the specified keys. Used to remove entities which are no
+	 * longer returned by Mambu, for example deleted clients or closed accounts no longer matching the synchronized
+	 * filter constraints
+	 *
+	 * @param entityType
+	 *            entity type
+	 * @param keysToKeep
+	 *            encoded keys (or ids, for entities without an encoded key) of the entities to keep. Must not be null
+	 * @return number of removed entities
+	 * @throws IOException
+	 */
+	public int removeAllExcept(MambuEntityType entityType, Set<String> keysToKeep) throws IOException {
+		if (keysToKeep == null) {
+			throw new IllegalArgumentException("Keys to keep must not be null");
+		}
+		TypeIndex index = getIndex(entityType);
+
+		lock.writeLock().lock();
+		try {
+			List<String> keysToRemove = new ArrayList<String>();
+			for (String key : index.entries.keySet()) {
+				if (!keysToKeep.contains(key)) {
+					keysToRemove.add(key);
+				}
+			}
+			for (String key : keysToRemove) {
+				log.append(new ReplicaEntry(entityType, key), null);
+				addLive(null, index.remove(key));
+			}
+			return keysToRemove.size();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Get a stored entity by its id or encoded key
+	 *
+	 * @param entityType
+	 *            entity type
+	 * @param idOrKey
+	 *            entity's id or encoded key
+	 * @return entity or null if the entity is not present in the store
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T get(MambuEntityType entityType, String idOrKey) {
+		TypeIndex index = getIndex(entityType);
+		String json;
+		lock.readLock().lock();
+		try {
+			ReplicaEntry entry = index.find(idOrKey);
+			if (entry == null) {
+				return null;
+			}
+			json = log.readJson(entry.getPosition());
+		} finally {
+			lock.readLock().unlock();
+		}
+		return (T) gson.fromJson(json, entityType.getEntityClass());
+	}
+
+	/**
+	 * Get all stored entities assigned to a branch
+	 *
+	 * @param entityType
+	 *            entity type
+	 * @param branchKey
+	 *            encoded key of the branch
+	 * @return list of entities. Empty list if none are found
+	 */
+	public <T> List<T> getByBranch(MambuEntityType entityType, String branchKey) {
+		TypeIndex index = getIndex(entityType);
+		return getEntities(entityType, index.byBranch, branchKey);
+	}
+
+	/**
+	 * Get all stored entities assigned to a user (credit officer). For transactions this is the user who made the
+	 * transaction
+	 *
+	 * @param entityType
+	 *            entity type
+	 * @param userKey
+	 *            encoded key of the user
+	 * @return list of entities. Empty list if none are found
+	 */
+	public <T> List<T> getByAssignedUser(MambuEntityType entityType, String userKey) {
+		TypeIndex index = getIndex(entityType);
+		return getEntities(entityType, index.byUser, userKey);
+	}
+
+	/**
+	 * Get all stored entities in a state. For transactions the state is the transaction type
+	 *
+	 * @param entityType
+	 *            entity type
+	 * @param state
+	 *            state name. Example: "ACTIVE", "APPROVED", "REPAYMENT"
+	 * @return list of entities. Empty list if none are found
+	 */
+	public <T> List<T> getByState(MambuEntityType entityType, String state) {
+		TypeIndex index = getIndex(entityType);
+		return getEntities(entityType, index.byState, state);
+	}
+
+	/**
+	 * Get the number of stored entities of the specified type
+	 *
+	 * @param entityType
+	 *            entity type
+	 * @return number of entities
+	 */
+	public int size(MambuEntityType entityType) {
+		TypeIndex index = getIndex(entityType);
+		lock.readLock().lock();
+		try {
+			return index.entries.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Compact the log: write the records of the stored entities to a new log file and replace the log file with it.
+	 * Records of replaced and removed entities are dropped. Reads and updates wait until the compaction is completed
+	 *
+	 * @throws IOException
+	 *             if the new log cannot be written. The store keeps using the existing log file in this case
+	 */
+	public void compact() throws IOException {
+		lock.writeLock().lock();
+		try {
+			File compactedFile = new File(logFile.getPath() + ".compact");
+			Files.deleteIfExists(compactedFile.toPath());
+			boolean isWritten = false;
+			ReplicaLog compacted = new ReplicaLog(compactedFile);
+			try {
+				for (TypeIndex index : indexes.values()) {
+					for (ReplicaEntry entry : index.entries.values()) {
+						compacted.append(entry.copy(), log.readJsonBytes(entry.getPosition()));
+					}
+				}
+				isWritten = true;
+			} finally {
+				compacted.close();
+				if (!isWritten) {
+					Files.deleteIfExists(compactedFile.toPath());
+				}
+			}
+
+			log.close();
+			try {
+				Files.move(compactedFile.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				// Open the compacted log, or the existing one if it could not be replaced
+				log = new ReplicaLog(logFile);
+				rebuildIndex();
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Compact the log if replaced and removed entities take more space in it than the stored entities
+	 *
+	 * @return true if the log was compacted
+	 * @throws IOException
+	 */
+	public boolean compactIfNeeded() throws IOException {
+		lock.writeLock().lock();
+		try {
+			int logSize = log.size();
+			if (logSize < MIN_COMPACTION_SIZE || logSize - liveBytes <= liveBytes) {
+				return false;
+			}
+			compact();
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Get the number of bytes used by the log, including the records of replaced and removed entities
+	 *
+	 * @return log size in bytes
+	 */
+	public int getLogSize() {
+		lock.readLock().lock();
+		try {
+			return log.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Flush stored records to the storage device
+	 */
+	public void flush() {
+		lock.writeLock().lock();
+		try {
+			log.force();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Flush and close the store
+	 *
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		lock.writeLock().lock();
+		try {
+			log.close();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Check if the entity type can be replicated
+	 *
+	 * @param entityType
+	 *            entity type
+	 * @return true if the entity type is supported by the replica store
+	 */
+	public static boolean isReplicated(MambuEntityType entityType) {
+		return getTypeCode(entityType) != -1;
+	}
+
+	// Get the entity type's code used in the log records
+	static byte getReplicatedTypeCode(MambuEntityType entityType) {
+		int code = getTypeCode(entityType);
+		if (code == -1) {
+			throw new IllegalArgumentException("Entity type " + entityType + " is not supported by the replica store");
+		}
+		return (byte) code;
+	}
+
+	// Get the entity type for the code used in the log records
+	static MambuEntityType getReplicatedType(byte typeCode) {
+		if (typeCode < 0 || typeCode >= replicatedTypes.length) {
+			throw new IllegalStateException("Invalid entity type code in the replica log: " + typeCode);
+		}
+		return replicatedTypes[typeCode];
+	}
+
+	// Get the key identifying the entity in the store: its encoded key, or its id if it has no encoded key
+	static String getKey(MambuEntityType entityType, Object entity) {
+		return makeEntry(entityType, entity).getKey();
+	}
+
+	// Private helpers
+	private void rebuildIndex() {
+		indexes.clear();
+		for (MambuEntityType entityType : replicatedTypes) {
+			indexes.put(entityType, new TypeIndex());
+		}
+		liveBytes = 0;
+
+		// Later records supersede earlier ones
+		log.scan(new ReplicaLog.RecordVisitor() {
+			@Override
+			public void visit(ReplicaEntry entry, boolean isTombstone) {
+				TypeIndex index = indexes.get(entry.getEntityType());
+				if (isTombstone) {
+					addLive(null, index.remove(entry.getKey()));
+				} else {
+					addLive(entry, index.put(entry));
+				}
+			}
+		});
+	}
+
+	// Update the number of live bytes with the added and the replaced or removed entries. Each can be null
+	private void addLive(ReplicaEntry added, ReplicaEntry removed) {
+		if (added != null) {
+			liveBytes += added.getLength();
+		}
+		if (removed != null) {
+			liveBytes -= removed.getLength();
+		}
+	}
+
+	private static boolean hasSameHeader(ReplicaEntry stored, ReplicaEntry entry) {
+		return equal(stored.getId(), entry.getId()) && equal(stored.getBranchKey(), entry.getBranchKey())
+				&& equal(stored.getUserKey(), entry.getUserKey()) && equal(stored.getState(), entry.getState());
+	}
+
+	private static boolean equal(String a, String b) {
+		return a == null ? b == null : a.equals(b);
+	}
+
+	private static int getTypeCode(MambuEntityType entityType) {
+		for (int i = 0; i < replicatedTypes.length; i++) {
+			if (replicatedTypes[i] == entityType) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private TypeIndex getIndex(MambuEntityType entityType) {
+		getReplicatedTypeCode(entityType);
+		return indexes.get(entityType);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> List<T> getEntities(MambuEntityType entityType, Map<String, Set<String>> secondaryIndex, String value) {
+		List<String> jsons = new ArrayList<String>();
+		lock.readLock().lock();
+		try {
+			Set<String> keys = secondaryIndex.get(value);
+			if (keys == null) {
+				return Collections.emptyList();
+			}
+			Map<String, ReplicaEntry> entries = indexes.get(entityType).entries;
+			for (String key : keys) {
+				jsons.add(log.readJson(entries.get(key).getPosition()));
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		// Parse outside of the lock
+		List<T> result = new ArrayList<T>(jsons.size());
+		Class<?> entityClass = entityType.getEntityClass();
+		for (String json : jsons) {
+			result.add((T) gson.fromJson(json, entityClass));
+		}
+		return result;
+	}
+
+	/**
+	 * Make a replica entry with the indexed attributes of the entity
+	 *
+	 * @param entityType
+	 *            entity type
+	 * @param entity
+	 *            entity
+	 * @return replica entry
+	 */
+	private static ReplicaEntry makeEntry(MambuEntityType entityType, Object entity) {
+		if (entity == null) {
+			throw new IllegalArgumentException("Entity must not be null");
+		}
+		if (!entityType.getEntityClass().isInstance(entity)) {
+			throw new IllegalArgumentException("Entity of class " + entity.getClass().getName()
+					+ " cannot be stored as " + entityType);
+		}
+
+		String encodedKey;
+		String id;
+		String branchKey;
+		String userKey;
+		Object state;
+		switch (entityType) {
+		case CLIENT:
+			Client client = (Client) entity;
+			encodedKey = client.getEncodedKey();
+			id = client.getId();
+			branchKey = client.getAssignedBranchKey();
+			userKey = client.getAssignedUserKey();
+			state = client.getState();
+			break;
+		case GROUP:
+			Group group = (Group) entity;
+			encodedKey = group.getEncodedKey();
+			id = group.getId();
+			branchKey = group.getAssignedBranchKey();
+			userKey = group.getAssignedUserKey();
+			state = null; // groups have no state
+			break;
+		case LOAN_ACCOUNT:
+			LoanAccount loan = (LoanAccount) entity;
+			encodedKey = loan.getEncodedKey();
+			id = loan.getId();
+			branchKey = loan.getAssignedBranchKey();
+			userKey = loan.getAssignedUserKey();
+			state = loan.getAccountState();
+			break;
+		case SAVINGS_ACCOUNT:
+			SavingsAccount savings = (SavingsAccount) entity;
+			encodedKey = savings.getEncodedKey();
+			id = savings.getId();
+			branchKey = savings.getAssignedBranchKey();
+			userKey = savings.getAssignedUserKey();
+			state = savings.getAccountState();
+			break;
+		case LOAN_TRANSACTION:
+			LoanTransaction loanTransaction = (LoanTransaction) entity;
+			encodedKey = loanTransaction.getEncodedKey();
+			id = loanTransaction.getTransactionId() == null ? null : loanTransaction.getTransactionId().toString();
+			branchKey = loanTransaction.getBranchKey();
+			userKey = loanTransaction.getUserKey();
+			state = loanTransaction.getType();
+			break;
+		case SAVINGS_TRANSACTION:
+			SavingsTransaction savingsTransaction = (SavingsTransaction) entity;
+			encodedKey = savingsTransaction.getEncodedKey();
+			id = savingsTransaction.getTransactionId() == null ? null : savingsTransaction.getTransactionId()
+					.toString();
+			branchKey = savingsTransaction.getBranchKey();
+			userKey = savingsTransaction.getUserKey();
+			state = savingsTransaction.getType();
+			break;
+		default:
+			throw new IllegalArgumentException("Entity type " + entityType + " is not supported by the replica store");
+		}
+
+		String key = encodedKey != null ? encodedKey : id;
+		if (key == null) {
+			throw new IllegalArgumentException("Entity must have either an encoded key or an id");
+		}
+		ReplicaEntry entry = new ReplicaEntry(entityType, key);
+		entry.setId(id);
+		entry.setBranchKey(branchKey);
+		entry.setUserKey(userKey);
+		entry.setState(state == null ? null : state.toString());
+		return entry;
+	}
+
+	/**
+	 * In-memory index for the entities of one type
+	 */
+	private static class TypeIndex {
+
+		// Entries by the entity key
+		private final Map<String, ReplicaEntry> entries = new HashMap<String, ReplicaEntry>();
+		// Entity keys by entity id
+		private final Map<String, String> keysById = new HashMap<String, String>();
+		// Secondary indexes: entity keys by branch key, user key and state
+		private final Map<String, Set<String>> byBranch = new HashMap<String, Set<String>>();
+		private final Map<String, Set<String>> byUser = new HashMap<String, Set<String>>();
+		private final Map<String, Set<String>> byState = new HashMap<String, Set<String>>();
+
+		// Find entry by entity key or by entity id
+		ReplicaEntry find(String idOrKey) {
+			if (idOrKey == null) {
+				return null;
+			}
+			ReplicaEntry entry = entries.get(idOrKey);
+			if (entry == null) {
+				String key = keysById.get(idOrKey);
+				entry = key == null ? null : entries.get(key);
+			}
+			return entry;
+		}
+
+		// Add or replace the entry. Returns the replaced entry, or null
+		ReplicaEntry put(ReplicaEntry entry) {
+			ReplicaEntry replaced = remove(entry.getKey());
+
+			String key = entry.getKey();
+			entries.put(key, entry);
+			if (entry.getId() != null) {
+				keysById.put(entry.getId(), key);
+			}
+			addToIndex(byBranch, entry.getBranchKey(), key);
+			addToIndex(byUser, entry.getUserKey(), key);
+			addToIndex(byState, entry.getState(), key);
+			return replaced;
+		}
+
+		// Remove the entry. Returns the removed entry, or null
+		ReplicaEntry remove(String key) {
+			ReplicaEntry entry = entries.remove(key);
+			if (entry == null) {
+				return null;
+			}
+			if (entry.getId() != null) {
+				keysById.remove(entry.getId());
+			}
+			removeFromIndex(byBranch, entry.getBranchKey(), key);
+			removeFromIndex(byUser, entry.getUserKey(), key);
+			removeFromIndex(byState, entry.getState(), key);
+			return entry;
+		}
+
+		private static void addToIndex(Map<String, Set<String>> index, String value, String key) {
+			if (value == null) {
+				return;
+			}
+			Set<String> keys = index.get(value);
+			if (keys == null) {
+				keys = new LinkedHashSet<String>();
+				index.put(value, keys);
+			}
+			keys.add(key);
+		}
+
+		private static void removeFromIndex(Map<String, Set<String>> index, String value, String key) {
+			if (value == null) {
+				return;
+			}
+			Set<String> keys = index.get(value);
+			if (keys != null) {
+				keys.remove(key);
+				if (keys.isEmpty()) {
+					index.remove(value);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,203 @@
+package com.mambu.apisdk.replica;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import com.mambu.api.server.handler.core.dynamicsearch.model.JSONFilterConstraints;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.services.ClientsService;
+import com.mambu.apisdk.services.LoansService;
+import com.mambu.apisdk.services.SavingsService;
+import com.mambu.apisdk.util.MambuEntityType;
+
+/**
+ * ReplicaSynchronizer populates a {@link ReplicaStore} with Mambu entities retrieved using the existing API services.
+ * Entities matching the provided filter constraints are retrieved page by page (e.g. with
+ * {@link ClientsService#getClients(JSONFilterConstraints, String, String)} or
+ * {@link LoansService#getLoanAccounts(JSONFilterConstraints, String, String)}) and each page is written to the store
+ * before the next page is requested. Entities which have not changed since they were stored are not written again, and
+ * the store's log is compacted after a synchronization if needed.
+ *
+ * Incremental synchronization with {@link #synchronize(MambuEntityType, JSONFilterConstraints)} only adds and replaces
+ * entities: entities deleted in Mambu, or no longer matching the filter constraints, stay in the store. Full
+ * synchronization with {@link #synchronizeAll(MambuEntityType, JSONFilterConstraints)} also removes the stored entities
+ * of the type which were not retrieved.
+ *
+ * Usage example: replicate all loan accounts modified since the last synchronization, and all active loan accounts
+ * every night
+ *
+ * ReplicaSynchronizer synchronizer = new ReplicaSynchronizer(store, clientsService, loansService, savingsService);
+ *
+ * synchronizer.synchronize(MambuEntityType.LOAN_ACCOUNT, lastModifiedFilter);
+ *
+ * synchronizer.synchronizeAll(MambuEntityType.LOAN_ACCOUNT, activeLoansFilter);
+ */
+public class ReplicaSynchronizer {
+
+	private final static Logger LOGGER = Logger.getLogger(ReplicaSynchronizer.class.getName());
+
+	// Default page size. Mambu returns at most 1000 entities per API request
+	public final static int DEFAULT_PAGE_SIZE = 1000;
+
+	private final ReplicaStore store;
+	private final ClientsService clientsService;
+	private final LoansService loansService;
+	private final SavingsService savingsService;
+	private int pageSize = DEFAULT_PAGE_SIZE;
+
+	/**
+	 * Create a synchronizer for a replica store
+	 *
+	 * @param store
+	 *            replica store to populate. Must not be null
+	 * @param clientsService
+	 *            clients service used to retrieve clients and groups
+	 * @param loansService
+	 *            loans service used to retrieve loan accounts and loan transactions
+	 * @param savingsService
+	 *            savings service used to retrieve savings accounts and savings transactions
+	 */
+	public ReplicaSynchronizer(ReplicaStore store, ClientsService clientsService, LoansService loansService,
+			SavingsService savingsService) {
+		if (store == null) {
+			throw new IllegalArgumentException("Replica store must not be null");
+		}
+		this.store = store;
+		this.clientsService = clientsService;
+		this.loansService = loansService;
+		this.savingsService = savingsService;
+	}
+
+	/**
+	 * Set the number of entities to be requested with each API request
+	 *
+	 * @param pageSize
+	 *            page size. Must be greater than zero
+	 */
+	public void setPageSize(int pageSize) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be greater than zero");
+		}
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * Retrieve all entities of the specified type matching filter constraints and store them in the replica store.
+	 * Stored entities which were not retrieved are kept
+	 *
+	 * @param entityType
+	 *            entity type. Must be one of CLIENT, GROUP, LOAN_ACCOUNT, SAVINGS_ACCOUNT, LOAN_TRANSACTION or
+	 *            SAVINGS_TRANSACTION
+	 * @param filterConstraints
+	 *            filter constraints selecting the entities to replicate. Must not be null
+	 * @return number of entities stored
+	 * @throws MambuApiException
+	 * @throws IOException
+	 *             if the replica store cannot be updated
+	 */
+	public int synchronize(MambuEntityType entityType, JSONFilterConstraints filterConstraints)
+			throws MambuApiException, IOException {
+		return synchronize(entityType, filterConstraints, null);
+	}
+
+	/**
+	 * Retrieve all entities of the specified type matching filter constraints, store them in the replica store and
+	 * remove the stored entities of the type which were not retrieved. The filter constraints must therefore select
+	 * all entities to be kept in the store, for example all active loan accounts. Entities are removed only if all
+	 * pages were retrieved successfully
+	 *
+	 * @param entityType
+	 *            entity type. Must be one of CLIENT, GROUP, LOAN_ACCOUNT, SAVINGS_ACCOUNT, LOAN_TRANSACTION or
+	 *            SAVINGS_TRANSACTION
+	 * @param filterConstraints
+	 *            filter constraints selecting all entities to keep in the store. Must not be null
+	 * @return number of entities retrieved
+	 * @throws MambuApiException
+	 * @throws IOException
+	 *             if the replica store cannot be updated
+	 */
+	public int synchronizeAll(MambuEntityType entityType, JSONFilterConstraints filterConstraints)
+			throws MambuApiException, IOException {
+		return synchronize(entityType, filterConstraints, new HashSet<String>());
+	}
+
+	// Synchronize entities. Stored entities not retrieved are removed if retrievedKeys is not null
+	private int synchronize(MambuEntityType entityType, JSONFilterConstraints filterConstraints,
+			Set<String> retrievedKeys) throws MambuApiException, IOException {
+		if (!ReplicaStore.isReplicated(entityType)) {
+			throw new IllegalArgumentException("Entity type " + entityType + " is not supported by the replica store");
+		}
+		if (filterConstraints == null) {
+			throw new IllegalArgumentException("Filter constraints must not be null");
+		}
+
+		int offset = 0;
+		int total = 0;
+		while (true) {
+			List<?> page = getPage(entityType, filterConstraints, String.valueOf(offset), String.valueOf(pageSize));
+			int pageCount = page == null ? 0 : page.size();
+			store.putAll(entityType, page);
+			if (retrievedKeys != null && page != null) {
+				for (Object entity : page) {
+					retrievedKeys.add(ReplicaStore.getKey(entityType, entity));
+				}
+			}
+			total += pageCount;
+			if (pageCount < pageSize) {
+				break;
+			}
+			offset += pageCount;
+		}
+		int removed = retrievedKeys == null ? 0 : store.removeAllExcept(entityType, retrievedKeys);
+		store.compactIfNeeded();
+		store.flush();
+
+		LOGGER.fine("Replicated " + total + " entities of type " + entityType + ", removed " + removed);
+		return total;
+	}
+
+	// Get one page of entities using the service method for the entity type
+	private List<?> getPage(MambuEntityType entityType, JSONFilterConstraints filterConstraints, String offset,
+			String limit) throws MambuApiException {
+		switch (entityType) {
+		case CLIENT:
+			return getClientsService().getClients(filterConstraints, offset, limit);
+		case GROUP:
+			return getClientsService().getGroups(filterConstraints, offset, limit);
+		case LOAN_ACCOUNT:
+			return getLoansService().getLoanAccounts(filterConstraints, offset, limit);
+		case LOAN_TRANSACTION:
+			return getLoansService().getLoanTransactions(filterConstraints, offset, limit);
+		case SAVINGS_ACCOUNT:
+			return getSavingsService().getSavingsAccounts(filterConstraints, offset, limit);
+		case SAVINGS_TRANSACTION:
+			return getSavingsService().getSavingsTransactions(filterConstraints, offset, limit);
+		default:
+			throw new IllegalArgumentException("Entity type " + entityType + " is not supported by the replica store");
+		}
+	}
+
+	private ClientsService getClientsService() {
+		if (clientsService == null) {
+			throw new IllegalStateException("Clients service is required to replicate clients and groups");
+		}
+		return clientsService;
+	}
+
+	private LoansService getLoansService() {
+		if (loansService == null) {
+			throw new IllegalStateException("Loans service is required to replicate loan accounts and transactions");
+		}
+		return loansService;
+	}
+
+	private SavingsService getSavingsService() {
+		if (savingsService == null) {
+			throw new IllegalStateException("Savings service is required to replicate savings accounts and transactions");
+		}
+		return savingsService;
+	}
+}
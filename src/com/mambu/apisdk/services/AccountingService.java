@@ -164,8 +164,8 @@ public class AccountingService {
 
 		ParamsMap params = new ParamsMap();
 		params.put(APIData.BRANCH_ID, branchID);
-		params.put(APIData.FROM, DateUtils.FORMAT.format(fromDate));
-		params.put(APIData.TO, DateUtils.FORMAT.format(toDate));
+		params.put(APIData.FROM, DateUtils.format(fromDate));
+		params.put(APIData.TO, DateUtils.format(toDate));
 		if (offset != null) {
 			params.put(APIData.OFFSET, Integer.toString(offset));
 		}
@@ -233,7 +233,8 @@ public class AccountingService {
 				break;
 			}
 			params.put(accountParam, glCode);
-			params.put(amountParam, String.valueOf(amount.doubleValue()));
+			// Send the exact amount, without converting it to double
+			params.put(amountParam, amount.toPlainString());
 
 		}
 		// Add date, barnchId, and notes
@@ -1,6 +1,5 @@
 package com.mambu.apisdk.services;
 
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
 
@@ -11,6 +10,7 @@ import com.mambu.apisdk.exception.MambuApiException;
 import com.mambu.apisdk.util.APIData;
 import com.mambu.apisdk.util.ApiDefinition;
 import com.mambu.apisdk.util.ApiDefinition.ApiType;
+import com.mambu.apisdk.util.DateUtils;
 import com.mambu.apisdk.util.ParamsMap;
 import com.mambu.apisdk.util.ServiceExecutor;
 import com.mambu.clients.shared.model.Client;
@@ -94,24 +94,9 @@ public class ActivitiesService {
 		}
 
 		// Format dates as API requirements: "yyyy-MM-dd
-		final String dateTimeFormat = APIData.yyyyMmddFormat;
-
 		ParamsMap params = new ParamsMap();
-
-		try {
-			String formattedFromDate = new SimpleDateFormat(dateTimeFormat).format(fromDate);
-			params.put(FROM, formattedFromDate);
-
-		} catch (IllegalArgumentException e) {
-			throw new IllegalArgumentException("Invalid From Date");
-		}
-
-		try {
-			String formattedToDate = new SimpleDateFormat(dateTimeFormat).format(toDate);
-			params.put(TO, formattedToDate);
-		} catch (IllegalArgumentException e) {
-			throw new IllegalArgumentException("Invalid To Date");
-		}
+		params.put(FROM, DateUtils.format(fromDate));
+		params.put(TO, DateUtils.format(toDate));
 
 		// Get the name of the ID parameter based on the requested Mambu Class and add id to the ParamsMap
 		if (mambuEntity != null) {
@@ -0,0 +1,201 @@
+package com.mambu.apisdk.services;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import com.google.inject.Inject;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.model.ClientPortfolio;
+import com.mambu.apisdk.model.ClientPortfolio.Part;
+import com.mambu.apisdk.util.CallResult;
+import com.mambu.apisdk.util.MambuEntityType;
+import com.mambu.apisdk.util.ParallelCallsExecutor;
+import com.mambu.clients.shared.model.ClientExpanded;
+import com.mambu.core.shared.model.Comment;
+import com.mambu.docs.shared.model.Document;
+import com.mambu.linesofcredit.shared.model.LineOfCredit;
+import com.mambu.loans.shared.model.LoanAccount;
+import com.mambu.savings.shared.model.SavingsAccount;
+import com.mambu.tasks.shared.model.Task;
+
+/**
+ * Service class which retrieves the complete client portfolio with one call: client details, client's loan and
+ * savings accounts, lines of credit, tasks, documents and comments. The API requests for all parts of the portfolio
+ * are independent and are executed concurrently, so the time needed to get the portfolio is determined by the slowest
+ * request rather than by the sum of all requests.
+ *
+ * All requests share one deadline. Parts which could not be retrieved (because of an API error or because the request
+ * didn't complete before the deadline) are reported in the returned {@link ClientPortfolio} and don't prevent the
+ * other parts from being returned.
+ */
+public class ClientPortfolioService {
+
+	// Default time to wait for all portfolio requests to complete
+	public final static long DEFAULT_TIMEOUT_SECONDS = 30;
+
+	private final ClientsService clientsService;
+	private final LoansService loansService;
+	private final SavingsService savingsService;
+	private final LinesOfCreditService linesOfCreditService;
+	private final TasksService tasksService;
+	private final DocumentsService documentsService;
+	private final CommentsService commentsService;
+	private final ParallelCallsExecutor parallelCallsExecutor;
+
+	/***
+	 * Create a new client portfolio service
+	 *
+	 * @param clientsService
+	 *            clients service
+	 * @param loansService
+	 *            loans service
+	 * @param savingsService
+	 *            savings service
+	 * @param linesOfCreditService
+	 *            lines of credit service
+	 * @param tasksService
+	 *            tasks service
+	 * @param documentsService
+	 *            documents service
+	 * @param commentsService
+	 *            comments service
+	 * @param parallelCallsExecutor
+	 *            executor for concurrent API calls
+	 */
+	@Inject
+	public ClientPortfolioService(ClientsService clientsService, LoansService loansService,
+			SavingsService savingsService, LinesOfCreditService linesOfCreditService, TasksService tasksService,
+			DocumentsService documentsService, CommentsService commentsService,
+			ParallelCallsExecutor parallelCallsExecutor) {
+		this.clientsService = clientsService;
+		this.loansService = loansService;
+		this.savingsService = savingsService;
+		this.linesOfCreditService = linesOfCreditService;
+		this.tasksService = tasksService;
+		this.documentsService = documentsService;
+		this.commentsService = commentsService;
+		this.parallelCallsExecutor = parallelCallsExecutor;
+	}
+
+	/**
+	 * Get client portfolio using the default timeout
+	 *
+	 * @param clientId
+	 *            the encoded key or id of the Mambu client. Must not be null
+	 * @return client portfolio. Parts which could not be retrieved are reported with
+	 *         {@link ClientPortfolio#getErrors()}
+	 * @throws MambuApiException
+	 *             if the calling thread was interrupted while waiting for the portfolio
+	 */
+	public ClientPortfolio getClientPortfolio(String clientId) throws MambuApiException {
+		return getClientPortfolio(clientId, DEFAULT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Get client portfolio. All parts of the portfolio are retrieved concurrently
+	 *
+	 * @param clientId
+	 *            the encoded key or id of the Mambu client. Must not be null
+	 * @param timeout
+	 *            maximum time to wait for all parts of the portfolio
+	 * @param unit
+	 *            timeout unit
+	 * @return client portfolio. Parts which could not be retrieved are reported with
+	 *         {@link ClientPortfolio#getErrors()}
+	 * @throws MambuApiException
+	 *             if the calling thread was interrupted while waiting for the portfolio
+	 */
+	@SuppressWarnings("unchecked")
+	public ClientPortfolio getClientPortfolio(final String clientId, long timeout, TimeUnit unit)
+			throws MambuApiException {
+		if (clientId == null) {
+			throw new IllegalArgumentException("Client ID must not be null");
+		}
+
+		Map<Part, Callable<?>> calls = new EnumMap<Part, Callable<?>>(Part.class);
+		calls.put(Part.CLIENT_DETAILS, new Callable<ClientExpanded>() {
+			@Override
+			public ClientExpanded call() throws MambuApiException {
+				return clientsService.getClientDetails(clientId);
+			}
+		});
+		calls.put(Part.LOAN_ACCOUNTS, new Callable<List<LoanAccount>>() {
+			@Override
+			public List<LoanAccount> call() throws MambuApiException {
+				return loansService.getLoanAccountsForClient(clientId);
+			}
+		});
+		calls.put(Part.SAVINGS_ACCOUNTS, new Callable<List<SavingsAccount>>() {
+			@Override
+			public List<SavingsAccount> call() throws MambuApiException {
+				return savingsService.getSavingsAccountsForClient(clientId);
+			}
+		});
+		calls.put(Part.LINES_OF_CREDIT, new Callable<List<LineOfCredit>>() {
+			@Override
+			public List<LineOfCredit> call() throws MambuApiException {
+				return linesOfCreditService.getClientLinesOfCredit(clientId, null, null);
+			}
+		});
+		calls.put(Part.TASKS, new Callable<List<Task>>() {
+			@Override
+			public List<Task> call() throws MambuApiException {
+				// Get tasks with any status
+				return tasksService.getClientTasks(clientId, null, null, null);
+			}
+		});
+		calls.put(Part.DOCUMENTS, new Callable<List<Document>>() {
+			@Override
+			public List<Document> call() throws MambuApiException {
+				return documentsService.getDocuments(MambuEntityType.CLIENT, clientId, null, null);
+			}
+		});
+		calls.put(Part.COMMENTS, new Callable<List<Comment>>() {
+			@Override
+			public List<Comment> call() throws MambuApiException {
+				return commentsService.getComments(MambuEntityType.CLIENT, clientId, null, null);
+			}
+		});
+
+		Map<Part, CallResult<?>> results = parallelCallsExecutor.executeAll(calls, timeout, unit);
+
+		// Make portfolio from the results
+		ClientPortfolio portfolio = new ClientPortfolio(clientId);
+		for (Map.Entry<Part, CallResult<?>> entry : results.entrySet()) {
+			Part part = entry.getKey();
+			CallResult<?> result = entry.getValue();
+			if (!result.isSuccess()) {
+				portfolio.setError(part, result.getError());
+				continue;
+			}
+			Object value = result.getResult();
+			switch (part) {
+			case CLIENT_DETAILS:
+				portfolio.setClientDetails((ClientExpanded) value);
+				break;
+			case LOAN_ACCOUNTS:
+				portfolio.setLoanAccounts((List<LoanAccount>) value);
+				break;
+			case SAVINGS_ACCOUNTS:
+				portfolio.setSavingsAccounts((List<SavingsAccount>) value);
+				break;
+			case LINES_OF_CREDIT:
+				portfolio.setLinesOfCredit((List<LineOfCredit>) value);
+				break;
+			case TASKS:
+				portfolio.setTasks((List<Task>) value);
+				break;
+			case DOCUMENTS:
+				portfolio.setDocuments((List<Document>) value);
+				break;
+			case COMMENTS:
+				portfolio.setComments((List<Comment>) value);
+				break;
+			}
+		}
+		return portfolio;
+	}
+}
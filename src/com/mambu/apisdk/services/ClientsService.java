@@ -11,7 +11,7 @@ import com.mambu.api.server.handler.core.dynamicsearch.model.JSONFilterConstrain
 import com.mambu.api.server.handler.documents.model.JSONDocument;
 import com.mambu.apisdk.MambuAPIService;
 import com.mambu.apisdk.exception.MambuApiException;
-import com.mambu.apisdk.json.ClientPatchJsonSerializer;
+import com.mambu.apisdk.json.ClientPatchJsonAdapter;
 import com.mambu.apisdk.util.APIData;
 import com.mambu.apisdk.util.ApiDefinition;
 import com.mambu.apisdk.util.ApiDefinition.ApiType;
@@ -70,8 +70,8 @@ public class ClientsService {
 	private final static ApiDefinition patchClient;
 	static {
 		patchClient = new ApiDefinition(ApiType.PATCH_ENTITY, Client.class);
-		// Use ClientPatchJsonSerializer
-		patchClient.addJsonSerializer(Client.class, new ClientPatchJsonSerializer());
+		// Use ClientPatchJsonAdapter
+		patchClient.addJsonTypeAdapter(Client.class, new ClientPatchJsonAdapter());
 	}
 	// Create Group. POST JSON /api/groups
 	private final static ApiDefinition createGroup = new ApiDefinition(ApiType.CREATE_JSON_ENTITY, GroupExpanded.class);
@@ -0,0 +1,203 @@
+package com.mambu.apisdk.services;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import com.google.inject.Inject;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.model.CustomFieldValuesUpdate;
+import com.mambu.apisdk.util.BatchReport;
+import com.mambu.apisdk.util.MambuEntityType;
+import com.mambu.apisdk.util.ParallelCallsExecutor;
+import com.mambu.core.shared.model.CustomField;
+import com.mambu.core.shared.model.CustomFieldSet;
+import com.mambu.core.shared.model.CustomFieldValue;
+
+/**
+ * Service class which updates custom field values for many Mambu entities at once, for example when the same custom
+ * field needs to be updated for thousands of clients during data migration.
+ *
+ * All values to be updated for the same entity and the same custom field set are merged and sent with a single PATCH
+ * custom information request (see {@link CustomFieldValueService#updateGroupedFields(MambuEntityType, String, List)}),
+ * which accepts values of one custom field set only. The custom field set of a value is taken from its custom field,
+ * if set, or from the custom field sets retrieved with {@link OrganizationService} once for each entity type. Values
+ * of fields not found in any set are sent with a separate request each. Requests are executed concurrently, with a
+ * limited number of requests started per second. The result for each request is reported separately, so that the
+ * failed updates can be retried.
+ */
+public class CustomFieldValueBatchService {
+
+	// Default maximum number of API requests started per second
+	public final static double DEFAULT_MAX_REQUESTS_PER_SECOND = 10;
+
+	private final CustomFieldValueService customFieldValueService;
+	private final OrganizationService organizationService;
+	private final ParallelCallsExecutor parallelCallsExecutor;
+	private double maxRequestsPerSecond = DEFAULT_MAX_REQUESTS_PER_SECOND;
+
+	/***
+	 * Create a new service
+	 *
+	 * @param customFieldValueService
+	 *            custom field value service
+	 * @param organizationService
+	 *            organization service used to retrieve custom field sets
+	 * @param parallelCallsExecutor
+	 *            executor for concurrent API calls
+	 */
+	@Inject
+	public CustomFieldValueBatchService(CustomFieldValueService customFieldValueService,
+			OrganizationService organizationService, ParallelCallsExecutor parallelCallsExecutor) {
+		this.customFieldValueService = customFieldValueService;
+		this.organizationService = organizationService;
+		this.parallelCallsExecutor = parallelCallsExecutor;
+	}
+
+	/**
+	 * Set the maximum number of API requests started per second
+	 *
+	 * @param maxRequestsPerSecond
+	 *            maximum number of requests per second. Zero or negative for no limit
+	 */
+	public void setMaxRequestsPerSecond(double maxRequestsPerSecond) {
+		this.maxRequestsPerSecond = maxRequestsPerSecond;
+	}
+
+	public double getMaxRequestsPerSecond() {
+		return maxRequestsPerSecond;
+	}
+
+	/**
+	 * Update custom field values for all entities
+	 *
+	 * @param updates
+	 *            custom field values to update. Must not be null. Updates for the same entity and custom field set
+	 *            are merged into one API request. If the same custom field value (the same field id and group index)
+	 *            is specified more than once for an entity then the last value is used
+	 * @return batch report with one result for each API request. Report items are the merged updates, one for each
+	 *         entity and custom field set, in the order they first appear in the updates. Requests for which Mambu
+	 *         didn't report success are reported as failures
+	 * @throws MambuApiException
+	 *             if the custom field sets could not be retrieved or the calling thread was interrupted while updating
+	 */
+	public BatchReport<CustomFieldValuesUpdate> update(List<CustomFieldValuesUpdate> updates)
+			throws MambuApiException {
+		if (updates == null) {
+			throw new IllegalArgumentException("Updates must not be null");
+		}
+
+		Map<CustomFieldValuesUpdate, Callable<Boolean>> calls;
+		calls = new LinkedHashMap<CustomFieldValuesUpdate, Callable<Boolean>>();
+		for (final CustomFieldValuesUpdate setUpdate : mergeByEntityAndSet(updates)) {
+			calls.put(setUpdate, new Callable<Boolean>() {
+				@Override
+				public Boolean call() throws MambuApiException {
+					boolean isUpdated = customFieldValueService.updateGroupedFields(setUpdate.getEntityType(),
+							setUpdate.getEntityId(), setUpdate.getCustomFieldValues());
+					if (!isUpdated) {
+						throw new MambuApiException(-1, "Custom field values were not updated for " + setUpdate);
+					}
+					return true;
+				}
+			});
+		}
+
+		return parallelCallsExecutor.executeBatch(calls, maxRequestsPerSecond);
+	}
+
+	/**
+	 * Merge updates for the same entity and custom field set
+	 *
+	 * @param updates
+	 *            updates
+	 * @return one update for each entity and custom field set
+	 * @throws MambuApiException
+	 */
+	private List<CustomFieldValuesUpdate> mergeByEntityAndSet(List<CustomFieldValuesUpdate> updates)
+			throws MambuApiException {
+		for (CustomFieldValuesUpdate update : updates) {
+			validate(update);
+		}
+
+		// Custom field set keys by field id and encoded key, for each entity type
+		Map<MambuEntityType, Map<String, String>> setKeysByType;
+		setKeysByType = new EnumMap<MambuEntityType, Map<String, String>>(MambuEntityType.class);
+		// Custom field values for each entity and set, mapped by their field id and group index
+		Map<String, Map<String, CustomFieldValue>> valuesBySet;
+		valuesBySet = new LinkedHashMap<String, Map<String, CustomFieldValue>>();
+		Map<String, CustomFieldValuesUpdate> firstUpdates = new LinkedHashMap<String, CustomFieldValuesUpdate>();
+
+		for (CustomFieldValuesUpdate update : updates) {
+			String entityKey = update.getEntityType() + "/" + update.getEntityId();
+			for (CustomFieldValue value : update.getCustomFieldValues()) {
+				String setKey = entityKey + "/" + getSetKey(value, update.getEntityType(), setKeysByType);
+
+				Map<String, CustomFieldValue> setValues = valuesBySet.get(setKey);
+				if (setValues == null) {
+					setValues = new LinkedHashMap<String, CustomFieldValue>();
+					valuesBySet.put(setKey, setValues);
+					firstUpdates.put(setKey, update);
+				}
+				setValues.put(value.getCustomFieldId() + "/" + value.getCustomFieldSetGroupIndex(), value);
+			}
+		}
+
+		List<CustomFieldValuesUpdate> merged = new ArrayList<CustomFieldValuesUpdate>(valuesBySet.size());
+		for (Map.Entry<String, Map<String, CustomFieldValue>> entry : valuesBySet.entrySet()) {
+			CustomFieldValuesUpdate first = firstUpdates.get(entry.getKey());
+			merged.add(new CustomFieldValuesUpdate(first.getEntityType(), first.getEntityId(),
+					new ArrayList<CustomFieldValue>(entry.getValue().values())));
+		}
+		return merged;
+	}
+
+	// Get the key of the custom field set of the value. Values of fields not found in any set get their own key
+	private String getSetKey(CustomFieldValue value, MambuEntityType entityType,
+			Map<MambuEntityType, Map<String, String>> setKeysByType) throws MambuApiException {
+		CustomField customField = value.getCustomField();
+		if (customField != null && customField.getCustomFieldSet() != null
+				&& customField.getCustomFieldSet().getEncodedKey() != null) {
+			return customField.getCustomFieldSet().getEncodedKey();
+		}
+
+		Map<String, String> setKeys = setKeysByType.get(entityType);
+		if (setKeys == null) {
+			setKeys = new HashMap<String, String>();
+			List<CustomFieldSet> sets = organizationService.getCustomFieldSets(CustomFieldValueService
+					.getCustomFieldType(entityType));
+			if (sets != null) {
+				for (CustomFieldSet set : sets) {
+					if (set.getCustomFields() == null) {
+						continue;
+					}
+					for (CustomField field : set.getCustomFields()) {
+						setKeys.put(field.getId(), set.getEncodedKey());
+						setKeys.put(field.getEncodedKey(), set.getEncodedKey());
+					}
+				}
+			}
+			setKeysByType.put(entityType, setKeys);
+		}
+		String setKey = setKeys.get(value.getCustomFieldId());
+		return setKey != null ? setKey : "field:" + value.getCustomFieldId();
+	}
+
+	private static void validate(CustomFieldValuesUpdate update) {
+		if (update == null || update.getEntityId() == null || update.getCustomFieldValues() == null) {
+			throw new IllegalArgumentException("Update, its entity ID and custom field values must not be null");
+		}
+		if (!CustomFieldValueService.isSupported(update.getEntityType())) {
+			throw new IllegalArgumentException("Custom field values are not supported for " + update.getEntityType());
+		}
+		for (CustomFieldValue value : update.getCustomFieldValues()) {
+			if (value == null || value.getCustomFieldId() == null) {
+				throw new IllegalArgumentException("Custom Field Value and its Field ID cannot be null");
+			}
+		}
+	}
+}
@@ -0,0 +1,191 @@
+package com.mambu.apisdk.services;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+import com.google.inject.Inject;
+import com.mambu.api.server.handler.customviews.model.ApiViewType;
+import com.mambu.api.server.handler.customviews.model.CustomViewEntitiesSummaryWrapper;
+import com.mambu.api.server.handler.customviews.model.ResultType;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.model.CustomViewExportReport;
+import com.mambu.apisdk.util.ParallelCallsExecutor;
+
+/**
+ * Service class which exports all entities of a custom view, for example a loans view with hundreds of thousands of
+ * rows. The custom view summary is read first to get the number of entities, then all pages are retrieved
+ * concurrently with {@link CustomViewsService} and the entities are passed to a {@link CustomViewEntitySink}, in the
+ * order of the custom view. Only a limited number of pages is held in memory.
+ *
+ * The number of exported entities is checked against the summary count: see
+ * {@link CustomViewExportReport#isCountVerified()}. Entities added to the view during the export are still exported, by
+ * reading pages after the last expected page until a page which is not full.
+ */
+public class CustomViewExportService {
+
+	private final static Logger LOGGER = Logger.getLogger(CustomViewExportService.class.getName());
+
+	// Default number of entities requested with each page
+	public final static int DEFAULT_PAGE_SIZE = 500;
+
+	/**
+	 * Sink receiving the exported entities. Called on the thread executing the export, one entity at a time
+	 *
+	 * @param <T>
+	 *            entity type
+	 */
+	public interface CustomViewEntitySink<T> {
+		void write(T entity) throws IOException;
+	}
+
+	private final CustomViewsService customViewsService;
+	private final ParallelCallsExecutor parallelCallsExecutor;
+	private int pageSize = DEFAULT_PAGE_SIZE;
+
+	/***
+	 * Create a new service
+	 *
+	 * @param customViewsService
+	 *            custom views service
+	 * @param parallelCallsExecutor
+	 *            executor for concurrent API calls
+	 */
+	@Inject
+	public CustomViewExportService(CustomViewsService customViewsService, ParallelCallsExecutor parallelCallsExecutor) {
+		this.customViewsService = customViewsService;
+		this.parallelCallsExecutor = parallelCallsExecutor;
+	}
+
+	/**
+	 * Set the number of entities requested with each page
+	 *
+	 * @param pageSize
+	 *            page size. Must be greater than zero
+	 */
+	public void setPageSize(int pageSize) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be greater than zero");
+		}
+		this.pageSize = pageSize;
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * Export entities of a custom view
+	 *
+	 * @param apiViewType
+	 *            API view type. Example, ApiViewType.LOANS, or ApiViewType.CLIENTS
+	 * @param branchId
+	 *            an optional branch ID filtering parameter. If null, entities for all branches managed by the API user
+	 *            are exported
+	 * @param customViewKey
+	 *            the encoded key for the custom view. Must not be null
+	 * @param resultType
+	 *            ResultType.BASIC or ResultType.FULL_DETAILS
+	 * @param sink
+	 *            sink receiving the entities. Must not be null
+	 * @return export report with the exported and summary counts
+	 * @throws MambuApiException
+	 *             if getting the summary or any page failed, if the sink failed or if the calling thread was
+	 *             interrupted. The entities of the earlier pages may have been passed to the sink already
+	 */
+	public <T> CustomViewExportReport export(final ApiViewType apiViewType, final String branchId,
+			final String customViewKey, ResultType resultType, CustomViewEntitySink<T> sink)
+			throws MambuApiException {
+		if (resultType != ResultType.BASIC && resultType != ResultType.FULL_DETAILS) {
+			throw new IllegalArgumentException("Result type must be BASIC or FULL_DETAILS");
+		}
+		if (sink == null) {
+			throw new IllegalArgumentException("Sink must not be null");
+		}
+
+		CustomViewEntitiesSummaryWrapper summary = customViewsService.getCustomViewSummary(apiViewType, branchId,
+				customViewKey);
+		long summaryCount = getCount(summary);
+
+		final boolean fullDetails = resultType == ResultType.FULL_DETAILS;
+		final int exportPageSize = pageSize;
+		long expectedPages = (summaryCount + exportPageSize - 1) / exportPageSize;
+		int maxPagesInFlight = 2 * parallelCallsExecutor.getMaxThreads();
+		// Pages being retrieved, in the order of the view
+		Deque<Future<List<T>>> inFlight = new ArrayDeque<Future<List<T>>>();
+		long nextPage = 0;
+		long exportedCount = 0;
+		try {
+			while (nextPage < expectedPages && inFlight.size() < maxPagesInFlight) {
+				inFlight.addLast(this.<T> submit(apiViewType, branchId, fullDetails, customViewKey, nextPage++,
+						exportPageSize));
+			}
+			// The last page is also requested when the view is empty, in case entities were added since the summary
+			if (expectedPages == 0) {
+				inFlight.addLast(this.<T> submit(apiViewType, branchId, fullDetails, customViewKey, nextPage++,
+						exportPageSize));
+			}
+			while (!inFlight.isEmpty()) {
+				List<T> page = inFlight.pollFirst().get();
+				int pageCount = page == null ? 0 : page.size();
+				for (int i = 0; i < pageCount; i++) {
+					sink.write(page.get(i));
+				}
+				exportedCount += pageCount;
+				if (nextPage < expectedPages || (inFlight.isEmpty() && pageCount == exportPageSize)) {
+					// Next expected page or, after the last expected page was full, entities added since the summary
+					inFlight.addLast(this.<T> submit(apiViewType, branchId, fullDetails, customViewKey, nextPage++,
+							exportPageSize));
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MambuApiException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof MambuApiException) {
+				throw (MambuApiException) e.getCause();
+			}
+			throw new MambuApiException(e);
+		} catch (IOException e) {
+			throw new MambuApiException(e);
+		} finally {
+			for (Future<List<T>> future : inFlight) {
+				future.cancel(true);
+			}
+		}
+
+		CustomViewExportReport report = new CustomViewExportReport(summaryCount, exportedCount);
+		if (!report.isCountVerified()) {
+			LOGGER.warning("Custom view " + customViewKey + " changed during export: " + report);
+		}
+		return report;
+	}
+
+	private <T> Future<List<T>> submit(final ApiViewType apiViewType, final String branchId,
+			final boolean fullDetails, final String customViewKey, long page, final int pageSize) {
+		final String offset = Long.toString(page * pageSize);
+		return parallelCallsExecutor.submit(new Callable<List<T>>() {
+			@Override
+			public List<T> call() throws MambuApiException {
+				return customViewsService.getCustomViewEntities(apiViewType, branchId, fullDetails, customViewKey,
+						offset, Integer.toString(pageSize));
+			}
+		});
+	}
+
+	private static long getCount(CustomViewEntitiesSummaryWrapper summary) throws MambuApiException {
+		if (summary == null || summary.getCount() == null) {
+			throw new MambuApiException(new IllegalStateException("Custom view summary has no count"));
+		}
+		try {
+			return Long.parseLong(summary.getCount().trim());
+		} catch (NumberFormatException e) {
+			throw new MambuApiException(e);
+		}
+	}
+}
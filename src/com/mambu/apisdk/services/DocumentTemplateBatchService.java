@@ -0,0 +1,217 @@
+package com.mambu.apisdk.services;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.model.DocumentTemplateJob;
+import com.mambu.apisdk.util.BatchReport;
+import com.mambu.apisdk.util.ParallelCallsExecutor;
+import com.mambu.apisdk.util.ParallelCallsExecutor.ResultHandler;
+
+/**
+ * Service class which renders populated account document templates for many accounts at once, for example monthly
+ * statements for all savings accounts.
+ *
+ * Documents are rendered concurrently, with a limited number of API requests executed at the same time. Rendered
+ * documents are passed to the {@link DocumentSink} on the thread calling {@link #render(List, DocumentSink)}, in the
+ * order of the jobs, and are not kept in the batch report, so only the documents rendered ahead of the sink are held
+ * in memory.
+ *
+ * Rendered documents are cached, up to a maximum total size and for a limited time, and jobs equal to the already
+ * rendered ones are passed to the sink from the cache. This way re-running a batch after some of its jobs failed only
+ * executes the API requests for the failed jobs. Concurrent equal jobs are rendered only once.
+ */
+@Singleton
+public class DocumentTemplateBatchService {
+
+	// Default maximum number of API requests executed at the same time
+	public final static int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+	// Default maximum total size of the cached documents, in characters
+	public final static long DEFAULT_MAX_CACHED_CHARS = 32 * 1024 * 1024;
+	// Default time after which cached documents expire
+	public final static long DEFAULT_CACHE_EXPIRY_MINUTES = 60;
+
+	/**
+	 * Sink receiving the rendered documents. Called on the thread calling render(), in the order of the jobs
+	 */
+	public interface DocumentSink {
+		void write(DocumentTemplateJob job, String document) throws IOException;
+	}
+
+	private final DocumentTemplatesService documentTemplatesService;
+	private final ParallelCallsExecutor parallelCallsExecutor;
+	private final Cache<DocumentTemplateJob, String> documents;
+	private volatile int maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+
+	/***
+	 * Create a new service with the default maximum size of the cached documents
+	 *
+	 * @param documentTemplatesService
+	 *            document templates service
+	 * @param parallelCallsExecutor
+	 *            executor for concurrent API calls
+	 */
+	@Inject
+	public DocumentTemplateBatchService(DocumentTemplatesService documentTemplatesService,
+			ParallelCallsExecutor parallelCallsExecutor) {
+		this(documentTemplatesService, parallelCallsExecutor, DEFAULT_MAX_CACHED_CHARS);
+	}
+
+	/***
+	 * Create a new service
+	 *
+	 * @param documentTemplatesService
+	 *            document templates service
+	 * @param parallelCallsExecutor
+	 *            executor for concurrent API calls
+	 * @param maxCachedChars
+	 *            maximum total size of the cached documents, in characters. Zero to not cache documents
+	 */
+	public DocumentTemplateBatchService(DocumentTemplatesService documentTemplatesService,
+			ParallelCallsExecutor parallelCallsExecutor, long maxCachedChars) {
+		this(documentTemplatesService, parallelCallsExecutor, maxCachedChars, DEFAULT_CACHE_EXPIRY_MINUTES,
+				TimeUnit.MINUTES);
+	}
+
+	/***
+	 * Create a new service
+	 *
+	 * @param documentTemplatesService
+	 *            document templates service
+	 * @param parallelCallsExecutor
+	 *            executor for concurrent API calls
+	 * @param maxCachedChars
+	 *            maximum total size of the cached documents, in characters. Zero to not cache documents
+	 * @param cacheExpiry
+	 *            time after which cached documents expire. Must be greater than zero
+	 * @param unit
+	 *            cache expiry unit
+	 */
+	public DocumentTemplateBatchService(DocumentTemplatesService documentTemplatesService,
+			ParallelCallsExecutor parallelCallsExecutor, long maxCachedChars, long cacheExpiry, TimeUnit unit) {
+		if (cacheExpiry <= 0 || unit == null) {
+			throw new IllegalArgumentException("Cache expiry must be greater than zero");
+		}
+		this.documentTemplatesService = documentTemplatesService;
+		this.parallelCallsExecutor = parallelCallsExecutor;
+		this.documents = CacheBuilder.newBuilder().maximumWeight(maxCachedChars)
+				.expireAfterWrite(cacheExpiry, unit).weigher(new Weigher<DocumentTemplateJob, String>() {
+					@Override
+					public int weigh(DocumentTemplateJob job, String document) {
+						return document.length();
+					}
+				}).build();
+	}
+
+	/**
+	 * Set the maximum number of API requests executed at the same time. This is also the maximum number of rendered
+	 * documents waiting to be passed to the sink
+	 *
+	 * @param maxConcurrentRequests
+	 *            maximum number of requests. Must be greater than zero. The number of requests is also limited by the
+	 *            max number of threads of the ParallelCallsExecutor
+	 */
+	public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+		if (maxConcurrentRequests < 1) {
+			throw new IllegalArgumentException("Max concurrent requests must be greater than zero");
+		}
+		this.maxConcurrentRequests = maxConcurrentRequests;
+	}
+
+	public int getMaxConcurrentRequests() {
+		return maxConcurrentRequests;
+	}
+
+	/**
+	 * Render documents for all jobs and pass them to the sink
+	 *
+	 * @param jobs
+	 *            jobs to render. Must not be null. Equal jobs are rendered once and passed to the sink once
+	 * @param sink
+	 *            sink receiving the rendered documents. Must not be null. Failures of the sink are reported as failures
+	 *            of the job, the document stays cached
+	 * @return batch report with one result for each distinct job, in the order of the jobs. Results are the sizes of
+	 *         the documents, in characters
+	 * @throws MambuApiException
+	 *             if the calling thread was interrupted while rendering
+	 */
+	public BatchReport<DocumentTemplateJob> render(List<DocumentTemplateJob> jobs, final DocumentSink sink)
+			throws MambuApiException {
+		if (jobs == null || sink == null) {
+			throw new IllegalArgumentException("Jobs and sink must not be null");
+		}
+
+		Map<DocumentTemplateJob, Callable<String>> calls = new LinkedHashMap<DocumentTemplateJob, Callable<String>>();
+		for (final DocumentTemplateJob job : jobs) {
+			validate(job);
+			calls.put(job, new Callable<String>() {
+				@Override
+				public String call() throws MambuApiException {
+					return getDocument(job);
+				}
+			});
+		}
+
+		// Documents are written on this thread while the next ones are rendered
+		return parallelCallsExecutor.executeBatch(calls, maxConcurrentRequests,
+				new ResultHandler<DocumentTemplateJob, String>() {
+					@Override
+					public Object handle(DocumentTemplateJob job, String document) throws IOException {
+						sink.write(job, document);
+						return document.length();
+					}
+				});
+	}
+
+	/**
+	 * Invalidate all cached documents
+	 */
+	public void invalidateAll() {
+		documents.invalidateAll();
+	}
+
+	// Get cached document or render it
+	private String getDocument(final DocumentTemplateJob job) throws MambuApiException {
+		try {
+			return documents.get(job, new Callable<String>() {
+				@Override
+				public String call() throws MambuApiException {
+					String document = documentTemplatesService.getPopulatedEntityTemplate(job.getEntityType(),
+							job.getEntityId(), job.getTemplateKey(), job.getStartDate(), job.getEndDate());
+					if (document == null) {
+						throw new MambuApiException(null, "No document returned for " + job);
+					}
+					return document;
+				}
+			});
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof MambuApiException) {
+				throw (MambuApiException) e.getCause();
+			}
+			throw new MambuApiException(e);
+		} catch (UncheckedExecutionException e) {
+			throw (RuntimeException) e.getCause();
+		}
+	}
+
+	private static void validate(DocumentTemplateJob job) {
+		if (job == null || job.getEntityId() == null || job.getTemplateKey() == null) {
+			throw new IllegalArgumentException("Job, its entity ID and template key must not be null");
+		}
+		if (job.getEntityType() == null || !DocumentTemplatesService.isSupported(job.getEntityType())) {
+			throw new IllegalArgumentException("Document templates are not supported for " + job.getEntityType());
+		}
+	}
+}
@@ -0,0 +1,350 @@
+package com.mambu.apisdk.services;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import com.google.inject.Inject;
+import com.mambu.accounting.shared.model.GLJournalEntry;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.ParallelCallsExecutor;
+
+/**
+ * Service class which extracts all GL journal entries for a date range, for example for a month-end extract. Instead of
+ * paginating through the whole range one page after another, the range is split into windows of a few days, which are
+ * retrieved concurrently, each with its own pagination.
+ *
+ * Windows are adaptive: a window spanning several days which has more entries than the maximum number of pages per
+ * window is split into two halves, down to windows of a single day, so dense periods are retrieved with more
+ * concurrent requests.
+ *
+ * Entries are passed to the {@link GLJournalEntrySink} in date order, as soon as all the earlier windows are passed.
+ * Entries returned twice (for example, when entries created during the extract shift the pages, or at the boundary of
+ * two windows) are passed only once.
+ */
+public class GLJournalExtractService {
+
+	// Default number of days in the initial windows
+	public final static int DEFAULT_WINDOW_DAYS = 7;
+	// Default number of entries requested with each page
+	public final static int DEFAULT_PAGE_SIZE = 500;
+	// Default number of pages after which a window of several days is split
+	public final static int DEFAULT_MAX_PAGES_PER_WINDOW = 4;
+
+	/**
+	 * Sink receiving the extracted entries. Called on the thread executing the extract, one entry at a time
+	 */
+	public interface GLJournalEntrySink {
+		void write(GLJournalEntry entry) throws IOException;
+	}
+
+	// Sorts entries by entry date and then by entry id
+	private final static Comparator<GLJournalEntry> entryDateComparator = new Comparator<GLJournalEntry>() {
+		@Override
+		public int compare(GLJournalEntry entry1, GLJournalEntry entry2) {
+			int result = compareNullable(entry1.getEntryDate(), entry2.getEntryDate());
+			return result != 0 ? result : compareNullable(entry1.getEntryId(), entry2.getEntryId());
+		}
+	};
+
+	private final AccountingService accountingService;
+	private final ParallelCallsExecutor parallelCallsExecutor;
+	private int windowDays = DEFAULT_WINDOW_DAYS;
+	private int pageSize = DEFAULT_PAGE_SIZE;
+	private int maxPagesPerWindow = DEFAULT_MAX_PAGES_PER_WINDOW;
+
+	/***
+	 * Create a new service
+	 *
+	 * @param accountingService
+	 *            accounting service
+	 * @param parallelCallsExecutor
+	 *            executor for concurrent API calls
+	 */
+	@Inject
+	public GLJournalExtractService(AccountingService accountingService, ParallelCallsExecutor parallelCallsExecutor) {
+		this.accountingService = accountingService;
+		this.parallelCallsExecutor = parallelCallsExecutor;
+	}
+
+	/**
+	 * Set the number of days in the initial windows
+	 *
+	 * @param windowDays
+	 *            number of days. Must be greater than zero
+	 */
+	public void setWindowDays(int windowDays) {
+		if (windowDays < 1) {
+			throw new IllegalArgumentException("Window days must be greater than zero");
+		}
+		this.windowDays = windowDays;
+	}
+
+	public int getWindowDays() {
+		return windowDays;
+	}
+
+	/**
+	 * Set the number of entries requested with each page
+	 *
+	 * @param pageSize
+	 *            page size. Must be greater than zero
+	 */
+	public void setPageSize(int pageSize) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be greater than zero");
+		}
+		this.pageSize = pageSize;
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * Set the number of pages after which a window of several days is split
+	 *
+	 * @param maxPagesPerWindow
+	 *            number of pages. Must be greater than zero
+	 */
+	public void setMaxPagesPerWindow(int maxPagesPerWindow) {
+		if (maxPagesPerWindow < 1) {
+			throw new IllegalArgumentException("Max pages per window must be greater than zero");
+		}
+		this.maxPagesPerWindow = maxPagesPerWindow;
+	}
+
+	public int getMaxPagesPerWindow() {
+		return maxPagesPerWindow;
+	}
+
+	/**
+	 * Extract GL journal entries
+	 *
+	 * @param branchId
+	 *            branch id or encoded key. Null for all branches
+	 * @param fromDate
+	 *            first date of the range. Must not be null
+	 * @param toDate
+	 *            last date of the range. Must not be null and must not be before fromDate
+	 * @param sink
+	 *            sink receiving the entries. Must not be null
+	 * @return number of entries passed to the sink
+	 * @throws MambuApiException
+	 *             if retrieving any window failed, if the sink failed or if the calling thread was interrupted. The
+	 *             entries of the earlier windows may have been passed to the sink already
+	 */
+	public long extract(final String branchId, Date fromDate, Date toDate, GLJournalEntrySink sink)
+			throws MambuApiException {
+		if (fromDate == null || toDate == null || sink == null) {
+			throw new IllegalArgumentException("fromDate, toDate and sink must not be null");
+		}
+		if (toDate.before(fromDate)) {
+			throw new IllegalArgumentException("toDate must not be before fromDate");
+		}
+
+		final Params params = new Params(branchId, pageSize, maxPagesPerWindow);
+		Deque<Window> windows = Window.split(fromDate, toDate, windowDays);
+		int maxWindowsInFlight = 2 * parallelCallsExecutor.getMaxThreads();
+		// Windows being retrieved, in date order
+		Deque<Future<WindowResult>> inFlight = new ArrayDeque<Future<WindowResult>>();
+		// Keys of the entries passed to the sink for the previous window
+		Set<Object> previousKeys = Collections.emptySet();
+		long count = 0;
+		try {
+			while (!windows.isEmpty() && inFlight.size() < maxWindowsInFlight) {
+				inFlight.addLast(submit(params, windows.pollFirst()));
+			}
+			while (!inFlight.isEmpty()) {
+				WindowResult result = inFlight.pollFirst().get();
+				if (result.firstHalf != null) {
+					// The window was split: its halves take its place
+					inFlight.addFirst(result.secondHalf);
+					inFlight.addFirst(result.firstHalf);
+					continue;
+				}
+				Set<Object> keys = new HashSet<Object>(result.entries.size() * 2);
+				for (GLJournalEntry entry : result.entries) {
+					Object key = getKey(entry);
+					if (key != null && (previousKeys.contains(key) || !keys.add(key))) {
+						// Already passed
+						continue;
+					}
+					sink.write(entry);
+					count++;
+				}
+				previousKeys = keys;
+				if (!windows.isEmpty()) {
+					inFlight.addLast(submit(params, windows.pollFirst()));
+				}
+			}
+			return count;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MambuApiException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof MambuApiException) {
+				throw (MambuApiException) e.getCause();
+			}
+			throw new MambuApiException(e);
+		} catch (IOException e) {
+			throw new MambuApiException(e);
+		} finally {
+			for (Future<WindowResult> future : inFlight) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	private Future<WindowResult> submit(final Params params, final Window window) {
+		return parallelCallsExecutor.submit(new Callable<WindowResult>() {
+			@Override
+			public WindowResult call() throws MambuApiException {
+				return retrieve(params, window);
+			}
+		});
+	}
+
+	// Retrieve all entries for the window, or split it if it has too many entries
+	private WindowResult retrieve(Params params, Window window) throws MambuApiException {
+		List<GLJournalEntry> entries = new ArrayList<GLJournalEntry>();
+		int offset = 0;
+		for (int pages = 0;; pages++) {
+			if (pages == params.maxPagesPerWindow && window.days > 1) {
+				Window[] halves = window.split();
+				return new WindowResult(null, submit(params, halves[0]), submit(params, halves[1]));
+			}
+			List<GLJournalEntry> page = accountingService.getGLJournalEntries(params.branchId, window.from,
+					window.to, offset, params.pageSize);
+			if (page != null) {
+				entries.addAll(page);
+			}
+			if (page == null || page.size() < params.pageSize) {
+				break;
+			}
+			offset += params.pageSize;
+		}
+		Collections.sort(entries, entryDateComparator);
+		return new WindowResult(entries);
+	}
+
+	// Key identifying an entry
+	private static Object getKey(GLJournalEntry entry) {
+		return entry.getEntryId() != null ? entry.getEntryId() : entry.getEncodedKey();
+	}
+
+	private static <T extends Comparable<T>> int compareNullable(T value1, T value2) {
+		if (value1 == null || value2 == null) {
+			return value1 == value2 ? 0 : (value1 == null ? -1 : 1);
+		}
+		return value1.compareTo(value2);
+	}
+
+	/**
+	 * Extract params, fixed when the extract is started
+	 */
+	private static class Params {
+		private final String branchId;
+		private final int pageSize;
+		private final int maxPagesPerWindow;
+
+		private Params(String branchId, int pageSize, int maxPagesPerWindow) {
+			this.branchId = branchId;
+			this.pageSize = pageSize;
+			this.maxPagesPerWindow = maxPagesPerWindow;
+		}
+	}
+
+	/**
+	 * Date range of whole days, from and to dates included
+	 */
+	private static class Window {
+		private final Date from;
+		private final Date to;
+		private final int days;
+
+		private Window(Date from, int days) {
+			this.from = from;
+			this.to = addDays(from, days - 1);
+			this.days = days;
+		}
+
+		// Split the date range into windows of the specified number of days. The last window can be shorter
+		private static Deque<Window> split(Date fromDate, Date toDate, int windowDays) {
+			Deque<Window> windows = new ArrayDeque<Window>();
+			Date from = startOfDay(fromDate);
+			Date last = startOfDay(toDate);
+			while (!from.after(last)) {
+				Window window = new Window(from, windowDays);
+				if (window.to.after(last)) {
+					window = new Window(from, daysBetween(from, last) + 1);
+				}
+				windows.addLast(window);
+				from = addDays(window.to, 1);
+			}
+			return windows;
+		}
+
+		private Window[] split() {
+			int firstDays = days / 2;
+			return new Window[] { new Window(from, firstDays), new Window(addDays(from, firstDays), days - firstDays) };
+		}
+
+		private static Date startOfDay(Date date) {
+			Calendar calendar = Calendar.getInstance();
+			calendar.setTime(date);
+			calendar.set(Calendar.HOUR_OF_DAY, 0);
+			calendar.set(Calendar.MINUTE, 0);
+			calendar.set(Calendar.SECOND, 0);
+			calendar.set(Calendar.MILLISECOND, 0);
+			return calendar.getTime();
+		}
+
+		private static Date addDays(Date date, int days) {
+			Calendar calendar = Calendar.getInstance();
+			calendar.setTime(date);
+			calendar.add(Calendar.DAY_OF_MONTH, days);
+			return calendar.getTime();
+		}
+
+		private static int daysBetween(Date from, Date to) {
+			int days = 0;
+			for (Date date = from; date.before(to); date = addDays(date, 1)) {
+				days++;
+			}
+			return days;
+		}
+	}
+
+	/**
+	 * Entries retrieved for a window or the halves the window was split into
+	 */
+	private static class WindowResult {
+		private final List<GLJournalEntry> entries;
+		// Results of the halves, null if the window was not split
+		private final Future<WindowResult> firstHalf;
+		private final Future<WindowResult> secondHalf;
+
+		private WindowResult(List<GLJournalEntry> entries) {
+			this(entries, null, null);
+		}
+
+		private WindowResult(List<GLJournalEntry> entries, Future<WindowResult> firstHalf,
+				Future<WindowResult> secondHalf) {
+			this.entries = entries;
+			this.firstHalf = firstHalf;
+			this.secondHalf = secondHalf;
+		}
+	}
+}
@@ -0,0 +1,282 @@
+package com.mambu.apisdk.services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+import com.google.inject.Inject;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.model.GLJournal;
+import com.mambu.apisdk.model.GLJournalImportReport;
+import com.mambu.apisdk.util.GLJournalCsvReader;
+import com.mambu.apisdk.util.GLJournalImportCheckpoint;
+
+/**
+ * Service class which imports large numbers of GL journals, for example journals exported every night from a core
+ * banking system. Journals are read one by one from an iterator (see {@link GLJournalCsvReader} for reading them from
+ * CSV), so the whole import is never held in memory.
+ *
+ * Each journal is validated locally before it is posted: journals which are not balanced or have missing fields are
+ * reported as failures without calling Mambu. Valid journals are posted with {@link AccountingService}, concurrently
+ * for different branches. Journals for the same branch are posted one after another, in the order they are read. Each
+ * import posts journals with its own threads, one for each group of branches, which are released when the import
+ * completes.
+ *
+ * Journals are recorded in a {@link GLJournalImportCheckpoint} before and after they are posted. An import which was
+ * stopped can be resumed with the same journals and checkpoint: the journals already posted are skipped, and the
+ * journals which may have been posted when the import was stopped are reported as failures instead of being posted
+ * again.
+ */
+public class GLJournalImportService {
+
+	private final static Logger LOGGER = Logger.getLogger(GLJournalImportService.class.getName());
+
+	// Default maximum number of branches for which journals are posted concurrently
+	public final static int DEFAULT_MAX_CONCURRENT_BRANCHES = 4;
+	// Maximum number of journals waiting to be posted for each group of branches
+	private final static int QUEUE_CAPACITY = 100;
+
+	// Marks the end of the journals in a queue
+	private final static GLJournal END = new GLJournal(null, null, null, null, null);
+
+	private final AccountingService accountingService;
+	private volatile int maxConcurrentBranches = DEFAULT_MAX_CONCURRENT_BRANCHES;
+
+	/***
+	 * Create a new service
+	 *
+	 * @param accountingService
+	 *            accounting service
+	 */
+	@Inject
+	public GLJournalImportService(AccountingService accountingService) {
+		this.accountingService = accountingService;
+	}
+
+	/**
+	 * Set the maximum number of branches for which journals are posted concurrently
+	 *
+	 * @param maxConcurrentBranches
+	 *            maximum number of concurrent requests. Must be greater than zero. This is the number of threads used
+	 *            by each import
+	 */
+	public void setMaxConcurrentBranches(int maxConcurrentBranches) {
+		if (maxConcurrentBranches < 1) {
+			throw new IllegalArgumentException("Max concurrent branches must be greater than zero");
+		}
+		this.maxConcurrentBranches = maxConcurrentBranches;
+	}
+
+	public int getMaxConcurrentBranches() {
+		return maxConcurrentBranches;
+	}
+
+	/**
+	 * Import GL journals
+	 *
+	 * @param journals
+	 *            journals to import. Must not be null. Journal ids must be unique
+	 * @param checkpoint
+	 *            checkpoint recording the posted journals. Must not be null. Journals recorded as posted in it are
+	 *            skipped, journals recorded as pending are reported as failures
+	 * @return import report. If reading the journals or writing the checkpoint fails, the journals already read are
+	 *         posted and the import is stopped: see {@link GLJournalImportReport#getStopCause()}
+	 * @throws MambuApiException
+	 *             if the calling thread was interrupted while importing
+	 */
+	public GLJournalImportReport importJournals(Iterator<GLJournal> journals,
+			final GLJournalImportCheckpoint checkpoint) throws MambuApiException {
+		if (journals == null || checkpoint == null) {
+			throw new IllegalArgumentException("Journals and checkpoint must not be null");
+		}
+
+		final GLJournalImportReport report = new GLJournalImportReport();
+		final AtomicReference<Exception> stopCause = new AtomicReference<Exception>();
+
+		// Journals for the same branch always go to the same queue, posted by one thread of this import
+		int queuesCount = maxConcurrentBranches;
+		ExecutorService postingExecutor = Executors.newFixedThreadPool(queuesCount, new PostingThreadFactory());
+		List<BlockingQueue<GLJournal>> queues = new ArrayList<BlockingQueue<GLJournal>>(queuesCount);
+		List<Future<Void>> futures = new ArrayList<Future<Void>>(queuesCount);
+		for (int i = 0; i < queuesCount; i++) {
+			final BlockingQueue<GLJournal> queue = new ArrayBlockingQueue<GLJournal>(QUEUE_CAPACITY);
+			queues.add(queue);
+			futures.add(postingExecutor.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws InterruptedException {
+					postJournals(queue, checkpoint, report, stopCause);
+					return null;
+				}
+			}));
+		}
+
+		boolean isCompleted = false;
+		try {
+			try {
+				while (stopCause.get() == null && journals.hasNext()) {
+					GLJournal journal = journals.next();
+					if (journal == null) {
+						throw new IllegalArgumentException("Journal must not be null");
+					}
+					if (checkpoint.isPosted(journal.getId())) {
+						report.addSkipped();
+						continue;
+					}
+					if (checkpoint.isPending(journal.getId())) {
+						report.addFailure(journal.getId(), new MambuApiException(-1, "GL journal " + journal.getId()
+								+ " may have been posted by a stopped import and must be resolved in the checkpoint"));
+						continue;
+					}
+					try {
+						journal.validate();
+					} catch (IllegalArgumentException e) {
+						report.addFailure(journal.getId(), new MambuApiException(e));
+						continue;
+					}
+					queues.get(getQueueIndex(journal.getBranchId(), queuesCount)).put(journal);
+				}
+			} catch (RuntimeException e) {
+				// Post the journals already read and report the read error
+				LOGGER.warning("Stopping GL journals import: " + e);
+				stopCause.compareAndSet(null, e);
+			}
+			for (BlockingQueue<GLJournal> queue : queues) {
+				queue.put(END);
+			}
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+			isCompleted = true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MambuApiException(e);
+		} catch (ExecutionException e) {
+			throw new MambuApiException(e);
+		} finally {
+			if (!isCompleted) {
+				for (Future<Void> future : futures) {
+					future.cancel(true);
+				}
+			}
+			postingExecutor.shutdown();
+		}
+
+		report.setStopCause(stopCause.get());
+		return report;
+	}
+
+	// Post journals from the queue until the end of the journals
+	private void postJournals(BlockingQueue<GLJournal> queue, GLJournalImportCheckpoint checkpoint,
+			GLJournalImportReport report, AtomicReference<Exception> stopCause) throws InterruptedException {
+		while (true) {
+			GLJournal journal = queue.take();
+			if (journal == END) {
+				return;
+			}
+			if (stopCause.get() instanceof IOException) {
+				// Journals can't be recorded. The journal is posted when the import is resumed
+				continue;
+			}
+			try {
+				postJournal(journal, checkpoint, report, stopCause);
+			} catch (RuntimeException e) {
+				// Keep taking journals, so that the import is never blocked on this queue
+				report.addFailure(journal.getId(), new MambuApiException(e));
+			}
+		}
+	}
+
+	private void postJournal(GLJournal journal, GLJournalImportCheckpoint checkpoint, GLJournalImportReport report,
+			AtomicReference<Exception> stopCause) {
+		try {
+			checkpoint.markPending(journal.getId());
+		} catch (IOException e) {
+			stopOnCheckpointFailure(e, stopCause);
+			return;
+		}
+		try {
+			accountingService.postGLJournalEntries(journal.getEntries(), journal.getBranchId(), journal.getDate(),
+					journal.getNotes());
+		} catch (MambuApiException e) {
+			report.addFailure(journal.getId(), e);
+			// Journals rejected with a client error were not posted. After server errors, gateway errors and I/O
+			// errors the journal may have been posted, so it stays pending
+			if (isClientError(e)) {
+				markNotPosted(journal.getId(), checkpoint, stopCause);
+			}
+			return;
+		}
+		report.addPosted();
+		try {
+			checkpoint.markPosted(journal.getId());
+		} catch (IOException e) {
+			stopOnCheckpointFailure(e, stopCause);
+		}
+	}
+
+	private static boolean isClientError(MambuApiException e) {
+		Integer errorCode = e.getErrorCode();
+		return e.getCause() == null && errorCode != null && errorCode >= 400 && errorCode < 500;
+	}
+
+	private static void markNotPosted(String journalId, GLJournalImportCheckpoint checkpoint,
+			AtomicReference<Exception> stopCause) {
+		try {
+			checkpoint.markNotPosted(journalId);
+		} catch (IOException e) {
+			stopOnCheckpointFailure(e, stopCause);
+		}
+	}
+
+	private static void stopOnCheckpointFailure(IOException e, AtomicReference<Exception> stopCause) {
+		LOGGER.warning("Stopping GL journals import, failed to write checkpoint: " + e);
+		stopCause.compareAndSet(null, e);
+	}
+
+	private static int getQueueIndex(String branchId, int queuesCount) {
+		return branchId == null ? 0 : (branchId.hashCode() & Integer.MAX_VALUE) % queuesCount;
+	}
+
+	/**
+	 * Import a list of GL journals
+	 *
+	 * @param journals
+	 *            journals to import. Must not be null
+	 * @return import report
+	 * @throws MambuApiException
+	 *             if the calling thread was interrupted while importing
+	 */
+	public GLJournalImportReport importJournals(List<GLJournal> journals) throws MambuApiException {
+		if (journals == null) {
+			throw new IllegalArgumentException("Journals must not be null");
+		}
+		return importJournals(Collections.unmodifiableList(journals).iterator(), new GLJournalImportCheckpoint());
+	}
+
+	// Creates daemon threads, so that an import doesn't prevent the application from exiting
+	private static class PostingThreadFactory implements ThreadFactory {
+		private final static AtomicInteger importNumber = new AtomicInteger();
+		private final int number = importNumber.incrementAndGet();
+		private final AtomicInteger threadNumber = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "mambu-gl-import-" + number + "-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
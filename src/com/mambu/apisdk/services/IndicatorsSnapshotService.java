@@ -0,0 +1,246 @@
+package com.mambu.apisdk.services;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.model.IndicatorsSnapshot;
+import com.mambu.apisdk.util.CallResult;
+import com.mambu.apisdk.util.ParallelCallsExecutor;
+import com.mambu.intelligence.shared.model.Intelligence.Indicator;
+
+/**
+ * Service class which retrieves a snapshot of several Mambu financial indicators at once, for example for a management
+ * dashboard. The API requests for all indicators are executed concurrently, with a shared deadline.
+ *
+ * The service can also keep the latest snapshot up to date with a background refresher (see
+ * {@link #startRefreshing(Collection, long, TimeUnit)}). {@link #getLatestSnapshot()} then returns the cached snapshot
+ * immediately, without waiting for API requests. If the snapshot is stale, because a scheduled refresh failed or is
+ * late, it is still returned and a new refresh is started in the background.
+ */
+@Singleton
+public class IndicatorsSnapshotService {
+
+	private final static Logger LOGGER = Logger.getLogger(IndicatorsSnapshotService.class.getName());
+
+	// Default time to wait for all indicator requests to complete
+	public final static long DEFAULT_TIMEOUT_SECONDS = 30;
+
+	private final IntelligenceService intelligenceService;
+	private final ParallelCallsExecutor parallelCallsExecutor;
+	// Current background refresher, null if not refreshing
+	private Refresher refresher;
+
+	/***
+	 * Create a new indicators snapshot service
+	 *
+	 * @param intelligenceService
+	 *            intelligence service
+	 * @param parallelCallsExecutor
+	 *            executor for concurrent API calls
+	 */
+	@Inject
+	public IndicatorsSnapshotService(IntelligenceService intelligenceService,
+			ParallelCallsExecutor parallelCallsExecutor) {
+		this.intelligenceService = intelligenceService;
+		this.parallelCallsExecutor = parallelCallsExecutor;
+	}
+
+	/**
+	 * Get snapshot of the indicators using the default timeout
+	 *
+	 * @param indicators
+	 *            indicators to get. Must not be null or empty
+	 * @return indicators snapshot. Indicators which could not be retrieved are reported with
+	 *         {@link IndicatorsSnapshot#getErrors()}
+	 * @throws MambuApiException
+	 *             if the calling thread was interrupted while waiting for the indicators
+	 */
+	public IndicatorsSnapshot getSnapshot(Collection<Indicator> indicators) throws MambuApiException {
+		return getSnapshot(indicators, DEFAULT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Get snapshot of the indicators. All indicators are retrieved concurrently
+	 *
+	 * @param indicators
+	 *            indicators to get. Must not be null or empty
+	 * @param timeout
+	 *            maximum time to wait for all indicators
+	 * @param unit
+	 *            timeout unit
+	 * @return indicators snapshot. Indicators which could not be retrieved are reported with
+	 *         {@link IndicatorsSnapshot#getErrors()}
+	 * @throws MambuApiException
+	 *             if the calling thread was interrupted while waiting for the indicators
+	 */
+	public IndicatorsSnapshot getSnapshot(Collection<Indicator> indicators, long timeout, TimeUnit unit)
+			throws MambuApiException {
+		Set<Indicator> indicatorsSet = validate(indicators);
+
+		Map<Indicator, Callable<BigDecimal>> calls = new EnumMap<Indicator, Callable<BigDecimal>>(Indicator.class);
+		for (final Indicator indicator : indicatorsSet) {
+			calls.put(indicator, new Callable<BigDecimal>() {
+				@Override
+				public BigDecimal call() throws MambuApiException {
+					return intelligenceService.getIndicator(indicator);
+				}
+			});
+		}
+
+		long timestamp = System.currentTimeMillis();
+		Map<Indicator, CallResult<?>> results = parallelCallsExecutor.executeAll(calls, timeout, unit);
+
+		Map<Indicator, BigDecimal> values = new EnumMap<Indicator, BigDecimal>(Indicator.class);
+		Map<Indicator, MambuApiException> errors = new EnumMap<Indicator, MambuApiException>(Indicator.class);
+		for (Map.Entry<Indicator, CallResult<?>> entry : results.entrySet()) {
+			CallResult<?> result = entry.getValue();
+			if (result.isSuccess()) {
+				values.put(entry.getKey(), (BigDecimal) result.getResult());
+			} else {
+				errors.put(entry.getKey(), result.getError());
+			}
+		}
+		return new IndicatorsSnapshot(timestamp, values, errors);
+	}
+
+	/**
+	 * Start refreshing the snapshot of the indicators in the background. The first snapshot is requested immediately.
+	 * Replaces the indicators and the period of the current refresher, if any
+	 *
+	 * @param indicators
+	 *            indicators to get. Must not be null or empty
+	 * @param period
+	 *            time between the end of one refresh and the start of the next one. Must be greater than zero
+	 * @param unit
+	 *            period unit
+	 */
+	public synchronized void startRefreshing(Collection<Indicator> indicators, long period, TimeUnit unit) {
+		Set<Indicator> indicatorsSet = validate(indicators);
+		if (period <= 0 || unit == null) {
+			throw new IllegalArgumentException("Refresh period must be greater than zero");
+		}
+		stopRefreshing();
+		refresher = new Refresher(indicatorsSet, unit.toNanos(period));
+	}
+
+	/**
+	 * Stop refreshing the snapshot in the background. The latest snapshot is discarded
+	 */
+	public synchronized void stopRefreshing() {
+		if (refresher != null) {
+			refresher.stop();
+			refresher = null;
+		}
+	}
+
+	/**
+	 * Get the latest snapshot retrieved by the background refresher. The snapshot is considered stale if it is older
+	 * than twice the refresh period. A stale snapshot is returned as well, and a refresh is started in the background
+	 *
+	 * @return the latest snapshot or null if refreshing was not started or the first snapshot is not retrieved yet
+	 */
+	public IndicatorsSnapshot getLatestSnapshot() {
+		Refresher current;
+		synchronized (this) {
+			current = refresher;
+		}
+		return current == null ? null : current.getLatestSnapshot();
+	}
+
+	private static Set<Indicator> validate(Collection<Indicator> indicators) {
+		if (indicators == null || indicators.isEmpty()) {
+			throw new IllegalArgumentException("Indicators must not be null or empty");
+		}
+		for (Indicator indicator : indicators) {
+			if (indicator == null) {
+				throw new IllegalArgumentException("Indicator must not be null");
+			}
+		}
+		return EnumSet.copyOf(indicators);
+	}
+
+	/**
+	 * Refreshes the snapshot of a fixed set of indicators on a background thread
+	 */
+	private class Refresher implements Runnable {
+		private final Set<Indicator> indicators;
+		private final long periodNanos;
+		private final ScheduledExecutorService scheduler;
+		private final AtomicBoolean isRefreshing = new AtomicBoolean();
+		private volatile IndicatorsSnapshot latestSnapshot;
+		private volatile long latestSnapshotNanos;
+
+		private Refresher(Set<Indicator> indicators, long periodNanos) {
+			this.indicators = indicators;
+			this.periodNanos = periodNanos;
+			this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "mambu-indicators-refresher");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			scheduler.scheduleWithFixedDelay(this, 0, periodNanos, TimeUnit.NANOSECONDS);
+		}
+
+		private IndicatorsSnapshot getLatestSnapshot() {
+			IndicatorsSnapshot snapshot = latestSnapshot;
+			if (snapshot != null && System.nanoTime() - latestSnapshotNanos > 2 * periodNanos && !isRefreshing.get()) {
+				// Revalidate in the background
+				try {
+					scheduler.execute(this);
+				} catch (RejectedExecutionException e) {
+					// The refresher was stopped
+				}
+			}
+			return snapshot;
+		}
+
+		@Override
+		public void run() {
+			if (!isRefreshing.compareAndSet(false, true)) {
+				return;
+			}
+			try {
+				long startNanos = System.nanoTime();
+				IndicatorsSnapshot snapshot = getSnapshot(indicators);
+				if (snapshot.getValues().isEmpty() && latestSnapshot != null) {
+					// Keep the stale snapshot rather than replacing it with errors only
+					LOGGER.warning("Failed to refresh indicators: " + snapshot.getErrors().values().iterator().next());
+					return;
+				}
+				latestSnapshotNanos = startNanos;
+				latestSnapshot = snapshot;
+			} catch (MambuApiException e) {
+				// Interrupted: the refresher was stopped
+				LOGGER.fine("Indicators refresh interrupted");
+			} catch (RuntimeException e) {
+				// Don't let the exception cancel the scheduled refreshes
+				LOGGER.log(Level.WARNING, "Failed to refresh indicators", e);
+			} finally {
+				isRefreshing.set(false);
+			}
+		}
+
+		private void stop() {
+			scheduler.shutdownNow();
+		}
+	}
+}
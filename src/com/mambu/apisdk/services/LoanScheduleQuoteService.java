@@ -0,0 +1,236 @@
+package com.mambu.apisdk.services;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.ParamsMap;
+import com.mambu.loans.shared.model.LoanAccount;
+import com.mambu.loans.shared.model.LoanProduct;
+import com.mambu.loans.shared.model.Repayment;
+
+/**
+ * Service class which quotes loan product repayment schedules (see
+ * {@link LoansService#getLoanProductSchedule(String, LoanAccount)}) and memoizes them. Quotes are typically requested
+ * repeatedly with the same parameters, for example by a loan calculator, so the schedules are kept in a bounded LRU
+ * cache keyed on the product and the normalized schedule parameters: amounts "1000", "1000.0" and "1000.00" are the
+ * same quote.
+ *
+ * Concurrent requests for the same quote are coalesced into one API request. Quotes for a product are invalidated when
+ * {@link #getLoanProduct(String)} returns the product with a changed last modified date, and they can be invalidated
+ * explicitly. Quotes also expire after a fixed time, as product changes may not be observed by this service.
+ *
+ * The returned lists are shared between callers and can't be modified
+ */
+@Singleton
+public class LoanScheduleQuoteService {
+
+	public final static long DEFAULT_MAXIMUM_SIZE = 1000;
+	public final static long DEFAULT_EXPIRY_MINUTES = 60;
+
+	private final LoansService loansService;
+	// Quotes, absent for schedules not returned by the API
+	private final Cache<QuoteKey, Optional<List<Repayment>>> quotes;
+	// Last modified dates of the products returned by getLoanProduct(), by product id and encoded key
+	private final ConcurrentMap<String, Date> productModifiedDates = new ConcurrentHashMap<String, Date>();
+
+	/***
+	 * Create a new service with the default cache size and expiry time
+	 *
+	 * @param loansService
+	 *            loans service
+	 */
+	@Inject
+	public LoanScheduleQuoteService(LoansService loansService) {
+		this(loansService, DEFAULT_MAXIMUM_SIZE, DEFAULT_EXPIRY_MINUTES, TimeUnit.MINUTES);
+	}
+
+	/***
+	 * Create a new service
+	 *
+	 * @param loansService
+	 *            loans service
+	 * @param maximumSize
+	 *            maximum number of cached quotes. The least recently used quotes are evicted first
+	 * @param expiry
+	 *            time after which cached quotes expire
+	 * @param unit
+	 *            expiry time unit
+	 */
+	public LoanScheduleQuoteService(LoansService loansService, long maximumSize, long expiry, TimeUnit unit) {
+		if (loansService == null) {
+			throw new IllegalArgumentException("Loans service must not be null");
+		}
+		this.loansService = loansService;
+		this.quotes = CacheBuilder.newBuilder().maximumSize(maximumSize).expireAfterWrite(expiry, unit).build();
+	}
+
+	/***
+	 * Get repayment schedule preview for a Loan Product, using the cached quote if available
+	 *
+	 * @param productId
+	 *            the id of the loan product. Must not be null.
+	 * @param account
+	 *            loan account containing parameters for determining loan schedule. See
+	 *            {@link LoansService#getLoanProductSchedule(String, LoanAccount)} for the supported parameters
+	 *
+	 * @return the unmodifiable List of Repayments
+	 *
+	 * @throws MambuApiException
+	 */
+	public List<Repayment> getLoanProductSchedule(final String productId, LoanAccount account)
+			throws MambuApiException {
+		if (productId == null) {
+			throw new IllegalArgumentException("Product ID must not be null");
+		}
+		final ParamsMap params = loansService.makeLoanProductScheduleParams(account);
+		QuoteKey key = new QuoteKey(productId, params);
+		try {
+			return quotes.get(key, new Callable<Optional<List<Repayment>>>() {
+				@Override
+				public Optional<List<Repayment>> call() throws MambuApiException {
+					List<Repayment> repayments = loansService.getLoanProductSchedule(productId, params);
+					return repayments == null ? Optional.<List<Repayment>> absent() : Optional.of(Collections
+							.unmodifiableList(repayments));
+				}
+			}).orNull();
+		} catch (ExecutionException e) {
+			throw (MambuApiException) e.getCause();
+		} catch (UncheckedExecutionException e) {
+			throw (RuntimeException) e.getCause();
+		}
+	}
+
+	/***
+	 * Get a Loan Product by Product id. If the product was modified since it was last returned by this method, cached
+	 * quotes for the product are invalidated
+	 *
+	 * @param productId
+	 *            the id or encoded key of the loan product
+	 *
+	 * @return the Loan Product
+	 *
+	 * @throws MambuApiException
+	 */
+	public LoanProduct getLoanProduct(String productId) throws MambuApiException {
+		LoanProduct product = loansService.getLoanProduct(productId);
+		if (product == null) {
+			return null;
+		}
+		Date modifiedDate = product.getLastModifiedDate();
+		boolean isChanged = false;
+		for (String key : new String[] { productId, product.getId(), product.getEncodedKey() }) {
+			if (key == null) {
+				continue;
+			}
+			Date previousDate = modifiedDate == null ? productModifiedDates.remove(key) : productModifiedDates.put(
+					key, modifiedDate);
+			if (previousDate != null && !previousDate.equals(modifiedDate)) {
+				isChanged = true;
+			}
+		}
+		if (isChanged) {
+			invalidate(productId, product.getId(), product.getEncodedKey());
+		}
+		return product;
+	}
+
+	/***
+	 * Invalidate cached quotes for products
+	 *
+	 * @param productIds
+	 *            ids or encoded keys of the loan products, as used to get the quotes
+	 */
+	public void invalidate(String... productIds) {
+		for (QuoteKey key : quotes.asMap().keySet()) {
+			for (String productId : productIds) {
+				if (key.productId.equals(productId)) {
+					quotes.invalidate(key);
+					break;
+				}
+			}
+		}
+	}
+
+	/***
+	 * Invalidate all cached quotes
+	 */
+	public void invalidateAll() {
+		quotes.invalidateAll();
+		productModifiedDates.clear();
+	}
+
+	/***
+	 * Get the number of cached quotes
+	 *
+	 * @return approximate number of cached quotes
+	 */
+	public long size() {
+		return quotes.size();
+	}
+
+	/**
+	 * Cache key: product id and schedule params sorted by name, with numeric values normalized
+	 */
+	private static class QuoteKey {
+		private final String productId;
+		private final Map<String, String> params = new TreeMap<String, String>();
+		private final int hashCode;
+
+		private QuoteKey(String productId, ParamsMap params) {
+			this.productId = productId;
+			for (Map.Entry<String, String> param : params.entrySet()) {
+				if (param.getValue() != null) {
+					this.params.put(param.getKey(), normalize(param.getValue()));
+				}
+			}
+			this.hashCode = 31 * productId.hashCode() + this.params.hashCode();
+		}
+
+		// Use the same string for equal numbers: "4.50" and "4.5" are both "4.5"
+		private static String normalize(String value) {
+			value = value.trim();
+			if (value.isEmpty() || !(Character.isDigit(value.charAt(0)) || value.charAt(0) == '-')) {
+				return value;
+			}
+			try {
+				return new BigDecimal(value).stripTrailingZeros().toPlainString();
+			} catch (NumberFormatException e) {
+				// Not a number. Example: a date
+				return value;
+			}
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof QuoteKey)) {
+				return false;
+			}
+			QuoteKey other = (QuoteKey) obj;
+			return hashCode == other.hashCode && productId.equals(other.productId) && params.equals(other.params);
+		}
+	}
+}
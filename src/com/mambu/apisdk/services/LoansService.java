@@ -25,8 +25,8 @@ import com.mambu.api.server.handler.loan.model.RestructureDetails;
 import com.mambu.api.server.handler.tranches.model.JSONTranches;
 import com.mambu.apisdk.MambuAPIService;
 import com.mambu.apisdk.exception.MambuApiException;
-import com.mambu.apisdk.json.LoanAccountPatchJsonSerializer;
-import com.mambu.apisdk.json.LoanProductScheduleJsonSerializer;
+import com.mambu.apisdk.json.LoanAccountPatchJsonAdapter;
+import com.mambu.apisdk.json.LoanProductScheduleJsonAdapter;
 import com.mambu.apisdk.model.ApiLoanAccount;
 import com.mambu.apisdk.util.APIData;
 import com.mambu.apisdk.util.ApiDefinition;
@@ -131,8 +131,8 @@ public class LoansService {
 	private final static ApiDefinition patchAccount;
 	static {
 		patchAccount = new ApiDefinition(ApiType.PATCH_ENTITY, LoanAccount.class);
-		// Use LoanAccountPatchJsonSerializer to make the expected format
-		patchAccount.addJsonSerializer(LoanAccount.class, new LoanAccountPatchJsonSerializer());
+		// Use LoanAccountPatchJsonAdapter to make the expected format
+		patchAccount.addJsonTypeAdapter(LoanAccount.class, new LoanAccountPatchJsonAdapter());
 	}
 	// Update Loan Tranches. Returns updated LoanAccount. POST /api/loans/loanId/tranches
 	private final static ApiDefinition updateAccountTranches = new ApiDefinition(ApiType.POST_ENTITY_ACTION,
@@ -152,8 +152,8 @@ public class LoansService {
 	private final static ApiDefinition getProductSchedule;
 	static {
 		getProductSchedule = new ApiDefinition(ApiType.GET_OWNED_ENTITY, LoanProduct.class, JSONLoanRepayments.class);
-		// Use LoanProductScheduleJsonSerializer
-		getProductSchedule.addJsonSerializer(LoanAccount.class, new LoanProductScheduleJsonSerializer());
+		// Use LoanProductScheduleJsonAdapter
+		getProductSchedule.addJsonTypeAdapter(LoanAccount.class, new LoanProductScheduleJsonAdapter());
 	}
 
 	/***
@@ -1318,6 +1318,12 @@ public class LoansService {
 		// E.g. GET /api/loanproducts/{ID}/schedule?loanAmount=1250&anticipatedDisbursement=2015-02-10&interestRate=4
 		// E.g. GET /api/loanproducts/{ID}/schedule?loanAmount=1250&fixedDaysOfMonth=2,10,20
 
+		ParamsMap params = makeLoanProductScheduleParams(account);
+		return getLoanProductSchedule(productId, params);
+	}
+
+	// Validate loan account and convert its applicable fields to the loan product schedule params
+	ParamsMap makeLoanProductScheduleParams(LoanAccount account) {
 		if (account == null) {
 			throw new IllegalArgumentException("Loan Account cannot be null");
 		}
@@ -1327,7 +1333,11 @@ public class LoansService {
 		}
 
 		// Add applicable params to the map
-		ParamsMap params = ServiceHelper.makeParamsForLoanSchedule(account, getProductSchedule);
+		return ServiceHelper.makeParamsForLoanSchedule(account, getProductSchedule);
+	}
+
+	// Get loan product schedule for the params created by makeLoanProductScheduleParams()
+	List<Repayment> getLoanProductSchedule(String productId, ParamsMap params) throws MambuApiException {
 		// The API returns a JSONLoanRepayments object containing a list of repayments
 		JSONLoanRepayments jsonRepayments = serviceExecutor.execute(getProductSchedule, productId, params);
 		// Return list of repayments
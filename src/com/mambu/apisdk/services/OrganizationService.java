@@ -318,6 +318,8 @@ public class OrganizationService {
 		String urlPath = APIData.SETTINGS + "/" + APIData.GENERAL;
 		ApiDefinition getGeneralSettings = new ApiDefinition(urlPath, ContentType.WWW_FORM, Method.GET,
 				GeneralSettings.class, ApiReturnFormat.OBJECT);
+		// General settings rarely change: reuse the parsed settings when Mambu reports them as not modified
+		getGeneralSettings.setReuseCachedResult(true);
 		return serviceExecutor.execute(getGeneralSettings);
 	}
 
@@ -0,0 +1,189 @@
+package com.mambu.apisdk.services;
+
+import java.util.ArrayDeque;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import com.google.inject.Inject;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.DateUtils;
+import com.mambu.apisdk.util.ParallelCallsExecutor;
+import com.mambu.apisdk.util.RepaymentsAggregator;
+import com.mambu.loans.shared.model.Repayment;
+
+/**
+ * Service class which scans the repayments due in a date range, for example the repayments due in the next 30 days for
+ * collections. The range is split into one window for each due date, retrieved concurrently, each with its own
+ * pagination. No more than twice as many due dates as the executor threads are submitted at a time, so long ranges
+ * don't hold up the calls of other services.
+ *
+ * Repayments are not returned: each page is passed to the {@link RepaymentsAggregator}s, which keep the totals (for
+ * example by branch, by credit officer and by due date), and then discarded, so the scanned repayments are never all
+ * held in memory.
+ */
+public class RepaymentsDueScanService {
+
+	// Default number of repayments requested with each page
+	public final static int DEFAULT_PAGE_SIZE = 500;
+
+	private final RepaymentsService repaymentsService;
+	private final ParallelCallsExecutor parallelCallsExecutor;
+	private int pageSize = DEFAULT_PAGE_SIZE;
+
+	/***
+	 * Create a new service
+	 *
+	 * @param repaymentsService
+	 *            repayments service
+	 * @param parallelCallsExecutor
+	 *            executor for concurrent API calls
+	 */
+	@Inject
+	public RepaymentsDueScanService(RepaymentsService repaymentsService, ParallelCallsExecutor parallelCallsExecutor) {
+		this.repaymentsService = repaymentsService;
+		this.parallelCallsExecutor = parallelCallsExecutor;
+	}
+
+	/**
+	 * Set the number of repayments requested with each page
+	 *
+	 * @param pageSize
+	 *            page size. Must be greater than zero
+	 */
+	public void setPageSize(int pageSize) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be greater than zero");
+		}
+		this.pageSize = pageSize;
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * Scan the repayments due in a date range
+	 *
+	 * @param dueFrom
+	 *            first due date. Must not be null
+	 * @param dueTo
+	 *            last due date. Must not be null and must not be before dueFrom
+	 * @param aggregators
+	 *            aggregators receiving the repayments. At least one must be specified
+	 * @return number of repayments scanned
+	 * @throws MambuApiException
+	 *             if retrieving the repayments for any due date failed or if the calling thread was interrupted. The
+	 *             aggregators then hold partial totals
+	 */
+	public long scan(Date dueFrom, Date dueTo, RepaymentsAggregator<?>... aggregators) throws MambuApiException {
+		if (dueFrom == null || dueTo == null) {
+			throw new IllegalArgumentException("dueFrom and dueTo must not be null");
+		}
+		if (dueTo.before(dueFrom)) {
+			throw new IllegalArgumentException("dueTo must not be before dueFrom");
+		}
+		if (aggregators == null || aggregators.length == 0) {
+			throw new IllegalArgumentException("At least one aggregator must be specified");
+		}
+
+		RepaymentsAggregator<?>[] scanAggregators = aggregators.clone();
+		int scanPageSize = pageSize;
+		int maxDatesInFlight = 2 * parallelCallsExecutor.getMaxThreads();
+		// Due dates being scanned, in date order
+		Deque<Future<Integer>> inFlight = new ArrayDeque<Future<Integer>>();
+		Calendar day = Calendar.getInstance();
+		day.setTime(dueFrom);
+		String lastDay = DateUtils.format(dueTo);
+		String dueDate = null;
+		try {
+			long count = 0;
+			do {
+				while (!lastDay.equals(dueDate) && inFlight.size() < maxDatesInFlight) {
+					dueDate = DateUtils.format(day.getTime());
+					inFlight.addLast(submit(dueDate, scanPageSize, scanAggregators));
+					day.add(Calendar.DAY_OF_MONTH, 1);
+				}
+				count += inFlight.pollFirst().get();
+			} while (!inFlight.isEmpty());
+			return count;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MambuApiException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof MambuApiException) {
+				throw (MambuApiException) e.getCause();
+			}
+			throw new MambuApiException(e);
+		} finally {
+			for (Future<Integer> future : inFlight) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	/**
+	 * Scan the repayments due from today for a number of days
+	 *
+	 * @param days
+	 *            number of days, including today. Must be greater than zero
+	 * @param aggregators
+	 *            aggregators receiving the repayments. At least one must be specified
+	 * @return number of repayments scanned
+	 * @throws MambuApiException
+	 */
+	public long scanNextDays(int days, RepaymentsAggregator<?>... aggregators) throws MambuApiException {
+		if (days < 1) {
+			throw new IllegalArgumentException("Days must be greater than zero");
+		}
+		Calendar calendar = Calendar.getInstance();
+		Date today = calendar.getTime();
+		calendar.add(Calendar.DAY_OF_MONTH, days - 1);
+		return scan(today, calendar.getTime(), aggregators);
+	}
+
+	private Future<Integer> submit(final String dueDate, final int pageSize,
+			final RepaymentsAggregator<?>[] aggregators) {
+		return parallelCallsExecutor.submit(new Callable<Integer>() {
+			@Override
+			public Integer call() throws MambuApiException {
+				return scanDueDate(dueDate, pageSize, aggregators);
+			}
+		});
+	}
+
+	// Page through the repayments due on the date, passing them to the aggregators
+	private int scanDueDate(String dueDate, int pageSize, RepaymentsAggregator<?>[] aggregators)
+			throws MambuApiException {
+		// Repayments returned again when pages shift during the scan are counted once
+		Set<String> scannedKeys = new HashSet<String>();
+		String limit = Integer.toString(pageSize);
+		int count = 0;
+		for (int offset = 0;; offset += pageSize) {
+			List<Repayment> page = repaymentsService.getRapaymentsDueFromTo(dueDate, dueDate,
+					Integer.toString(offset), limit);
+			if (page == null) {
+				break;
+			}
+			for (Repayment repayment : page) {
+				if (repayment.getEncodedKey() != null && !scannedKeys.add(repayment.getEncodedKey())) {
+					continue;
+				}
+				for (RepaymentsAggregator<?> aggregator : aggregators) {
+					aggregator.add(repayment);
+				}
+				count++;
+			}
+			if (page.size() < pageSize) {
+				break;
+			}
+		}
+		return count;
+	}
+}
@@ -15,7 +15,7 @@ import com.mambu.api.server.handler.loan.model.JSONTransactionRequest;
 import com.mambu.api.server.handler.savings.model.JSONSavingsAccount;
 import com.mambu.apisdk.MambuAPIService;
 import com.mambu.apisdk.exception.MambuApiException;
-import com.mambu.apisdk.json.SavingsAccountPatchJsonSerializer;
+import com.mambu.apisdk.json.SavingsAccountPatchJsonAdapter;
 import com.mambu.apisdk.util.APIData;
 import com.mambu.apisdk.util.ApiDefinition;
 import com.mambu.apisdk.util.ApiDefinition.ApiReturnFormat;
@@ -111,8 +111,8 @@ public class SavingsService {
 	private final static ApiDefinition patchAccount;
 	static {
 		patchAccount = new ApiDefinition(ApiType.PATCH_ENTITY, SavingsAccount.class);
-		// Use SavingsAccountPatchJsonSerializer
-		patchAccount.addJsonSerializer(SavingsAccount.class, new SavingsAccountPatchJsonSerializer());
+		// Use SavingsAccountPatchJsonAdapter
+		patchAccount.addJsonTypeAdapter(SavingsAccount.class, new SavingsAccountPatchJsonAdapter());
 	}
 	// Products API requests
 	// Get Savings Product Details
@@ -0,0 +1,190 @@
+package com.mambu.apisdk.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.mambu.api.server.handler.core.dynamicsearch.model.JSONFilterConstraint;
+import com.mambu.api.server.handler.core.dynamicsearch.model.JSONFilterConstraints;
+import com.mambu.api.server.handler.core.dynamicsearch.model.JSONSortDetails;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.exception.MambuApiRuntimeException;
+import com.mambu.apisdk.util.MambuEntityType;
+
+/**
+ * SearchCursor retrieves all entities matching filter constraints page by page using the sort key of the last
+ * retrieved entity instead of the pagination offset (keyset pagination). Each page is requested with the original
+ * filter constraints plus a constraint selecting only entities after the last seen sort key, e.g. "TRANSACTION_ID
+ * MORE_THAN 1234" for ascending sort order. Requests for all pages therefore take the same time, regardless of how many
+ * entities were already retrieved, and entities created or deleted during the scan don't shift the following pages.
+ *
+ * The filter constraints must specify the sort details. The sorting column must be a numeric column with unique values
+ * (for example, TRANSACTION_ID for transactions): entities having the same sort key as the last entity of a page would
+ * be skipped.
+ *
+ * Pages are retrieved lazily: either explicitly with {@link #nextPage()} or when iterating the entities with
+ * {@link #hasNext()} and {@link #next()}. The iterator methods cannot throw checked exceptions, so API errors are
+ * reported by them with a {@link MambuApiRuntimeException}.
+ *
+ * @param <T>
+ *            entity type
+ */
+public class SearchCursor<T> implements Iterator<T> {
+
+	/**
+	 * Gets the value of the sorting column from the entity
+	 *
+	 * @param <T>
+	 *            entity type
+	 */
+	public interface SortKeyExtractor<T> {
+		/**
+		 * Get sort key for the entity
+		 *
+		 * @param entity
+		 *            entity
+		 * @return value of the sorting column for the entity, formatted as expected in the filter constraint value
+		 */
+		String getSortKey(T entity);
+	}
+
+	// Filter elements used to select entities after the last sort key
+	private final static String MORE_THAN = "MORE_THAN";
+	private final static String LESS_THAN = "LESS_THAN";
+	private final static String DESCENDING = "DESCENDING";
+
+	private final SearchService searchService;
+	private final MambuEntityType entityType;
+	private final JSONFilterConstraints filterConstraints;
+	private final SortKeyExtractor<T> keyExtractor;
+	private final int pageSize;
+	private final String keyFilterElement;
+
+	private String lastKey;
+	private boolean exhausted;
+	private Iterator<T> currentPage;
+
+	/**
+	 * Create search cursor
+	 *
+	 * @param searchService
+	 *            search service
+	 * @param entityType
+	 *            entity type. Must be supported by
+	 *            {@link SearchService#searchEntities(MambuEntityType, JSONFilterConstraints, String, String)}
+	 * @param filterConstraints
+	 *            filter constraints with sort details. Must not be null. Filter constraints are not modified
+	 * @param keyExtractor
+	 *            sort key extractor. Must not be null
+	 * @param pageSize
+	 *            number of entities requested with each API request. Must be greater than zero
+	 */
+	SearchCursor(SearchService searchService, MambuEntityType entityType, JSONFilterConstraints filterConstraints,
+			SortKeyExtractor<T> keyExtractor, int pageSize) {
+		if (filterConstraints == null) {
+			throw new IllegalArgumentException("Filter constraints must not be null");
+		}
+		JSONSortDetails sortDetails = filterConstraints.getSortDetails();
+		if (sortDetails == null || sortDetails.getSortingColumn() == null) {
+			throw new IllegalArgumentException("Filter constraints must specify the sorting column");
+		}
+		if (keyExtractor == null) {
+			throw new IllegalArgumentException("Sort key extractor must not be null");
+		}
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be greater than zero");
+		}
+		this.searchService = searchService;
+		this.entityType = entityType;
+		this.filterConstraints = filterConstraints;
+		this.keyExtractor = keyExtractor;
+		this.pageSize = pageSize;
+		this.keyFilterElement = DESCENDING.equals(sortDetails.getSortingOrder()) ? LESS_THAN : MORE_THAN;
+	}
+
+	/**
+	 * Get the next page of entities
+	 *
+	 * @return next page of entities. Empty list if all entities were already retrieved
+	 * @throws MambuApiException
+	 */
+	public List<T> nextPage() throws MambuApiException {
+		if (exhausted) {
+			return Collections.emptyList();
+		}
+		List<T> page = searchService.searchEntities(entityType, makePageConstraints(), null, String.valueOf(pageSize));
+		if (page == null || page.size() < pageSize) {
+			exhausted = true;
+		}
+		if (page == null || page.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		String pageLastKey = keyExtractor.getSortKey(page.get(page.size() - 1));
+		if (pageLastKey == null) {
+			throw new IllegalStateException("Sort key must not be null");
+		}
+		if (pageLastKey.equals(lastKey)) {
+			// The cursor would not advance. This happens if the sort key doesn't match the sorting column
+			throw new IllegalStateException("Search cursor is not advancing, last sort key=" + lastKey);
+		}
+		lastKey = pageLastKey;
+		return page;
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (currentPage == null || !currentPage.hasNext()) {
+			if (exhausted) {
+				return false;
+			}
+			try {
+				currentPage = nextPage().iterator();
+			} catch (MambuApiException e) {
+				throw new MambuApiRuntimeException(e);
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return currentPage.next();
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("Search results cannot be removed");
+	}
+
+	// Make filter constraints for the next page: original constraints plus the constraint on the sort key
+	private JSONFilterConstraints makePageConstraints() {
+		if (lastKey == null) {
+			return filterConstraints;
+		}
+		JSONSortDetails sortDetails = filterConstraints.getSortDetails();
+
+		JSONFilterConstraint keyConstraint = new JSONFilterConstraint();
+		keyConstraint.setFilterSelection(sortDetails.getSortingColumn());
+		keyConstraint.setFilterElement(keyFilterElement);
+		keyConstraint.setValue(lastKey);
+		keyConstraint.setDataFieldType(sortDetails.getDataFieldType());
+		keyConstraint.setDataItemType(sortDetails.getDataItemType());
+
+		List<JSONFilterConstraint> constraints = new ArrayList<JSONFilterConstraint>();
+		if (filterConstraints.getFilterConstraints() != null) {
+			constraints.addAll(filterConstraints.getFilterConstraints());
+		}
+		constraints.add(keyConstraint);
+
+		JSONFilterConstraints pageConstraints = new JSONFilterConstraints();
+		pageConstraints.setFilterConstraints(constraints);
+		pageConstraints.setSortDetails(sortDetails);
+		return pageConstraints;
+	}
+}
@@ -0,0 +1,42 @@
+package com.mambu.apisdk.services;
+
+import java.util.List;
+
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.core.shared.model.SearchResult;
+import com.mambu.core.shared.model.SearchType;
+
+/**
+ * Listener receiving search results from {@link StreamingSearchService} as soon as results for each search type are
+ * available.
+ *
+ * Listener methods are invoked from the API threads, one at a time for the same search. They are not invoked after the
+ * search was cancelled
+ */
+public interface SearchResultsListener {
+
+	/**
+	 * Results for a search type are available
+	 *
+	 * @param searchType
+	 *            search type
+	 * @param results
+	 *            search results for this type. Empty list if nothing was found
+	 */
+	void onResults(SearchType searchType, List<SearchResult> results);
+
+	/**
+	 * Search for a search type failed
+	 *
+	 * @param searchType
+	 *            search type
+	 * @param error
+	 *            API exception
+	 */
+	void onError(SearchType searchType, MambuApiException error);
+
+	/**
+	 * Search completed for all search types
+	 */
+	void onComplete();
+}
@@ -87,15 +87,15 @@ public class SearchService {
 
 		// Add search Types, if any
 		if (searchTypes != null && searchTypes.size() > 0) {
-			String typeParamsString = new String("[");
+			StringBuilder typeParams = new StringBuilder(searchTypes.size() * 16).append('[');
 			for (int i = 0; i < searchTypes.size(); i++) {
 				// a comma separated list of Search Types, e.g. GROUP,CLIENT, LOAN_ACCOUNT
 				if (i > 0)
-					typeParamsString = typeParamsString.concat(",");
-				typeParamsString = typeParamsString.concat(searchTypes.get(i).toString());
+					typeParams.append(',');
+				typeParams.append(searchTypes.get(i));
 			}
-			typeParamsString = typeParamsString.concat("]");
-			paramsMap.addParam(SEARCH_TYPES, typeParamsString);
+			typeParams.append(']');
+			paramsMap.addParam(SEARCH_TYPES, typeParams.toString());
 		}
 
 		return serviceExecutor.execute(searchEntitiies, paramsMap);
@@ -143,6 +143,39 @@ public class SearchService {
 
 	}
 
+	/**
+	 * Get a cursor for retrieving all Mambu entities matching filter constraints. Unlike
+	 * {@link #searchEntities(MambuEntityType, JSONFilterConstraints, String, String)} the cursor doesn't use the
+	 * pagination offset: each page is requested with an additional filter constraint selecting entities after the sort
+	 * key of the last entity retrieved. See {@link SearchCursor}
+	 * 
+	 * Example: iterate all loan transactions after a given date, sorted by the transaction id
+	 * 
+	 * filterConstraints.setSortDetails(sortByTransactionIdAscending);
+	 * 
+	 * Iterator<LoanTransaction> transactions = searchService.searchEntitiesWithCursor(
+	 * MambuEntityType.LOAN_TRANSACTION, filterConstraints, transactionIdExtractor, 500);
+	 * 
+	 * @param searchEntityType
+	 *            Mambu entity type. Must not be null. The same entities as for the searchEntities() are supported
+	 * @param filterConstraints
+	 *            JSONFilterConstraints object defining an array of applicable filter constraints and the sort order.
+	 *            The sorting column must have unique numeric values. Must not be null
+	 * @param keyExtractor
+	 *            extractor returning the value of the sorting column for an entity. Must not be null
+	 * @param pageSize
+	 *            number of entities to retrieve with each API request. Must be greater than zero
+	 * 
+	 * @return search cursor. Entities are retrieved lazily, when iterating the cursor
+	 */
+	public <T> SearchCursor<T> searchEntitiesWithCursor(MambuEntityType searchEntityType,
+			JSONFilterConstraints filterConstraints, SearchCursor.SortKeyExtractor<T> keyExtractor, int pageSize) {
+		if (searchEntityType == null) {
+			throw new IllegalArgumentException("Search Entity must not be NULL");
+		}
+		return new SearchCursor<T>(this, searchEntityType, filterConstraints, keyExtractor, pageSize);
+	}
+
 	/**
 	 * Helper to create ApiDefintion for searching entities matching filter criteria
 	 * 
@@ -0,0 +1,116 @@
+package com.mambu.apisdk.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.core.shared.model.SearchResult;
+import com.mambu.core.shared.model.SearchType;
+
+/**
+ * StreamingSearch represents a search started with {@link StreamingSearchService}. It delivers search results to the
+ * {@link SearchResultsListener} and allows cancelling the search, for example when the search query was superseded by a
+ * new one.
+ */
+public class StreamingSearch {
+
+	private final String query;
+	private final SearchResultsListener listener;
+	private final List<Future<?>> futures = new ArrayList<Future<?>>();
+	private final CountDownLatch pendingTypes;
+	private volatile boolean cancelled;
+
+	StreamingSearch(String query, int searchTypesCount, SearchResultsListener listener) {
+		this.query = query;
+		this.listener = listener;
+		this.pendingTypes = new CountDownLatch(searchTypesCount);
+	}
+
+	public String getQuery() {
+		return query;
+	}
+
+	/**
+	 * Cancel the search. Requests not yet completed are cancelled and the listener is not notified anymore
+	 */
+	public void cancel() {
+		cancelled = true;
+		synchronized (futures) {
+			for (Future<?> future : futures) {
+				future.cancel(true);
+			}
+		}
+		// Cancelled requests never complete, release the threads waiting for them
+		while (pendingTypes.getCount() > 0) {
+			pendingTypes.countDown();
+		}
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Is the search completed for all search types or cancelled
+	 *
+	 * @return true if completed or cancelled
+	 */
+	public boolean isDone() {
+		return pendingTypes.getCount() == 0;
+	}
+
+	/**
+	 * Wait until the search is completed for all search types or cancelled
+	 *
+	 * @param timeout
+	 *            maximum time to wait
+	 * @param unit
+	 *            time unit
+	 * @return true if the search completed, false if the timeout elapsed or the search was cancelled
+	 * @throws InterruptedException
+	 */
+	public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+		return pendingTypes.await(timeout, unit) && !cancelled;
+	}
+
+	void addFuture(Future<?> future) {
+		synchronized (futures) {
+			futures.add(future);
+			if (cancelled) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	// Deliver results and errors to the listener, one at a time
+	void deliverResults(SearchType searchType, List<SearchResult> results) {
+		synchronized (listener) {
+			if (!cancelled) {
+				listener.onResults(searchType, results);
+			}
+		}
+		typeCompleted();
+	}
+
+	void deliverError(SearchType searchType, MambuApiException error) {
+		synchronized (listener) {
+			if (!cancelled) {
+				listener.onError(searchType, error);
+			}
+		}
+		typeCompleted();
+	}
+
+	private void typeCompleted() {
+		synchronized (listener) {
+			// notify before the final count down, so that the waiting threads see onComplete() already invoked
+			if (pendingTypes.getCount() == 1 && !cancelled) {
+				listener.onComplete();
+			}
+			pendingTypes.countDown();
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package com.mambu.apisdk.services;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import com.google.inject.Inject;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.ParallelCallsExecutor;
+import com.mambu.core.shared.model.SearchResult;
+import com.mambu.core.shared.model.SearchType;
+
+/**
+ * Service class which searches Mambu entities for each search type in parallel and streams results back to a
+ * {@link SearchResultsListener} as soon as the results for each type are available. Used for type-ahead searching,
+ * where results for the fast search types can be shown before the slow ones complete.
+ *
+ * Each search can be cancelled, for example when the search query was superseded by a new one. The
+ * {@link #searchLatest(String, List, String, SearchResultsListener)} method cancels the previous search automatically
+ */
+public class StreamingSearchService {
+
+	private final SearchService searchService;
+	private final ParallelCallsExecutor parallelCallsExecutor;
+
+	// The last search started with searchLatest()
+	private StreamingSearch latestSearch;
+
+	/***
+	 * Create a new service
+	 *
+	 * @param searchService
+	 *            search service
+	 * @param parallelCallsExecutor
+	 *            executor for concurrent API calls
+	 */
+	@Inject
+	public StreamingSearchService(SearchService searchService, ParallelCallsExecutor parallelCallsExecutor) {
+		this.searchService = searchService;
+		this.parallelCallsExecutor = parallelCallsExecutor;
+	}
+
+	/***
+	 * Start searching Mambu entities. A separate search request is executed for each search type in parallel and the
+	 * results are delivered to the listener as each request completes
+	 *
+	 * @param query
+	 *            the string to query. Must not be null
+	 * @param searchTypes
+	 *            search types to query. Null or empty to search for all generic search types (defined by
+	 *            SearchType.genericSearchTypeValues())
+	 * @param limit
+	 *            maximum number of results to return for each search type. If null, Mambu defaults this to 100
+	 * @param listener
+	 *            listener receiving search results. Must not be null
+	 * @return started search, which can be cancelled
+	 */
+	public StreamingSearch search(String query, List<SearchType> searchTypes, final String limit,
+			SearchResultsListener listener) {
+		if (query == null) {
+			throw new IllegalArgumentException("Query must not be null");
+		}
+		if (listener == null) {
+			throw new IllegalArgumentException("Listener must not be null");
+		}
+		if (searchTypes == null || searchTypes.isEmpty()) {
+			searchTypes = SearchType.genericSearchTypeValues();
+		}
+
+		final String trimmedQuery = query.trim();
+		final StreamingSearch search = new StreamingSearch(trimmedQuery, searchTypes.size(), listener);
+		for (final SearchType searchType : searchTypes) {
+			search.addFuture(parallelCallsExecutor.submit(new Callable<Void>() {
+				@Override
+				public Void call() {
+					if (search.isCancelled()) {
+						return null;
+					}
+					try {
+						Map<SearchType, List<SearchResult>> results = searchService.search(trimmedQuery,
+								Collections.singletonList(searchType), limit);
+						List<SearchResult> typeResults = results == null ? null : results.get(searchType);
+						if (typeResults == null) {
+							typeResults = Collections.emptyList();
+						}
+						search.deliverResults(searchType, typeResults);
+					} catch (MambuApiException e) {
+						search.deliverError(searchType, e);
+					} catch (RuntimeException e) {
+						search.deliverError(searchType, new MambuApiException(e));
+					}
+					return null;
+				}
+			}));
+		}
+		return search;
+	}
+
+	/***
+	 * Start searching Mambu entities, cancelling the search previously started with this method. Used for debouncing
+	 * type-ahead queries: results of the superseded query are not delivered anymore
+	 *
+	 * @param query
+	 *            the string to query. Must not be null
+	 * @param searchTypes
+	 *            search types to query. Null or empty to search for all generic search types
+	 * @param limit
+	 *            maximum number of results to return for each search type. If null, Mambu defaults this to 100
+	 * @param listener
+	 *            listener receiving search results. Must not be null
+	 * @return started search
+	 */
+	public synchronized StreamingSearch searchLatest(String query, List<SearchType> searchTypes, String limit,
+			SearchResultsListener listener) {
+		if (latestSearch != null) {
+			latestSearch.cancel();
+		}
+		latestSearch = search(query, searchTypes, limit, listener);
+		return latestSearch;
+	}
+}
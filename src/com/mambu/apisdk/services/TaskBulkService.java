@@ -0,0 +1,316 @@
+package com.mambu.apisdk.services;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.inject.Inject;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.model.TaskBulkReport;
+import com.mambu.apisdk.util.ParallelCallsExecutor;
+import com.mambu.docs.shared.model.OwnerType;
+import com.mambu.tasks.shared.model.Task;
+import com.mambu.tasks.shared.model.TaskStatus;
+
+/**
+ * Service class which creates and closes large numbers of tasks, for example follow-up tasks for every overdue account
+ * created every night. Task specs are read one by one from an iterator and processed concurrently with
+ * {@link TasksService}, starting no more than the configured number of API calls per second. The rate is limited on
+ * the thread submitting the specs, so the executor threads never wait for the rate limit: one permit is acquired for
+ * each spec, and the calls made by a spec beyond its permit, such as retrieving the open tasks, are charged to the
+ * next specs.
+ *
+ * Specs are processed as follows:
+ *
+ * - an open spec (status OPEN or null) is created, unless its client or group already has an open task with the same
+ * title
+ *
+ * - a completed spec (status COMPLETED) closes the open task of its client or group with the same title
+ *
+ * - a spec with an encoded key updates the existing task directly
+ *
+ * The open tasks of a client or group are retrieved once, when its first spec is processed, and indexed by title.
+ * Tasks created by the run are added to the index, so duplicate specs in the same run are skipped too. Tasks linked to
+ * other entities are created without checking for duplicates. Specs are processed concurrently, so a run should not
+ * both create and close a task with the same title for the same client or group.
+ */
+public class TaskBulkService {
+
+	// Default maximum number of API calls started per second
+	public final static double DEFAULT_MAX_CALLS_PER_SECOND = 50;
+	// Number of open tasks requested with each page
+	private final static int OPEN_TASKS_PAGE_SIZE = 500;
+
+	private final TasksService tasksService;
+	private final ParallelCallsExecutor parallelCallsExecutor;
+	private double maxCallsPerSecond = DEFAULT_MAX_CALLS_PER_SECOND;
+
+	/***
+	 * Create a new service
+	 *
+	 * @param tasksService
+	 *            tasks service
+	 * @param parallelCallsExecutor
+	 *            executor for concurrent API calls
+	 */
+	@Inject
+	public TaskBulkService(TasksService tasksService, ParallelCallsExecutor parallelCallsExecutor) {
+		this.tasksService = tasksService;
+		this.parallelCallsExecutor = parallelCallsExecutor;
+	}
+
+	/**
+	 * Set the maximum number of API calls started per second
+	 *
+	 * @param maxCallsPerSecond
+	 *            maximum number of calls per second. Zero or negative for no rate limit
+	 */
+	public void setMaxCallsPerSecond(double maxCallsPerSecond) {
+		this.maxCallsPerSecond = maxCallsPerSecond;
+	}
+
+	public double getMaxCallsPerSecond() {
+		return maxCallsPerSecond;
+	}
+
+	/**
+	 * Create and close tasks
+	 *
+	 * @param tasks
+	 *            task specs. Must not be null. Each spec must have a title
+	 * @return report with the numbers of created, updated, closed and skipped tasks and the errors for the failed
+	 *         specs
+	 * @throws MambuApiException
+	 *             if the calling thread was interrupted. Specs already submitted are still processed
+	 */
+	public TaskBulkReport process(Iterator<Task> tasks) throws MambuApiException {
+		if (tasks == null) {
+			throw new IllegalArgumentException("Tasks must not be null");
+		}
+
+		final TaskBulkReport report = new TaskBulkReport();
+		RateLimiter rateLimiter = maxCallsPerSecond > 0 ? RateLimiter.create(maxCallsPerSecond) : null;
+		// API calls started by the specs and permits acquired for them
+		final AtomicLong startedCalls = new AtomicLong();
+		long acquiredPermits = 0;
+		int maxPendingSpecs = 2 * parallelCallsExecutor.getMaxThreads();
+		final Semaphore pendingSpecs = new Semaphore(maxPendingSpecs);
+		// Open tasks by client or group
+		Map<String, OpenTasks> openTasksByOwner = new HashMap<String, OpenTasks>();
+
+		try {
+			for (int position = 0; tasks.hasNext(); position++) {
+				final Task task = tasks.next();
+				if (task == null || task.getTitle() == null) {
+					report.addFailure(position, new MambuApiException(new IllegalArgumentException(
+							"Task and its title must not be null")));
+					continue;
+				}
+				final OpenTasks openTasks = getOpenTasks(openTasksByOwner, task);
+				final int taskPosition = position;
+				pendingSpecs.acquire();
+				if (rateLimiter != null) {
+					int permits = (int) Math.max(1, startedCalls.get() - acquiredPermits + 1);
+					rateLimiter.acquire(permits);
+					acquiredPermits += permits;
+				}
+				parallelCallsExecutor.submit(new Callable<Void>() {
+					@Override
+					public Void call() {
+						try {
+							processTask(task, openTasks, startedCalls, report);
+						} catch (MambuApiException e) {
+							report.addFailure(taskPosition, e);
+						} catch (RuntimeException e) {
+							report.addFailure(taskPosition, new MambuApiException(e));
+						} finally {
+							pendingSpecs.release();
+						}
+						return null;
+					}
+				});
+			}
+			// Wait for all specs to be processed
+			pendingSpecs.acquire(maxPendingSpecs);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MambuApiException(e);
+		}
+		return report;
+	}
+
+	/**
+	 * Create and close a list of tasks
+	 *
+	 * @param tasks
+	 *            task specs. Must not be null
+	 * @return report with the numbers of created, updated, closed and skipped tasks and the errors for the failed
+	 *         specs
+	 * @throws MambuApiException
+	 *             if the calling thread was interrupted
+	 */
+	public TaskBulkReport process(List<Task> tasks) throws MambuApiException {
+		if (tasks == null) {
+			throw new IllegalArgumentException("Tasks must not be null");
+		}
+		return process(Collections.unmodifiableList(tasks).iterator());
+	}
+
+	private void processTask(Task task, OpenTasks openTasks, AtomicLong startedCalls, TaskBulkReport report)
+			throws MambuApiException {
+		boolean isCompleted = task.getStatus() == TaskStatus.COMPLETED;
+		if (task.getEncodedKey() != null || openTasks == null) {
+			// Known task or not linked to a client or group: no duplicates check
+			if (task.getEncodedKey() != null) {
+				startedCalls.incrementAndGet();
+				tasksService.updateTask(task);
+				if (isCompleted) {
+					report.addClosed();
+				} else {
+					report.addUpdated();
+				}
+			} else if (isCompleted) {
+				report.addSkipped();
+			} else {
+				startedCalls.incrementAndGet();
+				tasksService.createTask(task);
+				report.addCreated();
+			}
+			return;
+		}
+
+		String title = task.getTitle();
+		if (isCompleted) {
+			Task openTask = openTasks.removeForClosing(title, startedCalls);
+			if (openTask == null) {
+				report.addSkipped();
+				return;
+			}
+			openTask.setToCompleted(task.getCompletionDate() != null ? task.getCompletionDate() : new Date());
+			startedCalls.incrementAndGet();
+			try {
+				tasksService.updateTask(openTask);
+			} catch (MambuApiException e) {
+				openTasks.put(title, openTask);
+				throw e;
+			}
+			report.addClosed();
+		} else {
+			if (!openTasks.reserve(title, startedCalls)) {
+				report.addSkipped();
+				return;
+			}
+			Task created = null;
+			boolean isCreated = false;
+			try {
+				startedCalls.incrementAndGet();
+				created = tasksService.createTask(task);
+				isCreated = true;
+			} finally {
+				openTasks.completeReservation(title, isCreated ? (created != null ? created : task) : null);
+			}
+			report.addCreated();
+		}
+	}
+
+	// Get open tasks of the spec's client or group, null for specs linked to other entities
+	private OpenTasks getOpenTasks(Map<String, OpenTasks> openTasksByOwner, Task task) {
+		OwnerType ownerType = task.getTaskLinkType();
+		String ownerKey = task.getTaskLinkKey();
+		if (ownerKey == null || (ownerType != OwnerType.CLIENT && ownerType != OwnerType.GROUP)) {
+			return null;
+		}
+		String key = ownerType + ":" + ownerKey;
+		OpenTasks openTasks = openTasksByOwner.get(key);
+		if (openTasks == null) {
+			openTasks = new OpenTasks(ownerType, ownerKey);
+			openTasksByOwner.put(key, openTasks);
+		}
+		return openTasks;
+	}
+
+	/**
+	 * Open tasks of a client or group indexed by title, retrieved when first used
+	 */
+	private class OpenTasks {
+		private final OwnerType ownerType;
+		private final String ownerKey;
+		// Open tasks by title. Null values for tasks being created
+		private Map<String, Task> tasksByTitle;
+
+		private OpenTasks(OwnerType ownerType, String ownerKey) {
+			this.ownerType = ownerType;
+			this.ownerKey = ownerKey;
+		}
+
+		// Reserve a title for a new task. False if an open task with the title exists or is being created
+		private synchronized boolean reserve(String title, AtomicLong startedCalls) throws MambuApiException {
+			load(startedCalls);
+			if (tasksByTitle.containsKey(title)) {
+				return false;
+			}
+			tasksByTitle.put(title, null);
+			return true;
+		}
+
+		// Replace the reservation with the created task, or release it if the task was not created
+		private synchronized void completeReservation(String title, Task created) {
+			if (created == null) {
+				tasksByTitle.remove(title);
+			} else {
+				tasksByTitle.put(title, created);
+			}
+		}
+
+		// Remove the open task with the title. Null if there is none or it is being created
+		private synchronized Task removeForClosing(String title, AtomicLong startedCalls) throws MambuApiException {
+			load(startedCalls);
+			Task task = tasksByTitle.get(title);
+			if (task == null || task.getEncodedKey() == null) {
+				return null;
+			}
+			return tasksByTitle.remove(title);
+		}
+
+		private synchronized void put(String title, Task task) {
+			tasksByTitle.put(title, task);
+		}
+
+		private void load(AtomicLong startedCalls) throws MambuApiException {
+			if (tasksByTitle != null) {
+				return;
+			}
+			Map<String, Task> loaded = new HashMap<String, Task>();
+			// Overdue tasks are open too
+			for (TaskStatus status : new TaskStatus[] { TaskStatus.OPEN, TaskStatus.OVERDUE }) {
+				String limit = Integer.toString(OPEN_TASKS_PAGE_SIZE);
+				for (int offset = 0;; offset += OPEN_TASKS_PAGE_SIZE) {
+					startedCalls.incrementAndGet();
+					String clientId = ownerType == OwnerType.CLIENT ? ownerKey : null;
+					String groupId = ownerType == OwnerType.GROUP ? ownerKey : null;
+					List<Task> page = tasksService.getTasks(null, clientId, groupId, status,
+							Integer.toString(offset), limit);
+					if (page == null) {
+						break;
+					}
+					for (Task task : page) {
+						if (task.getTitle() != null && !loaded.containsKey(task.getTitle())) {
+							loaded.put(task.getTitle(), task);
+						}
+					}
+					if (page.size() < OPEN_TASKS_PAGE_SIZE) {
+						break;
+					}
+				}
+			}
+			tasksByTitle = loaded;
+		}
+	}
+}
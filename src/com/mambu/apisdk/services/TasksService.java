@@ -3,7 +3,6 @@
  */
 package com.mambu.apisdk.services;
 
-import java.text.DateFormat;
 import java.util.Date;
 import java.util.List;
 
@@ -134,13 +133,11 @@ public class TasksService {
 			throw new IllegalArgumentException("Due date cannot be null");
 		}
 
-		DateFormat df = DateUtils.FORMAT;
-
 		ParamsMap params = new ParamsMap();
 		params.put(TITLE, title);
 		params.put(USERNAME, username);
 		params.put(DESCRIPTION, description);
-		params.put(DUE_DATE, df.format(dueDate));
+		params.put(DUE_DATE, DateUtils.format(dueDate));
 		params.put(CLIENT_ID, clientId);
 		params.put(GROUP_ID, groupId);
 
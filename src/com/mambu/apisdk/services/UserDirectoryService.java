@@ -0,0 +1,360 @@
+package com.mambu.apisdk.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.ParallelCallsExecutor;
+import com.mambu.core.shared.model.Role;
+import com.mambu.core.shared.model.User;
+
+/**
+ * Service class which caches users and user roles, for example for authorization checks done for every request of a
+ * gateway. Users are indexed by username, id and assigned branch, so lookups of cached users don't call Mambu.
+ *
+ * All users and roles can be loaded at once with {@link #preload()}. Users and roles not cached are retrieved with
+ * {@link UsersService} when they are first requested. Each cached user and role expires after the time to live since
+ * it was retrieved. When an entry is requested after three quarters of its time to live, it is refreshed in the
+ * background while the cached entry is still returned, so frequently used entries don't expire. Entries can be
+ * invalidated explicitly, for example when a user is deactivated.
+ */
+@Singleton
+public class UserDirectoryService {
+
+	public final static long DEFAULT_TIME_TO_LIVE_MINUTES = 10;
+	// Number of users requested with each page when preloading
+	private final static int PRELOAD_PAGE_SIZE = 500;
+
+	private final UsersService usersService;
+	private final ParallelCallsExecutor parallelCallsExecutor;
+	// Users by username
+	private final LoadingCache<String, User> users;
+	// Roles by encoded key
+	private final LoadingCache<String, Role> roles;
+	// Usernames by user id
+	private final ConcurrentMap<String, String> usernamesById = new ConcurrentHashMap<String, String>();
+	// Usernames by assigned branch key
+	private final ConcurrentMap<String, Set<String>> usernamesByBranch = new ConcurrentHashMap<String, Set<String>>();
+
+	/***
+	 * Create a new service with the default time to live
+	 *
+	 * @param usersService
+	 *            users service
+	 * @param parallelCallsExecutor
+	 *            executor for refreshing entries in the background
+	 */
+	@Inject
+	public UserDirectoryService(UsersService usersService, ParallelCallsExecutor parallelCallsExecutor) {
+		this(usersService, parallelCallsExecutor, DEFAULT_TIME_TO_LIVE_MINUTES, TimeUnit.MINUTES);
+	}
+
+	/***
+	 * Create a new service
+	 *
+	 * @param usersService
+	 *            users service
+	 * @param parallelCallsExecutor
+	 *            executor for refreshing entries in the background
+	 * @param timeToLive
+	 *            time after which cached users and roles expire. Must be greater than zero
+	 * @param unit
+	 *            time to live unit
+	 */
+	public UserDirectoryService(UsersService usersService, ParallelCallsExecutor parallelCallsExecutor,
+			long timeToLive, TimeUnit unit) {
+		this(usersService, parallelCallsExecutor, timeToLive, unit, Ticker.systemTicker());
+	}
+
+	UserDirectoryService(final UsersService usersService, ParallelCallsExecutor parallelCallsExecutor, long timeToLive,
+			TimeUnit unit, Ticker ticker) {
+		if (usersService == null || parallelCallsExecutor == null) {
+			throw new IllegalArgumentException("Users service and executor must not be null");
+		}
+		if (timeToLive <= 0 || unit == null) {
+			throw new IllegalArgumentException("Time to live must be greater than zero");
+		}
+		this.usersService = usersService;
+		this.parallelCallsExecutor = parallelCallsExecutor;
+
+		long timeToLiveNanos = unit.toNanos(timeToLive);
+		long refreshNanos = Math.max(1, timeToLiveNanos / 4 * 3);
+		this.users = CacheBuilder.newBuilder().expireAfterWrite(timeToLiveNanos, TimeUnit.NANOSECONDS)
+				.refreshAfterWrite(refreshNanos, TimeUnit.NANOSECONDS).ticker(ticker)
+				.removalListener(new RemovalListener<String, User>() {
+					@Override
+					public void onRemoval(RemovalNotification<String, User> notification) {
+						unindex(notification.getKey(), notification.getValue());
+					}
+				}).build(new CacheLoader<String, User>() {
+					@Override
+					public User load(String username) throws MambuApiException {
+						return index(usersService.getUserByUsername(username), username);
+					}
+
+					@Override
+					public ListenableFuture<User> reload(final String username, User oldUser) {
+						return refreshInBackground(new Callable<User>() {
+							@Override
+							public User call() throws MambuApiException {
+								return load(username);
+							}
+						});
+					}
+				});
+		this.roles = CacheBuilder.newBuilder().expireAfterWrite(timeToLiveNanos, TimeUnit.NANOSECONDS)
+				.refreshAfterWrite(refreshNanos, TimeUnit.NANOSECONDS).ticker(ticker)
+				.build(new CacheLoader<String, Role>() {
+					@Override
+					public Role load(String roleKey) throws MambuApiException {
+						Role role = usersService.getUserRole(roleKey);
+						if (role == null) {
+							throw new MambuApiException(404, "Role not found: " + roleKey);
+						}
+						return role;
+					}
+
+					@Override
+					public ListenableFuture<Role> reload(final String roleKey, Role oldRole) {
+						return refreshInBackground(new Callable<Role>() {
+							@Override
+							public Role call() throws MambuApiException {
+								return load(roleKey);
+							}
+						});
+					}
+				});
+	}
+
+	/**
+	 * Load all users and user roles into the cache, replacing the cached entries
+	 *
+	 * @return number of users loaded
+	 * @throws MambuApiException
+	 */
+	public int preload() throws MambuApiException {
+		int count = 0;
+		String limit = Integer.toString(PRELOAD_PAGE_SIZE);
+		for (int offset = 0;; offset += PRELOAD_PAGE_SIZE) {
+			List<User> page = usersService.getUsers(Integer.toString(offset), limit);
+			if (page == null) {
+				break;
+			}
+			for (User user : page) {
+				if (user.getUsername() != null) {
+					users.put(user.getUsername(), index(user, user.getUsername()));
+					count++;
+				}
+			}
+			if (page.size() < PRELOAD_PAGE_SIZE) {
+				break;
+			}
+		}
+		List<Role> allRoles = usersService.getUserRoles();
+		if (allRoles != null) {
+			for (Role role : allRoles) {
+				if (role.getEncodedKey() != null) {
+					roles.put(role.getEncodedKey(), role);
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Get user by username
+	 *
+	 * @param username
+	 *            username. Must not be null
+	 * @return the cached user, or the user retrieved from Mambu if not cached
+	 * @throws MambuApiException
+	 *             if the user is not cached and retrieving it failed
+	 */
+	public User getUserByUsername(String username) throws MambuApiException {
+		if (username == null) {
+			throw new IllegalArgumentException("Username must not be null");
+		}
+		return get(users, username);
+	}
+
+	/**
+	 * Get user by id
+	 *
+	 * @param userId
+	 *            user id. Must not be null
+	 * @return the cached user, or the user retrieved from Mambu if not cached
+	 * @throws MambuApiException
+	 *             if the user is not cached and retrieving it failed
+	 */
+	public User getUserById(String userId) throws MambuApiException {
+		if (userId == null) {
+			throw new IllegalArgumentException("User id must not be null");
+		}
+		String username = usernamesById.get(userId);
+		if (username != null) {
+			User user = users.getIfPresent(username);
+			if (user != null && userId.equals(user.getId())) {
+				return user;
+			}
+		}
+		User user = usersService.getUserById(userId);
+		if (user != null && user.getUsername() != null) {
+			users.put(user.getUsername(), index(user, user.getUsername()));
+		}
+		return user;
+	}
+
+	/**
+	 * Get cached users assigned to a branch. Only users which were preloaded or requested before are returned
+	 *
+	 * @param branchKey
+	 *            encoded key of the branch. Must not be null
+	 * @return cached users assigned to the branch
+	 */
+	public List<User> getUsersByBranch(String branchKey) {
+		if (branchKey == null) {
+			throw new IllegalArgumentException("Branch key must not be null");
+		}
+		Set<String> usernames = usernamesByBranch.get(branchKey);
+		if (usernames == null) {
+			return Collections.emptyList();
+		}
+		List<User> branchUsers = new ArrayList<User>(usernames.size());
+		for (String username : usernames) {
+			User user = users.getIfPresent(username);
+			if (user != null && branchKey.equals(user.getAssignedBranchKey())) {
+				branchUsers.add(user);
+			}
+		}
+		return branchUsers;
+	}
+
+	/**
+	 * Get user role by its encoded key
+	 *
+	 * @param roleKey
+	 *            encoded key of the role. Must not be null
+	 * @return the cached role, or the role retrieved from Mambu if not cached
+	 * @throws MambuApiException
+	 *             if the role is not cached and retrieving it failed
+	 */
+	public Role getUserRole(String roleKey) throws MambuApiException {
+		if (roleKey == null) {
+			throw new IllegalArgumentException("Role key must not be null");
+		}
+		return get(roles, roleKey);
+	}
+
+	/**
+	 * Invalidate a cached user
+	 *
+	 * @param usernameOrId
+	 *            username or id of the user
+	 */
+	public void invalidateUser(String usernameOrId) {
+		String username = usernamesById.get(usernameOrId);
+		users.invalidate(username != null ? username : usernameOrId);
+	}
+
+	/**
+	 * Invalidate a cached user role
+	 *
+	 * @param roleKey
+	 *            encoded key of the role
+	 */
+	public void invalidateRole(String roleKey) {
+		roles.invalidate(roleKey);
+	}
+
+	/**
+	 * Invalidate all cached users and roles
+	 */
+	public void invalidateAll() {
+		users.invalidateAll();
+		roles.invalidateAll();
+	}
+
+	public long getUsersCount() {
+		return users.size();
+	}
+
+	private static <T> T get(LoadingCache<String, T> cache, String key) throws MambuApiException {
+		try {
+			return cache.get(key);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof MambuApiException) {
+				throw (MambuApiException) e.getCause();
+			}
+			throw new MambuApiException((Exception) e.getCause());
+		} catch (UncheckedExecutionException e) {
+			throw (RuntimeException) e.getCause();
+		}
+	}
+
+	private <T> ListenableFuture<T> refreshInBackground(Callable<T> load) {
+		ListenableFutureTask<T> task = ListenableFutureTask.create(load);
+		parallelCallsExecutor.submit(Executors.callable(task));
+		return task;
+	}
+
+	// Add user to the id and branch indexes
+	private User index(User user, String username) throws MambuApiException {
+		if (user == null) {
+			throw new MambuApiException(404, "User not found: " + username);
+		}
+		if (user.getId() != null) {
+			usernamesById.put(user.getId(), username);
+		}
+		String branchKey = user.getAssignedBranchKey();
+		if (branchKey != null) {
+			Set<String> usernames = usernamesByBranch.get(branchKey);
+			if (usernames == null) {
+				Set<String> newUsernames = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+				usernames = usernamesByBranch.putIfAbsent(branchKey, newUsernames);
+				if (usernames == null) {
+					usernames = newUsernames;
+				}
+			}
+			usernames.add(username);
+		}
+		return user;
+	}
+
+	// Remove a replaced or removed user from the indexes, unless the user now cached has the same id or branch
+	private void unindex(String username, User removedUser) {
+		if (username == null || removedUser == null) {
+			return;
+		}
+		User current = users.getIfPresent(username);
+		String id = removedUser.getId();
+		if (id != null && (current == null || !id.equals(current.getId()))) {
+			usernamesById.remove(id, username);
+		}
+		String branchKey = removedUser.getAssignedBranchKey();
+		if (branchKey != null && (current == null || !branchKey.equals(current.getAssignedBranchKey()))) {
+			Set<String> usernames = usernamesByBranch.get(branchKey);
+			if (usernames != null) {
+				usernames.remove(username);
+			}
+		}
+	}
+}
@@ -1,13 +1,18 @@
 package com.mambu.apisdk.util;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import com.google.gson.ExclusionStrategy;
 import com.google.gson.JsonDeserializer;
 import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
 import com.mambu.accounting.shared.model.GLAccount;
 import com.mambu.accounting.shared.model.GLJournalEntry;
 import com.mambu.accounts.shared.model.DocumentTemplate;
@@ -239,10 +244,11 @@ public class ApiDefinition {
 
 	/**
 	 * ApiReturnFormat specifies if Mambu's returned JSON string represents a single object, a collection of objects or
-	 * just a success/failure response
+	 * just a success/failure response. LAZY_COLLECTION is a collection of objects returned as a LazyJsonList, with the
+	 * objects deserialized only when accessed
 	 */
 	public enum ApiReturnFormat {
-		OBJECT, COLLECTION, BOOLEAN, RESPONSE_STRING
+		OBJECT, COLLECTION, BOOLEAN, RESPONSE_STRING, LAZY_COLLECTION
 	}
 
 	private ApiType apiType;
@@ -275,8 +281,15 @@ public class ApiDefinition {
 
 	// support optional API request JsonSerializers
 	private HashMap<Class<?>, JsonSerializer<?>> jsonSerializers = null;
+	// support optional API request streaming TypeAdapters
+	private HashMap<Class<?>, TypeAdapter<?>> jsonTypeAdapters = null;
 	// support optional API response JsonDeserializers
 	private HashMap<Class<?>, JsonDeserializer<?>> jsonDeserializers = null;
+	// Reuse objects parsed from a cached response when Mambu replies with "304 Not Modified". Only for API definitions
+	// returning objects which are not modified by the callers
+	private boolean reuseCachedResult = false;
+	// Names of the return class fields to deserialize. Null to deserialize all fields
+	private Set<String> projectedFields = null;
 
 	/**
 	 * Constructor used with ApiType requests for which only one entity class needs to be specified, Example GET
@@ -659,6 +672,50 @@ public class ApiDefinition {
 		this.urlPath = urlPath;
 	}
 
+	/**
+	 * Set whether the object parsed from a previous response can be returned again when the same response is returned
+	 * from the conditional request cache (Mambu replied with "304 Not Modified"). The same object instance is then
+	 * returned to all callers, so this should be enabled only for results which are treated as read-only
+	 * 
+	 * @param reuseCachedResult
+	 *            true to reuse previously parsed result
+	 */
+	public void setReuseCachedResult(boolean reuseCachedResult) {
+		this.reuseCachedResult = reuseCachedResult;
+	}
+
+	public boolean isReuseCachedResult() {
+		return reuseCachedResult;
+	}
+
+	/**
+	 * Set the fields of the return class to be deserialized from the API response. All other fields of the returned
+	 * objects are skipped in the response without being parsed and are left with their default values. Used by callers
+	 * needing only a few fields of large objects, for example only the id, state and balance of loan accounts
+	 * 
+	 * Projection is ignored if a custom JsonDeserializer is specified for the return class
+	 * 
+	 * @param projectedFields
+	 *            JSON names of the return class fields. Example: "id", "accountState". Null or empty to deserialize all
+	 *            fields
+	 */
+	public void setProjectedFields(Collection<String> projectedFields) {
+		if (projectedFields == null || projectedFields.isEmpty()) {
+			this.projectedFields = null;
+			return;
+		}
+		this.projectedFields = Collections.unmodifiableSet(new HashSet<String>(projectedFields));
+	}
+
+	/**
+	 * Get the fields of the return class to be deserialized from the API response
+	 * 
+	 * @return field names or null if all fields are deserialized
+	 */
+	public Set<String> getProjectedFields() {
+		return projectedFields;
+	}
+
 	/**
 	 * Add serialization ExclusionStrategy to the API definition
 	 * 
@@ -705,6 +762,31 @@ public class ApiDefinition {
 		return jsonSerializers;
 	}
 
+	/**
+	 * Add TypeAdapter for serializing a specific class to the API definition. Unlike a JsonSerializer, TypeAdapter
+	 * writes the JSON directly to the output stream without creating a JSON tree
+	 * 
+	 * @param clazz
+	 *            class
+	 * @param typeAdapter
+	 *            TypeAdapter
+	 */
+	public void addJsonTypeAdapter(Class<?> clazz, TypeAdapter<?> typeAdapter) {
+		if (jsonTypeAdapters == null) {
+			jsonTypeAdapters = new HashMap<>();
+		}
+		jsonTypeAdapters.put(clazz, typeAdapter);
+	}
+
+	/**
+	 * Get serializing TypeAdapters specified in the API definition
+	 * 
+	 * @return map of classes to TypeAdapter for these classes
+	 */
+	public HashMap<Class<?>, TypeAdapter<?>> getJsonTypeAdapters() {
+		return jsonTypeAdapters;
+	}
+
 	/**
 	 * Add JsonDeserializer for a specific class to the API definition
 	 * 
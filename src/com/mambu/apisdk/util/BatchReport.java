@@ -0,0 +1,95 @@
+package com.mambu.apisdk.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.mambu.apisdk.exception.MambuApiException;
+
+/**
+ * BatchReport holds the results of a batch of API calls executed by the {@link ParallelCallsExecutor}, one
+ * {@link CallResult} for each item of the batch, in the order the items were submitted
+ *
+ * @param <K>
+ *            type of the batch items
+ */
+public class BatchReport<K> {
+
+	private final Map<K, CallResult<?>> results;
+	private int failureCount;
+
+	BatchReport(int expectedSize) {
+		results = new LinkedHashMap<K, CallResult<?>>(Math.max(16, expectedSize * 2));
+	}
+
+	void add(K item, CallResult<?> result) {
+		results.put(item, result);
+		if (!result.isSuccess()) {
+			failureCount++;
+		}
+	}
+
+	/**
+	 * Get the result for the batch item
+	 *
+	 * @param item
+	 *            batch item
+	 * @return call result or null if the item is not in the batch
+	 */
+	public CallResult<?> getResult(K item) {
+		return results.get(item);
+	}
+
+	/**
+	 * Get results for all batch items
+	 *
+	 * @return map of batch items to their results
+	 */
+	public Map<K, CallResult<?>> getResults() {
+		return Collections.unmodifiableMap(results);
+	}
+
+	/**
+	 * Get items which failed
+	 *
+	 * @return map of failed items to their errors
+	 */
+	public Map<K, MambuApiException> getFailures() {
+		Map<K, MambuApiException> failures = new LinkedHashMap<K, MambuApiException>();
+		for (Map.Entry<K, CallResult<?>> entry : results.entrySet()) {
+			if (!entry.getValue().isSuccess()) {
+				failures.put(entry.getKey(), entry.getValue().getError());
+			}
+		}
+		return failures;
+	}
+
+	/**
+	 * Get items which were processed successfully
+	 *
+	 * @return successful items
+	 */
+	public List<K> getSuccesses() {
+		List<K> successes = new ArrayList<K>(results.size() - failureCount);
+		for (Map.Entry<K, CallResult<?>> entry : results.entrySet()) {
+			if (entry.getValue().isSuccess()) {
+				successes.add(entry.getKey());
+			}
+		}
+		return successes;
+	}
+
+	public int getSize() {
+		return results.size();
+	}
+
+	public int getSuccessCount() {
+		return results.size() - failureCount;
+	}
+
+	public int getFailureCount() {
+		return failureCount;
+	}
+}
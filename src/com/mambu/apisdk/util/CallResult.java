@@ -0,0 +1,61 @@
+package com.mambu.apisdk.util;
+
+import com.mambu.apisdk.exception.MambuApiException;
+
+/**
+ * Result of an API call executed by the {@link ParallelCallsExecutor}. A call either completes successfully with a
+ * result or fails with a MambuApiException. Calls which didn't complete before the deadline are reported as timed out.
+ *
+ * @param <T>
+ *            call result type
+ */
+public class CallResult<T> {
+
+	private final T result;
+	private final MambuApiException error;
+	private final boolean timedOut;
+
+	private CallResult(T result, MambuApiException error, boolean timedOut) {
+		this.result = result;
+		this.error = error;
+		this.timedOut = timedOut;
+	}
+
+	static <T> CallResult<T> success(T result) {
+		return new CallResult<T>(result, null, false);
+	}
+
+	static <T> CallResult<T> failure(MambuApiException error) {
+		return new CallResult<T>(null, error, false);
+	}
+
+	static <T> CallResult<T> timeout(MambuApiException error) {
+		return new CallResult<T>(null, error, true);
+	}
+
+	/**
+	 * Get the call result
+	 *
+	 * @return result or null if the call failed
+	 */
+	public T getResult() {
+		return result;
+	}
+
+	/**
+	 * Get the call error
+	 *
+	 * @return exception thrown by the call, or created for a timed out call. Null if the call was successful
+	 */
+	public MambuApiException getError() {
+		return error;
+	}
+
+	public boolean isSuccess() {
+		return error == null;
+	}
+
+	public boolean isTimedOut() {
+		return timedOut;
+	}
+}
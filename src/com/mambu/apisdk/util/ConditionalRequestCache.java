@@ -0,0 +1,203 @@
+package com.mambu.apisdk.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ConditionalRequestCache stores HTTP validators (ETag and Last-Modified response headers) together with the response
+ * for GET requests, keyed by the full request URL. The request executor uses these validators to send conditional GET
+ * requests (with If-None-Match and If-Modified-Since headers) and returns the cached response when Mambu replies with
+ * "304 Not Modified", which saves transferring and reading unchanged responses.
+ *
+ * Responses are cached only if Mambu returns at least one validator for them. If the server doesn't support validators
+ * nothing is cached and requests are executed as regular GET requests. Cached responses are always revalidated with the
+ * server, so the cache never returns stale responses.
+ *
+ * The cache is disabled by default and is enabled with {@link #setEnabled(boolean)}. It is bounded: the least recently
+ * used entries are evicted when the maximum number of entries or the maximum total length of the cached responses is
+ * reached, and responses longer than the maximum response length are not cached
+ */
+public class ConditionalRequestCache {
+
+	public final static int DEFAULT_MAX_ENTRIES = 64;
+	public final static int DEFAULT_MAX_RESPONSE_LENGTH = 64 * 1024;
+	public final static long DEFAULT_MAX_TOTAL_LENGTH = 1024 * 1024;
+
+	private boolean enabled = false;
+	private int maxEntries = DEFAULT_MAX_ENTRIES;
+	private int maxResponseLength = DEFAULT_MAX_RESPONSE_LENGTH;
+	private long maxTotalLength = DEFAULT_MAX_TOTAL_LENGTH;
+	// Total length of the cached responses in characters
+	private long totalLength;
+
+	// LRU map: entries in access order
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+	/**
+	 * Cached response with its validators
+	 */
+	public static class Entry {
+		private final String eTag;
+		private final String lastModified;
+		private final String response;
+
+		Entry(String eTag, String lastModified, String response) {
+			this.eTag = eTag;
+			this.lastModified = lastModified;
+			this.response = response;
+		}
+
+		public String getETag() {
+			return eTag;
+		}
+
+		public String getLastModified() {
+			return lastModified;
+		}
+
+		public String getResponse() {
+			return response;
+		}
+	}
+
+	/**
+	 * Get cached entry for the URL
+	 *
+	 * @param url
+	 *            full request URL, including the URL parameters
+	 * @return cached entry or null if there is no cached response for the URL or if the cache is disabled
+	 */
+	public synchronized Entry get(String url) {
+		if (!enabled || url == null) {
+			return null;
+		}
+		return entries.get(url);
+	}
+
+	/**
+	 * Cache the response for the URL together with its validators. If the response has no validators then any
+	 * previously cached entry for the URL is removed
+	 *
+	 * @param url
+	 *            full request URL, including the URL parameters
+	 * @param eTag
+	 *            value of the ETag response header. Can be null
+	 * @param lastModified
+	 *            value of the Last-Modified response header. Can be null
+	 * @param response
+	 *            response string
+	 */
+	public synchronized void put(String url, String eTag, String lastModified, String response) {
+		if (!enabled || url == null) {
+			return;
+		}
+		remove(url);
+		if ((eTag == null && lastModified == null) || response == null || response.length() > maxResponseLength) {
+			return;
+		}
+		entries.put(url, new Entry(eTag, lastModified, response));
+		totalLength += response.length();
+		evict();
+	}
+
+	/**
+	 * Remove cached entry for the URL
+	 *
+	 * @param url
+	 *            full request URL
+	 */
+	public synchronized void remove(String url) {
+		Entry removed = entries.remove(url);
+		if (removed != null) {
+			totalLength -= removed.response.length();
+		}
+	}
+
+	/**
+	 * Remove all cached entries
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		totalLength = 0;
+	}
+
+	/**
+	 * Get the number of cached entries
+	 *
+	 * @return number of entries
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Enable or disable conditional requests. Disabling the cache removes all cached entries
+	 *
+	 * @param enabled
+	 *            true to enable conditional requests
+	 */
+	public synchronized void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		if (!enabled) {
+			clear();
+		}
+	}
+
+	public synchronized boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Set the maximum number of cached entries
+	 *
+	 * @param maxEntries
+	 *            maximum number of entries. Must be greater than zero
+	 */
+	public synchronized void setMaxEntries(int maxEntries) {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("Max entries must be greater than zero");
+		}
+		this.maxEntries = maxEntries;
+		evict();
+	}
+
+	/**
+	 * Set the maximum length of the responses to be cached
+	 *
+	 * @param maxResponseLength
+	 *            maximum response length in characters
+	 */
+	public synchronized void setMaxResponseLength(int maxResponseLength) {
+		this.maxResponseLength = maxResponseLength;
+	}
+
+	/**
+	 * Set the maximum total length of the cached responses
+	 *
+	 * @param maxTotalLength
+	 *            maximum total length in characters
+	 */
+	public synchronized void setMaxTotalLength(long maxTotalLength) {
+		this.maxTotalLength = maxTotalLength;
+		evict();
+	}
+
+	/**
+	 * Get the total length of the cached responses
+	 *
+	 * @return total length in characters
+	 */
+	public synchronized long getTotalLength() {
+		return totalLength;
+	}
+
+	// Evict the least recently used entries until the cache is within its bounds
+	private void evict() {
+		Iterator<Entry> iterator = entries.values().iterator();
+		while ((entries.size() > maxEntries || totalLength > maxTotalLength) && iterator.hasNext()) {
+			totalLength -= iterator.next().response.length();
+			iterator.remove();
+		}
+	}
+}
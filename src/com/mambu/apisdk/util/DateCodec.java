@@ -0,0 +1,268 @@
+package com.mambu.apisdk.util;
+
+import java.io.IOException;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Thread safe formatter and parser for the two date formats used by Mambu API: date only "yyyy-MM-dd" and ISO-8601
+ * date time with the time zone offset "yyyy-MM-dd'T'HH:mm:ssZ". Produces the same output as
+ * {@link SimpleDateFormat} with the same pattern in the default time zone, without creating a new formatter for each
+ * call. Strings not in the expected format are parsed with SimpleDateFormat, the same way as Gson does by default.
+ *
+ * Dates are formatted in the default time zone of the JVM at the time the codec is first used by a thread
+ */
+public final class DateCodec {
+
+	/**
+	 * Codec for dates in "yyyy-MM-dd" format
+	 */
+	public final static DateCodec DATE = new DateCodec(DateUtils.DATE_FORMAT, false);
+	/**
+	 * Codec for date times in "yyyy-MM-dd'T'HH:mm:ssZ" format
+	 */
+	public final static DateCodec DATE_TIME = new DateCodec(GsonUtils.defaultDateTimeFormat, true);
+
+	private final static int MILLIS_PER_MINUTE = 60 * 1000;
+
+	private final String pattern;
+	private final boolean withTime;
+	private final TypeAdapter<Date> typeAdapter;
+
+	// Calendars and buffers reused by each thread
+	private final static ThreadLocal<CodecState> threadState = new ThreadLocal<CodecState>() {
+		@Override
+		protected CodecState initialValue() {
+			return new CodecState();
+		}
+	};
+
+	private DateCodec(String pattern, boolean withTime) {
+		this.pattern = pattern;
+		this.withTime = withTime;
+		this.typeAdapter = new DateTypeAdapter();
+	}
+
+	/**
+	 * Get codec for a date format pattern
+	 *
+	 * @param pattern
+	 *            SimpleDateFormat pattern
+	 * @return codec for the pattern or null if the pattern is not supported
+	 */
+	public static DateCodec forPattern(String pattern) {
+		if (DATE.pattern.equals(pattern)) {
+			return DATE;
+		}
+		if (DATE_TIME.pattern.equals(pattern)) {
+			return DATE_TIME;
+		}
+		return null;
+	}
+
+	public String getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * Get Gson type adapter formatting and parsing dates with this codec
+	 *
+	 * @return type adapter for java.util.Date
+	 */
+	public TypeAdapter<Date> getTypeAdapter() {
+		return typeAdapter;
+	}
+
+	/**
+	 * Format date
+	 *
+	 * @param date
+	 *            date
+	 * @return formatted date. Null if the date is null
+	 */
+	public String format(Date date) {
+		if (date == null) {
+			return null;
+		}
+		CodecState state = threadState.get();
+		Calendar calendar = state.localCalendar;
+		calendar.setTime(date);
+
+		char[] chars = state.chars;
+		int length = appendNumber(chars, 0, calendar.get(Calendar.YEAR), 4);
+		chars[length++] = '-';
+		length = appendNumber(chars, length, calendar.get(Calendar.MONTH) + 1, 2);
+		chars[length++] = '-';
+		length = appendNumber(chars, length, calendar.get(Calendar.DAY_OF_MONTH), 2);
+		if (withTime) {
+			chars[length++] = 'T';
+			length = appendNumber(chars, length, calendar.get(Calendar.HOUR_OF_DAY), 2);
+			chars[length++] = ':';
+			length = appendNumber(chars, length, calendar.get(Calendar.MINUTE), 2);
+			chars[length++] = ':';
+			length = appendNumber(chars, length, calendar.get(Calendar.SECOND), 2);
+
+			int offsetMinutes = (calendar.get(Calendar.ZONE_OFFSET) + calendar.get(Calendar.DST_OFFSET))
+					/ MILLIS_PER_MINUTE;
+			if (offsetMinutes < 0) {
+				chars[length++] = '-';
+				offsetMinutes = -offsetMinutes;
+			} else {
+				chars[length++] = '+';
+			}
+			length = appendNumber(chars, length, offsetMinutes / 60, 2);
+			length = appendNumber(chars, length, offsetMinutes % 60, 2);
+		}
+		return new String(chars, 0, length);
+	}
+
+	/**
+	 * Parse date
+	 *
+	 * @param string
+	 *            formatted date. Must not be null
+	 * @return parsed date
+	 * @throws ParseException
+	 *             if the string cannot be parsed
+	 */
+	public Date parse(String string) throws ParseException {
+		if (string == null) {
+			throw new IllegalArgumentException("Date string must not be null");
+		}
+		Date date = withTime ? parseDateTime(string) : parseDate(string);
+		if (date != null) {
+			return date;
+		}
+		// Not in the expected format. Parse leniently as SimpleDateFormat does
+		return new SimpleDateFormat(pattern).parse(string);
+	}
+
+	// Parse "yyyy-MM-dd". Returns null if not in this format
+	private static Date parseDate(String string) {
+		if (string.length() != 10 || !isDatePart(string)) {
+			return null;
+		}
+		Calendar calendar = threadState.get().localCalendar;
+		calendar.clear();
+		calendar.set(digits(string, 0, 4), digits(string, 5, 2) - 1, digits(string, 8, 2));
+		return calendar.getTime();
+	}
+
+	// Parse "yyyy-MM-dd'T'HH:mm:ss+HHmm". Returns null if not in this format
+	private static Date parseDateTime(String string) {
+		if (string.length() != 24 || !isDatePart(string) || string.charAt(10) != 'T' || string.charAt(13) != ':'
+				|| string.charAt(16) != ':' || !isDigits(string, 11, 2) || !isDigits(string, 14, 2)
+				|| !isDigits(string, 17, 2) || !isDigits(string, 20, 4)) {
+			return null;
+		}
+		char sign = string.charAt(19);
+		if (sign != '+' && sign != '-') {
+			return null;
+		}
+		int offsetMinutes = digits(string, 20, 2) * 60 + digits(string, 22, 2);
+		if (sign == '-') {
+			offsetMinutes = -offsetMinutes;
+		}
+
+		Calendar calendar = threadState.get().utcCalendar;
+		calendar.clear();
+		calendar.set(digits(string, 0, 4), digits(string, 5, 2) - 1, digits(string, 8, 2), digits(string, 11, 2),
+				digits(string, 14, 2), digits(string, 17, 2));
+		return new Date(calendar.getTimeInMillis() - (long) offsetMinutes * MILLIS_PER_MINUTE);
+	}
+
+	private static boolean isDatePart(String string) {
+		return isDigits(string, 0, 4) && string.charAt(4) == '-' && isDigits(string, 5, 2) && string.charAt(7) == '-'
+				&& isDigits(string, 8, 2);
+	}
+
+	private static boolean isDigits(String string, int start, int count) {
+		for (int i = start; i < start + count; i++) {
+			char c = string.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int digits(String string, int start, int count) {
+		int value = 0;
+		for (int i = start; i < start + count; i++) {
+			value = value * 10 + string.charAt(i) - '0';
+		}
+		return value;
+	}
+
+	// Append a non negative number padded with zeros to the minimum width
+	private static int appendNumber(char[] chars, int position, int value, int minWidth) {
+		int width = 1;
+		for (int limit = 10; width < 10 && value >= limit; limit *= 10) {
+			width++;
+		}
+		width = Math.max(width, minWidth);
+		for (int i = position + width - 1; i >= position; i--) {
+			chars[i] = (char) ('0' + value % 10);
+			value /= 10;
+		}
+		return position + width;
+	}
+
+	private static class CodecState {
+		private final Calendar localCalendar = new GregorianCalendar();
+		private final Calendar utcCalendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+		private final char[] chars = new char[32];
+	}
+
+	/**
+	 * Gson type adapter for java.util.Date. Dates which cannot be parsed with this codec are parsed with the same
+	 * fallback formats as Gson's default date type adapter: en-US date time format and ISO-8601 in UTC
+	 */
+	private class DateTypeAdapter extends TypeAdapter<Date> {
+
+		@Override
+		public void write(JsonWriter out, Date value) throws IOException {
+			if (value == null) {
+				out.nullValue();
+				return;
+			}
+			out.value(format(value));
+		}
+
+		@Override
+		public Date read(JsonReader in) throws IOException {
+			if (in.peek() == JsonToken.NULL) {
+				in.nextNull();
+				return null;
+			}
+			String string = in.nextString();
+			try {
+				return parse(string);
+			} catch (ParseException ignored) {
+			}
+			try {
+				return DateFormat.getDateTimeInstance(DateFormat.DEFAULT, DateFormat.DEFAULT, Locale.US).parse(string);
+			} catch (ParseException ignored) {
+			}
+			try {
+				SimpleDateFormat iso8601Format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
+				iso8601Format.setTimeZone(TimeZone.getTimeZone("UTC"));
+				return iso8601Format.parse(string);
+			} catch (ParseException e) {
+				throw new JsonSyntaxException(string, e);
+			}
+		}
+	}
+}
@@ -13,12 +13,13 @@ public class DateUtils {
 
 	public static String DATE_FORMAT = "yyyy-MM-dd";
 
+	/**
+	 * @deprecated SimpleDateFormat is not thread safe. Use {@link #format(Date)} or {@link DateCodec#DATE}
+	 */
+	@Deprecated
 	public static SimpleDateFormat FORMAT = new SimpleDateFormat(DATE_FORMAT);
 
 	public static String format(Date date) {
-		if (date == null) {
-			return null;
-		}
-		return FORMAT.format(date);
+		return DateCodec.DATE.format(date);
 	}
 }
@@ -0,0 +1,162 @@
+package com.mambu.apisdk.util;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.mambu.accounting.shared.model.EntryType;
+import com.mambu.apisdk.model.ApiGLJournalEntry;
+import com.mambu.apisdk.model.GLJournal;
+
+/**
+ * GLJournalCsvReader reads GL journals from CSV, one journal entry per line, without loading the whole file into
+ * memory. Each line has the following fields:
+ *
+ * journalId,branchId,date,glCode,entryType,amount,notes
+ *
+ * Example: J-1001,BR1,2015-06-30,100001,DEBIT,1250.75,Nightly import
+ *
+ * All entries of a journal must be on consecutive lines. The branch, date and notes are taken from the first entry of
+ * the journal. Fields containing commas or quotes must be quoted, with quotes doubled. The first line is skipped if it
+ * is a header starting with "journalId". Amounts are read exactly, as BigDecimal
+ *
+ * Read errors are thrown as IllegalStateException and invalid lines as IllegalArgumentException, both with the line
+ * number
+ */
+public class GLJournalCsvReader implements Iterator<GLJournal>, Closeable {
+
+	private final static int FIELDS_COUNT = 7;
+	private final static String HEADER_START = "journalId";
+
+	private final BufferedReader reader;
+	private int lineNumber = 0;
+	// Fields of the line read ahead: the first entry of the next journal
+	private String[] nextLine;
+	private boolean isEndOfInput = false;
+
+	/**
+	 * Create CSV reader
+	 *
+	 * @param reader
+	 *            reader for the CSV content. Must not be null
+	 */
+	public GLJournalCsvReader(Reader reader) {
+		if (reader == null) {
+			throw new IllegalArgumentException("Reader must not be null");
+		}
+		this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (nextLine == null && !isEndOfInput) {
+			nextLine = readLine();
+		}
+		return nextLine != null;
+	}
+
+	@Override
+	public GLJournal next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		String[] first = nextLine;
+		nextLine = null;
+		String journalId = first[0];
+
+		List<ApiGLJournalEntry> entries = new ArrayList<ApiGLJournalEntry>();
+		entries.add(makeEntry(first));
+		// An invalid line for another journal ends this journal and is reported when the next journal is requested
+		while (hasNext() && nextLine[0].equals(journalId)) {
+			entries.add(makeEntry(nextLine));
+			nextLine = null;
+		}
+		return new GLJournal(journalId, emptyToNull(first[1]), first[2], emptyToNull(first[6]), entries);
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	// Read the next non empty line, skipping the header
+	private String[] readLine() {
+		String line;
+		try {
+			do {
+				line = reader.readLine();
+				lineNumber++;
+			} while (line != null && (line.trim().isEmpty() || (lineNumber == 1 && line.startsWith(HEADER_START))));
+		} catch (IOException e) {
+			throw new IllegalStateException("Failed to read GL journals at line " + lineNumber, e);
+		}
+		if (line == null) {
+			isEndOfInput = true;
+			return null;
+		}
+		return parseFields(line);
+	}
+
+	// Make entry from the fields of the last line read
+	private ApiGLJournalEntry makeEntry(String[] fields) {
+		if (fields.length != FIELDS_COUNT || fields[0].isEmpty()) {
+			throw new IllegalArgumentException("Invalid GL journal entry at line " + lineNumber + ": expected "
+					+ FIELDS_COUNT + " fields and a journal ID");
+		}
+		try {
+			EntryType entryType = EntryType.valueOf(fields[4].trim().toUpperCase());
+			return new ApiGLJournalEntry(fields[3].trim(), entryType, new BigDecimal(fields[5].trim()));
+		} catch (IllegalArgumentException e) {
+			// Invalid entry type or amount
+			throw new IllegalArgumentException("Invalid GL journal entry at line " + lineNumber + ": "
+					+ e.getMessage(), e);
+		}
+	}
+
+	// Split the line into fields, handling quoted fields
+	private String[] parseFields(String line) {
+		List<String> fields = new ArrayList<String>(FIELDS_COUNT);
+		StringBuilder field = new StringBuilder();
+		boolean isQuoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (isQuoted) {
+				if (c != '"') {
+					field.append(c);
+				} else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					field.append('"');
+					i++;
+				} else {
+					isQuoted = false;
+				}
+			} else if (c == '"') {
+				isQuoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		if (isQuoted) {
+			throw new IllegalArgumentException("Unterminated quoted field at line " + lineNumber);
+		}
+		fields.add(field.toString());
+		return fields.toArray(new String[fields.size()]);
+	}
+
+	private static String emptyToNull(String value) {
+		return value.isEmpty() ? null : value;
+	}
+}
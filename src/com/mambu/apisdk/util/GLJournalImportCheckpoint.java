@@ -0,0 +1,184 @@
+package com.mambu.apisdk.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * GLJournalImportCheckpoint records the state of the GL journals posted by an import, so that an interrupted import can
+ * be resumed without posting any journal twice. See GLJournalImportService.
+ *
+ * The checkpoint is written ahead of posting: a journal is recorded as pending before it is posted, and as posted (or
+ * as not posted, if Mambu rejected it with a client error) after the request completes. A journal is posted only if its
+ * pending state was written. A journal which is still pending when an import is resumed may or may not have been
+ * posted, for example after a server error or if the import was stopped while waiting for Mambu's response: it is not
+ * posted again and has to be checked in Mambu and resolved with {@link #markPosted(String)} or
+ * {@link #markNotPosted(String)}.
+ *
+ * The checkpoint can be persisted by specifying a writer: each state change is written to it as one line and flushed
+ * before the state is changed in memory. A line holds the journal id for a posted journal, or the journal id, a tab and
+ * PENDING or NOT_POSTED. A checkpoint saved this way is loaded with {@link #load(Reader, Writer)}, the last line for
+ * each journal giving its state.
+ */
+public class GLJournalImportCheckpoint {
+
+	private final static String POSTED = "POSTED";
+	private final static String PENDING = "PENDING";
+	private final static String NOT_POSTED = "NOT_POSTED";
+
+	// States of the pending and posted journals by journal id. Journals not posted are not included
+	private final ConcurrentMap<String, String> states = new ConcurrentHashMap<String, String>();
+	private final AtomicInteger postedCount = new AtomicInteger();
+	private final Writer writer;
+
+	/**
+	 * Create an empty checkpoint kept only in memory
+	 */
+	public GLJournalImportCheckpoint() {
+		this(null);
+	}
+
+	/**
+	 * Create an empty checkpoint
+	 *
+	 * @param writer
+	 *            writer the journal states are written to. Can be null
+	 */
+	public GLJournalImportCheckpoint(Writer writer) {
+		this.writer = writer;
+	}
+
+	/**
+	 * Load checkpoint saved by a previous import
+	 *
+	 * @param reader
+	 *            reader for the saved checkpoint, one journal state per line. Must not be null
+	 * @param writer
+	 *            writer the journal states are written to from now on. Can be null
+	 * @return loaded checkpoint
+	 * @throws IOException
+	 */
+	public static GLJournalImportCheckpoint load(Reader reader, Writer writer) throws IOException {
+		if (reader == null) {
+			throw new IllegalArgumentException("Reader must not be null");
+		}
+		GLJournalImportCheckpoint checkpoint = new GLJournalImportCheckpoint(writer);
+		BufferedReader lines = new BufferedReader(reader);
+		String line;
+		while ((line = lines.readLine()) != null) {
+			if (line.isEmpty()) {
+				continue;
+			}
+			int tab = line.indexOf('\t');
+			if (tab == -1) {
+				checkpoint.setState(line, POSTED);
+			} else {
+				String state = line.substring(tab + 1);
+				checkpoint.setState(line.substring(0, tab), state.equals(NOT_POSTED) ? null : PENDING);
+			}
+		}
+		return checkpoint;
+	}
+
+	/**
+	 * Check if the journal was posted
+	 *
+	 * @param journalId
+	 *            journal id
+	 * @return true if the journal was posted
+	 */
+	public boolean isPosted(String journalId) {
+		return POSTED.equals(states.get(journalId));
+	}
+
+	/**
+	 * Check if the journal is pending: it was about to be posted, but it is not known if it was posted
+	 *
+	 * @param journalId
+	 *            journal id
+	 * @return true if the journal is pending
+	 */
+	public boolean isPending(String journalId) {
+		return PENDING.equals(states.get(journalId));
+	}
+
+	/**
+	 * Record a journal about to be posted
+	 *
+	 * @param journalId
+	 *            journal id. Must not be null
+	 * @throws IOException
+	 *             if the state could not be written. The journal must not be posted in this case
+	 */
+	public void markPending(String journalId) throws IOException {
+		write(journalId, PENDING);
+		setState(journalId, PENDING);
+	}
+
+	/**
+	 * Record a posted journal
+	 *
+	 * @param journalId
+	 *            journal id. Must not be null
+	 * @throws IOException
+	 *             if the state could not be written. The journal stays pending in this case
+	 */
+	public void markPosted(String journalId) throws IOException {
+		write(journalId, null);
+		setState(journalId, POSTED);
+	}
+
+	/**
+	 * Record a journal which was not posted, so that it is posted when the import is resumed
+	 *
+	 * @param journalId
+	 *            journal id. Must not be null
+	 * @throws IOException
+	 *             if the state could not be written. The journal stays pending in this case
+	 */
+	public void markNotPosted(String journalId) throws IOException {
+		write(journalId, NOT_POSTED);
+		setState(journalId, null);
+	}
+
+	public int getPostedCount() {
+		return postedCount.get();
+	}
+
+	// Set the journal state in memory. Null for journals not posted
+	private synchronized void setState(String journalId, String state) {
+		String previous = state == null ? states.remove(journalId) : states.put(journalId, state);
+		if (POSTED.equals(previous)) {
+			postedCount.decrementAndGet();
+		}
+		if (POSTED.equals(state)) {
+			postedCount.incrementAndGet();
+		}
+	}
+
+	// Write the journal state line. Null state for posted journals
+	private void write(String journalId, String state) throws IOException {
+		if (journalId == null) {
+			throw new IllegalArgumentException("Journal ID must not be null");
+		}
+		if (journalId.indexOf('\t') != -1 || journalId.indexOf('\n') != -1 || journalId.indexOf('\r') != -1) {
+			throw new IllegalArgumentException("Journal ID must not contain tabs or line breaks");
+		}
+		if (writer == null) {
+			return;
+		}
+		synchronized (writer) {
+			writer.write(journalId);
+			if (state != null) {
+				writer.write('\t');
+				writer.write(state);
+			}
+			writer.write('\n');
+			writer.flush();
+		}
+	}
+}
@@ -3,15 +3,19 @@
  */
 package com.mambu.apisdk.util;
 
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import com.google.gson.ExclusionStrategy;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonDeserializer;
 import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.mambu.apisdk.json.ModelTypeAdapterFactory;
 
 /**
  * Utill class for gson formatting
@@ -30,7 +34,7 @@ public class GsonUtils {
 	 */
 	public static Gson createGson() {
 		// Create with the default date/time format
-		return new GsonBuilder().setDateFormat(defaultDateTimeFormat).create();
+		return createGsonBuilder().create();
 	}
 
 	/**
@@ -41,7 +45,7 @@ public class GsonUtils {
 	 * @return
 	 */
 	public static GsonBuilder createGsonBuilder() {
-		return new GsonBuilder().setDateFormat(defaultDateTimeFormat);
+		return createGsonBuilder(defaultDateTimeFormat);
 	}
 
 	/**
@@ -55,6 +59,11 @@ public class GsonUtils {
 		if (dateTimeFormat == null) {
 			dateTimeFormat = defaultDateTimeFormat;
 		}
+		// Use the shared date codec for Mambu date formats instead of creating new date formatters
+		DateCodec dateCodec = DateCodec.forPattern(dateTimeFormat);
+		if (dateCodec != null) {
+			return new GsonBuilder().registerTypeAdapter(Date.class, dateCodec.getTypeAdapter());
+		}
 		return new GsonBuilder().setDateFormat(dateTimeFormat);
 	}
 
@@ -99,6 +108,13 @@ public class GsonUtils {
 				gsonBuilder.registerTypeHierarchyAdapter(entry.getKey(), entry.getValue());
 			}
 		}
+		// Add optional streaming TypeAdapters as specified in ApiDefinition
+		HashMap<Class<?>, TypeAdapter<?>> typeAdapters = apiDefinition.getJsonTypeAdapters();
+		if (typeAdapters != null && typeAdapters.size() != 0) {
+			for (Map.Entry<Class<?>, TypeAdapter<?>> entry : typeAdapters.entrySet()) {
+				gsonBuilder.registerTypeHierarchyAdapter(entry.getKey(), entry.getValue());
+			}
+		}
 		return gsonBuilder.create();
 	}
 
@@ -115,6 +131,16 @@ public class GsonUtils {
 		String dateTimeFormat = GsonUtils.defaultDateTimeFormat;
 		GsonBuilder gsonBuilder = GsonUtils.createGsonBuilder(dateTimeFormat);
 
+		// Deserialize large model classes with field bindings shared by all Gson instances. Registered first, so that
+		// custom deserializers take precedence
+		gsonBuilder.registerTypeAdapterFactory(ModelTypeAdapterFactory.getInstance());
+		// Deserialize only the projected fields of the returned objects, if specified
+		Set<String> projectedFields = apiDefinition.getProjectedFields();
+		if (projectedFields != null) {
+			gsonBuilder.registerTypeAdapterFactory(ModelTypeAdapterFactory.forProjection(
+					apiDefinition.getReturnClass(), projectedFields));
+		}
+
 		// Add optional JsonDeserializer type adapters to the builder as specified in ApiDefinition
 		HashMap<Class<?>, JsonDeserializer<?>> deserializers = apiDefinition.getJsonDeserializers();
 		if (deserializers != null && deserializers.size() > 0) {
@@ -0,0 +1,171 @@
+package com.mambu.apisdk.util;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+import org.apache.http.entity.AbstractHttpEntity;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * JsonRequestEntity is an HTTP entity for JSON API requests which serializes the request object directly to the
+ * request's output stream. Unlike a StringEntity created from the JSON string, no intermediate strings or byte arrays
+ * are created for the request body, which matters for large requests, such as creating loan accounts with custom
+ * schedules or updating many repayments.
+ *
+ * If the application key is specified it is written as the first field of the JSON object, as expected by Mambu (see
+ * MBU-3892). Example: {"appkey":"appKeyValue","client":{...}}
+ *
+ * The entity is sent with chunked transfer encoding, as its length is not known before it is written. The number of
+ * bytes written is counted and available after the entity was sent, see {@link #getWrittenLength()}
+ */
+public class JsonRequestEntity extends AbstractHttpEntity {
+
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+	private final static String jsonContentType = "application/json; charset=UTF-8";
+
+	private final Gson gson;
+	private final Object object;
+	private final String applicationKey;
+	// Number of bytes written by the last writeTo. -1 if the entity was not written
+	private volatile long writtenLength = -1;
+
+	/**
+	 * Create entity for a JSON request
+	 *
+	 * @param gson
+	 *            gson used to serialize the object
+	 * @param object
+	 *            request object. Must not be null
+	 * @param applicationKey
+	 *            application key to be added to the JSON object. Can be null
+	 */
+	public JsonRequestEntity(Gson gson, Object object, String applicationKey) {
+		if (gson == null || object == null) {
+			throw new IllegalArgumentException("Gson and JSON object must not be null");
+		}
+		this.gson = gson;
+		this.object = object;
+		this.applicationKey = applicationKey == null || applicationKey.isEmpty() ? null : applicationKey;
+		setContentType(jsonContentType);
+		setChunked(true);
+	}
+
+	@Override
+	public boolean isRepeatable() {
+		return true;
+	}
+
+	@Override
+	public long getContentLength() {
+		return -1;
+	}
+
+	@Override
+	public boolean isStreaming() {
+		return false;
+	}
+
+	/**
+	 * Get the length of the entity as written to the output stream
+	 *
+	 * @return number of bytes written when the entity was last written, or -1 if it was not written
+	 */
+	public long getWrittenLength() {
+		return writtenLength;
+	}
+
+	// Content is serialized into memory only if requested as a stream
+	@Override
+	public InputStream getContent() throws IOException {
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		writeTo(content);
+		return new ByteArrayInputStream(content.toByteArray());
+	}
+
+	@Override
+	public void writeTo(OutputStream outstream) throws IOException {
+		if (outstream == null) {
+			throw new IllegalArgumentException("Output stream must not be null");
+		}
+		CountingOutputStream countingStream = new CountingOutputStream(outstream);
+		Writer writer = new BufferedWriter(new OutputStreamWriter(countingStream, UTF8));
+		JsonWriter jsonWriter = applicationKey == null ? new JsonWriter(writer) : new AppKeyJsonWriter(writer,
+				applicationKey);
+		try {
+			gson.toJson(object, object.getClass(), jsonWriter);
+		} catch (JsonIOException e) {
+			// Report the underlying IO failure, as the StringEntity would do
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw e;
+		}
+		// Flush, but don't close the stream: it is managed by the HTTP client
+		jsonWriter.flush();
+		writtenLength = countingStream.count;
+	}
+
+	/**
+	 * Output stream counting the bytes written to the underlying stream
+	 */
+	private static class CountingOutputStream extends FilterOutputStream {
+		private long count;
+
+		private CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+	}
+
+	/**
+	 * JsonWriter adding the application key as the first field of the top level JSON object
+	 */
+	private static class AppKeyJsonWriter extends JsonWriter {
+		private final String applicationKey;
+		private boolean isTopLevel = true;
+
+		private AppKeyJsonWriter(Writer writer, String applicationKey) {
+			super(writer);
+			this.applicationKey = applicationKey;
+		}
+
+		@Override
+		public JsonWriter beginObject() throws IOException {
+			super.beginObject();
+			if (isTopLevel) {
+				isTopLevel = false;
+				name(APIData.APPLICATION_KEY).value(applicationKey);
+			}
+			return this;
+		}
+
+		@Override
+		public JsonWriter beginArray() throws IOException {
+			// The application key can be added only to a JSON object
+			isTopLevel = false;
+			return super.beginArray();
+		}
+	}
+}
@@ -0,0 +1,359 @@
+package com.mambu.apisdk.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.inject.Singleton;
+import com.mambu.apisdk.exception.MambuApiException;
+
+/**
+ * ParallelCallsExecutor executes independent API calls concurrently. It is used by composite API services which need
+ * to retrieve several entities at once (for example, all accounts, tasks and documents for a client) and which would
+ * otherwise execute the API requests one after another.
+ *
+ * Calls are executed with a shared deadline: calls which don't complete before the deadline are cancelled and are
+ * reported as timed out. A failure of one call doesn't affect the other calls, the result of each call is returned
+ * separately as a {@link CallResult}.
+ *
+ * Large batches of calls (for example, updating thousands of entities) can be executed with
+ * {@link #executeBatch(Map, double)}, which limits the rate at which the calls are started and the number of calls
+ * waiting for execution. Batches whose results are large (for example rendered documents) can be executed with
+ * {@link #executeBatch(Map, int, ResultHandler)}, which hands each result to the calling thread as soon as it is
+ * available, instead of keeping all results until the batch completes.
+ *
+ * Calls are executed by a bounded pool of daemon threads. Idle threads are released after a keep alive time, so an
+ * unused executor holds no threads.
+ */
+@Singleton
+public class ParallelCallsExecutor {
+
+	private final static Logger LOGGER = Logger.getLogger(ParallelCallsExecutor.class.getName());
+
+	public final static int DEFAULT_MAX_THREADS = 8;
+	private final static long KEEP_ALIVE_SECONDS = 60;
+
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * Handler for the results of the calls executed with {@link ParallelCallsExecutor#executeBatch(Map, int,
+	 * ResultHandler)}. The handler is called on the thread executing the batch, one result at a time, in the order of
+	 * the calls
+	 *
+	 * @param <K>
+	 *            type of the batch items
+	 * @param <T>
+	 *            call result type
+	 */
+	public interface ResultHandler<K, T> {
+		/**
+		 * Handle the result of a successful call
+		 *
+		 * @param item
+		 *            batch item the call was executed for
+		 * @param result
+		 *            call result
+		 * @return result to report for the item
+		 * @throws Exception
+		 *             reported as the failure of the item
+		 */
+		Object handle(K item, T result) throws Exception;
+	}
+
+	/***
+	 * Create a new ParallelCallsExecutor using default max number of threads
+	 */
+	public ParallelCallsExecutor() {
+		this(DEFAULT_MAX_THREADS);
+	}
+
+	/***
+	 * Create a new ParallelCallsExecutor
+	 *
+	 * @param maxThreads
+	 *            maximum number of calls executed concurrently. Must be greater than zero
+	 */
+	public ParallelCallsExecutor(int maxThreads) {
+		if (maxThreads < 1) {
+			throw new IllegalArgumentException("Max threads must be greater than zero");
+		}
+		executor = new ThreadPoolExecutor(maxThreads, maxThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory());
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Set the maximum number of calls executed concurrently
+	 *
+	 * @param maxThreads
+	 *            maximum number of threads. Must be greater than zero
+	 */
+	public synchronized void setMaxThreads(int maxThreads) {
+		if (maxThreads < 1) {
+			throw new IllegalArgumentException("Max threads must be greater than zero");
+		}
+		// Core pool size must not exceed max pool size at any time
+		if (maxThreads > executor.getMaximumPoolSize()) {
+			executor.setMaximumPoolSize(maxThreads);
+			executor.setCorePoolSize(maxThreads);
+		} else {
+			executor.setCorePoolSize(maxThreads);
+			executor.setMaximumPoolSize(maxThreads);
+		}
+	}
+
+	public int getMaxThreads() {
+		return executor.getMaximumPoolSize();
+	}
+
+	/**
+	 * Submit a single call for asynchronous execution
+	 *
+	 * @param call
+	 *            API call
+	 * @return future for the call result
+	 */
+	public <T> Future<T> submit(Callable<T> call) {
+		return executor.submit(call);
+	}
+
+	/**
+	 * Execute all calls concurrently and wait for their completion, but not longer than the specified timeout. Calls
+	 * not completed before the timeout are cancelled
+	 *
+	 * @param calls
+	 *            calls to execute, mapped by the keys used to identify them in the results. Must not be null
+	 * @param timeout
+	 *            maximum time to wait for all calls to complete
+	 * @param unit
+	 *            timeout unit
+	 * @return results for all calls, mapped by the same keys and in the same order as the calls
+	 * @throws MambuApiException
+	 *             if the current thread was interrupted while waiting. All uncompleted calls are cancelled
+	 */
+	public <K> Map<K, CallResult<?>> executeAll(Map<K, ? extends Callable<?>> calls, long timeout, TimeUnit unit)
+			throws MambuApiException {
+		if (calls == null) {
+			throw new IllegalArgumentException("Calls must not be null");
+		}
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+		// Submit all calls first
+		Map<K, Future<?>> futures = new LinkedHashMap<K, Future<?>>(calls.size() * 2);
+		for (Map.Entry<K, ? extends Callable<?>> call : calls.entrySet()) {
+			futures.put(call.getKey(), executor.submit(call.getValue()));
+		}
+
+		// Collect results, waiting up to the shared deadline
+		Map<K, CallResult<?>> results = new LinkedHashMap<K, CallResult<?>>(calls.size() * 2);
+		try {
+			for (Map.Entry<K, Future<?>> future : futures.entrySet()) {
+				results.put(future.getKey(), getResult(future.getKey(), future.getValue(), deadline));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MambuApiException(e);
+		} finally {
+			// Cancel calls not completed. Has no effect on completed calls
+			for (Future<?> future : futures.values()) {
+				future.cancel(true);
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Execute a batch of calls concurrently, starting no more than the specified number of calls per second, and wait
+	 * for all calls to complete. The number of calls submitted but not yet completed is limited to twice the max
+	 * number of threads, so the batch can be arbitrarily large
+	 *
+	 * @param calls
+	 *            calls to execute, mapped by the batch items they are executed for. Must not be null
+	 * @param maxCallsPerSecond
+	 *            maximum number of calls started per second. Zero or negative for no rate limit
+	 * @return batch report with the results for all items, in the same order as the calls
+	 * @throws MambuApiException
+	 *             if the current thread was interrupted while executing the batch. All uncompleted calls are cancelled
+	 */
+	public <K> BatchReport<K> executeBatch(Map<K, ? extends Callable<?>> calls, double maxCallsPerSecond)
+			throws MambuApiException {
+		if (calls == null) {
+			throw new IllegalArgumentException("Calls must not be null");
+		}
+		final RateLimiter rateLimiter = maxCallsPerSecond > 0 ? RateLimiter.create(maxCallsPerSecond) : null;
+		final Semaphore pendingCalls = new Semaphore(2 * getMaxThreads());
+
+		Map<K, Future<?>> futures = new LinkedHashMap<K, Future<?>>(calls.size() * 2);
+		try {
+			for (Map.Entry<K, ? extends Callable<?>> entry : calls.entrySet()) {
+				pendingCalls.acquire();
+				if (rateLimiter != null) {
+					rateLimiter.acquire();
+				}
+				final Callable<?> call = entry.getValue();
+				futures.put(entry.getKey(), executor.submit(new Callable<Object>() {
+					@Override
+					public Object call() throws Exception {
+						try {
+							return call.call();
+						} finally {
+							pendingCalls.release();
+						}
+					}
+				}));
+			}
+
+			BatchReport<K> report = new BatchReport<K>(calls.size());
+			for (Map.Entry<K, Future<?>> future : futures.entrySet()) {
+				report.add(future.getKey(), getResult(future.getKey(), future.getValue()));
+			}
+			return report;
+
+		} catch (InterruptedException e) {
+			for (Future<?> future : futures.values()) {
+				future.cancel(true);
+			}
+			Thread.currentThread().interrupt();
+			throw new MambuApiException(e);
+		}
+	}
+
+	/**
+	 * Execute a batch of calls concurrently and pass the result of each successful call to the handler on the calling
+	 * thread, in the order of the calls. No more than the specified number of calls are submitted but not yet handled
+	 * at any time, which limits both the number of concurrent calls and the number of results held in memory
+	 *
+	 * @param calls
+	 *            calls to execute, mapped by the batch items they are executed for. Must not be null
+	 * @param maxPendingCalls
+	 *            maximum number of calls submitted but not yet handled. Must be greater than zero
+	 * @param handler
+	 *            handler for the call results. Must not be null
+	 * @return batch report with the results returned by the handler for all items, in the same order as the calls
+	 * @throws MambuApiException
+	 *             if the current thread was interrupted while executing the batch. All uncompleted calls are cancelled
+	 */
+	public <K, T> BatchReport<K> executeBatch(Map<K, ? extends Callable<T>> calls, int maxPendingCalls,
+			ResultHandler<K, T> handler) throws MambuApiException {
+		if (calls == null || handler == null) {
+			throw new IllegalArgumentException("Calls and handler must not be null");
+		}
+		if (maxPendingCalls < 1) {
+			throw new IllegalArgumentException("Max pending calls must be greater than zero");
+		}
+
+		BatchReport<K> report = new BatchReport<K>(calls.size());
+		Deque<K> pendingItems = new ArrayDeque<K>(maxPendingCalls);
+		Deque<Future<T>> pendingFutures = new ArrayDeque<Future<T>>(maxPendingCalls);
+		try {
+			for (Map.Entry<K, ? extends Callable<T>> entry : calls.entrySet()) {
+				if (pendingFutures.size() == maxPendingCalls) {
+					handle(pendingItems.pollFirst(), pendingFutures.pollFirst(), handler, report);
+				}
+				pendingItems.addLast(entry.getKey());
+				pendingFutures.addLast(executor.submit(entry.getValue()));
+			}
+			while (!pendingFutures.isEmpty()) {
+				handle(pendingItems.pollFirst(), pendingFutures.pollFirst(), handler, report);
+			}
+			return report;
+
+		} catch (InterruptedException e) {
+			for (Future<T> future : pendingFutures) {
+				future.cancel(true);
+			}
+			Thread.currentThread().interrupt();
+			throw new MambuApiException(e);
+		}
+	}
+
+	/**
+	 * Shut down the executor. Calls already submitted are completed, new calls are rejected
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	// Wait for the call to complete and get its result
+	private static CallResult<?> getResult(Object key, Future<?> future, long deadline) throws InterruptedException {
+		try {
+			long remaining = deadline - System.nanoTime();
+			return CallResult.success(future.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS));
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			LOGGER.warning("Call " + key + " was not completed before the deadline");
+			return CallResult.timeout(new MambuApiException(e));
+		} catch (CancellationException e) {
+			return CallResult.timeout(new MambuApiException(e));
+		} catch (ExecutionException e) {
+			return makeFailure(key, e);
+		}
+	}
+
+	// Wait for the call to complete, pass its result to the handler and add the handled result to the report
+	@SuppressWarnings("unchecked")
+	private static <K, T> void handle(K item, Future<T> future, ResultHandler<K, T> handler, BatchReport<K> report)
+			throws InterruptedException {
+		CallResult<?> result = getResult(item, future);
+		if (result.isSuccess()) {
+			try {
+				result = CallResult.success(handler.handle(item, (T) result.getResult()));
+			} catch (MambuApiException e) {
+				result = CallResult.failure(e);
+			} catch (Exception e) {
+				LOGGER.warning("Result of call " + item + " could not be handled: " + e);
+				result = CallResult.failure(new MambuApiException(e));
+			}
+		}
+		report.add(item, result);
+	}
+
+	// Wait for the call to complete, without a deadline, and get its result
+	private static CallResult<?> getResult(Object key, Future<?> future) throws InterruptedException {
+		try {
+			return CallResult.success(future.get());
+		} catch (CancellationException e) {
+			return CallResult.failure(new MambuApiException(e));
+		} catch (ExecutionException e) {
+			return makeFailure(key, e);
+		}
+	}
+
+	// Make failure result for the exception thrown by the call
+	private static CallResult<?> makeFailure(Object key, ExecutionException e) {
+		Throwable cause = e.getCause();
+		if (cause instanceof MambuApiException) {
+			return CallResult.failure((MambuApiException) cause);
+		}
+		LOGGER.warning("Call " + key + " failed: " + cause);
+		return CallResult.failure(new MambuApiException(cause instanceof Exception ? (Exception) cause : e));
+	}
+
+	// Creates daemon threads, so that the executor doesn't prevent the application from exiting
+	private static class DaemonThreadFactory implements ThreadFactory {
+		private final static AtomicInteger poolNumber = new AtomicInteger();
+		private final int pool = poolNumber.incrementAndGet();
+		private final AtomicInteger threadNumber = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "mambu-api-" + pool + "-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -3,18 +3,19 @@
  */
 package com.mambu.apisdk.util;
 
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.logging.Logger;
 
-import org.apache.http.protocol.HTTP;
+import com.google.gson.Gson;
 
 /**
  * Utility class responsible for the creation and the formatting of a map of URL parameters. It extends
  * {@link LinkedHashMap} in order to maintain an order over the added parameters.
  * 
+ * For JSON requests the map can hold the request object instead of its JSON string (see
+ * {@link #putJsonObject(Object, Gson)}). The object is then serialized directly to the HTTP request, and the JSON
+ * string is created only if it is requested with get(APIData.JSON_OBJECT), for example for logging.
+ * 
  * @author ipenciuc
  * 
  */
@@ -22,8 +23,11 @@ public class ParamsMap extends LinkedHashMap<String, String> {
 
 	private static final long serialVersionUID = 1L;
 
-	private static String APPENDER = "&";
-	private final static Logger LOGGER = Logger.getLogger(RequestExecutorImpl.class.getName());
+	private final static char APPENDER = '&';
+
+	// Object to be sent as the JSON_OBJECT param and the Gson to serialize it. Null if not set
+	private transient Object jsonObject;
+	private transient Gson jsonGson;
 
 	/**
 	 * Class constructor (only for serialization)
@@ -43,6 +47,81 @@ public class ParamsMap extends LinkedHashMap<String, String> {
 		this.put(key, value);
 	}
 
+	/***
+	 * Add an object to be sent as the JSON_OBJECT param. The object is not serialized when added
+	 * 
+	 * @param object
+	 *            object to be sent as JSON. Must not be null
+	 * @param gson
+	 *            gson to serialize the object. Must not be null
+	 */
+	public void putJsonObject(Object object, Gson gson) {
+		if (object == null || gson == null) {
+			throw new IllegalArgumentException("JSON object and Gson must not be null");
+		}
+		super.put(APIData.JSON_OBJECT, null);
+		jsonObject = object;
+		jsonGson = gson;
+	}
+
+	/**
+	 * Get the object to be sent as the JSON_OBJECT param
+	 * 
+	 * @return object or null if the JSON_OBJECT param was not added as an object
+	 */
+	public Object getJsonObject() {
+		return jsonObject;
+	}
+
+	/**
+	 * Get the gson to serialize the JSON_OBJECT param object
+	 * 
+	 * @return gson or null if the JSON_OBJECT param was not added as an object
+	 */
+	public Gson getJsonGson() {
+		return jsonGson;
+	}
+
+	/**
+	 * Get param value. The JSON string for the object added with {@link #putJsonObject(Object, Gson)} is created when
+	 * first requested
+	 */
+	@Override
+	public String get(Object key) {
+		String value = super.get(key);
+		if (value == null && jsonObject != null && APIData.JSON_OBJECT.equals(key)) {
+			value = jsonGson.toJson(jsonObject, jsonObject.getClass());
+			super.put(APIData.JSON_OBJECT, value);
+		}
+		return value;
+	}
+
+	@Override
+	public String put(String key, String value) {
+		if (APIData.JSON_OBJECT.equals(key)) {
+			// Replaces the JSON object
+			jsonObject = null;
+			jsonGson = null;
+		}
+		return super.put(key, value);
+	}
+
+	@Override
+	public String remove(Object key) {
+		if (APIData.JSON_OBJECT.equals(key)) {
+			jsonObject = null;
+			jsonGson = null;
+		}
+		return super.remove(key);
+	}
+
+	@Override
+	public void clear() {
+		jsonObject = null;
+		jsonGson = null;
+		super.clear();
+	}
+
 	/***
 	 * Formats this map of params into a String ready to be used in an URL
 	 * 
@@ -50,37 +129,22 @@ public class ParamsMap extends LinkedHashMap<String, String> {
 	 */
 	public String getURLString() {
 
-		StringBuffer urlParams = new StringBuffer();
+		StringBuilder urlParams = new StringBuilder(16 * size());
 
 		for (Map.Entry<String, String> entry : this.entrySet()) {
 			// only put the parameter in the URL if its value is not null
 			String value = entry.getValue();
 
 			if (value != null) {
-
-				// Encode Params's value for url
-				String encodedValue = value;
-
-				try {
-					// URL encode values
-					encodedValue = URLEncoder.encode(value, HTTP.UTF_8);
-
-				} catch (UnsupportedEncodingException e) {
-					// Shouldn't happen as we only use HTTP.UTF_8, but just in case...
-					LOGGER.severe("Params Map: UnsupportedEncodingException, Invalid Encoding: " + e.getMessage());
-
-					// at least try removing spaces
-					encodedValue = encodedValue.trim().replace(" ", "+");
-
+				if (urlParams.length() > 0) {
+					urlParams.append(APPENDER);
 				}
-				urlParams.append(entry.getKey() + "=" + encodedValue);
-				urlParams.append(APPENDER);
+				// URL encode values
+				urlParams.append(entry.getKey()).append('=');
+				PercentEncoder.appendQueryParam(urlParams, value);
 			}
 		}
 
-		if (urlParams.length() > 0)
-			return urlParams.deleteCharAt(urlParams.length() - 1).toString();
-		else
-			return "";
+		return urlParams.toString();
 	}
 }
@@ -0,0 +1,148 @@
+package com.mambu.apisdk.util;
+
+import java.nio.charset.Charset;
+
+/**
+ * PercentEncoder provides fast percent-encoding of URL path and URL query parameters. Characters which need no encoding
+ * are looked up in precomputed tables and strings which need no encoding are returned as is, without allocating any
+ * new objects.
+ *
+ * The results are the same as those produced by the classes used before: path encoding produces the same output as
+ * {@link java.net.URI#toString()} for a URI created with a path component (legal URI characters and non-ASCII
+ * characters other than space and control characters are not encoded) and query parameter encoding produces the same
+ * output as {@link java.net.URLEncoder#encode(String, String)} with UTF-8 encoding (space is encoded as '+')
+ */
+public final class PercentEncoder {
+
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+	private final static char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+	// ASCII characters which are not encoded in the URL path: unreserved, punctuation, '/' and '@' as defined for the
+	// path component by java.net.URI
+	private final static boolean[] pathSafeChars = new boolean[128];
+	// ASCII characters which are not encoded in query parameters by java.net.URLEncoder
+	private final static boolean[] queryParamSafeChars = new boolean[128];
+	static {
+		for (char c = 'a'; c <= 'z'; c++) {
+			pathSafeChars[c] = true;
+			queryParamSafeChars[c] = true;
+		}
+		for (char c = 'A'; c <= 'Z'; c++) {
+			pathSafeChars[c] = true;
+			queryParamSafeChars[c] = true;
+		}
+		for (char c = '0'; c <= '9'; c++) {
+			pathSafeChars[c] = true;
+			queryParamSafeChars[c] = true;
+		}
+		for (char c : "_-!.~'()*,;:$&+=/@".toCharArray()) {
+			pathSafeChars[c] = true;
+		}
+		for (char c : ".-*_".toCharArray()) {
+			queryParamSafeChars[c] = true;
+		}
+	}
+
+	private PercentEncoder() {
+	}
+
+	/**
+	 * Encode URL path
+	 *
+	 * @param path
+	 *            URL path, e.g. "clients/Jane Doe/loans". Must not be null
+	 * @return encoded path. The original string is returned if no characters need to be encoded
+	 */
+	public static String encodePath(String path) {
+		int firstUnsafe = findFirstUnsafe(path, pathSafeChars, true);
+		if (firstUnsafe < 0) {
+			return path;
+		}
+		StringBuilder builder = new StringBuilder(path.length() + 16);
+		builder.append(path, 0, firstUnsafe);
+		appendEncoded(builder, path, firstUnsafe, pathSafeChars, true);
+		return builder.toString();
+	}
+
+	/**
+	 * Encode URL query parameter name or value
+	 *
+	 * @param value
+	 *            parameter value. Must not be null
+	 * @return encoded value. The original string is returned if no characters need to be encoded
+	 */
+	public static String encodeQueryParam(String value) {
+		int firstUnsafe = findFirstUnsafe(value, queryParamSafeChars, false);
+		if (firstUnsafe < 0) {
+			return value;
+		}
+		StringBuilder builder = new StringBuilder(value.length() + 16);
+		builder.append(value, 0, firstUnsafe);
+		appendEncoded(builder, value, firstUnsafe, queryParamSafeChars, false);
+		return builder.toString();
+	}
+
+	/**
+	 * Append encoded URL query parameter name or value to the string builder
+	 *
+	 * @param builder
+	 *            string builder
+	 * @param value
+	 *            parameter value. Must not be null
+	 */
+	public static void appendQueryParam(StringBuilder builder, String value) {
+		int firstUnsafe = findFirstUnsafe(value, queryParamSafeChars, false);
+		if (firstUnsafe < 0) {
+			builder.append(value);
+			return;
+		}
+		builder.append(value, 0, firstUnsafe);
+		appendEncoded(builder, value, firstUnsafe, queryParamSafeChars, false);
+	}
+
+	// Get the index of the first character which needs encoding or -1 if there are no such characters
+	private static int findFirstUnsafe(String value, boolean[] safeChars, boolean isPath) {
+		for (int i = 0; i < value.length(); i++) {
+			if (!isSafe(value.charAt(i), safeChars, isPath)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean isSafe(char c, boolean[] safeChars, boolean isPath) {
+		if (c < 128) {
+			return safeChars[c];
+		}
+		// java.net.URI leaves non-ASCII characters in the path as is, except for space and control characters
+		return isPath && !Character.isSpaceChar(c) && !Character.isISOControl(c);
+	}
+
+	private static void appendEncoded(StringBuilder builder, String value, int start, boolean[] safeChars,
+			boolean isPath) {
+		int i = start;
+		while (i < value.length()) {
+			char c = value.charAt(i);
+			if (isSafe(c, safeChars, isPath)) {
+				builder.append(c);
+				i++;
+			} else if (c == ' ' && !isPath) {
+				builder.append('+');
+				i++;
+			} else {
+				// Encode the whole run of unsafe characters at once to keep surrogate pairs together
+				int end = i + 1;
+				while (end < value.length() && !isSafe(value.charAt(end), safeChars, isPath)
+						&& (isPath || value.charAt(end) != ' ')) {
+					end++;
+				}
+				for (byte b : value.substring(i, end).getBytes(UTF8)) {
+					builder.append('%');
+					builder.append(HEX_DIGITS[(b >> 4) & 0x0F]);
+					builder.append(HEX_DIGITS[b & 0x0F]);
+				}
+				i = end;
+			}
+		}
+	}
+}
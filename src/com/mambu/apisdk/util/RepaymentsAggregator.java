@@ -0,0 +1,174 @@
+package com.mambu.apisdk.util;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.mambu.core.shared.model.Money;
+import com.mambu.loans.shared.model.Repayment;
+
+/**
+ * RepaymentsAggregator incrementally aggregates repayments by a key, for example by branch: each repayment added
+ * updates the totals for its key, so the repayments themselves don't need to be kept. Aggregators are thread safe.
+ *
+ * Use {@link #byBranch()}, {@link #byOfficer()} or {@link #byDueDate()}, or extend this class to aggregate by another
+ * key
+ *
+ * @param <K>
+ *            key type
+ */
+public abstract class RepaymentsAggregator<K> {
+
+	private final Map<K, Totals> totals = new HashMap<K, Totals>();
+
+	/**
+	 * Get the key of a repayment
+	 *
+	 * @param repayment
+	 *            repayment
+	 * @return key. Can be null, for example for repayments not assigned to any branch
+	 */
+	protected abstract K getKey(Repayment repayment);
+
+	/**
+	 * Add a repayment to the totals for its key
+	 *
+	 * @param repayment
+	 *            repayment. Must not be null
+	 */
+	public void add(Repayment repayment) {
+		if (repayment == null) {
+			throw new IllegalArgumentException("Repayment must not be null");
+		}
+		K key = getKey(repayment);
+		BigDecimal due = getAmount(repayment.getTotalDue());
+		BigDecimal paid = getAmount(repayment.getTotalPaid());
+		synchronized (totals) {
+			Totals keyTotals = totals.get(key);
+			if (keyTotals == null) {
+				keyTotals = new Totals();
+				totals.put(key, keyTotals);
+			}
+			keyTotals.add(due, paid);
+		}
+	}
+
+	/**
+	 * Get totals by key
+	 *
+	 * @return copy of the totals
+	 */
+	public Map<K, Totals> getTotals() {
+		synchronized (totals) {
+			Map<K, Totals> copy = new HashMap<K, Totals>(totals.size() * 2);
+			for (Map.Entry<K, Totals> entry : totals.entrySet()) {
+				copy.put(entry.getKey(), entry.getValue().copy());
+			}
+			return copy;
+		}
+	}
+
+	/**
+	 * Get totals for a key
+	 *
+	 * @param key
+	 *            key
+	 * @return copy of the totals. Zero totals if no repayment was added for the key
+	 */
+	public Totals getTotals(K key) {
+		synchronized (totals) {
+			Totals keyTotals = totals.get(key);
+			return keyTotals == null ? new Totals() : keyTotals.copy();
+		}
+	}
+
+	private static BigDecimal getAmount(Money money) {
+		return money == null || money.getAmount() == null ? BigDecimal.ZERO : money.getAmount();
+	}
+
+	/**
+	 * Aggregate repayments by assigned branch key
+	 *
+	 * @return new aggregator
+	 */
+	public static RepaymentsAggregator<String> byBranch() {
+		return new RepaymentsAggregator<String>() {
+			@Override
+			protected String getKey(Repayment repayment) {
+				return repayment.getAssignedBranchKey();
+			}
+		};
+	}
+
+	/**
+	 * Aggregate repayments by assigned credit officer (user) key
+	 *
+	 * @return new aggregator
+	 */
+	public static RepaymentsAggregator<String> byOfficer() {
+		return new RepaymentsAggregator<String>() {
+			@Override
+			protected String getKey(Repayment repayment) {
+				return repayment.getAssignedUserKey();
+			}
+		};
+	}
+
+	/**
+	 * Aggregate repayments by due date
+	 *
+	 * @return new aggregator. Keys are due dates in "yyyy-MM-dd" format
+	 */
+	public static RepaymentsAggregator<String> byDueDate() {
+		return new RepaymentsAggregator<String>() {
+			@Override
+			protected String getKey(Repayment repayment) {
+				return DateUtils.format(repayment.getDueDate());
+			}
+		};
+	}
+
+	/**
+	 * Totals of the repayments for a key
+	 */
+	public static class Totals {
+		private int count;
+		private BigDecimal totalDue = BigDecimal.ZERO;
+		private BigDecimal totalPaid = BigDecimal.ZERO;
+
+		private void add(BigDecimal due, BigDecimal paid) {
+			count++;
+			totalDue = totalDue.add(due);
+			totalPaid = totalPaid.add(paid);
+		}
+
+		private Totals copy() {
+			Totals copy = new Totals();
+			copy.count = count;
+			copy.totalDue = totalDue;
+			copy.totalPaid = totalPaid;
+			return copy;
+		}
+
+		public int getCount() {
+			return count;
+		}
+
+		public BigDecimal getTotalDue() {
+			return totalDue;
+		}
+
+		public BigDecimal getTotalPaid() {
+			return totalPaid;
+		}
+
+		/**
+		 * Get the amount still to be paid
+		 *
+		 * @return total due minus total paid
+		 */
+		public BigDecimal getTotalOutstanding() {
+			return totalDue.subtract(totalPaid);
+		}
+	}
+}
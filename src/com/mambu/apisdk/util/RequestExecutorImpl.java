@@ -7,14 +7,18 @@ import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
+import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.apache.commons.codec.binary.Base64;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpResponse;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.HttpClient;
@@ -25,8 +29,10 @@ import org.apache.http.client.methods.HttpPatch;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.message.BasicHeader;
 import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.protocol.HTTP;
+import org.apache.http.util.EntityUtils;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -43,7 +49,15 @@ import com.mambu.apisdk.exception.MambuApiException;
 public class RequestExecutorImpl implements RequestExecutor {
 
 	private URLHelper urlHelper;
-	private String encodedAuthorization;
+	// Precomputed request details common to all requests made by this executor
+	private final AtomicReference<RequestTemplate> requestTemplate = new AtomicReference<RequestTemplate>(
+			new RequestTemplate(null, null));
+	// Validators and responses for conditional GET requests
+	private final ConditionalRequestCache conditionalRequestCache;
+	// Structured events for the executed requests
+	private final RequestLogger requestLogger;
+	// Fill in stack traces of the exceptions for failed requests
+	private volatile boolean errorStackTraces = true;
 	private final static String UTF8_charset = HTTP.UTF_8;
 	private final static String wwwFormUrlEncodedContentType = "application/x-www-form-urlencoded; charset=UTF-8";
 
@@ -52,6 +66,11 @@ public class RequestExecutorImpl implements RequestExecutor {
 
 	private final static String APPLICATION_KEY = APIData.APPLICATION_KEY; // as per JIRA issue MBU-3236
 
+	// Immutable Content-Type headers shared by all requests
+	private final static Header wwwFormContentTypeHeader = new BasicHeader(HTTP.CONTENT_TYPE,
+			wwwFormUrlEncodedContentType);
+	private final static Header jsonContentTypeHeader = new BasicHeader(HTTP.CONTENT_TYPE, jsonContentType);
+
 	private final static Logger LOGGER = Logger.getLogger(RequestExecutorImpl.class.getName());
 	// Specify Logger Levels to be used for logging API request, response details as well as Mambu exceptions
 	private final static Level requesLogLevel = Level.FINER; // Logging API Request level
@@ -60,9 +79,55 @@ public class RequestExecutorImpl implements RequestExecutor {
 	// Log curl template (equivalent to the actual API request) at FINEST level
 	private final static Level curlRequestTemplateLogLevel = Level.FINEST;
 
-	@Inject
 	public RequestExecutorImpl(URLHelper urlHelper) {
+		this(urlHelper, new ConditionalRequestCache(), new RequestLogger());
+	}
+
+	public RequestExecutorImpl(URLHelper urlHelper, ConditionalRequestCache conditionalRequestCache) {
+		this(urlHelper, conditionalRequestCache, new RequestLogger());
+	}
+
+	@Inject
+	public RequestExecutorImpl(URLHelper urlHelper, ConditionalRequestCache conditionalRequestCache,
+			RequestLogger requestLogger) {
 		this.urlHelper = urlHelper;
+		this.conditionalRequestCache = conditionalRequestCache;
+		this.requestLogger = requestLogger;
+	}
+
+	/**
+	 * Get the cache used for conditional GET requests. Can be used to enable and to configure conditional requests
+	 * 
+	 * @return conditional request cache
+	 */
+	public ConditionalRequestCache getConditionalRequestCache() {
+		return conditionalRequestCache;
+	}
+
+	/**
+	 * Get the logger for structured request events. Can be used to enable request events and to configure sampling
+	 * 
+	 * @return request logger
+	 */
+	public RequestLogger getRequestLogger() {
+		return requestLogger;
+	}
+
+	/**
+	 * Enable or disable stack traces of the exceptions thrown for failed requests. Filling in the stack trace is the
+	 * most costly part of creating an exception, so disabling it helps when many requests fail, for example when
+	 * requests in a large batch are throttled. Exceptions for failed connections keep the stack trace of the wrapped
+	 * IOException
+	 * 
+	 * @param errorStackTraces
+	 *            false to throw exceptions without stack traces. Default is true
+	 */
+	public void setErrorStackTraces(boolean errorStackTraces) {
+		this.errorStackTraces = errorStackTraces;
+	}
+
+	public boolean isErrorStackTraces() {
+		return errorStackTraces;
 	}
 
 	// Without params and with default contentType (ContentType.WWW_FORM)
@@ -112,78 +177,124 @@ public class RequestExecutorImpl implements RequestExecutor {
 			logCurlCommandForRequest(method, contentTypeFormat, urlString, params);
 		}
 
-		// Add 'Application Key', if it was set by the application
-		// Mambu may handle API requests differently for different Application Keys
-
-		String applicationKey = MambuAPIFactory.getApplicationKey();
-		if (applicationKey != null) {
-			// add application key to the params map
-			if (params == null) {
-				params = new ParamsMap();
-			}
-			params.addParam(APPLICATION_KEY, applicationKey);
-
-			// Log that Application key was added
-			logAppKey(applicationKey);
-
+		// Get the request template with the Authorization header and the 'Application Key', if it was set by the
+		// application. Mambu may handle API requests differently for different Application Keys. The key is added to
+		// the request when it is built, so the caller's params map is not modified
+		RequestTemplate template = getRequestTemplate();
+		if (template.applicationKey != null) {
+			// Log that Application key will be added
+			logAppKey(template.applicationKey);
 		}
 
 		HttpClient httpClient = new DefaultHttpClient();
 		String response = "";
 		HttpResponse httpResponse = null;
+		// For GET requests: the full URL and the cached response for it, if any
+		String getUrlString = null;
+		ConditionalRequestCache.Entry cachedEntry = null;
+		// Request details for the request event
+		final boolean isRequestLogged = requestLogger.isEnabled();
+		final long startTime = isRequestLogged ? System.nanoTime() : 0L;
+		HttpEntity requestEntity = null;
+		long responseChars = RequestLogEvent.UNKNOWN_SIZE;
 		try {
 			switch (method) {
 			case GET:
-				httpResponse = executeGetRequest(httpClient, urlString, params);
+				getUrlString = template.addAppKeyToUrl(makeUrlWithParams(urlString, params));
+				cachedEntry = conditionalRequestCache.get(getUrlString);
+				httpResponse = executeGetRequest(httpClient, template, getUrlString, cachedEntry);
 				break;
 			case POST:
-				httpResponse = executePostRequest(httpClient, urlString, params, contentTypeFormat);
+				HttpPost httpPost = new HttpPost(urlString);
+				httpResponse = executePostRequest(httpClient, template, httpPost, params, contentTypeFormat);
+				requestEntity = httpPost.getEntity();
 				break;
 			case PATCH:
-				httpResponse = executePatchRequest(httpClient, urlString, params);
+				HttpPatch httpPatch = new HttpPatch(urlString);
+				httpResponse = executePatchRequest(httpClient, template, httpPatch, params);
+				requestEntity = httpPatch.getEntity();
 				break;
 			case DELETE:
-				httpResponse = executeDeleteRequest(httpClient, urlString, params);
+				httpResponse = executeDeleteRequest(httpClient, template, urlString, params);
 				break;
 			default:
 				throw new IllegalArgumentException("Only methods GET, POST PATCH and DELETE are supported, not "
 						+ method.name() + ".");
 			}
-			// Process response
-			response = processResponse(httpResponse, method, contentTypeFormat, urlString, params);
+			if (cachedEntry != null
+					&& httpResponse.getStatusLine().getStatusCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+				// Not modified since the cached response was received. Return the cached response
+				EntityUtils.consume(httpResponse.getEntity());
+				if (LOGGER.isLoggable(responseLogLevel)) {
+					LOGGER.log(responseLogLevel, "Response Status=" + HttpURLConnection.HTTP_NOT_MODIFIED
+							+ ". Using cached response");
+				}
+				response = cachedEntry.getResponse();
+				responseChars = response.length();
+			} else {
+				// Process response
+				try {
+					response = processResponse(httpResponse, method, contentTypeFormat, urlString, params,
+							errorStackTraces);
+				} catch (MambuApiException e) {
+					responseChars = e.getErrorMessage() == null ? 0 : e.getErrorMessage().length();
+					throw e;
+				}
+				responseChars = response.length();
+				if (getUrlString != null) {
+					// Cache the response if it has validators. Otherwise any previously cached response is removed
+					conditionalRequestCache.put(getUrlString, getHeaderValue(httpResponse, HttpHeaders.ETAG),
+							getHeaderValue(httpResponse, HttpHeaders.LAST_MODIFIED), response);
+				}
+			}
 
 		} catch (MalformedURLException e) {
 			LOGGER.severe("MalformedURLException: " + e.getMessage());
-			throw new MambuApiException(e);
+			throw new MambuApiException(e, errorStackTraces);
 		} catch (IOException e) {
 			LOGGER.warning("IOException: message= " + e.getMessage());
-			throw new MambuApiException(e);
+			throw new MambuApiException(e, errorStackTraces);
 		} finally {
 			httpClient.getConnectionManager().shutdown();
+			if (isRequestLogged) {
+				int status = httpResponse == null ? RequestLogEvent.NO_STATUS : httpResponse.getStatusLine()
+						.getStatusCode();
+				long requestBytes = getRequestBytes(requestEntity);
+				requestLogger.log(method, contentTypeFormat, urlString, status, System.nanoTime() - startTime,
+						requestBytes, responseChars);
+			}
 		}
 
 		return response;
 	}
 
+	// Size of the request entity for the request event. Streamed JSON entities are counted when they are written
+	private static long getRequestBytes(HttpEntity requestEntity) {
+		if (requestEntity == null) {
+			return 0;
+		}
+		long length = requestEntity instanceof JsonRequestEntity ? ((JsonRequestEntity) requestEntity)
+				.getWrittenLength() : requestEntity.getContentLength();
+		return length < 0 ? RequestLogEvent.UNKNOWN_SIZE : length;
+	}
+
 	/**
 	 * Executes a POST request as per the interface specification
 	 */
-	private HttpResponse executePostRequest(HttpClient httpClient, String urlString, ParamsMap params,
-			ContentType contentTypeFormat) throws MalformedURLException, IOException, MambuApiException {
+	private HttpResponse executePostRequest(HttpClient httpClient, RequestTemplate template, HttpPost httpPost,
+			ParamsMap params, ContentType contentTypeFormat) throws MalformedURLException, IOException,
+			MambuApiException {
 
-		// Get properly formatted ContentType
-		final String contentType = getFormattedContentTypeString(contentTypeFormat);
+		httpPost.setHeader(getContentTypeHeader(contentTypeFormat));
+		httpPost.setHeader(template.authorizationHeader);
 
-		HttpPost httpPost = new HttpPost(urlString);
-		httpPost.setHeader("Content-Type", contentType);
-		httpPost.setHeader("Authorization", "Basic " + encodedAuthorization);
-
-		if (params != null && params.size() > 0) {
+		boolean hasParams = params != null && params.size() > 0;
+		if (hasParams || (contentTypeFormat == ContentType.WWW_FORM && template.applicationKey != null)) {
 			switch (contentTypeFormat) {
 
 			case WWW_FORM:
 				// convert parms to a list for HttpEntity
-				List<NameValuePair> httpParams = getListFromParams(params);
+				List<NameValuePair> httpParams = getListFromParams(params, template.appKeyFormParam);
 
 				// use UTF-8 to encode
 				HttpEntity postEntity = new UrlEncodedFormEntity(httpParams, UTF8_charset);
@@ -195,7 +306,7 @@ public class RequestExecutorImpl implements RequestExecutor {
 			case JSON:
 
 				// Make jsonEntity
-				StringEntity jsonEntity = makeJsonEntity(params);
+				HttpEntity jsonEntity = makeJsonEntity(params, template.applicationKey);
 
 				httpPost.setEntity(jsonEntity);
 
@@ -213,19 +324,16 @@ public class RequestExecutorImpl implements RequestExecutor {
 	/**
 	 * Executes a PATCH request as per the interface specification
 	 */
-	private HttpResponse executePatchRequest(HttpClient httpClient, String urlString, ParamsMap params)
-			throws MalformedURLException, IOException, MambuApiException {
-
-		// PATCH request is using json ContentType
-		final String contentType = jsonContentType;
+	private HttpResponse executePatchRequest(HttpClient httpClient, RequestTemplate template, HttpPatch httpPatch,
+			ParamsMap params) throws MalformedURLException, IOException, MambuApiException {
 
 		// HttpPatch is available since org.apache.httpcomponents v4.2
-		HttpPatch httpPatch = new HttpPatch(urlString);
-		httpPatch.setHeader("Content-Type", contentType);
-		httpPatch.setHeader("Authorization", "Basic " + encodedAuthorization);
+		// PATCH request is using json ContentType
+		httpPatch.setHeader(jsonContentTypeHeader);
+		httpPatch.setHeader(template.authorizationHeader);
 
 		// Format jsonEntity
-		StringEntity jsonEntity = makeJsonEntity(params);
+		HttpEntity jsonEntity = makeJsonEntity(params, template.applicationKey);
 		httpPatch.setEntity(jsonEntity);
 
 		// execute
@@ -240,24 +348,33 @@ public class RequestExecutorImpl implements RequestExecutor {
 	 * 
 	 * @param httpClient
 	 *            http client
+	 * @param template
+	 *            request template
 	 * @param urlString
-	 *            url string
-	 * @param params
-	 *            Params Map
+	 *            url string, including url params
+	 * @param cachedEntry
+	 *            previously cached response for this url. If not null, the request is sent as a conditional request
+	 *            using validators of the cached response
 	 * @return Http Response
 	 */
-	private HttpResponse executeGetRequest(HttpClient httpClient, String urlString, ParamsMap params)
-			throws MalformedURLException, IOException, MambuApiException {
-
-		if (params != null && params.size() > 0) {
-			urlString = new String((URLHelper.makeUrlWithParams(urlString, params)));
-		}
+	private HttpResponse executeGetRequest(HttpClient httpClient, RequestTemplate template, String urlString,
+			ConditionalRequestCache.Entry cachedEntry) throws MalformedURLException, IOException, MambuApiException {
 
 		HttpGet httpGet = new HttpGet(urlString);
 		// add Authorozation header
-		httpGet.setHeader("Authorization", "Basic " + encodedAuthorization);
+		httpGet.setHeader(template.authorizationHeader);
 		// setHeader("Content-Type") not need for GET requests
 
+		// Make it a conditional request if we have validators for this url
+		if (cachedEntry != null) {
+			if (cachedEntry.getETag() != null) {
+				httpGet.setHeader(HttpHeaders.IF_NONE_MATCH, cachedEntry.getETag());
+			}
+			if (cachedEntry.getLastModified() != null) {
+				httpGet.setHeader(HttpHeaders.IF_MODIFIED_SINCE, cachedEntry.getLastModified());
+			}
+		}
+
 		// execute
 		HttpResponse httpResponse = httpClient.execute(httpGet);
 
@@ -270,22 +387,21 @@ public class RequestExecutorImpl implements RequestExecutor {
 	 * 
 	 * @param httpClient
 	 *            http client
-	 * 
+	 * @param template
+	 *            request template
 	 * @param urlString
 	 * 
 	 * @param params
 	 *            ParamsMap with parameters
 	 * @return Http Response
 	 */
-	private HttpResponse executeDeleteRequest(HttpClient httpClient, String urlString, ParamsMap params)
-			throws MalformedURLException, IOException, MambuApiException {
+	private HttpResponse executeDeleteRequest(HttpClient httpClient, RequestTemplate template, String urlString,
+			ParamsMap params) throws MalformedURLException, IOException, MambuApiException {
 
-		if (params != null && params.size() > 0) {
-			urlString = new String((URLHelper.makeUrlWithParams(urlString, params)));
-		}
+		urlString = template.addAppKeyToUrl(makeUrlWithParams(urlString, params));
 
 		HttpDelete httpDelete = new HttpDelete(urlString);
-		httpDelete.setHeader("Authorization", "Basic " + encodedAuthorization);
+		httpDelete.setHeader(template.authorizationHeader);
 
 		// execute
 		HttpResponse httpResponse = httpClient.execute(httpDelete);
@@ -295,16 +411,53 @@ public class RequestExecutorImpl implements RequestExecutor {
 	}
 
 	/**
-	 * Make StringEntity for HTTP requests from the JSON string supplied in the ParamsMap
+	 * Make url string with url params added
 	 * 
+	 * @param urlString
+	 *            url string
 	 * @param params
-	 *            ParamsMap with JSON string
+	 *            params map. Can be null
+	 * @return url string with params
 	 */
-	private static StringEntity makeJsonEntity(ParamsMap params) throws UnsupportedEncodingException {
+	private static String makeUrlWithParams(String urlString, ParamsMap params) {
+		if (params != null && params.size() > 0) {
+			return URLHelper.makeUrlWithParams(urlString, params);
+		}
+		return urlString;
+	}
+
+	/**
+	 * Get the value of the response header
+	 * 
+	 * @param httpResponse
+	 *            http response
+	 * @param headerName
+	 *            header name
+	 * @return header value or null if the response has no such header
+	 */
+	private static String getHeaderValue(HttpResponse httpResponse, String headerName) {
+		Header header = httpResponse.getFirstHeader(headerName);
+		return header == null ? null : header.getValue();
+	}
+
+	/**
+	 * Make HttpEntity for HTTP requests from the JSON object or JSON string supplied in the ParamsMap. JSON objects are
+	 * serialized directly to the request stream
+	 * 
+	 * @param params
+	 *            ParamsMap with JSON object or JSON string
+	 * @param applicationKey
+	 *            application key to be added to the JSON. Can be null
+	 */
+	private static HttpEntity makeJsonEntity(ParamsMap params, String applicationKey)
+			throws UnsupportedEncodingException {
 
 		if (params == null) {
 			throw new IllegalArgumentException("JSON requests require non NULL ParamsMap with JSON string");
 		}
+		if (params.getJsonObject() != null) {
+			return new JsonRequestEntity(params.getJsonGson(), params.getJsonObject(), applicationKey);
+		}
 		// Parameter (json string) is expected as JSON_OBJECT parameter
 		String jsonString = params.get(APIData.JSON_OBJECT);
 
@@ -313,7 +466,9 @@ public class RequestExecutorImpl implements RequestExecutor {
 		}
 
 		// Add APPKEY to jsonString (see MBU-3892, implemented in 3.3 release)
-		jsonString = addAppKeyToJson(jsonString, params);
+		if (applicationKey != null) {
+			jsonString = ServiceHelper.addAppkeyValueToJson(applicationKey, jsonString);
+		}
 
 		// Format jsonEntity
 		StringEntity jsonEntity = new StringEntity(jsonString, UTF8_charset);
@@ -336,10 +491,12 @@ public class RequestExecutorImpl implements RequestExecutor {
 	 *            URL string for the HTTP request
 	 * @param params
 	 *            Params Map
+	 * @param errorStackTraces
+	 *            false to throw the exception for an error response without a stack trace
 	 * @return HTTP response string
 	 */
 	private static String processResponse(HttpResponse httpResponse, Method method, ContentType contentType,
-			String urlString, ParamsMap params) throws IOException, MambuApiException {
+			String urlString, ParamsMap params, boolean errorStackTraces) throws IOException, MambuApiException {
 
 		// get status
 		int status = httpResponse.getStatusLine().getStatusCode();
@@ -380,7 +537,7 @@ public class RequestExecutorImpl implements RequestExecutor {
 			LOGGER.log(exceptionLogLevel, "Creating exception, error code=" + errorCode + " for url=" + urlLogString);
 			// if response was not logged - log it now with the exception
 			if (!LOGGER.isLoggable(responseLogLevel)) {
-				LOGGER.log(exceptionLogLevel, "Mambu Response: " + response);
+				LOGGER.log(exceptionLogLevel, "Mambu Response: " + truncateErrorResponse(response));
 			}
 			// If the request was not logged yet - log it now for this exception to see all needed request details
 			if (!LOGGER.isLoggable(requesLogLevel)) {
@@ -389,8 +546,8 @@ public class RequestExecutorImpl implements RequestExecutor {
 				logApiRequest(exceptionLogLevel, method, contentType, urlLogString, params);
 			}
 		}
-		// pass to MambuApiException the content that goes with the error code
-		throw new MambuApiException(errorCode, response);
+		// pass to MambuApiException the content that goes with the error code. It is parsed only if requested
+		throw new MambuApiException(errorCode, response, errorStackTraces);
 
 	}
 
@@ -405,84 +562,151 @@ public class RequestExecutorImpl implements RequestExecutor {
 	 */
 	private static String readStream(InputStream content) throws IOException {
 
-		String response = "";
+		StringBuilder response = new StringBuilder();
 
 		// read the response content
 		BufferedReader in = new BufferedReader(new InputStreamReader(content, UTF8_charset));
 		String line;
 		while ((line = in.readLine()) != null) {
-			response += line;
+			response.append(line);
 		}
-		return response;
+		return response.toString();
 	}
 
 	@Override
 	public void setAuthorization(String username, String password) {
 		// encode the username and password
 		String userNamePassword = username + ":" + password;
-		encodedAuthorization = new String(Base64.encodeBase64(userNamePassword.getBytes()));
+		String encodedAuthorization = new String(Base64.encodeBase64(userNamePassword.getBytes()));
+
+		// Build the Authorization header once for all requests
+		Header authorizationHeader = new BasicHeader(HttpHeaders.AUTHORIZATION, "Basic " + encodedAuthorization);
+		requestTemplate.set(new RequestTemplate(authorizationHeader, MambuAPIFactory.getApplicationKey()));
+	}
+
+	/**
+	 * Get the request template for the current application key. The template is rebuilt only if the application key
+	 * was changed since the template was created. The rebuilt template replaces the current one only if it was not
+	 * replaced in the meantime, so a template installed by setAuthorization() is never overwritten with old credentials
+	 * 
+	 * @return request template
+	 */
+	private RequestTemplate getRequestTemplate() {
+		String applicationKey = MambuAPIFactory.getApplicationKey();
+		while (true) {
+			RequestTemplate template = requestTemplate.get();
+			if (applicationKey == null ? template.applicationKey == null : applicationKey
+					.equals(template.applicationKey)) {
+				return template;
+			}
+			RequestTemplate updated = new RequestTemplate(template.authorizationHeader, applicationKey);
+			if (requestTemplate.compareAndSet(template, updated)) {
+				return updated;
+			}
+		}
+	}
+
+	/**
+	 * RequestTemplate holds immutable request details which are the same for all requests made with the same
+	 * credentials and the same application key: the Authorization header and the application key in the formats used
+	 * for url params, form params and JSON requests
+	 */
+	private static class RequestTemplate {
+		private final Header authorizationHeader;
+		private final String applicationKey;
+		// "appkey=value" with url-encoded value
+		private final String appKeyUrlParam;
+		private final NameValuePair appKeyFormParam;
+
+		private RequestTemplate(Header authorizationHeader, String applicationKey) {
+			this.authorizationHeader = authorizationHeader;
+			this.applicationKey = applicationKey;
+			if (applicationKey != null) {
+				appKeyUrlParam = APPLICATION_KEY + "=" + encodeUrlParamValue(applicationKey);
+				appKeyFormParam = new BasicNameValuePair(APPLICATION_KEY, applicationKey);
+			} else {
+				appKeyUrlParam = null;
+				appKeyFormParam = null;
+			}
+		}
 
+		/**
+		 * Add application key param to the url string
+		 * 
+		 * @param urlString
+		 *            url string, with or without url params
+		 * @return url string with application key param or the original url string if there is no application key
+		 */
+		private String addAppKeyToUrl(String urlString) {
+			if (appKeyUrlParam == null) {
+				return urlString;
+			}
+			int paramsStart = urlString.indexOf('?');
+			if (paramsStart < 0) {
+				return urlString + '?' + appKeyUrlParam;
+			}
+			if (paramsStart == urlString.length() - 1) {
+				return urlString + appKeyUrlParam;
+			}
+			return urlString + '&' + appKeyUrlParam;
+		}
+
+		private static String encodeUrlParamValue(String value) {
+			try {
+				return URLEncoder.encode(value, UTF8_charset);
+			} catch (UnsupportedEncodingException e) {
+				// Shouldn't happen as we only use UTF-8
+				throw new IllegalStateException(e);
+			}
+		}
 	}
 
 	/**
 	 * Convert Params Map into a List<NameValuePair> for HttpPpost
 	 * 
 	 * @param params
+	 *            params map. Can be null
+	 * @param appKeyParam
+	 *            application key param to be added to the list. Can be null
 	 * 
 	 * @return List<NameValuePair>
 	 * 
 	 * @throws
 	 */
-	private static List<NameValuePair> getListFromParams(ParamsMap params) {
+	private static List<NameValuePair> getListFromParams(ParamsMap params, NameValuePair appKeyParam) {
 
-		List<NameValuePair> nameValuePairs = new ArrayList<NameValuePair>(params.size());
+		int size = (params == null ? 0 : params.size()) + (appKeyParam == null ? 0 : 1);
+		List<NameValuePair> nameValuePairs = new ArrayList<NameValuePair>(size);
 
-		for (Map.Entry<String, String> entry : params.entrySet()) {
-			// only put the parameter in the URL if its value is not null
-			if (entry.getValue() != null) {
-				nameValuePairs.add(new BasicNameValuePair(entry.getKey(), entry.getValue()));
+		if (params != null) {
+			for (Map.Entry<String, String> entry : params.entrySet()) {
+				// only put the parameter in the URL if its value is not null
+				if (entry.getValue() != null) {
+					nameValuePairs.add(new BasicNameValuePair(entry.getKey(), entry.getValue()));
 
+				}
 			}
 		}
+		if (appKeyParam != null) {
+			nameValuePairs.add(appKeyParam);
+		}
 		return nameValuePairs;
 	}
 
 	/**
-	 * Get the formatted content type string for the content type enum value
+	 * Get the Content-Type header for the content type enum value
 	 */
-	private static String getFormattedContentTypeString(ContentType contentTypeFormat) {
+	private static Header getContentTypeHeader(ContentType contentTypeFormat) {
 		switch (contentTypeFormat) {
 		case WWW_FORM:
-			return wwwFormUrlEncodedContentType;
+			return wwwFormContentTypeHeader;
 		case JSON:
-			return jsonContentType;
+			return jsonContentTypeHeader;
 		default:
-			return wwwFormUrlEncodedContentType;
+			return wwwFormContentTypeHeader;
 		}
 	}
 
-	/**
-	 * Add json formatted appKey value to the original json string
-	 * 
-	 * @param jsonString
-	 *            original json string
-	 * 
-	 * @param params
-	 *            the ParamsMap containing the appKey value (optionally)
-	 * 
-	 * @return jsonStringWithAppKey json string with appKey added
-	 */
-	private static String addAppKeyToJson(String jsonString, ParamsMap params) {
-
-		if (params == null) {
-			return jsonString;
-		}
-
-		String appKey = params.get(APPLICATION_KEY);
-		return ServiceHelper.addAppkeyValueToJson(appKey, jsonString);
-
-	}
-
 	/**
 	 * Log API request details. This is a helper method for using consistent formating when using Java Logger to print
 	 * the details of the API request
@@ -617,7 +841,7 @@ public class RequestExecutorImpl implements RequestExecutor {
 		String url = urlString;
 		// Add content type header
 		contentType = (contentType == null) ? ContentType.WWW_FORM : contentType;
-		String contentHeader = " -H \"Content-type: " + getFormattedContentTypeString(contentType) + "\"";
+		String contentHeader = " -H \"Content-type: " + getContentTypeHeader(contentType).getValue() + "\"";
 
 		// Make curl command
 		String curlCommand = "curl" + apiMethod + contentHeader;
@@ -678,6 +902,23 @@ public class RequestExecutorImpl implements RequestExecutor {
 	final static int howManyEncodedCharsToShow = 20;
 	// must be long enough to show full string for boolean API responses
 	final static int howManyDocumentResponseCharsToShow = 50;
+	// Error responses are logged at WARNING level. Don't log more than this number of characters of their content
+	final static int howManyErrorResponseCharsToShow = 2000;
+
+	/**
+	 * Truncate error response for logging. Mambu error responses are short, but failing requests may return long
+	 * unexpected content, for example an HTML error page
+	 * 
+	 * @param response
+	 *            error response
+	 * @return response or its beginning followed by the "..." indicator
+	 */
+	private static String truncateErrorResponse(String response) {
+		if (response == null || response.length() <= howManyErrorResponseCharsToShow) {
+			return response;
+		}
+		return response.substring(0, howManyErrorResponseCharsToShow) + "...";
+	}
 
 	/**
 	 * Log Json string details. This is a helper method for modifying the original Json string to remove details that
@@ -734,7 +975,8 @@ public class RequestExecutorImpl implements RequestExecutor {
 		// Log response details
 		if (status != HttpURLConnection.HTTP_OK && status != HttpURLConnection.HTTP_CREATED) {
 			// Error status. Log as error
-			LOGGER.log(exceptionLogLevel, "Error status=" + status + " Error response=" + response);
+			LOGGER.log(exceptionLogLevel, "Error status=" + status + " Error response="
+					+ truncateErrorResponse(response));
 		} else {
 			if (!LOGGER.isLoggable(logerLevel)) {
 				return;
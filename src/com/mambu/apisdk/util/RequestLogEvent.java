@@ -0,0 +1,174 @@
+package com.mambu.apisdk.util;
+
+import com.mambu.apisdk.util.RequestExecutor.ContentType;
+import com.mambu.apisdk.util.RequestExecutor.Method;
+
+/**
+ * RequestLogEvent holds the details of one executed API request in a fixed schema: request time, endpoint, URL path,
+ * method, content type, response status, latency and sizes. Events are created by {@link RequestLogger} and don't
+ * include secrets: the URL path is stored without user credentials and without query params (which may contain the
+ * application key).
+ */
+public class RequestLogEvent {
+
+	/**
+	 * Status for requests which failed without a response, for example because of a connection error
+	 */
+	public final static int NO_STATUS = -1;
+	/**
+	 * Size of the request or response content which is not known, for example for a streamed JSON request
+	 */
+	public final static long UNKNOWN_SIZE = -1;
+
+	private final long timestamp;
+	private final String endpoint;
+	private final String path;
+	private final Method method;
+	private final ContentType contentType;
+	private final int status;
+	private final long latencyMicros;
+	private final long requestBytes;
+	private final long responseChars;
+
+	RequestLogEvent(long timestamp, String endpoint, String path, Method method, ContentType contentType, int status,
+			long latencyMicros, long requestBytes, long responseChars) {
+		this.timestamp = timestamp;
+		this.endpoint = endpoint;
+		this.path = path;
+		this.method = method;
+		this.contentType = contentType;
+		this.status = status;
+		this.latencyMicros = latencyMicros;
+		this.requestBytes = requestBytes;
+		this.responseChars = responseChars;
+	}
+
+	/**
+	 * Get request time
+	 *
+	 * @return time the request was sent, in milliseconds since the epoch
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * Get API endpoint
+	 *
+	 * @return the first part of the API path. Example: "loans" for /api/loans/123/repayments
+	 */
+	public String getEndpoint() {
+		return endpoint;
+	}
+
+	/**
+	 * Get URL path
+	 *
+	 * @return URL path without query params. Example: /api/loans/123/repayments
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	public Method getMethod() {
+		return method;
+	}
+
+	public ContentType getContentType() {
+		return contentType;
+	}
+
+	/**
+	 * Get HTTP response status
+	 *
+	 * @return response status or NO_STATUS if there was no response
+	 */
+	public int getStatus() {
+		return status;
+	}
+
+	/**
+	 * Get request latency, including reading the response
+	 *
+	 * @return latency in microseconds
+	 */
+	public long getLatencyMicros() {
+		return latencyMicros;
+	}
+
+	/**
+	 * Get request content size
+	 *
+	 * @return size in bytes, zero for requests without content or UNKNOWN_SIZE
+	 */
+	public long getRequestBytes() {
+		return requestBytes;
+	}
+
+	/**
+	 * Get response size
+	 *
+	 * @return number of characters in the response or UNKNOWN_SIZE if there was no response
+	 */
+	public long getResponseChars() {
+		return responseChars;
+	}
+
+	/**
+	 * Check if the request succeeded
+	 *
+	 * @return true for 2xx and 304 (Not Modified) responses
+	 */
+	public boolean isSuccess() {
+		return (status >= 200 && status < 300) || status == 304;
+	}
+
+	/**
+	 * Format event as a one line JSON object with the fields always in the same order. Example:
+	 * {"timestamp":1420070400000,"endpoint":"loans","path":"/api/loans/123","method":"GET","contentType":"WWW_FORM",
+	 * "status":200,"latencyMicros":35210,"requestBytes":0,"responseChars":2048}
+	 *
+	 * @return JSON string
+	 */
+	public String toJson() {
+		StringBuilder json = new StringBuilder(192 + path.length());
+		json.append("{\"timestamp\":").append(timestamp);
+		json.append(",\"endpoint\":");
+		appendString(json, endpoint);
+		json.append(",\"path\":");
+		appendString(json, path);
+		json.append(",\"method\":");
+		appendString(json, method == null ? null : method.name());
+		json.append(",\"contentType\":");
+		appendString(json, contentType == null ? null : contentType.name());
+		json.append(",\"status\":").append(status);
+		json.append(",\"latencyMicros\":").append(latencyMicros);
+		json.append(",\"requestBytes\":").append(requestBytes);
+		json.append(",\"responseChars\":").append(responseChars);
+		return json.append('}').toString();
+	}
+
+	@Override
+	public String toString() {
+		return toJson();
+	}
+
+	private static void appendString(StringBuilder json, String value) {
+		if (value == null) {
+			json.append("null");
+			return;
+		}
+		json.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				json.append('\\').append(c);
+			} else if (c < 0x20) {
+				json.append(String.format("\\u%04x", (int) c));
+			} else {
+				json.append(c);
+			}
+		}
+		json.append('"');
+	}
+}
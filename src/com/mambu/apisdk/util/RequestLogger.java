@@ -0,0 +1,291 @@
+package com.mambu.apisdk.util;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.mambu.apisdk.util.RequestExecutor.ContentType;
+import com.mambu.apisdk.util.RequestExecutor.Method;
+
+/**
+ * RequestLogger records structured events for the executed API requests (see {@link RequestLogEvent}). Unlike the
+ * request and response logging of the request executor, it does not log request params or response content, so its
+ * cost doesn't depend on the size of requests and responses, and its output can be used for analysis, for example of
+ * latencies per endpoint.
+ *
+ * Requests can be sampled: only a fraction of successful requests is recorded, with a default sampling rate and
+ * optional rates for specific endpoints. Failed requests are always recorded. Recorded events are queued and passed to
+ * the {@link Appender} on a background thread, which also formats them. If the appender can't keep up and the queue
+ * is full, new events are dropped and counted, so logging never blocks API requests.
+ *
+ * Request logging is disabled by default. By default the events are logged as one line JSON objects to the
+ * java.util.logging Logger of this class at INFO level.
+ */
+public class RequestLogger {
+
+	private final static Logger LOGGER = Logger.getLogger(RequestLogger.class.getName());
+
+	public final static int DEFAULT_QUEUE_CAPACITY = 1024;
+
+	/**
+	 * Appender receiving the recorded events. Called on the background thread of the request logger, one event at a
+	 * time
+	 */
+	public interface Appender {
+		void append(RequestLogEvent event);
+	}
+
+	// Default appender: log events as JSON at INFO level
+	private final static Appender loggerAppender = new Appender() {
+		@Override
+		public void append(RequestLogEvent event) {
+			if (LOGGER.isLoggable(Level.INFO)) {
+				LOGGER.info(event.toJson());
+			}
+		}
+	};
+
+	private volatile boolean enabled = false;
+	private volatile double defaultSamplingRate = 1.0;
+	private final Map<String, Double> samplingRates = new ConcurrentHashMap<String, Double>();
+	private volatile Appender appender = loggerAppender;
+
+	private final BlockingQueue<RequestLogEvent> queue;
+	private final AtomicLong droppedCount = new AtomicLong();
+	// Number of queued events not yet passed to the appender
+	private final AtomicLong pendingCount = new AtomicLong();
+	private final Object pendingLock = new Object();
+	private Thread appenderThread;
+
+	public RequestLogger() {
+		this(DEFAULT_QUEUE_CAPACITY);
+	}
+
+	/**
+	 * Create request logger
+	 *
+	 * @param queueCapacity
+	 *            maximum number of events waiting for the appender. Must be positive
+	 */
+	public RequestLogger(int queueCapacity) {
+		if (queueCapacity <= 0) {
+			throw new IllegalArgumentException("Queue capacity must be positive");
+		}
+		this.queue = new ArrayBlockingQueue<RequestLogEvent>(queueCapacity);
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Enable or disable request logging
+	 *
+	 * @param enabled
+	 *            true to record request events
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Set appender for the recorded events
+	 *
+	 * @param appender
+	 *            appender. Must not be null
+	 */
+	public void setAppender(Appender appender) {
+		if (appender == null) {
+			throw new IllegalArgumentException("Appender must not be null");
+		}
+		this.appender = appender;
+	}
+
+	/**
+	 * Set sampling rate for the endpoints without a specific sampling rate
+	 *
+	 * @param samplingRate
+	 *            fraction of successful requests to record, from 0 (none) to 1 (all). Default is 1
+	 */
+	public void setDefaultSamplingRate(double samplingRate) {
+		this.defaultSamplingRate = validateSamplingRate(samplingRate);
+	}
+
+	/**
+	 * Set sampling rate for an endpoint
+	 *
+	 * @param endpoint
+	 *            API endpoint, as returned by {@link RequestLogEvent#getEndpoint()}. Example: "loans"
+	 * @param samplingRate
+	 *            fraction of successful requests to record, from 0 (none) to 1 (all). Null to use the default
+	 *            sampling rate
+	 */
+	public void setSamplingRate(String endpoint, Double samplingRate) {
+		if (endpoint == null) {
+			throw new IllegalArgumentException("Endpoint must not be null");
+		}
+		if (samplingRate == null) {
+			samplingRates.remove(endpoint);
+		} else {
+			samplingRates.put(endpoint, validateSamplingRate(samplingRate));
+		}
+	}
+
+	/**
+	 * Get the number of events dropped because the queue was full
+	 *
+	 * @return number of dropped events
+	 */
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	/**
+	 * Record an executed request, if it is sampled
+	 *
+	 * @param method
+	 *            request method
+	 * @param contentType
+	 *            request content type
+	 * @param urlString
+	 *            request URL. Query params and user credentials are not recorded
+	 * @param status
+	 *            response status or RequestLogEvent.NO_STATUS
+	 * @param latencyNanos
+	 *            request latency in nanoseconds
+	 * @param requestBytes
+	 *            request size or RequestLogEvent.UNKNOWN_SIZE
+	 * @param responseChars
+	 *            response size or RequestLogEvent.UNKNOWN_SIZE
+	 */
+	public void log(Method method, ContentType contentType, String urlString, int status, long latencyNanos,
+			long requestBytes, long responseChars) {
+		if (!enabled || urlString == null) {
+			return;
+		}
+		String path = getPath(urlString);
+		String endpoint = getEndpoint(path);
+		boolean isFailed = status == RequestLogEvent.NO_STATUS || status >= 400;
+		if (!isFailed && !isSampled(endpoint)) {
+			return;
+		}
+		RequestLogEvent event = new RequestLogEvent(System.currentTimeMillis() - latencyNanos / 1000000, endpoint,
+				path, method, contentType, status, latencyNanos / 1000, requestBytes, responseChars);
+		enqueue(event);
+	}
+
+	/**
+	 * Wait until all queued events are passed to the appender
+	 *
+	 * @param timeout
+	 *            maximum time to wait
+	 * @param unit
+	 *            time unit
+	 * @return true if all events were passed to the appender, false if the timeout elapsed
+	 * @throws InterruptedException
+	 */
+	public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		synchronized (pendingLock) {
+			while (pendingCount.get() > 0) {
+				long remainingNanos = deadline - System.nanoTime();
+				if (remainingNanos <= 0) {
+					return false;
+				}
+				TimeUnit.NANOSECONDS.timedWait(pendingLock, remainingNanos);
+			}
+		}
+		return true;
+	}
+
+	private boolean isSampled(String endpoint) {
+		Double endpointRate = samplingRates.get(endpoint);
+		double samplingRate = endpointRate == null ? defaultSamplingRate : endpointRate;
+		return samplingRate >= 1.0 || (samplingRate > 0 && ThreadLocalRandom.current().nextDouble() < samplingRate);
+	}
+
+	private void enqueue(RequestLogEvent event) {
+		pendingCount.incrementAndGet();
+		if (!queue.offer(event)) {
+			droppedCount.incrementAndGet();
+			eventDone();
+			return;
+		}
+		startAppenderThread();
+	}
+
+	private void eventDone() {
+		if (pendingCount.decrementAndGet() == 0) {
+			synchronized (pendingLock) {
+				pendingLock.notifyAll();
+			}
+		}
+	}
+
+	private synchronized void startAppenderThread() {
+		if (appenderThread != null) {
+			return;
+		}
+		appenderThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				appendEvents();
+			}
+		}, "mambu-request-logger");
+		appenderThread.setDaemon(true);
+		appenderThread.start();
+	}
+
+	private void appendEvents() {
+		while (true) {
+			RequestLogEvent event;
+			try {
+				event = queue.take();
+			} catch (InterruptedException e) {
+				return;
+			}
+			try {
+				appender.append(event);
+			} catch (RuntimeException e) {
+				LOGGER.log(Level.WARNING, "Failed to append request event", e);
+			} finally {
+				eventDone();
+			}
+		}
+	}
+
+	// Get URL path without the scheme, host, credentials and query params
+	static String getPath(String urlString) {
+		int start = urlString.indexOf("://");
+		start = start == -1 ? 0 : urlString.indexOf('/', start + 3);
+		if (start == -1) {
+			return "/";
+		}
+		int end = urlString.indexOf('?', start);
+		return end == -1 ? urlString.substring(start) : urlString.substring(start, end);
+	}
+
+	// Get the first part of the path after "/api/". Example: "loans" for /api/loans/123
+	static String getEndpoint(String path) {
+		final String apiPrefix = "/api/";
+		int start = path.startsWith(apiPrefix) ? apiPrefix.length() : 1;
+		if (start >= path.length()) {
+			return "";
+		}
+		int end = path.indexOf('/', start);
+		return end == -1 ? path.substring(start) : path.substring(start, end);
+	}
+
+	private static double validateSamplingRate(double samplingRate) {
+		if (!(samplingRate >= 0 && samplingRate <= 1)) {
+			throw new IllegalArgumentException("Sampling rate must be between 0 and 1, not " + samplingRate);
+		}
+		return samplingRate;
+	}
+}
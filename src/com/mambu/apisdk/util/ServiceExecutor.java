@@ -1,10 +1,13 @@
 package com.mambu.apisdk.util;
 
 import java.lang.reflect.Type;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import com.google.inject.Inject;
@@ -20,6 +23,7 @@ import com.mambu.api.server.handler.savings.model.JSONSavingsAccount;
 import com.mambu.apisdk.MambuAPIService;
 import com.mambu.apisdk.exception.MambuApiException;
 import com.mambu.apisdk.exception.MambuApiResponseMessage;
+import com.mambu.apisdk.json.LazyJsonList;
 import com.mambu.apisdk.util.ApiDefinition.ApiReturnFormat;
 import com.mambu.apisdk.util.ApiDefinition.ApiType;
 import com.mambu.apisdk.util.RequestExecutor.ContentType;
@@ -102,6 +106,26 @@ public class ServiceExecutor {
 
 	private MambuAPIService mambuAPIService;
 
+	// Maximum number of parsed results kept for reuse by each executor
+	private final static int PARSED_RESULTS_CACHE_SIZE = 16;
+
+	// Results parsed from response strings, for API definitions allowing reuse of cached results. Keys are compared by
+	// identity and are weakly referenced: the conditional request cache returns the same response string instance for
+	// "304 Not Modified" responses, so the entry is only found for responses served from that cache. Created when
+	// first used
+	private Cache<String, ParsedResult> parsedResultsCache;
+
+	// Parsed result together with the type it was parsed to
+	private static class ParsedResult {
+		private final Type type;
+		private final Object result;
+
+		private ParsedResult(Type type, Object result) {
+			this.type = type;
+			this.result = result;
+		}
+	}
+
 	/***
 	 * Create a new ServiceExecutor
 	 * 
@@ -169,6 +193,10 @@ public class ServiceExecutor {
 			// Get result as a collection
 			result = getCollection(jsonResponse, apiDefinition);
 			break;
+		case LAZY_COLLECTION:
+			// Get result as a collection deserializing objects when accessed
+			result = (R) getLazyCollection(jsonResponse, apiDefinition);
+			break;
 		case BOOLEAN:
 			// Get result as a boolean
 			result = (R) getBoolean(jsonResponse);
@@ -283,13 +311,12 @@ public class ServiceExecutor {
 			throw new IllegalArgumentException("JSON object must not be NULL");
 		}
 
-		// Make API JSON string based on its ApiDefinition
-		final String jsonData = ServiceHelper.makeApiJson(object, apiDefinition);
-		// Add JSON string as JSON_OBJECT to the ParamsMap
+		// Add object as JSON_OBJECT to the ParamsMap. It is serialized with the Gson for its ApiDefinition directly to
+		// the HTTP request
 		if (paramsMap == null) {
 			paramsMap = new ParamsMap();
 		}
-		paramsMap.put(APIData.JSON_OBJECT, jsonData);
+		paramsMap.putJsonObject(object, GsonUtils.createSerializerGson(apiDefinition));
 
 		// Execute this request with apiDefintion, objectId, relatedEntityId and paramsMap
 		return execute(apiDefinition, objectId, relatedEntityId, paramsMap);
@@ -403,7 +430,7 @@ public class ServiceExecutor {
 		// Get return class from ApiDefinition
 		Class<?> returnClass = apiDefinition.getReturnClass();
 		// Get object from jsonResponse
-		return (R) gson.fromJson(jsonResponse, returnClass);
+		return (R) parse(gson, jsonResponse, returnClass, apiDefinition);
 	}
 
 	/****
@@ -423,7 +450,60 @@ public class ServiceExecutor {
 		// Get return class from ApiDefinition and make a collection type for it
 		Type collectionType = getCollectionType(returnClass);
 		// Get collection of objects from jsonResponse
-		return gson.fromJson(jsonResponse, collectionType);
+		return parse(gson, jsonResponse, collectionType, apiDefinition);
+	}
+
+	/****
+	 * Get a lazy list of Objects represented by Mambu's JSON response string
+	 * 
+	 * @param jsonResponse
+	 *            JSON response string
+	 * @param apiDefinition
+	 *            API definition
+	 * @return lazy list of objects of the API definition's return class
+	 */
+	private LazyJsonList<?> getLazyCollection(String jsonResponse, ApiDefinition apiDefinition) {
+		// Create Gson with optional deserializers as per ApiDefinition. Used when the objects are accessed
+		Gson gson = GsonUtils.createDeserializerGson(apiDefinition);
+		return LazyJsonList.parse(jsonResponse, gson, apiDefinition.getReturnClass());
+	}
+
+	/****
+	 * Parse JSON response string into the specified type. If the API definition allows reusing cached results and the
+	 * same response string was already parsed to this type then the previously parsed result is returned
+	 * 
+	 * @param gson
+	 *            gson to parse the response
+	 * @param jsonResponse
+	 *            JSON response string
+	 * @param type
+	 *            type to parse the response to
+	 * @param apiDefinition
+	 *            API definition
+	 * @return parsed result
+	 */
+	@SuppressWarnings("unchecked")
+	private <R> R parse(Gson gson, String jsonResponse, Type type, ApiDefinition apiDefinition) {
+		// Results parsed with a projection are not complete objects and are not shared
+		if (!apiDefinition.isReuseCachedResult() || apiDefinition.getProjectedFields() != null
+				|| jsonResponse == null) {
+			return gson.fromJson(jsonResponse, type);
+		}
+		Cache<String, ParsedResult> cache = getParsedResultsCache();
+		ParsedResult parsed = cache.getIfPresent(jsonResponse);
+		if (parsed != null && parsed.type.equals(type)) {
+			return (R) parsed.result;
+		}
+		R result = gson.fromJson(jsonResponse, type);
+		cache.put(jsonResponse, new ParsedResult(type, result));
+		return result;
+	}
+
+	private synchronized Cache<String, ParsedResult> getParsedResultsCache() {
+		if (parsedResultsCache == null) {
+			parsedResultsCache = CacheBuilder.newBuilder().weakKeys().maximumSize(PARSED_RESULTS_CACHE_SIZE).build();
+		}
+		return parsedResultsCache;
 	}
 
 	/****
@@ -813,6 +893,47 @@ public class ServiceExecutor {
 		return execute(apiDefinition, params);
 	}
 
+	/**
+	 * Convenience method to GET a list of Mambu entities, deserializing only the specified fields of each entity. Other
+	 * fields are skipped in the response without being parsed. Example: GET /api/loans keeping only "id",
+	 * "accountState" and "principalBalance" of each loan account
+	 * 
+	 * @param mambuEntity
+	 *            Mambu entity
+	 * @param params
+	 *            params map for getting a list of entities, for example, pagination parameters
+	 * @param projectedFields
+	 *            JSON names of the entity fields to deserialize. Null or empty to deserialize all fields
+	 * @return list of entities with only the projected fields set
+	 * @throws MambuApiException
+	 */
+	public <R> List<R> getList(MambuEntityType mambuEntity, ParamsMap params, Collection<String> projectedFields)
+			throws MambuApiException {
+		Class<?> clazz = mambuEntity.getEntityClass();
+		ApiDefinition apiDefinition = new ApiDefinition(ApiType.GET_LIST, clazz);
+		apiDefinition.setProjectedFields(projectedFields);
+		return execute(apiDefinition, params);
+	}
+
+	/**
+	 * Convenience method to GET a list of Mambu entities as a lazy list. Entities are deserialized only when accessed
+	 * and can be filtered by their raw field values without deserializing them. See {@link LazyJsonList}
+	 * 
+	 * @param mambuEntity
+	 *            Mambu entity
+	 * @param params
+	 *            params map for getting a list of entities, for example, pagination parameters
+	 * @return lazy list of entities
+	 * @throws MambuApiException
+	 */
+	@SuppressWarnings("unchecked")
+	public <R> LazyJsonList<R> getLazyList(MambuEntityType mambuEntity, ParamsMap params) throws MambuApiException {
+		Class<?> clazz = mambuEntity.getEntityClass();
+		ApiDefinition apiDefinition = new ApiDefinition(ApiType.GET_LIST, clazz);
+		apiDefinition.setApiReturnFormat(ApiReturnFormat.LAZY_COLLECTION);
+		return (LazyJsonList<R>) execute(apiDefinition, params);
+	}
+
 	/**
 	 * Convenience method to GET a paginated list of Mambu entities. Example; GET /api/clients with offset and limit
 	 * 
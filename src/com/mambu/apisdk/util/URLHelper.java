@@ -6,6 +6,7 @@ package com.mambu.apisdk.util;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -23,6 +24,9 @@ import com.mambu.apisdk.util.RequestExecutor.Method;
 public class URLHelper {
 
 	private String domainName;
+	// Base URL for the domain, e.g. "https://demo.mambu.com/api/". Created once for the current web protocol
+	private volatile BaseUrl baseUrl;
+	private final static Pattern domainWithPortPattern = Pattern.compile(".*:[0-9]*");
 	private static String WEB_PROTOCOL = "https";
 	private static String API_ENDPOINT = "/api/";
 	private static String DELIMITER = "?";
@@ -45,21 +49,15 @@ public class URLHelper {
 	public String createUrl(String details) {
 		details = details == null ? "" : details;
 
-		// URL String must be url-encoded to handle spaces and UTF-8 chars (See MBU-4669, implemented in Mambu 3.4)
-		String encodedUrl;
-		try {
-
-			URI uri = createURI(details);
-			encodedUrl = uri.toString();
-
-			return encodedUrl;
-
-		} catch (URISyntaxException e) {
-
-			LOGGER.severe("Exception message=" + e.getMessage() + " Failed to create URI for Domain Name=" + domainName
-					+ " with url details=" + details);
+		BaseUrl base = getBaseUrl();
+		if (base.prefix == null) {
+			LOGGER.severe("Failed to create URI for Domain Name=" + domainName + " with url details=" + details);
 			return "";
 		}
+		// URL String must be url-encoded to handle spaces and UTF-8 chars (See MBU-4669, implemented in Mambu 3.4)
+		String encodedDetails = PercentEncoder.encodePath(details);
+		return new StringBuilder(base.prefix.length() + encodedDetails.length()).append(base.prefix)
+				.append(encodedDetails).toString();
 
 	}
 
@@ -136,11 +134,53 @@ public class URLHelper {
 		return urlWithParams;
 	}
 
-	private URI createURI(String details) throws URISyntaxException {
-		if(isDomainNameWithPort()) {
-			return new URI(WEB_PROTOCOL, null, host(), port(), API_ENDPOINT + details, null, null);
+	/**
+	 * Get the base URL for the current web protocol. The domain name is parsed only when the base URL is created
+	 * 
+	 * @return base URL
+	 */
+	private BaseUrl getBaseUrl() {
+		BaseUrl base = baseUrl;
+		String protocol = WEB_PROTOCOL;
+		if (base == null || !base.protocol.equals(protocol)) {
+			base = new BaseUrl(protocol, createBaseUrlPrefix(protocol));
+			baseUrl = base;
+		}
+		return base;
+	}
+
+	/**
+	 * Create base URL string for the domain name
+	 * 
+	 * @param protocol
+	 *            web protocol
+	 * @return base URL string or null if the domain name is not valid
+	 */
+	private String createBaseUrlPrefix(String protocol) {
+		try {
+			return createURI(protocol).toString();
+		} catch (URISyntaxException | RuntimeException e) {
+			LOGGER.severe("Exception message=" + e.getMessage() + " Failed to create URI for Domain Name=" + domainName);
+			return null;
+		}
+	}
+
+	private URI createURI(String protocol) throws URISyntaxException {
+		if (isDomainNameWithPort()) {
+			return new URI(protocol, null, host(), port(), API_ENDPOINT, null, null);
+		}
+		return new URI(protocol, domainName, API_ENDPOINT, null);
+	}
+
+	// Base URL string created for a web protocol
+	private static class BaseUrl {
+		private final String protocol;
+		private final String prefix;
+
+		private BaseUrl(String protocol, String prefix) {
+			this.protocol = protocol;
+			this.prefix = prefix;
 		}
-		return new URI(WEB_PROTOCOL, domainName, API_ENDPOINT + details, null);
 	}
 
 	private String host() {
@@ -152,7 +192,7 @@ public class URLHelper {
 	}
 
 	private boolean isDomainNameWithPort() {
-		return this.domainName.matches(".*:[0-9]*");
+		return domainWithPortPattern.matcher(this.domainName).matches();
 	}
 
 	public static void useHttp() {
@@ -986,7 +986,7 @@ public class DemoUtil {
 			break;
 		case DATE:
 			// return current date as new value
-			newValue = DateUtils.FORMAT.format(new Date());
+			newValue = DateUtils.format(new Date());
 			break;
 		case CLIENT_LINK:
 			try {
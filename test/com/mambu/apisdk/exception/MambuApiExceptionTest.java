@@ -0,0 +1,51 @@
+package com.mambu.apisdk.exception;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.net.SocketTimeoutException;
+
+import org.junit.Test;
+
+public class MambuApiExceptionTest {
+
+	/***
+	 * Test that the response message is parsed once and only when requested, and that stack traces can be omitted
+	 *
+	 */
+	@Test
+	public void testResponseMessage() {
+		MambuApiException e = new MambuApiException(400,
+				"{\"returnCode\":902,\"returnStatus\":\"REQUIRED_CUSTOM_FIELD_MISSING\",\"errorSource\":\"Purpose\"}",
+				false);
+		assertEquals(0, e.getStackTrace().length);
+
+		MambuApiResponseMessage message = e.getResponseMessage();
+		assertEquals(902, message.getReturnCode());
+		assertEquals("REQUIRED_CUSTOM_FIELD_MISSING", message.getReturnStatus());
+		assertEquals("Purpose", message.getErrorSource());
+		assertSame(message, e.getResponseMessage());
+		assertEquals(902, new MambuApiResponseMessage(e).getReturnCode());
+
+		e.setErrorMessage("Not a JSON message");
+		assertEquals(-1, e.getResponseMessage().getReturnCode());
+		e.setErrorMessage("");
+		assertEquals(-1, e.getResponseMessage().getReturnCode());
+	}
+
+	@Test
+	public void testWrappedException() {
+		SocketTimeoutException cause = new SocketTimeoutException("Read timed out");
+		MambuApiException e = new MambuApiException(cause, false);
+		assertEquals("Socket Timeout Exception, Read timed out", e.getErrorMessage());
+		assertEquals(Integer.valueOf(-1), e.getErrorCode());
+		assertSame(cause, e.getCause());
+		assertEquals(0, e.getStackTrace().length);
+		assertTrue(cause.getStackTrace().length > 0);
+
+		// Same message with the cached class name
+		assertEquals("Socket Timeout Exception, Read timed out", new MambuApiException(cause).getErrorMessage());
+		assertTrue(new MambuApiException(cause).getStackTrace().length > 0);
+	}
+}
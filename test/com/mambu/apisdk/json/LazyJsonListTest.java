@@ -0,0 +1,66 @@
+package com.mambu.apisdk.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.mambu.apisdk.util.GsonUtils;
+import com.mambu.loans.shared.model.LoanTransaction;
+import com.mambu.loans.shared.model.LoanTransactionType;
+
+public class LazyJsonListTest {
+
+	private final static String TRANSACTIONS_JSON = " [ {\"transactionId\":1,\"type\":\"DISBURSMENT\",\"comment\":"
+			+ "\"a \\\"quoted\\\" [text]\"}, {\"encodedKey\":\"x\",\"details\":{\"type\":\"nested\"},\"type\":"
+			+ "\"REPAYMENT\",\"transactionId\":2} ,{\"transactionId\":3,\"type\":\"REPAYMENT\",\"comment\":null},"
+			+ "null ] ";
+
+	private final Gson gson = GsonUtils.createGson();
+
+	/***
+	 * Test that elements are deserialized when accessed and raw values are read without deserializing
+	 *
+	 */
+	@Test
+	public void testLazyList() {
+		LazyJsonList<LoanTransaction> transactions = LazyJsonList.parse(TRANSACTIONS_JSON, gson,
+				LoanTransaction.class);
+
+		assertEquals(4, transactions.size());
+		assertEquals("a \"quoted\" [text]", transactions.getRawValue(0, "comment"));
+		assertEquals("REPAYMENT", transactions.getRawValue(1, "type"));
+		assertEquals("2", transactions.getRawValue(1, "transactionId"));
+		assertEquals("{\"type\":\"nested\"}", transactions.getRawValue(1, "details"));
+		assertNull(transactions.getRawValue(2, "comment"));
+		assertNull(transactions.getRawValue(2, "encodedKey"));
+		assertNull(transactions.getRawValue(3, "type"));
+
+		LoanTransaction transaction = transactions.get(1);
+		assertEquals(LoanTransactionType.REPAYMENT, transaction.getType());
+		assertSame(transaction, transactions.get(1));
+		assertNull(transactions.get(3));
+
+		List<LoanTransaction> repayments = transactions.filter("type", "REPAYMENT");
+		assertEquals(2, repayments.size());
+		assertSame(transaction, repayments.get(0));
+		assertEquals(3, repayments.get(1).getTransactionId().intValue());
+	}
+
+	@Test
+	public void testEmptyAndNull() {
+		assertEquals(0, LazyJsonList.parse("[ ]", gson, LoanTransaction.class).size());
+		assertNull(LazyJsonList.parse("null", gson, LoanTransaction.class));
+		assertNull(LazyJsonList.parse(null, gson, LoanTransaction.class));
+	}
+
+	@Test(expected = JsonSyntaxException.class)
+	public void testInvalidJson() {
+		LazyJsonList.parse("[{\"transactionId\":1}", gson, LoanTransaction.class);
+	}
+}
@@ -0,0 +1,118 @@
+package com.mambu.apisdk.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import com.mambu.accounts.shared.model.AccountState;
+import com.mambu.apisdk.util.ApiDefinition;
+import com.mambu.apisdk.util.ApiDefinition.ApiType;
+import com.mambu.apisdk.util.GsonUtils;
+import com.mambu.loans.shared.model.LoanAccount;
+
+public class ModelTypeAdapterFactoryTest {
+
+	private final static String LOAN_ACCOUNTS_JSON = "[{\"encodedKey\":\"8a1\",\"id\":\"ABC123\",\"accountState\":"
+			+ "\"ACTIVE\",\"loanAmount\":\"1500.50\",\"hasCustomSchedule\":true,\"repaymentInstallments\":12,"
+			+ "\"creationDate\":\"2015-03-01T10:15:30+0000\",\"fixedDaysOfMonth\":[1,15],\"unknownField\":{\"a\":[1]},"
+			+ "\"customFieldValues\":[{\"customFieldId\":\"Purpose\",\"value\":\"Car\"}],\"notes\":null},"
+			+ "{\"id\":\"DEF456\",\"hasCustomSchedule\":null}, null]";
+
+	/***
+	 * Test that model classes are deserialized the same way as with Gson's reflective type adapter
+	 *
+	 */
+	@Test
+	public void testSameResultAsReflection() {
+		Type type = new TypeToken<List<LoanAccount>>() {
+		}.getType();
+		Gson boundGson = GsonUtils.createDeserializerGson(new ApiDefinition(ApiType.GET_LIST, LoanAccount.class));
+		Gson reflectiveGson = GsonUtils.createGson();
+
+		List<LoanAccount> bound = boundGson.fromJson(LOAN_ACCOUNTS_JSON, type);
+		List<LoanAccount> reflective = reflectiveGson.fromJson(LOAN_ACCOUNTS_JSON, type);
+
+		assertEquals(reflectiveGson.toJson(reflective), reflectiveGson.toJson(bound));
+		assertEquals(reflectiveGson.toJson(reflective), boundGson.toJson(bound));
+
+		LoanAccount account = bound.get(0);
+		assertEquals("ABC123", account.getId());
+		assertEquals(AccountState.ACTIVE, account.getAccountState());
+		assertEquals(new BigDecimal("1500.50"), account.getLoanAmount().getAmount());
+		assertTrue(account.hasCustomSchedule());
+		assertEquals(1, account.getCustomFieldValues().size());
+		assertFalse(bound.get(1).hasCustomSchedule());
+		assertNull(bound.get(2));
+	}
+
+	/***
+	 * Test that only the projected fields are deserialized
+	 *
+	 */
+	@Test
+	public void testProjection() {
+		Type type = new TypeToken<List<LoanAccount>>() {
+		}.getType();
+		ApiDefinition apiDefinition = new ApiDefinition(ApiType.GET_LIST, LoanAccount.class);
+		apiDefinition.setProjectedFields(Arrays.asList("id", "accountState"));
+		Gson gson = GsonUtils.createDeserializerGson(apiDefinition);
+
+		List<LoanAccount> accounts = gson.fromJson(LOAN_ACCOUNTS_JSON, type);
+
+		LoanAccount account = accounts.get(0);
+		assertEquals("ABC123", account.getId());
+		assertEquals(AccountState.ACTIVE, account.getAccountState());
+		assertNull(account.getEncodedKey());
+		assertNull(account.getCreationDate());
+		assertFalse(account.hasCustomSchedule());
+		assertTrue(account.getCustomFieldValues() == null || account.getCustomFieldValues().isEmpty());
+		assertEquals("DEF456", accounts.get(1).getId());
+	}
+
+	/***
+	 * Test that fields declared with the type variables of a superclass are deserialized with the resolved types
+	 *
+	 */
+	@Test
+	public void testGenericSuperclassField() {
+		Gson gson = new GsonBuilder().registerTypeAdapterFactory(
+				ModelTypeAdapterFactory.forProjection(AmountHolder.class,
+						new HashSet<String>(Arrays.asList("id", "value", "values")))).create();
+
+		AmountHolder holder = gson.fromJson("{\"id\":\"H1\",\"value\":\"1.50\",\"values\":[\"2\",\"3.25\"]}",
+				AmountHolder.class);
+
+		assertEquals("H1", holder.id);
+		assertEquals(new BigDecimal("1.50"), holder.value);
+		assertEquals(new BigDecimal("3.25"), holder.values.get(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testProjectionUnknownField() {
+		ApiDefinition apiDefinition = new ApiDefinition(ApiType.GET_ENTITY, LoanAccount.class);
+		apiDefinition.setProjectedFields(Arrays.asList("id", "noSuchField"));
+
+		GsonUtils.createDeserializerGson(apiDefinition).fromJson("{\"id\":\"ABC123\"}", LoanAccount.class);
+	}
+
+	private static class ValueHolder<T> {
+		T value;
+		List<T> values;
+	}
+
+	private static class AmountHolder extends ValueHolder<BigDecimal> {
+		String id;
+	}
+}
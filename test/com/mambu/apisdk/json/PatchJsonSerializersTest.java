@@ -0,0 +1,133 @@
+package com.mambu.apisdk.json;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Test;
+
+import com.mambu.accounts.shared.model.InterestAccountSettings;
+import com.mambu.apisdk.util.ApiDefinition;
+import com.mambu.apisdk.util.ApiDefinition.ApiType;
+import com.mambu.apisdk.util.DateCodec;
+import com.mambu.apisdk.util.ParamsMap;
+import com.mambu.apisdk.util.ServiceHelper;
+import com.mambu.clients.shared.model.Client;
+import com.mambu.core.shared.model.ClientRole;
+import com.mambu.core.shared.model.Gender;
+import com.mambu.loans.shared.model.DisbursementDetails;
+import com.mambu.loans.shared.model.LoanAccount;
+import com.mambu.loans.shared.model.LoanAccount.RepaymentPeriodUnit;
+import com.mambu.loans.shared.model.LoanProduct;
+import com.mambu.loans.shared.model.PrincipalPaymentAccountSettings;
+import com.mambu.loans.shared.model.Repayment;
+import com.mambu.savings.shared.model.SavingsAccount;
+
+public class PatchJsonSerializersTest {
+
+	private final static Date DISBURSEMENT_DATE = new Date(1420070400000L);
+	private final static Date FIRST_REPAYMENT_DATE = new Date(1422748800000L);
+
+	@Test
+	public void testLoanAccountPatch() {
+		ApiDefinition apiDefinition = new ApiDefinition(ApiType.PATCH_ENTITY, LoanAccount.class);
+		apiDefinition.addJsonTypeAdapter(LoanAccount.class, new LoanAccountPatchJsonAdapter());
+
+		String expected = "{\"loanAccount\":{\"loanAmount\":1000.50,\"periodicPayment\":0,"
+				+ "\"repaymentPeriodUnit\":\"MONTHS\",\"repaymentInstallments\":12,\"gracePeriod\":1,"
+				+ "\"interestRate\":5.5,\"principalRepaymentInterval\":1,\"penaltyRate\":1,"
+				+ "\"principalPaymentSettings\":{\"percentage\":20},\"expectedDisbursementDate\":\""
+				+ DateCodec.DATE_TIME.format(DISBURSEMENT_DATE) + "\",\"firstRepaymentDate\":\""
+				+ DateCodec.DATE_TIME.format(FIRST_REPAYMENT_DATE) + "\"}}";
+		assertEquals(expected, ServiceHelper.makeApiJson(createLoanAccount(), apiDefinition));
+
+		// Fields with default values only
+		assertEquals("{\"loanAccount\":{\"loanAmount\":0,\"periodicPayment\":0,\"repaymentInstallments\":0,"
+				+ "\"gracePeriod\":0,\"principalRepaymentInterval\":1}}",
+				ServiceHelper.makeApiJson(new LoanAccount(), apiDefinition));
+	}
+
+	@Test
+	public void testLoanProductSchedule() {
+		ApiDefinition apiDefinition = new ApiDefinition(ApiType.GET_RELATED_ENTITIES, LoanProduct.class,
+				Repayment.class);
+		apiDefinition.addJsonTypeAdapter(LoanAccount.class, new LoanProductScheduleJsonAdapter());
+
+		ParamsMap params = ServiceHelper.makeParamsForLoanSchedule(createLoanAccount(), apiDefinition);
+		assertEquals("{loanAmount=1000.50, periodicPayment=0, repaymentPeriodUnit=MONTHS, repaymentInstallments=12, "
+				+ "gracePeriod=1, interestRate=5.5, principalRepaymentInterval=1, anticipatedDisbursement="
+				+ DateCodec.DATE.format(DISBURSEMENT_DATE) + ", firstRepaymentDate="
+				+ DateCodec.DATE.format(FIRST_REPAYMENT_DATE) + ", fixedDaysOfMonth=2,15}", params.toString());
+	}
+
+	@Test
+	public void testSavingsAccountPatch() {
+		SavingsAccount account = new SavingsAccount();
+		account.setId("S1");
+		account.setTargetAmount(new BigDecimal("300"));
+		account.setOverdraftLimit(new BigDecimal("50"));
+		account.setOverdraftExpiryDate(DISBURSEMENT_DATE);
+		InterestAccountSettings interestSettings = new InterestAccountSettings();
+		interestSettings.setInterestRate(new BigDecimal("2.5"));
+		interestSettings.setInterestSpread(new BigDecimal("0.5"));
+		account.setInterestSettings(interestSettings);
+		InterestAccountSettings overdraftSettings = new InterestAccountSettings();
+		overdraftSettings.setInterestRate(new BigDecimal("9"));
+		account.setOverdraftInterestSettings(overdraftSettings);
+
+		ApiDefinition apiDefinition = new ApiDefinition(ApiType.PATCH_ENTITY, SavingsAccount.class);
+		apiDefinition.addJsonTypeAdapter(SavingsAccount.class, new SavingsAccountPatchJsonAdapter());
+
+		String expected = "{\"savingsAccount\":{\"targetAmount\":300,\"overdraftExpiryDate\":\""
+				+ DateCodec.DATE_TIME.format(DISBURSEMENT_DATE) + "\",\"overdraftLimit\":50,\"interestRate\":2.5,"
+				+ "\"interestSpread\":0.5,\"overdraftInterestRate\":9}}";
+		assertEquals(expected, ServiceHelper.makeApiJson(account, apiDefinition));
+	}
+
+	@Test
+	public void testClientPatch() throws Exception {
+		Client client = new Client("John", "Doe");
+		client.setId("C1");
+		client.setEmailAddress("j@x.com");
+		client.setNotes("n");
+		client.setGender(Gender.MALE);
+		ClientRole clientRole = new ClientRole();
+		Field encodedKey = ClientRole.class.getDeclaredField("encodedKey");
+		encodedKey.setAccessible(true);
+		encodedKey.set(clientRole, "8a8");
+		client.setClientRole(clientRole);
+
+		ApiDefinition apiDefinition = new ApiDefinition(ApiType.PATCH_ENTITY, Client.class);
+		apiDefinition.addJsonTypeAdapter(Client.class, new ClientPatchJsonAdapter());
+
+		String expected = "{\"client\":{\"state\":\"INACTIVE\",\"id\":\"C1\",\"firstName\":\"John\","
+				+ "\"lastName\":\"Doe\",\"emailAddress\":\"j@x.com\",\"gender\":\"MALE\",\"notes\":\"n\","
+				+ "\"preferredLanguage\":\"ENGLISH\",\"clientRoleId\":\"8a8\"}}";
+		assertEquals(expected, ServiceHelper.makeApiJson(client, apiDefinition));
+	}
+
+	private static LoanAccount createLoanAccount() {
+		LoanAccount account = new LoanAccount();
+		account.setId("L1");
+		account.setLoanAmount(new BigDecimal("1000.50"));
+		account.setInterestRate(new BigDecimal("5.5"));
+		account.setRepaymentInstallments(12);
+		account.setGracePeriod(1);
+		account.setPenaltyRate(new BigDecimal("1"));
+		account.setRepaymentPeriodUnit(RepaymentPeriodUnit.MONTHS);
+		account.setFixedDaysOfMonth(new ArrayList<Integer>(Arrays.asList(2, 15)));
+		account.setNotes("not patched");
+		DisbursementDetails disbursementDetails = new DisbursementDetails();
+		disbursementDetails.setExpectedDisbursementDate(DISBURSEMENT_DATE);
+		disbursementDetails.setFirstRepaymentDate(FIRST_REPAYMENT_DATE);
+		account.setDisbursementDetails(disbursementDetails);
+		PrincipalPaymentAccountSettings principalPaymentSettings = new PrincipalPaymentAccountSettings();
+		principalPaymentSettings.setPercentage(new BigDecimal("20"));
+		account.setPrincipalPaymentSettings(principalPaymentSettings);
+		return account;
+	}
+}
@@ -0,0 +1,145 @@
+package com.mambu.apisdk.replica;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.mambu.accounts.shared.model.AccountState;
+import com.mambu.apisdk.util.MambuEntityType;
+import com.mambu.loans.shared.model.LoanAccount;
+
+public class ReplicaStoreTest {
+
+	private File logFile;
+	private ReplicaStore store;
+
+	@Before
+	public void setUp() throws IOException {
+		logFile = File.createTempFile("replica", ".log");
+		logFile.deleteOnExit();
+		store = new ReplicaStore(logFile);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		store.close();
+		logFile.delete();
+	}
+
+	@Test
+	public void testPutAndGet() throws IOException {
+		store.put(MambuEntityType.LOAN_ACCOUNT, makeLoan("L1", "branch1", "user1", AccountState.ACTIVE));
+		store.put(MambuEntityType.LOAN_ACCOUNT, makeLoan("L2", "branch1", "user2", AccountState.APPROVED));
+		store.put(MambuEntityType.LOAN_ACCOUNT, makeLoan("L3", "branch2", "user1", AccountState.ACTIVE));
+
+		LoanAccount loan = store.get(MambuEntityType.LOAN_ACCOUNT, "L2");
+		assertEquals("L2", loan.getId());
+		assertEquals(AccountState.APPROVED, loan.getAccountState());
+		assertNull(store.get(MambuEntityType.LOAN_ACCOUNT, "L4"));
+
+		assertEquals(2, store.getByBranch(MambuEntityType.LOAN_ACCOUNT, "branch1").size());
+		assertEquals(2, store.getByAssignedUser(MambuEntityType.LOAN_ACCOUNT, "user1").size());
+		assertEquals(2, store.getByState(MambuEntityType.LOAN_ACCOUNT, AccountState.ACTIVE.name()).size());
+	}
+
+	@Test
+	public void testReplaceAndRemove() throws IOException {
+		store.put(MambuEntityType.LOAN_ACCOUNT, makeLoan("L1", "branch1", "user1", AccountState.APPROVED));
+		store.put(MambuEntityType.LOAN_ACCOUNT, makeLoan("L1", "branch2", "user1", AccountState.ACTIVE));
+
+		assertEquals(1, store.size(MambuEntityType.LOAN_ACCOUNT));
+		assertTrue(store.getByBranch(MambuEntityType.LOAN_ACCOUNT, "branch1").isEmpty());
+		assertTrue(store.getByState(MambuEntityType.LOAN_ACCOUNT, AccountState.APPROVED.name()).isEmpty());
+
+		assertTrue(store.remove(MambuEntityType.LOAN_ACCOUNT, "L1"));
+		assertFalse(store.remove(MambuEntityType.LOAN_ACCOUNT, "L1"));
+		assertEquals(0, store.size(MambuEntityType.LOAN_ACCOUNT));
+	}
+
+	@Test
+	public void testReopenRebuildsIndex() throws IOException {
+		store.put(MambuEntityType.LOAN_ACCOUNT, makeLoan("L1", "branch1", "user1", AccountState.ACTIVE));
+		store.put(MambuEntityType.LOAN_ACCOUNT, makeLoan("L2", "branch1", "user1", AccountState.ACTIVE));
+		store.remove(MambuEntityType.LOAN_ACCOUNT, "L1");
+		store.close();
+
+		store = new ReplicaStore(logFile);
+		assertEquals(1, store.size(MambuEntityType.LOAN_ACCOUNT));
+		List<LoanAccount> loans = store.getByBranch(MambuEntityType.LOAN_ACCOUNT, "branch1");
+		assertEquals(1, loans.size());
+		assertEquals("L2", loans.get(0).getId());
+
+		// New records are appended after the existing ones
+		store.put(MambuEntityType.LOAN_ACCOUNT, makeLoan("L3", "branch1", "user1", AccountState.ACTIVE));
+		assertEquals("L2", ((LoanAccount) store.get(MambuEntityType.LOAN_ACCOUNT, "L2")).getId());
+		assertEquals(2, store.size(MambuEntityType.LOAN_ACCOUNT));
+	}
+
+	@Test
+	public void testUnchangedNotAppended() throws IOException {
+		assertTrue(store.put(MambuEntityType.LOAN_ACCOUNT, makeLoan("L1", "branch1", "user1", AccountState.ACTIVE)));
+		int logSize = store.getLogSize();
+
+		assertFalse(store.put(MambuEntityType.LOAN_ACCOUNT, makeLoan("L1", "branch1", "user1", AccountState.ACTIVE)));
+		assertEquals(logSize, store.getLogSize());
+
+		assertTrue(store.put(MambuEntityType.LOAN_ACCOUNT, makeLoan("L1", "branch1", "user1", AccountState.CLOSED)));
+		assertTrue(store.getLogSize() > logSize);
+	}
+
+	@Test
+	public void testCompact() throws IOException {
+		for (int i = 0; i < 10; i++) {
+			store.put(MambuEntityType.LOAN_ACCOUNT, makeLoan("L1", "branch" + i, "user1", AccountState.ACTIVE));
+			store.put(MambuEntityType.LOAN_ACCOUNT, makeLoan("L" + (i + 2), "branch1", "user1", AccountState.ACTIVE));
+		}
+		store.remove(MambuEntityType.LOAN_ACCOUNT, "L2");
+		int logSize = store.getLogSize();
+
+		store.compact();
+		assertTrue(store.getLogSize() < logSize);
+		assertEquals(10, store.size(MambuEntityType.LOAN_ACCOUNT));
+		assertEquals("branch9", ((LoanAccount) store.get(MambuEntityType.LOAN_ACCOUNT, "L1")).getAssignedBranchKey());
+		assertNull(store.get(MambuEntityType.LOAN_ACCOUNT, "L2"));
+
+		// The compacted log replaced the log file
+		store.close();
+		store = new ReplicaStore(logFile);
+		assertEquals(10, store.size(MambuEntityType.LOAN_ACCOUNT));
+		assertEquals(9, store.getByBranch(MambuEntityType.LOAN_ACCOUNT, "branch1").size());
+	}
+
+	@Test
+	public void testRemoveAllExcept() throws IOException {
+		store.put(MambuEntityType.LOAN_ACCOUNT, makeLoan("L1", "branch1", "user1", AccountState.ACTIVE));
+		store.put(MambuEntityType.LOAN_ACCOUNT, makeLoan("L2", "branch1", "user1", AccountState.ACTIVE));
+		store.put(MambuEntityType.LOAN_ACCOUNT, makeLoan("L3", "branch1", "user1", AccountState.ACTIVE));
+
+		assertEquals(2, store.removeAllExcept(MambuEntityType.LOAN_ACCOUNT, Collections.singleton("L2")));
+		assertEquals(1, store.size(MambuEntityType.LOAN_ACCOUNT));
+		assertNull(store.get(MambuEntityType.LOAN_ACCOUNT, "L1"));
+
+		store.close();
+		store = new ReplicaStore(logFile);
+		assertEquals(1, store.getByBranch(MambuEntityType.LOAN_ACCOUNT, "branch1").size());
+	}
+
+	private static LoanAccount makeLoan(String id, String branchKey, String userKey, AccountState state) {
+		LoanAccount loan = new LoanAccount();
+		loan.setId(id);
+		loan.setAssignedBranchKey(branchKey);
+		loan.setAssignedUserKey(userKey);
+		loan.setAccountState(state);
+		return loan;
+	}
+}
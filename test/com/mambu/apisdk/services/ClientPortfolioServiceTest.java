@@ -0,0 +1,77 @@
+package com.mambu.apisdk.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.mambu.apisdk.MambuAPIServiceTest;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.model.ClientPortfolio;
+import com.mambu.apisdk.model.ClientPortfolio.Part;
+import com.mambu.apisdk.util.ParallelCallsExecutor;
+import com.mambu.apisdk.util.ParamsMap;
+import com.mambu.apisdk.util.RequestExecutor.ContentType;
+import com.mambu.apisdk.util.RequestExecutor.Method;
+
+public class ClientPortfolioServiceTest extends MambuAPIServiceTest {
+
+	private ClientPortfolioService service;
+
+	@Override
+	public void setUp() throws MambuApiException {
+		super.setUp();
+
+		service = new ClientPortfolioService(new ClientsService(mambuApiService), new LoansService(mambuApiService),
+				new SavingsService(mambuApiService), new LinesOfCreditService(mambuApiService), new TasksService(
+						mambuApiService), new DocumentsService(mambuApiService), new CommentsService(mambuApiService),
+				new ParallelCallsExecutor());
+	}
+
+	/***
+	 * Test that a failed request doesn't prevent other portfolio parts from being returned
+	 *
+	 */
+	@Test
+	public void testGetClientPortfolioWithPartialFailure() throws MambuApiException {
+
+		when(executor.executeRequest(anyString(), any(ParamsMap.class), any(Method.class), any(ContentType.class)))
+				.thenAnswer(new Answer<String>() {
+					@Override
+					public String answer(InvocationOnMock invocation) throws Throwable {
+						String url = (String) invocation.getArguments()[0];
+						if (url.endsWith("clients/abc123/loans")) {
+							throw new MambuApiException(500, "Internal error");
+						}
+						if (url.endsWith("clients/abc123")) {
+							return "{}";
+						}
+						return "[]";
+					}
+				});
+
+		// execute
+		ClientPortfolio portfolio = service.getClientPortfolio("abc123");
+
+		// verify
+		assertFalse(portfolio.isComplete());
+		assertEquals(1, portfolio.getErrors().size());
+		assertEquals(Integer.valueOf(500), portfolio.getError(Part.LOAN_ACCOUNTS).getErrorCode());
+		assertNull(portfolio.getLoanAccounts());
+
+		assertNotNull(portfolio.getClientDetails());
+		assertTrue(portfolio.getSavingsAccounts().isEmpty());
+		assertTrue(portfolio.getLinesOfCredit().isEmpty());
+		assertTrue(portfolio.getTasks().isEmpty());
+		assertTrue(portfolio.getDocuments().isEmpty());
+		assertTrue(portfolio.getComments().isEmpty());
+	}
+}
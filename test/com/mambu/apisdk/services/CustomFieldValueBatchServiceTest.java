@@ -0,0 +1,128 @@
+package com.mambu.apisdk.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.mambu.apisdk.MambuAPIServiceTest;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.model.CustomFieldValuesUpdate;
+import com.mambu.apisdk.util.APIData;
+import com.mambu.apisdk.util.BatchReport;
+import com.mambu.apisdk.util.MambuEntityType;
+import com.mambu.apisdk.util.ParallelCallsExecutor;
+import com.mambu.apisdk.util.ParamsMap;
+import com.mambu.apisdk.util.RequestExecutor.ContentType;
+import com.mambu.apisdk.util.RequestExecutor.Method;
+import com.mambu.core.shared.model.CustomFieldValue;
+
+public class CustomFieldValueBatchServiceTest extends MambuAPIServiceTest {
+
+	private CustomFieldValueBatchService service;
+
+	@Override
+	public void setUp() throws MambuApiException {
+		super.setUp();
+
+		service = new CustomFieldValueBatchService(new CustomFieldValueService(super.mambuApiService),
+				new OrganizationService(super.mambuApiService), new ParallelCallsExecutor());
+		service.setMaxRequestsPerSecond(0);
+	}
+
+	/***
+	 * Test that updates for the same entity and custom field set are merged into one request and failures are
+	 * reported per request
+	 *
+	 */
+	@Test
+	public void testUpdateMergesByEntityAndSet() throws MambuApiException {
+
+		final List<String> requests = new CopyOnWriteArrayList<String>();
+		when(executor.executeRequest(anyString(), any(ParamsMap.class), any(Method.class), any(ContentType.class)))
+				.thenAnswer(new Answer<String>() {
+					@Override
+					public String answer(InvocationOnMock invocation) throws Throwable {
+						String url = (String) invocation.getArguments()[0];
+						if (url.endsWith("/customfieldsets")) {
+							// Fields X and Y belong to different sets
+							return "[{\"encodedKey\":\"S1\",\"customFields\":[{\"id\":\"X\"}]},"
+									+ "{\"encodedKey\":\"S2\",\"customFields\":[{\"id\":\"Y\"}]}]";
+						}
+						requests.add(url + " " + ((ParamsMap) invocation.getArguments()[1]).get(APIData.JSON_OBJECT));
+						if (url.contains("clients/B")) {
+							throw new MambuApiException(400, "Invalid value");
+						}
+						if (url.contains("clients/C")) {
+							return "{\"returnCode\":1,\"returnStatus\":\"INVALID_PARAMETERS\"}";
+						}
+						return "{\"returnCode\":0,\"returnStatus\":\"SUCCESS\"}";
+					}
+				});
+
+		List<CustomFieldValuesUpdate> updates = new ArrayList<CustomFieldValuesUpdate>();
+		updates.add(new CustomFieldValuesUpdate(MambuEntityType.CLIENT, "A", Collections.singletonList(makeValue("X",
+				"1"))));
+		updates.add(new CustomFieldValuesUpdate(MambuEntityType.CLIENT, "B", Collections.singletonList(makeValue("X",
+				"1"))));
+		updates.add(new CustomFieldValuesUpdate(MambuEntityType.CLIENT, "A", Arrays.asList(makeValue("X", "2"),
+				makeValue("Y", "3"))));
+		updates.add(new CustomFieldValuesUpdate(MambuEntityType.CLIENT, "C", Collections.singletonList(makeValue("X",
+				"4"))));
+
+		// execute
+		BatchReport<CustomFieldValuesUpdate> report = service.update(updates);
+
+		// verify
+		verify(executor, times(1)).executeRequest(eq("https://demo.mambutest.com/api/customfieldsets"),
+				any(ParamsMap.class), eq(Method.GET), any(ContentType.class));
+		assertEquals(4, requests.size());
+		assertEquals(4, report.getSize());
+		assertEquals(2, report.getSuccessCount());
+		assertEquals(2, report.getFailureCount());
+
+		// One request for each set of client A
+		List<CustomFieldValuesUpdate> successes = report.getSuccesses();
+		assertEquals("A", successes.get(0).getEntityId());
+		assertEquals(1, successes.get(0).getCustomFieldValues().size());
+		assertEquals("2", successes.get(0).getCustomFieldValues().get(0).getValue());
+		assertEquals("A", successes.get(1).getEntityId());
+		assertEquals("Y", successes.get(1).getCustomFieldValues().get(0).getCustomFieldId());
+		for (String request : requests) {
+			assertFalse(request.contains("clients/A") && request.contains("\"value\":\"1\""));
+			assertFalse(request.contains("\"X\"") && request.contains("\"Y\""));
+		}
+
+		for (Map.Entry<CustomFieldValuesUpdate, MambuApiException> failure : report.getFailures().entrySet()) {
+			if (failure.getKey().getEntityId().equals("B")) {
+				assertEquals(Integer.valueOf(400), failure.getValue().getErrorCode());
+			} else {
+				// Request not reported as successful by Mambu
+				assertEquals("C", failure.getKey().getEntityId());
+				assertEquals(Integer.valueOf(-1), failure.getValue().getErrorCode());
+			}
+		}
+	}
+
+	private static CustomFieldValue makeValue(String fieldId, String value) {
+		CustomFieldValue fieldValue = new CustomFieldValue();
+		fieldValue.setCustomFieldId(fieldId);
+		fieldValue.setValue(value);
+		return fieldValue;
+	}
+}
@@ -0,0 +1,132 @@
+package com.mambu.apisdk.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+
+import com.mambu.api.server.handler.customviews.model.ApiViewType;
+import com.mambu.api.server.handler.customviews.model.ResultType;
+import com.mambu.apisdk.MambuAPIServiceTest;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.model.CustomViewExportReport;
+import com.mambu.apisdk.services.CustomViewExportService.CustomViewEntitySink;
+import com.mambu.apisdk.util.APIData;
+import com.mambu.apisdk.util.ParallelCallsExecutor;
+import com.mambu.apisdk.util.ParamsMap;
+import com.mambu.apisdk.util.RequestExecutor.ContentType;
+import com.mambu.apisdk.util.RequestExecutor.Method;
+import com.mambu.clients.shared.model.Client;
+import com.mambu.clients.shared.model.ClientExpanded;
+
+public class CustomViewExportServiceTest extends MambuAPIServiceTest {
+
+	private CustomViewExportService service;
+	// Number of clients in the view and count returned with the summary
+	private volatile int clientsCount;
+	private volatile int summaryCount;
+	private final CopyOnWriteArraySet<String> resultTypes = new CopyOnWriteArraySet<String>();
+	private final PagedResponse response = new PagedResponse(null) {
+		@Override
+		public String answer(InvocationOnMock invocation) throws Throwable {
+			ParamsMap params = (ParamsMap) invocation.getArguments()[1];
+			if (ResultType.SUMMARY.name().equals(params.get(APIData.RESULT_TYPE))) {
+				return "{\"summary\":{\"count\":\"" + summaryCount + "\"}}";
+			}
+			return super.answer(invocation);
+		}
+
+		// Clients of the view, wrapped for the full details result type
+		@Override
+		List<String> getItems(ParamsMap params) {
+			String resultType = params.get(APIData.RESULT_TYPE);
+			resultTypes.add(resultType);
+			List<String> clients = new ArrayList<String>();
+			for (int i = 0; i < clientsCount; i++) {
+				String client = "{\"id\":\"C" + i + "\"}";
+				clients.add(ResultType.FULL_DETAILS.name().equals(resultType) ? "{\"client\":" + client + "}" : client);
+			}
+			return clients;
+		}
+	};
+
+	@Override
+	public void setUp() throws MambuApiException {
+		super.setUp();
+
+		service = new CustomViewExportService(new CustomViewsService(super.mambuApiService),
+				new ParallelCallsExecutor());
+		service.setPageSize(2);
+
+		when(executor.executeRequest(anyString(), any(ParamsMap.class), any(Method.class), any(ContentType.class)))
+				.thenAnswer(response);
+	}
+
+	/***
+	 * Test that all pages are exported in order and the count is verified against the summary
+	 *
+	 */
+	@Test
+	public void testExport() throws MambuApiException {
+		clientsCount = 5;
+		summaryCount = 5;
+		final List<String> ids = new ArrayList<String>();
+		CustomViewExportReport report = service.export(ApiViewType.CLIENTS, null, "view1", ResultType.BASIC,
+				new CustomViewEntitySink<Client>() {
+					@Override
+					public void write(Client client) {
+						ids.add(client.getId());
+					}
+				});
+
+		assertTrue(report.isCountVerified());
+		assertEquals(5, report.getExportedCount());
+		for (int i = 0; i < 5; i++) {
+			assertEquals("C" + i, ids.get(i));
+		}
+		assertEquals(1, resultTypes.size());
+		assertTrue(resultTypes.contains(ResultType.BASIC.name()));
+	}
+
+	/***
+	 * Test that entities added after the summary are exported and reported as a count mismatch
+	 *
+	 */
+	@Test
+	public void testExportChangedView() throws MambuApiException {
+		clientsCount = 7;
+		summaryCount = 6;
+		final List<String> ids = new ArrayList<String>();
+		CustomViewExportReport report = service.export(ApiViewType.CLIENTS, null, "view1",
+				ResultType.FULL_DETAILS, new CustomViewEntitySink<ClientExpanded>() {
+					@Override
+					public void write(ClientExpanded client) {
+						ids.add(client.getClient().getId());
+					}
+				});
+
+		assertFalse(report.isCountVerified());
+		assertEquals(6, report.getSummaryCount());
+		assertEquals(7, report.getExportedCount());
+		assertEquals("C6", ids.get(6));
+		assertTrue(resultTypes.contains(ResultType.FULL_DETAILS.name()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSummaryResultType() throws MambuApiException {
+		service.export(ApiViewType.CLIENTS, null, "view1", ResultType.SUMMARY, new CustomViewEntitySink<Client>() {
+			@Override
+			public void write(Client client) {
+			}
+		});
+	}
+}
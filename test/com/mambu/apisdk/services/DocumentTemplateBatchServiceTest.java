@@ -0,0 +1,102 @@
+package com.mambu.apisdk.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.mambu.apisdk.MambuAPIServiceTest;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.model.DocumentTemplateJob;
+import com.mambu.apisdk.util.BatchReport;
+import com.mambu.apisdk.util.MambuEntityType;
+import com.mambu.apisdk.util.ParallelCallsExecutor;
+import com.mambu.apisdk.util.ParamsMap;
+import com.mambu.apisdk.util.RequestExecutor.ContentType;
+import com.mambu.apisdk.util.RequestExecutor.Method;
+
+public class DocumentTemplateBatchServiceTest extends MambuAPIServiceTest {
+
+	private DocumentTemplateBatchService service;
+	private final Thread testThread = Thread.currentThread();
+	private final Map<DocumentTemplateJob, String> written = new LinkedHashMap<DocumentTemplateJob, String>();
+	private final DocumentTemplateBatchService.DocumentSink sink = new DocumentTemplateBatchService.DocumentSink() {
+		@Override
+		public void write(DocumentTemplateJob job, String document) throws IOException {
+			// Documents are written on the calling thread
+			assertEquals(testThread, Thread.currentThread());
+			written.put(job, document);
+		}
+	};
+
+	@Override
+	public void setUp() throws MambuApiException {
+		super.setUp();
+
+		service = new DocumentTemplateBatchService(new DocumentTemplatesService(super.mambuApiService),
+				new ParallelCallsExecutor());
+	}
+
+	/***
+	 * Test that documents are passed to the sink and only the failed documents are requested again
+	 *
+	 */
+	@Test
+	public void testRenderAndRerun() throws MambuApiException {
+		final AtomicInteger failures = new AtomicInteger(1);
+		when(executor.executeRequest(anyString(), any(ParamsMap.class), any(Method.class), any(ContentType.class)))
+				.thenAnswer(new Answer<String>() {
+					@Override
+					public String answer(InvocationOnMock invocation) throws Throwable {
+						String url = (String) invocation.getArguments()[0];
+						if (url.contains("/SAV2/") && failures.getAndDecrement() > 0) {
+							throw new MambuApiException(500, "Template failed");
+						}
+						return "<html>" + url.substring(url.lastIndexOf("/api/")) + "</html>";
+					}
+				});
+
+		DocumentTemplateJob job1 = makeJob("SAV1");
+		DocumentTemplateJob job2 = makeJob("SAV2");
+		List<DocumentTemplateJob> jobs = Arrays.asList(job1, job2, makeJob("SAV1"));
+
+		BatchReport<DocumentTemplateJob> report = service.render(jobs, sink);
+		assertEquals(2, report.getSize());
+		assertEquals(1, report.getFailureCount());
+		assertTrue(report.getFailures().containsKey(job2));
+		assertEquals("<html>/api/savings/SAV1/templates/TPL1</html>", written.get(job1));
+		assertEquals(1, written.size());
+
+		// Re-run: the first document is taken from the cache
+		report = service.render(jobs, sink);
+		assertEquals(0, report.getFailureCount());
+		assertEquals("<html>/api/savings/SAV2/templates/TPL1</html>", written.get(job2));
+		assertEquals(Integer.valueOf(45), report.getResult(job2).getResult());
+		verify(executor, times(3)).executeRequest(anyString(), any(ParamsMap.class), any(Method.class),
+				any(ContentType.class));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsupportedEntity() throws MambuApiException {
+		service.render(Arrays.asList(new DocumentTemplateJob(MambuEntityType.CLIENT, "C1", "TPL1", null, null)), sink);
+	}
+
+	private static DocumentTemplateJob makeJob(String accountId) {
+		return new DocumentTemplateJob(MambuEntityType.SAVINGS_ACCOUNT, accountId, "TPL1", "2015-06-01",
+				"2015-06-30");
+	}
+}
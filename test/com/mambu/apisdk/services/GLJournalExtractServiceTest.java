@@ -0,0 +1,119 @@
+package com.mambu.apisdk.services;
+
+import static com.mambu.apisdk.services.PagedResponse.june;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.mambu.accounting.shared.model.GLJournalEntry;
+import com.mambu.apisdk.MambuAPIServiceTest;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.services.GLJournalExtractService.GLJournalEntrySink;
+import com.mambu.apisdk.util.APIData;
+import com.mambu.apisdk.util.ParallelCallsExecutor;
+import com.mambu.apisdk.util.ParamsMap;
+import com.mambu.apisdk.util.RequestExecutor.ContentType;
+import com.mambu.apisdk.util.RequestExecutor.Method;
+
+public class GLJournalExtractServiceTest extends MambuAPIServiceTest {
+
+	// Entries on the server, as {day of June 2015, entry id}. Day 3 is dense. Entry 100 is returned for days 7 and 8
+	private final static int[][] serverEntries = { { 1, 1 }, { 2, 2 }, { 3, 30 }, { 3, 31 }, { 3, 32 }, { 3, 33 },
+			{ 3, 34 }, { 3, 35 }, { 4, 4 }, { 7, 100 }, { 8, 100 }, { 9, 9 }, { 14, 14 } };
+
+	private GLJournalExtractService service;
+	private final AtomicInteger requestsCount = new AtomicInteger();
+	private final PagedResponse response = new PagedResponse(APIData.FROM) {
+		// Server entries between the from and to dates of the params
+		@Override
+		List<String> getItems(ParamsMap params) {
+			requestsCount.incrementAndGet();
+			List<String> entries = new ArrayList<String>();
+			for (int[] entry : serverEntries) {
+				String date = String.format("2015-06-%02d", entry[0]);
+				if (date.compareTo(params.get(APIData.FROM)) >= 0 && date.compareTo(params.get(APIData.TO)) <= 0) {
+					entries.add("{\"entryID\":" + entry[1] + ",\"entryDate\":\"" + date + "T00:00:00+0000\"}");
+				}
+			}
+			return entries;
+		}
+	};
+
+	@Override
+	public void setUp() throws MambuApiException {
+		super.setUp();
+
+		service = new GLJournalExtractService(new AccountingService(super.mambuApiService),
+				new ParallelCallsExecutor());
+		service.setWindowDays(7);
+		service.setPageSize(2);
+		service.setMaxPagesPerWindow(2);
+
+		when(executor.executeRequest(anyString(), any(ParamsMap.class), any(Method.class), any(ContentType.class)))
+				.thenAnswer(response);
+	}
+
+	/***
+	 * Test that dense windows are split and that all entries are passed once, in date order
+	 *
+	 */
+	@Test
+	public void testExtract() throws MambuApiException {
+		final List<GLJournalEntry> extracted = new ArrayList<GLJournalEntry>();
+		long count = service.extract(null, june(1), june(14), new GLJournalEntrySink() {
+			@Override
+			public void write(GLJournalEntry entry) {
+				extracted.add(entry);
+			}
+		});
+
+		assertEquals(12, count);
+		assertEquals(12, extracted.size());
+		Set<Long> ids = new HashSet<Long>();
+		for (int i = 0; i < extracted.size(); i++) {
+			assertTrue(ids.add(extracted.get(i).getEntryId()));
+			if (i > 0) {
+				assertFalse(extracted.get(i).getEntryDate().before(extracted.get(i - 1).getEntryDate()));
+			}
+		}
+		assertEquals(Long.valueOf(1), extracted.get(0).getEntryId());
+		assertEquals(Long.valueOf(14), extracted.get(11).getEntryId());
+		// The first window was split: more requests than pages of two windows
+		assertTrue(requestsCount.get() > 4);
+	}
+
+	/***
+	 * Test that a failed window fails the extract after the earlier windows were passed
+	 *
+	 */
+	@Test
+	public void testExtractFailure() {
+		response.setFailingValue("2015-06-08");
+		final List<GLJournalEntry> extracted = new ArrayList<GLJournalEntry>();
+		try {
+			service.extract(null, june(1), june(14), new GLJournalEntrySink() {
+				@Override
+				public void write(GLJournalEntry entry) throws IOException {
+					extracted.add(entry);
+				}
+			});
+			fail("Extract must fail");
+		} catch (MambuApiException e) {
+			assertEquals(Integer.valueOf(500), e.getErrorCode());
+		}
+		assertEquals(10, extracted.size());
+	}
+}
@@ -0,0 +1,180 @@
+package com.mambu.apisdk.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.mambu.apisdk.MambuAPIServiceTest;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.model.GLJournal;
+import com.mambu.apisdk.model.GLJournalImportReport;
+import com.mambu.apisdk.util.GLJournalCsvReader;
+import com.mambu.apisdk.util.GLJournalImportCheckpoint;
+import com.mambu.apisdk.util.ParamsMap;
+import com.mambu.apisdk.util.RequestExecutor.ContentType;
+import com.mambu.apisdk.util.RequestExecutor.Method;
+
+public class GLJournalImportServiceTest extends MambuAPIServiceTest {
+
+	private final static String csv = "journalId,branchId,date,glCode,entryType,amount,notes\n"
+			+ "J1,BR1,2015-06-30,100001,DEBIT,1250.75,\"Notes, with comma\"\n"
+			+ "J1,BR1,2015-06-30,100002,CREDIT,1000.70,\n" //
+			+ "J1,BR1,2015-06-30,100003,CREDIT,250.05,\n" //
+			+ "J2,BR2,2015-06-30,100001,DEBIT,10,\n" //
+			+ "J2,BR2,2015-06-30,100002,CREDIT,9.99,\n" //
+			+ "J3,BR1,2015-06-30,100001,DEBIT,0.1,\n" //
+			+ "J3,BR1,2015-06-30,100002,CREDIT,0.1,\n" //
+			+ "J4,BR2,2015-06-30,100001,DEBIT,5,\n" //
+			+ "J4,BR2,2015-06-30,100002,CREDIT,5,\n";
+
+	private GLJournalImportService service;
+	private final List<ParamsMap> postedParams = new CopyOnWriteArrayList<ParamsMap>();
+
+	@Override
+	public void setUp() throws MambuApiException {
+		super.setUp();
+
+		service = new GLJournalImportService(new AccountingService(super.mambuApiService));
+
+		when(executor.executeRequest(anyString(), any(ParamsMap.class), any(Method.class), any(ContentType.class)))
+				.thenAnswer(new Answer<String>() {
+					@Override
+					public String answer(InvocationOnMock invocation) throws Throwable {
+						ParamsMap params = (ParamsMap) invocation.getArguments()[1];
+						if ("5".equals(params.get("debitAmount1"))) {
+							throw new MambuApiException(400, "{\"returnCode\":1}");
+						}
+						if ("7".equals(params.get("debitAmount1"))) {
+							throw new MambuApiException(502, "Bad Gateway");
+						}
+						postedParams.add(params);
+						return "[]";
+					}
+				});
+	}
+
+	/***
+	 * Test that journals are read from CSV, validated locally and posted with exact amounts, and that the import is
+	 * resumed from its checkpoint
+	 *
+	 */
+	@Test
+	public void testImportAndResume() throws MambuApiException, IOException {
+		StringWriter savedCheckpoint = new StringWriter();
+		GLJournalImportReport report = service.importJournals(new GLJournalCsvReader(new StringReader(csv)),
+				new GLJournalImportCheckpoint(savedCheckpoint));
+
+		assertTrue(report.isCompleted());
+		assertEquals(2, report.getPostedCount());
+		assertEquals(2, report.getFailureCount());
+		// Not balanced, not posted
+		assertTrue(report.getFailures().get("J2").getMessage().contains("not balanced"));
+		assertEquals(Integer.valueOf(400), report.getFailures().get("J4").getErrorCode());
+		assertEquals(2, postedParams.size());
+
+		ParamsMap j1 = postedParams.get(0).get("debitAmount1").equals("1250.75") ? postedParams.get(0) : postedParams
+				.get(1);
+		assertEquals("1000.70", j1.get("creditAmount1"));
+		assertEquals("250.05", j1.get("creditAmount2"));
+		assertEquals("BR1", j1.get("branchId"));
+		assertEquals("Notes, with comma", j1.get("notes"));
+
+		// Resume: posted journals are skipped
+		GLJournalImportCheckpoint checkpoint = GLJournalImportCheckpoint.load(new StringReader(savedCheckpoint
+				.toString()), null);
+		assertEquals(2, checkpoint.getPostedCount());
+		report = service.importJournals(new GLJournalCsvReader(new StringReader(csv)), checkpoint);
+		assertEquals(0, report.getPostedCount());
+		assertEquals(2, report.getSkippedCount());
+		assertEquals(2, report.getFailureCount());
+	}
+
+	/***
+	 * Test that the journals read before an invalid line are posted and the import is reported as stopped
+	 *
+	 */
+	@Test
+	public void testStopOnInvalidLine() throws MambuApiException {
+		String invalidCsv = "J1,BR1,2015-06-30,100001,DEBIT,1,\nJ1,BR1,2015-06-30,100002,CREDIT,1,\n"
+				+ "J2,BR1,2015-06-30\n";
+		GLJournalImportCheckpoint checkpoint = new GLJournalImportCheckpoint();
+		GLJournalImportReport report = service.importJournals(new GLJournalCsvReader(new StringReader(invalidCsv)),
+				checkpoint);
+
+		assertFalse(report.isCompleted());
+		assertTrue(report.getStopCause().getMessage().contains("line 3"));
+		assertEquals(1, report.getPostedCount());
+		assertTrue(checkpoint.isPosted("J1"));
+	}
+
+	/***
+	 * Test that a journal left pending by a stopped import is not posted again until it is resolved
+	 *
+	 */
+	@Test
+	public void testPendingJournalNotPostedAgain() throws MambuApiException, IOException {
+		StringWriter savedCheckpoint = new StringWriter();
+		GLJournalImportCheckpoint checkpoint = GLJournalImportCheckpoint.load(new StringReader("J3\nJ1\tPENDING\n"),
+				savedCheckpoint);
+		assertTrue(checkpoint.isPending("J1"));
+
+		GLJournalImportReport report = service.importJournals(new GLJournalCsvReader(new StringReader(csv)),
+				checkpoint);
+		assertEquals(0, report.getPostedCount());
+		assertEquals(1, report.getSkippedCount());
+		assertTrue(report.getFailures().get("J1").getMessage().contains("may have been posted"));
+		// Pending and rejected states of J4 are recorded
+		assertEquals("J4\tPENDING\nJ4\tNOT_POSTED\n", savedCheckpoint.toString());
+
+		// Resolved as not posted: posted by the next import
+		checkpoint.markNotPosted("J1");
+		report = service.importJournals(new GLJournalCsvReader(new StringReader(csv)), checkpoint);
+		assertEquals(1, report.getPostedCount());
+		assertTrue(checkpoint.isPosted("J1"));
+	}
+
+	/***
+	 * Test that a journal with an id which can't be recorded in the checkpoint is reported as a failure, and that a
+	 * journal failed with a server error stays pending
+	 *
+	 */
+	@Test
+	public void testInvalidIdAndServerError() throws MambuApiException, IOException {
+		String serverErrorCsv = "J\t0,BR1,2015-06-30,100001,DEBIT,1,\nJ\t0,BR1,2015-06-30,100002,CREDIT,1,\n"
+				+ "J5,BR1,2015-06-30,100001,DEBIT,7,\nJ5,BR1,2015-06-30,100002,CREDIT,7,\n"
+				+ "J6,BR1,2015-06-30,100001,DEBIT,1,\nJ6,BR1,2015-06-30,100002,CREDIT,1,\n";
+		StringWriter savedCheckpoint = new StringWriter();
+		GLJournalImportCheckpoint checkpoint = new GLJournalImportCheckpoint(savedCheckpoint);
+		GLJournalImportReport report = service.importJournals(new GLJournalCsvReader(new StringReader(
+				serverErrorCsv)), checkpoint);
+
+		assertTrue(report.isCompleted());
+		assertTrue(report.getFailures().get("J\t0").getMessage().contains("tabs or line breaks"));
+		assertEquals(Integer.valueOf(502), report.getFailures().get("J5").getErrorCode());
+		assertTrue(checkpoint.isPending("J5"));
+		assertEquals(1, report.getPostedCount());
+		assertEquals("J5\tPENDING\nJ6\tPENDING\nJ6\n", savedCheckpoint.toString());
+	}
+
+	@Test
+	public void testEmptyImport() throws MambuApiException {
+		GLJournalImportReport report = service.importJournals(Collections.<GLJournal> emptyList());
+		assertEquals(0, report.getPostedCount());
+		assertNull(report.getStopCause());
+	}
+}
@@ -0,0 +1,108 @@
+package com.mambu.apisdk.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.mambu.apisdk.MambuAPIServiceTest;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.model.IndicatorsSnapshot;
+import com.mambu.apisdk.util.ParallelCallsExecutor;
+import com.mambu.apisdk.util.ParamsMap;
+import com.mambu.apisdk.util.RequestExecutor.ContentType;
+import com.mambu.apisdk.util.RequestExecutor.Method;
+import com.mambu.intelligence.shared.model.Intelligence.Indicator;
+
+public class IndicatorsSnapshotServiceTest extends MambuAPIServiceTest {
+
+	private final static List<Indicator> indicators = Arrays.asList(Indicator.NUM_CLIENTS,
+			Indicator.GROSS_LOAN_PORTFOLIO, Indicator.TOTAL_DEPOSITS);
+
+	private IndicatorsSnapshotService service;
+
+	@Override
+	public void setUp() throws MambuApiException {
+		super.setUp();
+
+		service = new IndicatorsSnapshotService(new IntelligenceService(super.mambuApiService),
+				new ParallelCallsExecutor());
+
+		when(executor.executeRequest(anyString(), any(ParamsMap.class), any(Method.class), any(ContentType.class)))
+				.thenAnswer(new Answer<String>() {
+					@Override
+					public String answer(InvocationOnMock invocation) throws Throwable {
+						String url = (String) invocation.getArguments()[0];
+						String indicator = url.substring(url.lastIndexOf('/') + 1);
+						if (indicator.equals(Indicator.TOTAL_DEPOSITS.name())) {
+							throw new MambuApiException(500, "Indicator failed");
+						}
+						return "{\"" + indicator + "\":\"" + indicator.length() + ".5\"}";
+					}
+				});
+	}
+
+	/***
+	 * Test that all indicators are returned in the snapshot, failed indicators with their errors
+	 *
+	 */
+	@Test
+	public void testGetSnapshot() throws MambuApiException {
+		IndicatorsSnapshot snapshot = service.getSnapshot(indicators);
+
+		assertEquals(2, snapshot.getValues().size());
+		assertEquals(new BigDecimal("11.5"), snapshot.getValue(Indicator.NUM_CLIENTS));
+		assertEquals(new BigDecimal("20.5"), snapshot.getValue(Indicator.GROSS_LOAN_PORTFOLIO));
+		assertEquals(1, snapshot.getErrors().size());
+		assertEquals(Integer.valueOf(500), snapshot.getErrors().get(Indicator.TOTAL_DEPOSITS).getErrorCode());
+		assertTrue(snapshot.getTimestamp() <= System.currentTimeMillis());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testSnapshotImmutable() throws MambuApiException {
+		service.getSnapshot(indicators).getValues().put(Indicator.NUM_GROUPS, BigDecimal.ONE);
+	}
+
+	/***
+	 * Test that the background refresher keeps the latest snapshot
+	 *
+	 */
+	@Test
+	public void testRefreshing() throws InterruptedException {
+		assertNull(service.getLatestSnapshot());
+
+		service.startRefreshing(indicators, 20, TimeUnit.MILLISECONDS);
+		IndicatorsSnapshot first = waitForSnapshot(null);
+		assertEquals(new BigDecimal("11.5"), first.getValue(Indicator.NUM_CLIENTS));
+		// Refreshed after the period
+		assertNotNull(waitForSnapshot(first));
+
+		service.stopRefreshing();
+		assertNull(service.getLatestSnapshot());
+	}
+
+	// Wait for a snapshot different from the previous one
+	private IndicatorsSnapshot waitForSnapshot(IndicatorsSnapshot previous) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (System.currentTimeMillis() < deadline) {
+			IndicatorsSnapshot snapshot = service.getLatestSnapshot();
+			if (snapshot != null && snapshot != previous) {
+				return snapshot;
+			}
+			Thread.sleep(5);
+		}
+		return null;
+	}
+}
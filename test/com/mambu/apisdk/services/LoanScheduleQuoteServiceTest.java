@@ -0,0 +1,110 @@
+package com.mambu.apisdk.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.mambu.apisdk.MambuAPIServiceTest;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.ParamsMap;
+import com.mambu.apisdk.util.RequestExecutor.ContentType;
+import com.mambu.apisdk.util.RequestExecutor.Method;
+import com.mambu.loans.shared.model.LoanAccount;
+import com.mambu.loans.shared.model.Repayment;
+
+public class LoanScheduleQuoteServiceTest extends MambuAPIServiceTest {
+
+	private final static String scheduleUrl = "https://demo.mambutest.com/api/loanproducts/PROD1/schedule";
+	private final static String productUrl = "https://demo.mambutest.com/api/loanproducts/PROD1";
+
+	private LoanScheduleQuoteService service;
+	private String productModifiedDate = "2015-01-01T10:00:00+0000";
+
+	@Override
+	public void setUp() throws MambuApiException {
+		super.setUp();
+
+		service = new LoanScheduleQuoteService(new LoansService(super.mambuApiService));
+
+		when(executor.executeRequest(anyString(), any(ParamsMap.class), any(Method.class), any(ContentType.class)))
+				.thenAnswer(new Answer<String>() {
+					@Override
+					public String answer(InvocationOnMock invocation) throws Throwable {
+						String url = (String) invocation.getArguments()[0];
+						if (url.startsWith(scheduleUrl)) {
+							return "{\"repayments\":[{\"principalDue\":\"500\"},{\"principalDue\":\"500\"}]}";
+						}
+						return "{\"encodedKey\":\"8a1\",\"id\":\"PROD1\",\"lastModifiedDate\":\""
+								+ productModifiedDate + "\"}";
+					}
+				});
+	}
+
+	/***
+	 * Test that quotes with the same normalized params are returned from the cache
+	 *
+	 */
+	@Test
+	public void testQuotesCached() throws MambuApiException {
+		List<Repayment> repayments = service.getLoanProductSchedule("PROD1", makeAccount("1000.00", "4.5"));
+		assertEquals(2, repayments.size());
+
+		assertSame(repayments, service.getLoanProductSchedule("PROD1", makeAccount("1000", "4.50")));
+		verify(executor, times(1)).executeRequest(contains(scheduleUrl), any(ParamsMap.class), any(Method.class),
+				any(ContentType.class));
+
+		// Different params
+		service.getLoanProductSchedule("PROD1", makeAccount("1000", "5"));
+		verify(executor, times(2)).executeRequest(contains(scheduleUrl), any(ParamsMap.class), any(Method.class),
+				any(ContentType.class));
+		assertEquals(2, service.size());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testQuotesUnmodifiable() throws MambuApiException {
+		service.getLoanProductSchedule("PROD1", makeAccount("1000", "4.5")).clear();
+	}
+
+	/***
+	 * Test that quotes are invalidated when the product is modified
+	 *
+	 */
+	@Test
+	public void testInvalidateOnProductChange() throws MambuApiException {
+		service.getLoanProductSchedule("PROD1", makeAccount("1000", "4.5"));
+		service.getLoanProduct("PROD1");
+		// Not modified
+		service.getLoanProduct("PROD1");
+		assertEquals(1, service.size());
+
+		productModifiedDate = "2015-02-01T10:00:00+0000";
+		service.getLoanProduct("PROD1");
+		assertEquals(0, service.size());
+		verify(executor, times(3)).executeRequest(eq(productUrl), any(ParamsMap.class), any(Method.class),
+				any(ContentType.class));
+
+		service.getLoanProductSchedule("PROD1", makeAccount("1000", "4.5"));
+		verify(executor, times(2)).executeRequest(contains(scheduleUrl), any(ParamsMap.class), any(Method.class),
+				any(ContentType.class));
+	}
+
+	private static LoanAccount makeAccount(String amount, String interestRate) {
+		LoanAccount account = new LoanAccount();
+		account.setLoanAmount(new BigDecimal(amount));
+		account.setInterestRate(new BigDecimal(interestRate));
+		return account;
+	}
+}
@@ -0,0 +1,69 @@
+package com.mambu.apisdk.services;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.APIData;
+import com.mambu.apisdk.util.ParamsMap;
+
+/***
+ * Mocked response for paginated API calls in service tests. Returns the page of the items selected for the request
+ * params, using the offset and limit params, and fails requests with the failing param value
+ *
+ */
+abstract class PagedResponse implements Answer<String> {
+
+	private final String failingParam;
+	private volatile String failingValue;
+
+	/***
+	 * @param failingParam
+	 *            name of the param checked against the failing value. Null if requests never fail
+	 */
+	PagedResponse(String failingParam) {
+		this.failingParam = failingParam;
+	}
+
+	/***
+	 * Fail the requests with the value for the failing param
+	 *
+	 * @param failingValue
+	 *            param value. Null for no failures
+	 */
+	void setFailingValue(String failingValue) {
+		this.failingValue = failingValue;
+	}
+
+	/***
+	 * Get the JSON items matching the request params, in server order
+	 */
+	abstract List<String> getItems(ParamsMap params);
+
+	@Override
+	public String answer(InvocationOnMock invocation) throws Throwable {
+		ParamsMap params = (ParamsMap) invocation.getArguments()[1];
+		if (failingParam != null && failingValue != null && failingValue.equals(params.get(failingParam))) {
+			throw new MambuApiException(500, "{\"returnCode\":-1}");
+		}
+		List<String> items = getItems(params);
+		int offset = Integer.parseInt(params.get(APIData.OFFSET));
+		int limit = Integer.parseInt(params.get(APIData.LIMIT));
+		StringBuilder json = new StringBuilder("[");
+		for (int i = offset; i < items.size() && i < offset + limit; i++) {
+			json.append(i > offset ? "," : "").append(items.get(i));
+		}
+		return json.append("]").toString();
+	}
+
+	static Date june(int day) {
+		Calendar calendar = Calendar.getInstance();
+		calendar.clear();
+		calendar.set(2015, Calendar.JUNE, day);
+		return calendar.getTime();
+	}
+}
@@ -0,0 +1,117 @@
+package com.mambu.apisdk.services;
+
+import static com.mambu.apisdk.services.PagedResponse.june;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.mambu.apisdk.MambuAPIServiceTest;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.APIData;
+import com.mambu.apisdk.util.DateCodec;
+import com.mambu.apisdk.util.ParallelCallsExecutor;
+import com.mambu.apisdk.util.ParamsMap;
+import com.mambu.apisdk.util.RepaymentsAggregator;
+import com.mambu.apisdk.util.RequestExecutor.ContentType;
+import com.mambu.apisdk.util.RequestExecutor.Method;
+
+public class RepaymentsDueScanServiceTest extends MambuAPIServiceTest {
+
+	// Repayments on the server, as {due date, encoded key, branch, officer, principal due, principal paid}
+	private final static String[][] serverRepayments = { { "2015-06-01", "R1", "BR1", "U1", "100", "0" },
+			{ "2015-06-02", "R2", "BR1", "U2", "50.50", "10" }, { "2015-06-02", "R3", "BR2", "U2", "20", "0" },
+			{ "2015-06-02", "R4", "BR1", "U1", "30", "30" }, { "2015-06-03", "R5", "BR2", "U1", "1.25", "0" } };
+
+	private RepaymentsDueScanService service;
+	private final PagedResponse response = new PagedResponse(APIData.DUE_FROM) {
+		// Server repayments due between the dueFrom and dueTo dates of the params
+		@Override
+		List<String> getItems(ParamsMap params) {
+			List<String> repayments = new ArrayList<String>();
+			for (String[] repayment : serverRepayments) {
+				if (repayment[0].compareTo(params.get(APIData.DUE_FROM)) >= 0
+						&& repayment[0].compareTo(params.get(APIData.DUE_TO)) <= 0) {
+					String dueDate = DateCodec.DATE_TIME.format(june(Integer.parseInt(repayment[0].substring(8))));
+					repayments.add("{\"encodedKey\":\"" + repayment[1] + "\",\"dueDate\":\"" + dueDate
+							+ "\",\"assignedBranchKey\":\"" + repayment[2] + "\",\"assignedUserKey\":\""
+							+ repayment[3] + "\",\"principalDue\":" + repayment[4] + ",\"principalPaid\":"
+							+ repayment[5] + "}");
+				}
+			}
+			return repayments;
+		}
+	};
+
+	@Override
+	public void setUp() throws MambuApiException {
+		super.setUp();
+
+		service = new RepaymentsDueScanService(new RepaymentsService(super.mambuApiService),
+				new ParallelCallsExecutor());
+		service.setPageSize(2);
+
+		when(executor.executeRequest(anyString(), any(ParamsMap.class), any(Method.class), any(ContentType.class)))
+				.thenAnswer(response);
+	}
+
+	/***
+	 * Test that repayments due on each date are paged through and aggregated by branch, officer and due date
+	 *
+	 */
+	@Test
+	public void testScan() throws MambuApiException {
+		RepaymentsAggregator<String> byBranch = RepaymentsAggregator.byBranch();
+		RepaymentsAggregator<String> byOfficer = RepaymentsAggregator.byOfficer();
+		RepaymentsAggregator<String> byDueDate = RepaymentsAggregator.byDueDate();
+
+		long count = service.scan(june(1), june(3), byBranch, byOfficer, byDueDate);
+
+		assertEquals(5, count);
+		assertEquals(3, byBranch.getTotals("BR1").getCount());
+		assertEquals(new BigDecimal("180.50"), byBranch.getTotals("BR1").getTotalDue());
+		assertEquals(new BigDecimal("140.50"), byBranch.getTotals("BR1").getTotalOutstanding());
+		assertEquals(new BigDecimal("21.25"), byBranch.getTotals("BR2").getTotalDue());
+		assertEquals(new BigDecimal("131.25"), byOfficer.getTotals("U1").getTotalDue());
+		assertEquals(2, byOfficer.getTotals().size());
+		assertEquals(3, byDueDate.getTotals("2015-06-02").getCount());
+		assertEquals(0, byDueDate.getTotals("2015-06-04").getCount());
+	}
+
+	/***
+	 * Test that a range with more due dates than can be submitted at a time is scanned completely
+	 *
+	 */
+	@Test
+	public void testScanLongRange() throws MambuApiException {
+		service = new RepaymentsDueScanService(new RepaymentsService(super.mambuApiService),
+				new ParallelCallsExecutor(1));
+		RepaymentsAggregator<String> byDueDate = RepaymentsAggregator.byDueDate();
+
+		assertEquals(5, service.scan(june(1), june(30), byDueDate));
+		assertEquals(3, byDueDate.getTotals("2015-06-02").getCount());
+		assertEquals(1, byDueDate.getTotals("2015-06-03").getCount());
+	}
+
+	/***
+	 * Test that a failed due date fails the scan
+	 *
+	 */
+	@Test
+	public void testScanFailure() {
+		response.setFailingValue("2015-06-03");
+		try {
+			service.scan(june(1), june(3), RepaymentsAggregator.byBranch());
+			fail("Scan must fail");
+		} catch (MambuApiException e) {
+			assertEquals(Integer.valueOf(500), e.getErrorCode());
+		}
+	}
+}
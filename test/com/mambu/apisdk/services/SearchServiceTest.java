@@ -0,0 +1,95 @@
+package com.mambu.apisdk.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.mambu.api.server.handler.core.dynamicsearch.model.JSONFilterConstraint;
+import com.mambu.api.server.handler.core.dynamicsearch.model.JSONFilterConstraints;
+import com.mambu.api.server.handler.core.dynamicsearch.model.JSONSortDetails;
+import com.mambu.apisdk.MambuAPIServiceTest;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.APIData;
+import com.mambu.apisdk.util.MambuEntityType;
+import com.mambu.apisdk.util.ParamsMap;
+import com.mambu.apisdk.util.RequestExecutor.ContentType;
+import com.mambu.apisdk.util.RequestExecutor.Method;
+import com.mambu.loans.shared.model.LoanTransaction;
+
+public class SearchServiceTest extends MambuAPIServiceTest {
+
+	private SearchService service;
+
+	@Override
+	public void setUp() throws MambuApiException {
+		super.setUp();
+
+		service = new SearchService(super.mambuApiService);
+	}
+
+	/***
+	 * Test that the search cursor requests the next page with a constraint on the last sort key
+	 *
+	 */
+	@Test
+	public void testSearchEntitiesWithCursor() throws MambuApiException {
+
+		final List<String> requests = new ArrayList<String>();
+		when(executor.executeRequest(anyString(), any(ParamsMap.class), any(Method.class), any(ContentType.class)))
+				.thenAnswer(new Answer<String>() {
+					@Override
+					public String answer(InvocationOnMock invocation) throws Throwable {
+						String json = ((ParamsMap) invocation.getArguments()[1]).get(APIData.JSON_OBJECT);
+						requests.add(json);
+						if (json.contains("\"filterElement\":\"MORE_THAN\",\"value\":\"2\"")) {
+							return "[{\"transactionId\":3}]";
+						}
+						return "[{\"transactionId\":1},{\"transactionId\":2}]";
+					}
+				});
+
+		JSONSortDetails sortDetails = new JSONSortDetails();
+		sortDetails.setSortingColumn("TRANSACTION_ID");
+		sortDetails.setSortingOrder("ASCENDING");
+		JSONFilterConstraints filterConstraints = new JSONFilterConstraints();
+		filterConstraints.setFilterConstraints(new ArrayList<JSONFilterConstraint>());
+		filterConstraints.setSortDetails(sortDetails);
+
+		SearchCursor<LoanTransaction> cursor = service.searchEntitiesWithCursor(MambuEntityType.LOAN_TRANSACTION,
+				filterConstraints, new SearchCursor.SortKeyExtractor<LoanTransaction>() {
+					@Override
+					public String getSortKey(LoanTransaction transaction) {
+						return String.valueOf(transaction.getTransactionId());
+					}
+				}, 2);
+
+		// execute
+		List<Long> ids = new ArrayList<Long>();
+		while (cursor.hasNext()) {
+			ids.add(cursor.next().getTransactionId());
+		}
+
+		// verify
+		assertEquals(3, ids.size());
+		assertEquals(Long.valueOf(3), ids.get(2));
+		assertEquals(2, requests.size());
+		assertFalse(requests.get(0).contains("MORE_THAN"));
+		assertTrue(requests.get(1).contains("\"filterSelection\":\"TRANSACTION_ID\""));
+		// The original filter constraints are not modified
+		assertTrue(filterConstraints.getFilterConstraints().isEmpty());
+		verify(executor, times(2)).executeRequest(anyString(), any(ParamsMap.class), any(Method.class),
+				any(ContentType.class));
+	}
+}
@@ -0,0 +1,96 @@
+package com.mambu.apisdk.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.mambu.apisdk.MambuAPIServiceTest;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.APIData;
+import com.mambu.apisdk.util.ParallelCallsExecutor;
+import com.mambu.apisdk.util.ParamsMap;
+import com.mambu.apisdk.util.RequestExecutor.ContentType;
+import com.mambu.apisdk.util.RequestExecutor.Method;
+import com.mambu.core.shared.model.SearchResult;
+import com.mambu.core.shared.model.SearchType;
+
+public class StreamingSearchServiceTest extends MambuAPIServiceTest {
+
+	private StreamingSearchService service;
+
+	@Override
+	public void setUp() throws MambuApiException {
+		super.setUp();
+
+		service = new StreamingSearchService(new SearchService(super.mambuApiService), new ParallelCallsExecutor());
+	}
+
+	/***
+	 * Test that a separate request is executed for each search type and results and errors are delivered per type
+	 *
+	 */
+	@Test
+	public void testSearchStreamsResultsPerType() throws MambuApiException, InterruptedException {
+
+		when(executor.executeRequest(anyString(), any(ParamsMap.class), any(Method.class), any(ContentType.class)))
+				.thenAnswer(new Answer<String>() {
+					@Override
+					public String answer(InvocationOnMock invocation) throws Throwable {
+						String searchTypes = ((ParamsMap) invocation.getArguments()[1]).get(APIData.SEARCH_TYPES);
+						if (searchTypes.equals("[GROUP]")) {
+							throw new MambuApiException(500, "Search failed");
+						}
+						return "{\"CLIENT\":[{\"selectionType\":\"CLIENT\",\"displayString\":\"John Doe\","
+								+ "\"resultID\":\"123\"}]}";
+					}
+				});
+
+		final ConcurrentHashMap<SearchType, List<SearchResult>> results;
+		results = new ConcurrentHashMap<SearchType, List<SearchResult>>();
+		final ConcurrentHashMap<SearchType, MambuApiException> errors;
+		errors = new ConcurrentHashMap<SearchType, MambuApiException>();
+		final boolean[] completed = new boolean[1];
+
+		// execute
+		StreamingSearch search = service.search(" John ",
+				Arrays.asList(SearchType.CLIENT, SearchType.GROUP, SearchType.LOAN_ACCOUNT), null,
+				new SearchResultsListener() {
+					@Override
+					public void onResults(SearchType searchType, List<SearchResult> typeResults) {
+						results.put(searchType, typeResults);
+					}
+
+					@Override
+					public void onError(SearchType searchType, MambuApiException error) {
+						errors.put(searchType, error);
+					}
+
+					@Override
+					public void onComplete() {
+						completed[0] = true;
+					}
+				});
+
+		// verify
+		assertTrue(search.await(10, TimeUnit.SECONDS));
+		assertTrue(search.isDone());
+		assertTrue(completed[0]);
+		assertEquals("John", search.getQuery());
+		assertEquals(2, results.size());
+		assertEquals(1, results.get(SearchType.CLIENT).size());
+		assertEquals("123", results.get(SearchType.CLIENT).get(0).getResultID());
+		assertTrue(results.get(SearchType.LOAN_ACCOUNT).isEmpty());
+		assertEquals(Integer.valueOf(500), errors.get(SearchType.GROUP).getErrorCode());
+	}
+}
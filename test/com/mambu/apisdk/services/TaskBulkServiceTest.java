@@ -0,0 +1,119 @@
+package com.mambu.apisdk.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.mambu.apisdk.MambuAPIServiceTest;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.model.TaskBulkReport;
+import com.mambu.apisdk.util.APIData;
+import com.mambu.apisdk.util.ParallelCallsExecutor;
+import com.mambu.apisdk.util.ParamsMap;
+import com.mambu.apisdk.util.RequestExecutor.ContentType;
+import com.mambu.apisdk.util.RequestExecutor.Method;
+import com.mambu.docs.shared.model.OwnerType;
+import com.mambu.tasks.shared.model.Task;
+
+public class TaskBulkServiceTest extends MambuAPIServiceTest {
+
+	private final static String tasksUrl = "https://demo.mambutest.com/api/tasks";
+
+	private TaskBulkService service;
+	// URLs of the create and update requests
+	private final List<String> postedUrls = new CopyOnWriteArrayList<String>();
+	private final AtomicBoolean isFlakyFailed = new AtomicBoolean();
+
+	@Override
+	public void setUp() throws MambuApiException {
+		super.setUp();
+
+		// One thread: specs are processed in order
+		service = new TaskBulkService(new TasksService(super.mambuApiService), new ParallelCallsExecutor(1));
+		service.setMaxCallsPerSecond(0);
+
+		when(executor.executeRequest(anyString(), any(ParamsMap.class), any(Method.class), any(ContentType.class)))
+				.thenAnswer(new Answer<String>() {
+					@Override
+					public String answer(InvocationOnMock invocation) throws Throwable {
+						String url = (String) invocation.getArguments()[0];
+						ParamsMap params = (ParamsMap) invocation.getArguments()[1];
+						if (invocation.getArguments()[2] == Method.GET) {
+							// Client C1 has one open task
+							if ("C1".equals(params.get(APIData.CLIENT_ID))
+									&& "OPEN".equals(params.get(APIData.STATUS))) {
+								return "[{\"encodedKey\":\"T1\",\"title\":\"Call client\",\"status\":\"OPEN\"}]";
+							}
+							return "[]";
+						}
+						String json = params.get(APIData.JSON_OBJECT);
+						if (json.contains("\"Flaky\"") && isFlakyFailed.compareAndSet(false, true)) {
+							throw new MambuApiException(500, "{\"returnCode\":-1}");
+						}
+						postedUrls.add(url);
+						return json.replace("\"status\"", "\"encodedKey\":\"N" + postedUrls.size() + "\",\"status\"");
+					}
+				});
+	}
+
+	private static Task task(String clientKey, String title, boolean isCompleted) {
+		Task task = new Task();
+		task.setTitle(title);
+		task.setTaskLinkType(OwnerType.CLIENT);
+		task.setTaskLinkKey(clientKey);
+		if (isCompleted) {
+			task.setToCompleted(null);
+		}
+		return task;
+	}
+
+	/***
+	 * Test that tasks are deduplicated against open tasks retrieved once per client and against the run itself
+	 *
+	 */
+	@Test
+	public void testCreateAndClose() throws MambuApiException {
+		TaskBulkReport report = service.process(Arrays.asList(task("C1", "Call client", false),
+				task("C1", "Visit", false), task("C1", "Visit", false), task("C2", "Call client", false),
+				task("C1", "Call client", true), task("C2", "Nothing to close", true), task("C2", null, false)));
+
+		assertEquals(2, report.getCreatedCount());
+		assertEquals(1, report.getClosedCount());
+		assertEquals(3, report.getSkippedCount());
+		assertEquals(1, report.getFailureCount());
+		assertTrue(report.getFailures().containsKey(6));
+
+		// Open and overdue tasks, once for each client
+		verify(executor, times(4)).executeRequest(eq(tasksUrl), any(ParamsMap.class), eq(Method.GET),
+				any(ContentType.class));
+		assertEquals(3, postedUrls.size());
+		assertTrue(postedUrls.get(2).endsWith("/T1"));
+	}
+
+	/***
+	 * Test that a task which failed to be created is created by a later spec
+	 *
+	 */
+	@Test
+	public void testCreateFailure() throws MambuApiException {
+		TaskBulkReport report = service.process(Arrays.asList(task("C3", "Flaky", false), task("C3", "Flaky", false)));
+
+		assertEquals(1, report.getCreatedCount());
+		assertEquals(1, report.getFailureCount());
+		assertEquals(Integer.valueOf(500), report.getFailures().get(0).getErrorCode());
+	}
+}
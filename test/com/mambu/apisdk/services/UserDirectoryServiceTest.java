@@ -0,0 +1,134 @@
+package com.mambu.apisdk.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.google.common.base.Ticker;
+import com.mambu.apisdk.MambuAPIServiceTest;
+import com.mambu.apisdk.exception.MambuApiException;
+import com.mambu.apisdk.util.ParallelCallsExecutor;
+import com.mambu.apisdk.util.ParamsMap;
+import com.mambu.apisdk.util.RequestExecutor.ContentType;
+import com.mambu.apisdk.util.RequestExecutor.Method;
+
+public class UserDirectoryServiceTest extends MambuAPIServiceTest {
+
+	private final static String usersUrl = "https://demo.mambutest.com/api/users";
+	private final static String rolesUrl = "https://demo.mambutest.com/api/userroles";
+
+	private UserDirectoryService service;
+	private final AtomicLong nanos = new AtomicLong();
+	// Incremented with each user request, returned as the user's last name
+	private final AtomicInteger userVersion = new AtomicInteger();
+
+	@Override
+	public void setUp() throws MambuApiException {
+		super.setUp();
+
+		service = new UserDirectoryService(new UsersService(super.mambuApiService), new ParallelCallsExecutor(), 10,
+				TimeUnit.MINUTES, new Ticker() {
+					@Override
+					public long read() {
+						return nanos.get();
+					}
+				});
+
+		when(executor.executeRequest(anyString(), any(ParamsMap.class), any(Method.class), any(ContentType.class)))
+				.thenAnswer(new Answer<String>() {
+					@Override
+					public String answer(InvocationOnMock invocation) throws Throwable {
+						String url = (String) invocation.getArguments()[0];
+						if (url.equals(usersUrl)) {
+							return "[" + user("1", "jdoe", "BR1", 0) + "," + user("2", "asmith", "BR1", 0) + ","
+									+ user("3", "bking", "BR2", 0) + "]";
+						}
+						if (url.equals(rolesUrl)) {
+							return "[{\"encodedKey\":\"R1\",\"name\":\"Teller\"}]";
+						}
+						if (url.startsWith(usersUrl + "/")) {
+							// User "ckent" with id 4, requested by id or username
+							return user("4", "ckent", "BR3", userVersion.incrementAndGet());
+						}
+						throw new MambuApiException(404, "Not found");
+					}
+				});
+	}
+
+	private static String user(String id, String username, String branchKey, int version) {
+		return "{\"id\":\"" + id + "\",\"username\":\"" + username + "\",\"assignedBranchKey\":\"" + branchKey
+				+ "\",\"lastName\":\"v" + version + "\"}";
+	}
+
+	/***
+	 * Test that preloaded users and roles are found by username, id and branch without further requests
+	 *
+	 */
+	@Test
+	public void testPreload() throws MambuApiException {
+		assertEquals(3, service.preload());
+
+		assertEquals("1", service.getUserByUsername("jdoe").getId());
+		assertEquals("asmith", service.getUserById("2").getUsername());
+		assertEquals(2, service.getUsersByBranch("BR1").size());
+		assertEquals("Teller", service.getUserRole("R1").getName());
+
+		verify(executor, times(1)).executeRequest(eq(usersUrl), any(ParamsMap.class), any(Method.class),
+				any(ContentType.class));
+		verify(executor, times(1)).executeRequest(eq(rolesUrl), any(ParamsMap.class), any(Method.class),
+				any(ContentType.class));
+		verify(executor, times(2)).executeRequest(anyString(), any(ParamsMap.class), any(Method.class),
+				any(ContentType.class));
+	}
+
+	/***
+	 * Test that users not cached are loaded once and reloaded after invalidation
+	 *
+	 */
+	@Test
+	public void testLoadAndInvalidate() throws MambuApiException {
+		assertEquals("v1", service.getUserByUsername("ckent").getLastName());
+		assertEquals("v1", service.getUserById("4").getLastName());
+		assertEquals(1, service.getUsersByBranch("BR3").size());
+
+		service.invalidateUser("4");
+		assertTrue(service.getUsersByBranch("BR3").isEmpty());
+		assertEquals("v2", service.getUserByUsername("ckent").getLastName());
+	}
+
+	/***
+	 * Test that entries are refreshed in the background before they expire and expire after the time to live
+	 *
+	 */
+	@Test
+	public void testRefreshAhead() throws MambuApiException, InterruptedException {
+		assertEquals("v1", service.getUserByUsername("ckent").getLastName());
+
+		// After three quarters of the time to live the cached user is returned and refreshed
+		nanos.set(TimeUnit.MINUTES.toNanos(8));
+		String lastName = service.getUserByUsername("ckent").getLastName();
+		assertTrue(lastName.equals("v1") || lastName.equals("v2"));
+		for (int i = 0; i < 100 && !lastName.equals("v2"); i++) {
+			Thread.sleep(10);
+			lastName = service.getUserByUsername("ckent").getLastName();
+		}
+		assertEquals("v2", lastName);
+
+		// Not requested again during its time to live, the refreshed user expires
+		nanos.set(TimeUnit.MINUTES.toNanos(19));
+		assertEquals("v3", service.getUserByUsername("ckent").getLastName());
+	}
+}
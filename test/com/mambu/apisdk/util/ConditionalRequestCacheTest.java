@@ -0,0 +1,83 @@
+package com.mambu.apisdk.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConditionalRequestCacheTest {
+
+	private ConditionalRequestCache cache;
+
+	@Before
+	public void setUp() {
+		cache = new ConditionalRequestCache();
+		cache.setEnabled(true);
+	}
+
+	@Test
+	public void testPutAndGet() {
+		String response = "{\"id\":\"1\"}";
+		cache.put("url1", "\"etag1\"", null, response);
+
+		ConditionalRequestCache.Entry entry = cache.get("url1");
+		assertEquals("\"etag1\"", entry.getETag());
+		assertNull(entry.getLastModified());
+		assertSame(response, entry.getResponse());
+		assertNull(cache.get("url2"));
+	}
+
+	@Test
+	public void testResponseWithoutValidatorsRemovesEntry() {
+		cache.put("url1", null, "Mon, 19 Oct 2026 10:00:00 GMT", "{}");
+		assertEquals(1, cache.size());
+
+		cache.put("url1", null, null, "{}");
+		assertNull(cache.get("url1"));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEntriesEvicted() {
+		cache.setMaxEntries(2);
+		cache.put("url1", "e1", null, "{}");
+		cache.put("url2", "e2", null, "{}");
+		// Access url1 so that url2 becomes the least recently used entry
+		cache.get("url1");
+		cache.put("url3", "e3", null, "{}");
+
+		assertEquals(2, cache.size());
+		assertNull(cache.get("url2"));
+		assertEquals("e1", cache.get("url1").getETag());
+	}
+
+	@Test
+	public void testTotalLengthBounded() {
+		cache.setMaxTotalLength(10);
+		cache.put("url1", "e1", null, "{\"a\":1}");
+		cache.put("url2", "e2", null, "{\"b\":2}");
+
+		assertEquals(1, cache.size());
+		assertNull(cache.get("url1"));
+		assertEquals(7, cache.getTotalLength());
+	}
+
+	@Test
+	public void testDisabledByDefault() {
+		cache = new ConditionalRequestCache();
+		cache.put("url1", "e1", null, "{}");
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testDisabledCache() {
+		cache.put("url1", "e1", null, "{}");
+		cache.setEnabled(false);
+		assertNull(cache.get("url1"));
+
+		cache.put("url1", "e1", null, "{}");
+		assertEquals(0, cache.size());
+	}
+}
@@ -0,0 +1,61 @@
+package com.mambu.apisdk.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+public class DateCodecTest {
+
+	/***
+	 * Test that dates are formatted the same way as by SimpleDateFormat and parsed back
+	 *
+	 */
+	@Test
+	public void testFormatAndParseSameAsSimpleDateFormat() throws ParseException {
+		Random random = new Random(42);
+		for (DateCodec codec : new DateCodec[] { DateCodec.DATE, DateCodec.DATE_TIME }) {
+			SimpleDateFormat simpleDateFormat = new SimpleDateFormat(codec.getPattern());
+			for (int i = 0; i < 1000; i++) {
+				// Dates between 1970 and 2100, rounded to seconds
+				Date date = new Date((random.nextLong() & Long.MAX_VALUE) % 4102444800L * 1000);
+
+				String expected = simpleDateFormat.format(date);
+				assertEquals(expected, codec.format(date));
+				assertEquals(simpleDateFormat.parse(expected), codec.parse(expected));
+			}
+		}
+	}
+
+	@Test
+	public void testParseWithOffset() throws ParseException {
+		assertEquals(new Date(1420070400000L), DateCodec.DATE_TIME.parse("2015-01-01T02:00:00+0200"));
+		assertEquals(new Date(1420070400000L), DateCodec.DATE_TIME.parse("2014-12-31T19:30:00-0430"));
+		// Other formats are parsed by SimpleDateFormat
+		assertEquals(new SimpleDateFormat("yyyy-MM-dd").parse("2015-1-2"), DateCodec.DATE.parse("2015-1-2"));
+	}
+
+	@Test(expected = ParseException.class)
+	public void testParseInvalid() throws ParseException {
+		DateCodec.DATE.parse("01/02/2015");
+	}
+
+	@Test
+	public void testGsonTypeAdapter() {
+		Gson gson = GsonUtils.createGson();
+		Date date = new Date(1420070400000L);
+
+		String json = gson.toJson(date);
+		assertEquals("\"" + DateCodec.DATE_TIME.format(date) + "\"", json);
+		assertEquals(date, gson.fromJson(json, Date.class));
+		assertEquals(date, gson.fromJson("\"2015-01-01T00:00:00Z\"", Date.class));
+		assertNull(gson.fromJson("null", Date.class));
+	}
+}
@@ -0,0 +1,89 @@
+package com.mambu.apisdk.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.mambu.apisdk.util.ApiDefinition.ApiType;
+import com.mambu.clients.shared.model.Client;
+import com.mambu.loans.shared.model.LoanAccount;
+
+public class JsonRequestEntityTest {
+
+	/***
+	 * Test that the streamed JSON is the same as the JSON string with the appkey added
+	 *
+	 */
+	@Test
+	public void testSameAsJsonString() throws IOException {
+		LoanAccount account = new LoanAccount();
+		account.setId("L1");
+		account.setLoanAmount(new BigDecimal("1000.50"));
+		account.setNotes("Notes with \"quotes\" and unicode é");
+		ApiDefinition apiDefinition = new ApiDefinition(ApiType.CREATE_JSON_ENTITY, LoanAccount.class);
+		Gson gson = GsonUtils.createSerializerGson(apiDefinition);
+
+		String jsonString = ServiceHelper.makeApiJson(account, apiDefinition);
+		assertEquals(jsonString, write(new JsonRequestEntity(gson, account, null)));
+		assertEquals(ServiceHelper.addAppkeyValueToJson("appKey123", jsonString),
+				write(new JsonRequestEntity(gson, account, "appKey123")));
+	}
+
+	/***
+	 * Test that the written length is the number of UTF-8 bytes of the JSON
+	 *
+	 */
+	@Test
+	public void testWrittenLength() throws IOException {
+		JsonRequestEntity entity = new JsonRequestEntity(new Gson(), Arrays.asList("é"), null);
+		assertEquals(-1, entity.getWrittenLength());
+
+		assertEquals("[\"é\"]", write(entity));
+		assertEquals(6, entity.getWrittenLength());
+	}
+
+	@Test
+	public void testAppKeyNotAddedToArray() throws IOException {
+		assertEquals("[{\"a\":1}]", write(new JsonRequestEntity(new Gson(), Arrays.asList(new Object[] { new A() }),
+				"appKey123")));
+	}
+
+	@Test
+	public void testParamsMapJsonObject() {
+		Client client = new Client("John", "Doe");
+		Gson gson = GsonUtils.createGson();
+		ParamsMap params = new ParamsMap();
+		params.put(APIData.OFFSET, "0");
+		params.putJsonObject(client, gson);
+
+		assertSame(client, params.getJsonObject());
+		assertEquals(2, params.size());
+		// JSON string is created when requested
+		assertEquals(gson.toJson(client), params.get(APIData.JSON_OBJECT));
+		assertSame(client, params.getJsonObject());
+
+		// Replaced with a JSON string
+		params.put(APIData.JSON_OBJECT, "{}");
+		assertNull(params.getJsonObject());
+		assertEquals("{}", params.get(APIData.JSON_OBJECT));
+	}
+
+	private static String write(JsonRequestEntity entity) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		entity.writeTo(out);
+		return out.toString("UTF-8");
+	}
+
+	private static class A {
+		@SuppressWarnings("unused")
+		private int a = 1;
+	}
+}
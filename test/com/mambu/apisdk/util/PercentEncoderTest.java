@@ -0,0 +1,56 @@
+package com.mambu.apisdk.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLEncoder;
+
+import org.junit.Test;
+
+public class PercentEncoderTest {
+
+	private final static String[] values = { "", "clients", "clients/8a33aa/loans", "loans/ABC 123",
+			"search?query=a b", "Ärzte Grüße/ñ", "50%", "a+b=c&d", "tab\tnew\nline", "quote\"<>#{}|\\^`[]",
+			"emoji😀", "non-breaking space", "~!*'();:@$,", "2015-01-01T00:00:00+0200" };
+
+	@Test
+	public void testEncodePathSameAsURI() throws URISyntaxException {
+		for (String value : values) {
+			String expected = new URI("https", "demo.mambu.com", "/api/" + value, null).toString();
+			assertEquals(value, expected, "https://demo.mambu.com/api/" + PercentEncoder.encodePath(value));
+		}
+	}
+
+	@Test
+	public void testEncodeQueryParamSameAsURLEncoder() throws Exception {
+		for (String value : values) {
+			assertEquals(value, URLEncoder.encode(value, "UTF-8"), PercentEncoder.encodeQueryParam(value));
+		}
+	}
+
+	@Test
+	public void testSafeValuesNotCopied() {
+		String path = "clients/8a33aa/loans";
+		assertSame(path, PercentEncoder.encodePath(path));
+		String value = "8a33aa_1.2";
+		assertSame(value, PercentEncoder.encodeQueryParam(value));
+	}
+
+	@Test
+	public void testCreateUrl() {
+		assertEquals("https://demo.mambu.com/api/clients/Jane%20Doe",
+				new URLHelper("demo.mambu.com").createUrl("clients/Jane Doe"));
+		assertEquals("https://localhost:8889/api/loans", new URLHelper("localhost:8889").createUrl("loans"));
+	}
+
+	@Test
+	public void testParamsMapUrlString() {
+		ParamsMap params = new ParamsMap();
+		params.addParam("offset", "0");
+		params.addParam("skipped", null);
+		params.addParam("query", "Jane Doe & Co");
+		assertEquals("offset=0&query=Jane+Doe+%26+Co", params.getURLString());
+	}
+}